@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.entitySystem.stubs;
+
+import org.terasology.entitySystem.Component;
+import org.terasology.math.geom.Vector3f;
+
+/**
+ * A component with a field of each type covered by generated protobuf codecs, plus some that are not.
+ */
+public final class SimpleFieldsComponent implements Component {
+    public float floatValue;
+    public int intValue;
+    public long longValue;
+    public boolean booleanValue;
+    public double doubleValue;
+    public Float boxedFloat;
+    public Integer boxedInt;
+    public Long boxedLong;
+    public Boolean boxedBoolean;
+    public Double boxedDouble;
+    public String text;
+    public Vector3f position;
+
+    private String wrapped;
+
+    public String getWrapped() {
+        return wrapped;
+    }
+
+    public void setWrapped(String wrapped) {
+        this.wrapped = wrapped;
+    }
+}
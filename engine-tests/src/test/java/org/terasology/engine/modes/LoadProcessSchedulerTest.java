@@ -0,0 +1,220 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.modes;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.terasology.context.Context;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.engine.modes.loadProcesses.EnsureSaveGameConsistency;
+import org.terasology.engine.modes.loadProcesses.InitialisePhysics;
+import org.terasology.engine.modes.loadProcesses.InitialiseSystems;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ */
+public class LoadProcessSchedulerTest {
+
+    private final List<String> completed = Collections.synchronizedList(Lists.newArrayList());
+
+    @Test
+    public void testMainThreadProcessesRunInOrder() {
+        LoadProcessScheduler scheduler = new LoadProcessScheduler(0);
+        scheduler.add(new TestProcess("a", 3));
+        scheduler.add(new TestProcess("b", 1));
+        scheduler.add(new WorkerProcess("c", null));
+        scheduler.add(new TestProcess("d", 2));
+        runToCompletion(scheduler);
+        assertEquals(Lists.newArrayList("a", "b", "c", "d"), completed);
+        assertEquals(1f, scheduler.getProgress(), 0.0001f);
+    }
+
+    @Test
+    public void testWorkerProcessRunsConcurrentlyWithIndependentProcesses() throws InterruptedException {
+        CountDownLatch mainThreadDone = new CountDownLatch(1);
+        LoadProcessScheduler scheduler = new LoadProcessScheduler(1);
+        scheduler.add(new TestProcess("first", 1));
+        scheduler.add(new WorkerProcess("worker", ImmutableSet.of(TestProcess.class)) {
+            @Override
+            public boolean step() {
+                try {
+                    // Only finishes once the independent main thread process has run alongside it
+                    assertTrue(mainThreadDone.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.step();
+            }
+        });
+        scheduler.add(new TestProcess("independent", 1) {
+            @Override
+            public Set<Class<? extends LoadProcess>> getDependencies() {
+                return Collections.emptySet();
+            }
+
+            @Override
+            public boolean step() {
+                boolean result = super.step();
+                mainThreadDone.countDown();
+                return result;
+            }
+        });
+        scheduler.add(new TestProcess("last", 1));
+        runToCompletion(scheduler);
+        assertEquals(Lists.newArrayList("first", "independent", "worker", "last"), completed);
+    }
+
+    @Test
+    public void testWorkerFailureIsRethrown() {
+        LoadProcessScheduler scheduler = new LoadProcessScheduler(1);
+        scheduler.add(new WorkerProcess("failing", Collections.emptySet()) {
+            @Override
+            public boolean step() {
+                throw new IllegalStateException("failed");
+            }
+        });
+        scheduler.add(new TestProcess("after", 1));
+        try {
+            runToCompletion(scheduler);
+            fail("Expected the worker failure to be rethrown");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertFalse(completed.contains("after"));
+    }
+
+    @Test
+    public void testPhysicsAndSystemsWaitForSaveGameRepair() {
+        AtomicBoolean repairing = new AtomicBoolean();
+        Context context = new ContextImpl();
+        LoadProcessScheduler scheduler = new LoadProcessScheduler(1);
+        scheduler.add(new EnsureSaveGameConsistency(context) {
+            @Override
+            public boolean step() {
+                repairing.set(true);
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                completed.add("repair");
+                repairing.set(false);
+                return true;
+            }
+        });
+        scheduler.add(new InitialisePhysics(context) {
+            @Override
+            public boolean step() {
+                assertFalse("Physics was initialised while the save was being repaired", repairing.get());
+                completed.add("physics");
+                return true;
+            }
+        });
+        scheduler.add(new InitialiseSystems(context) {
+            @Override
+            public boolean step() {
+                assertFalse("Systems were initialised while the save was being repaired", repairing.get());
+                completed.add("systems");
+                return true;
+            }
+        });
+        runToCompletion(scheduler);
+        assertEquals(Lists.newArrayList("repair", "physics", "systems"), completed);
+    }
+
+    private void runToCompletion(LoadProcessScheduler scheduler) {
+        long start = System.currentTimeMillis();
+        while (!scheduler.isFinished()) {
+            if (!scheduler.step()) {
+                Thread.yield();
+            }
+            if (System.currentTimeMillis() - start > 10000) {
+                fail("Loading did not finish");
+            }
+        }
+    }
+
+    private class TestProcess implements LoadProcess {
+        private final String name;
+        private final int steps;
+        private int stepsDone;
+
+        TestProcess(String name, int steps) {
+            this.name = name;
+            this.steps = steps;
+        }
+
+        @Override
+        public String getMessage() {
+            return name;
+        }
+
+        @Override
+        public boolean step() {
+            stepsDone++;
+            if (stepsDone == steps) {
+                completed.add(name);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public float getProgress() {
+            return (float) stepsDone / steps;
+        }
+
+        @Override
+        public int getExpectedCost() {
+            return 1;
+        }
+    }
+
+    private class WorkerProcess extends TestProcess {
+        private final Set<Class<? extends LoadProcess>> dependencies;
+
+        WorkerProcess(String name, Set<Class<? extends LoadProcess>> dependencies) {
+            super(name, 1);
+            this.dependencies = dependencies;
+        }
+
+        @Override
+        public LoadThreadAffinity getThreadAffinity() {
+            return LoadThreadAffinity.WORKER;
+        }
+
+        @Override
+        public Set<Class<? extends LoadProcess>> getDependencies() {
+            return dependencies;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.ai;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.context.Context;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.engine.Time;
+import org.terasology.entitySystem.entity.EntityManager;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.logic.characters.CharacterComponent;
+import org.terasology.logic.characters.CharacterMovementComponent;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.logic.location.SpatialIndex;
+import org.terasology.logic.location.SpatialIndexSystem;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.network.ClientComponent;
+import org.terasology.registry.InjectionHelper;
+import org.terasology.world.WorldProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class SimpleAISystemTest {
+
+    private SimpleAISystem aiSystem;
+    private SpatialIndexSystem spatialIndex;
+    private SimpleAIComponent ai;
+    private long nextFakeEntityId = 1;
+
+    @Before
+    public void setup() {
+        spatialIndex = new SpatialIndexSystem();
+        WorldProvider worldProvider = mock(WorldProvider.class);
+        when(worldProvider.isBlockRelevant(any(Vector3f.class))).thenReturn(true);
+
+        ai = new SimpleAIComponent();
+        LocationComponent aiLocation = new LocationComponent(new Vector3f(0, 0, 0));
+        EntityRef aiEntity = createFakeEntityWith(aiLocation);
+        when(aiEntity.getComponent(SimpleAIComponent.class)).thenReturn(ai);
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.getEntitiesWith(SimpleAIComponent.class, CharacterMovementComponent.class, LocationComponent.class))
+                .thenReturn(ImmutableList.of(aiEntity));
+
+        Context context = new ContextImpl();
+        context.put(WorldProvider.class, worldProvider);
+        context.put(EntityManager.class, entityManager);
+        context.put(Time.class, mock(Time.class));
+        context.put(SpatialIndex.class, spatialIndex);
+        aiSystem = new SimpleAISystem();
+        InjectionHelper.inject(aiSystem, context);
+    }
+
+    private EntityRef createFakeEntityWith(LocationComponent locationComponent) {
+        EntityRef entRef = mock(EntityRef.class);
+        when(entRef.getComponent(LocationComponent.class)).thenReturn(locationComponent);
+        when(entRef.exists()).thenReturn(true);
+        when(entRef.getId()).thenReturn(nextFakeEntityId++);
+        spatialIndex.onActivated(OnActivatedComponent.newInstance(), entRef, locationComponent);
+        return entRef;
+    }
+
+    private EntityRef addCharacter(Vector3f position, EntityRef controller) {
+        CharacterComponent character = new CharacterComponent();
+        character.controller = controller;
+        LocationComponent location = new LocationComponent(position);
+        EntityRef entity = createFakeEntityWith(location);
+        when(entity.hasComponent(CharacterComponent.class)).thenReturn(true);
+        when(entity.getComponent(CharacterComponent.class)).thenReturn(character);
+        return entity;
+    }
+
+    private EntityRef createFakeClient() {
+        EntityRef client = mock(EntityRef.class);
+        when(client.hasComponent(ClientComponent.class)).thenReturn(true);
+        return client;
+    }
+
+    @Test
+    public void testFollowsNearbyPlayer() {
+        addCharacter(new Vector3f(3, 0, 0), createFakeClient());
+
+        aiSystem.update(0.1f);
+        assertTrue(ai.followingPlayer);
+        assertEquals(new Vector3f(3, 0, 0), ai.movementTarget);
+    }
+
+    @Test
+    public void testFollowsNearestOfSeveralPlayers() {
+        addCharacter(new Vector3f(0, 0, 3.5f), createFakeClient());
+        addCharacter(new Vector3f(-3, 0, 0), createFakeClient());
+
+        aiSystem.update(0.1f);
+        assertEquals(new Vector3f(-3, 0, 0), ai.movementTarget);
+    }
+
+    @Test
+    public void testIgnoresCharactersWithoutClient() {
+        addCharacter(new Vector3f(3, 0, 0), EntityRef.NULL);
+
+        aiSystem.update(0.1f);
+        assertFalse(ai.followingPlayer);
+    }
+
+    @Test
+    public void testStopsFollowingPlayerMovedAwayByPhysics() {
+        EntityRef player = addCharacter(new Vector3f(3, 0, 0), createFakeClient());
+        aiSystem.update(0.1f);
+        assertTrue(ai.followingPlayer);
+
+        // as physics does, without saving the component
+        player.getComponent(LocationComponent.class).setWorldPosition(new Vector3f(50, 0, 0));
+        spatialIndex.markMoved(player);
+        aiSystem.update(0.1f);
+        assertFalse(ai.followingPlayer);
+    }
+}
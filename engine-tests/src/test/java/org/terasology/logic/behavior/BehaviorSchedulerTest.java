@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.behavior;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.logic.behavior.tree.Interpreter;
+import org.terasology.math.geom.Vector3f;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class BehaviorSchedulerTest {
+    private static final long TICK_NANOS = 1000000;
+
+    private long now;
+    private List<Integer> tickOrder = Lists.newArrayList();
+    private List<Vector3f> noViewers = Collections.emptyList();
+
+    @Before
+    public void setup() {
+        now = 0;
+        tickOrder.clear();
+    }
+
+    @Test
+    public void testUnlimitedBudgetTicksEveryInterpreter() {
+        BehaviorScheduler scheduler = new BehaviorScheduler(0, () -> now);
+        CountingInterpreter[] interpreters = createInterpreters(scheduler, 5);
+
+        scheduler.update(0.1f, noViewers);
+        scheduler.update(0.1f, noViewers);
+
+        for (CountingInterpreter interpreter : interpreters) {
+            assertEquals(2, interpreter.ticks);
+            assertEquals(0.2f, interpreter.totalDelta, 0.0001f);
+        }
+        assertEquals(5, scheduler.getTickedPerFrame().getLast());
+        assertEquals(0, scheduler.getSkippedPerFrame().getLast());
+    }
+
+    @Test
+    public void testBudgetDefersRemainingInterpretersToNextFrame() {
+        BehaviorScheduler scheduler = new BehaviorScheduler(2, () -> now);
+        CountingInterpreter[] interpreters = createInterpreters(scheduler, 5);
+
+        scheduler.update(0.1f, noViewers);
+        assertEquals(Lists.newArrayList(0, 1), tickOrder);
+        assertEquals(2, scheduler.getTickedPerFrame().getLast());
+        assertEquals(3, scheduler.getSkippedPerFrame().getLast());
+
+        scheduler.update(0.1f, noViewers);
+        scheduler.update(0.1f, noViewers);
+        assertEquals(Lists.newArrayList(0, 1, 2, 3, 4, 0), tickOrder);
+
+        // the deferred interpreters receive the time they waited for
+        assertEquals(0.2f, interpreters[2].totalDelta, 0.0001f);
+        assertEquals(0.3f, interpreters[4].totalDelta, 0.0001f);
+        assertEquals(0.3f, interpreters[0].totalDelta, 0.0001f);
+    }
+
+    @Test
+    public void testTinyBudgetStillTicksOneInterpreterPerFrame() {
+        BehaviorScheduler scheduler = new BehaviorScheduler(0.001f, () -> now);
+        createInterpreters(scheduler, 3);
+
+        for (int i = 0; i < 4; i++) {
+            scheduler.update(0.1f, noViewers);
+        }
+
+        assertEquals(Lists.newArrayList(0, 1, 2, 0), tickOrder);
+    }
+
+    @Test
+    public void testRemoveDuringUpdate() {
+        BehaviorScheduler scheduler = new BehaviorScheduler(0, () -> now);
+        CountingInterpreter[] interpreters = createInterpreters(scheduler, 3);
+        interpreters[0].onTick = () -> scheduler.remove(interpreters[1]);
+
+        scheduler.update(0.1f, noViewers);
+        scheduler.update(0.1f, noViewers);
+
+        assertEquals(Lists.newArrayList(0, 2, 0, 2), tickOrder);
+        assertEquals(2, scheduler.size());
+    }
+
+    @Test
+    public void testTickIntervalGrowsWithDistance() {
+        assertEquals(1, BehaviorScheduler.getTickInterval(0));
+        assertEquals(1, BehaviorScheduler.getTickInterval(32 * 32));
+        assertEquals(2, BehaviorScheduler.getTickInterval(48 * 48));
+        assertEquals(4, BehaviorScheduler.getTickInterval(100 * 100));
+        assertEquals(8, BehaviorScheduler.getTickInterval(1000 * 1000));
+    }
+
+    private CountingInterpreter[] createInterpreters(BehaviorScheduler scheduler, int count) {
+        CountingInterpreter[] interpreters = new CountingInterpreter[count];
+        for (int i = 0; i < count; i++) {
+            interpreters[i] = new CountingInterpreter(i);
+            scheduler.add(interpreters[i]);
+        }
+        return interpreters;
+    }
+
+    private class CountingInterpreter extends Interpreter {
+        private final int index;
+        private int ticks;
+        private float totalDelta;
+        private Runnable onTick = () -> { };
+
+        CountingInterpreter(int index) {
+            super(null);
+            this.index = index;
+        }
+
+        @Override
+        public int tick(float deltaSeconds) {
+            ticks++;
+            totalDelta += deltaSeconds;
+            tickOrder.add(index);
+            now += TICK_NANOS;
+            onTick.run();
+            return 0;
+        }
+    }
+}
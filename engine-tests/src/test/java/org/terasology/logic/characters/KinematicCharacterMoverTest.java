@@ -15,13 +15,54 @@
  */
 package org.terasology.logic.characters;
 
+import com.google.common.collect.Lists;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.AbstractValueModifiableEvent;
+import org.terasology.entitySystem.event.Event;
+import org.terasology.logic.characters.events.FootstepEvent;
+import org.terasology.logic.characters.events.JumpEvent;
+import org.terasology.logic.characters.events.VerticalCollisionEvent;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.physics.engine.CharacterCollider;
+import org.terasology.physics.engine.PhysicsEngine;
+import org.terasology.physics.engine.SweepCallback;
+import org.terasology.world.WorldProvider;
+import org.terasology.world.block.Block;
+
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 /**
  */
 public class KinematicCharacterMoverTest {
 
+    private static final int STEP_MS = 100;
+
+    private KinematicCharacterMover mover;
+
+    @Before
+    public void setup() {
+        WorldProvider worldProvider = mock(WorldProvider.class);
+        Block air = new Block();
+        when(worldProvider.isBlockRelevant(any(Vector3f.class))).thenReturn(true);
+        when(worldProvider.getBlock(any(Vector3f.class))).thenReturn(air);
+        when(worldProvider.getBlock(any(Vector3i.class))).thenReturn(air);
+
+        PhysicsEngine physics = mock(PhysicsEngine.class);
+        when(physics.getEpsilon()).thenReturn(1e-6f);
+        when(physics.getCharacterCollider(any(EntityRef.class))).thenReturn(new FloorCollider());
+
+        mover = new KinematicCharacterMover(worldProvider, physics);
+    }
+
     @Test
     public void testUpdateMode() {
         CharacterStateEvent state = new CharacterStateEvent();
@@ -53,4 +94,161 @@ public void testUpdateMode() {
         KinematicCharacterMover.updateMode(state, false, false, true);
         Assert.assertSame(MovementMode.CLIMBING, state.getMode());
     }
+
+    @Test
+    public void testDeferredStepMatchesImmediateStep() {
+        FakeCharacter immediate = new FakeCharacter();
+        FakeCharacter deferred = new FakeCharacter();
+        CharacterStateEvent immediateState = createInitialState();
+        CharacterStateEvent deferredState = createInitialState();
+
+        for (int i = 0; i < 40; i++) {
+            immediateState = mover.step(immediateState, createInput(i), immediate.entity);
+
+            KinematicCharacterMover.DeferredStep step = mover.prepareStep(deferredState, createInput(i), deferred.entity);
+            step.run();
+            deferredState = step.complete();
+
+            assertSameState(immediateState, deferredState);
+            Assert.assertEquals(immediate.events, deferred.events);
+            Assert.assertEquals(immediate.movement.numberOfJumpsLeft, deferred.movement.numberOfJumpsLeft);
+            Assert.assertEquals(immediate.movement.numberOfJumpsMax, deferred.movement.numberOfJumpsMax);
+        }
+
+        Assert.assertTrue(immediate.events.contains(JumpEvent.class));
+        Assert.assertTrue(immediate.events.contains(VerticalCollisionEvent.class));
+        Assert.assertTrue(immediate.events.contains(FootstepEvent.class));
+    }
+
+    @Test
+    public void testDeferredStepChangesCharacterOnlyWhenCompleted() {
+        FakeCharacter character = new FakeCharacter();
+        CharacterMoveInputEvent jump = new CharacterMoveInputEvent(1, 0, 0, new Vector3f(), false, true, STEP_MS);
+
+        KinematicCharacterMover.DeferredStep step = mover.prepareStep(createInitialState(), jump, character.entity);
+        step.run();
+        Assert.assertTrue(character.events.isEmpty());
+        Assert.assertEquals(2, character.movement.numberOfJumpsLeft);
+
+        step.complete();
+        Assert.assertEquals(Lists.newArrayList(JumpEvent.class), character.events);
+        Assert.assertEquals(1, character.movement.numberOfJumpsLeft);
+    }
+
+    private static CharacterStateEvent createInitialState() {
+        CharacterStateEvent state = new CharacterStateEvent();
+        state.setGrounded(true);
+        return state;
+    }
+
+    /**
+     * Walks forward, jumps twice (the second time in mid-air), lands and walks on.
+     */
+    private static CharacterMoveInputEvent createInput(int sequence) {
+        Vector3f direction = (sequence < 10 || sequence >= 25) ? new Vector3f(0, 0, 1) : new Vector3f();
+        boolean jump = sequence == 6 || sequence == 8;
+        return new CharacterMoveInputEvent(sequence, 0, 0, direction, false, jump, STEP_MS);
+    }
+
+    private static void assertSameState(CharacterStateEvent expected, CharacterStateEvent actual) {
+        Assert.assertEquals(expected.getSequenceNumber(), actual.getSequenceNumber());
+        Assert.assertEquals(expected.getTime(), actual.getTime());
+        Assert.assertEquals(expected.getPosition(), actual.getPosition());
+        Assert.assertEquals(expected.getVelocity(), actual.getVelocity());
+        Assert.assertEquals(expected.getRotation(), actual.getRotation());
+        Assert.assertSame(expected.getMode(), actual.getMode());
+        Assert.assertEquals(expected.isGrounded(), actual.isGrounded());
+        Assert.assertEquals(expected.getFootstepDelta(), actual.getFootstepDelta(), 0);
+    }
+
+    /**
+     * A character entity that records the types of the events sent to it, leaving out the queries that only ask for
+     * a value.
+     */
+    private static final class FakeCharacter {
+        private final EntityRef entity = mock(EntityRef.class);
+        private final CharacterMovementComponent movement = new CharacterMovementComponent();
+        private final List<Class<?>> events = Lists.newArrayList();
+
+        private FakeCharacter() {
+            movement.baseNumberOfJumpsMax = 2;
+            movement.numberOfJumpsMax = 2;
+            movement.numberOfJumpsLeft = 2;
+            when(entity.getComponent(CharacterMovementComponent.class)).thenReturn(movement);
+            when(entity.getComponent(LocationComponent.class)).thenReturn(new LocationComponent());
+            when(entity.send(any(Event.class))).thenAnswer(invocation -> {
+                Object event = invocation.getArguments()[0];
+                if (!(event instanceof AbstractValueModifiableEvent)) {
+                    events.add(event.getClass());
+                }
+                return event;
+            });
+        }
+    }
+
+    /**
+     * Collides with a flat floor at y = 0 and nothing else.
+     */
+    private static final class FloorCollider implements CharacterCollider {
+
+        @Override
+        public boolean isPending() {
+            return false;
+        }
+
+        @Override
+        public Vector3f getLocation() {
+            return new Vector3f();
+        }
+
+        @Override
+        public void setLocation(Vector3f loc) {
+        }
+
+        @Override
+        public SweepCallback sweep(Vector3f startPos, Vector3f endPos, float allowedPenetration, float slopeFactor) {
+            if (startPos.y >= 0 && endPos.y < 0) {
+                return new FloorHit(startPos.y / (startPos.y - endPos.y));
+            }
+            return new FloorHit(1.0f);
+        }
+    }
+
+    private static final class FloorHit implements SweepCallback {
+        private final float fraction;
+
+        private FloorHit(float fraction) {
+            this.fraction = fraction;
+        }
+
+        @Override
+        public float calculateAverageSlope(float originalSlope, float checkingOffset) {
+            return originalSlope;
+        }
+
+        @Override
+        public Vector3f getHitNormalWorld() {
+            return new Vector3f(0, 1, 0);
+        }
+
+        @Override
+        public Vector3f getHitPointWorld() {
+            return new Vector3f();
+        }
+
+        @Override
+        public float getClosestHitFraction() {
+            return fraction;
+        }
+
+        @Override
+        public boolean hasHit() {
+            return fraction < 1.0f;
+        }
+
+        @Override
+        public boolean checkForStep(Vector3f direction, float stepHeight, float slopeFactor, float checkForwardDistance) {
+            return false;
+        }
+    }
 }
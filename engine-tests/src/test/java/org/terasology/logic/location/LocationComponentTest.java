@@ -20,6 +20,8 @@
 import org.terasology.TerasologyTestingEnvironment;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.lifecycleEvents.BeforeRemoveComponent;
+import org.terasology.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.entitySystem.entity.lifecycleEvents.OnChangedComponent;
 import org.terasology.math.TeraMath;
 import org.terasology.math.geom.Quat4f;
 import org.terasology.math.geom.Vector3f;
@@ -279,6 +281,62 @@ public void testPositionMaintainedWhenParentDestroyed() {
         TeraAssert.assertEquals(new Vector3f(2, 0, 0), loc.getWorldPosition(), 0.000001f);
     }
 
+    @Test
+    public void testWorldPositionFollowsDirectlyModifiedLocalPosition() {
+        loc.setLocalPosition(pos1);
+        assertEquals(pos1, loc.getWorldPosition());
+        loc.getLocalPosition().add(pos2);
+        assertEquals(pos1plus2, loc.getWorldPosition());
+    }
+
+    @Test
+    public void testWorldPositionFollowsMovedGrandparent() {
+        giveParent();
+        LocationComponent grandparent = new LocationComponent();
+        EntityRef grandparentEntity = createFakeEntityWith(grandparent);
+        Location.attachChild(grandparentEntity, loc.getParent());
+        loc.setLocalPosition(pos1);
+        assertEquals(pos1, loc.getWorldPosition());
+
+        grandparent.getLocalPosition().set(pos2);
+        assertEquals(pos1plus2, loc.getWorldPosition());
+        grandparent.setLocalScale(2.0f);
+        assertEquals(new Vector3f(4, 7, 10), loc.getWorldPosition());
+    }
+
+    @Test
+    public void testWorldPositionFollowsReplacedParentComponent() {
+        giveParent();
+        EntityRef parentEntity = loc.getParent();
+        loc.setLocalPosition(pos1);
+        assertEquals(pos1, loc.getWorldPosition());
+
+        LocationComponent replacement = new LocationComponent(pos2);
+        replacement.children.add(entity);
+        when(parentEntity.getComponent(LocationComponent.class)).thenReturn(replacement);
+        new Location().onChanged(OnChangedComponent.newInstance(), parentEntity, replacement);
+
+        assertEquals(pos1plus2, loc.getWorldPosition());
+    }
+
+    @Test
+    public void testWorldPositionFollowsReactivatedGrandparent() {
+        giveParent();
+        EntityRef parentEntity = loc.getParent();
+        LocationComponent grandparent = new LocationComponent();
+        EntityRef grandparentEntity = createFakeEntityWith(grandparent);
+        Location.attachChild(grandparentEntity, parentEntity);
+        loc.setLocalPosition(pos1);
+        assertEquals(pos1, loc.getWorldPosition());
+
+        // loaded again with new components
+        LocationComponent replacement = new LocationComponent(pos2);
+        replacement.children.add(parentEntity);
+        when(grandparentEntity.getComponent(LocationComponent.class)).thenReturn(replacement);
+        new Location().onActivated(OnActivatedComponent.newInstance(), grandparentEntity, replacement);
+
+        assertEquals(pos1plus2, loc.getWorldPosition());
+    }
 
     private LocationComponent giveParent() {
         LocationComponent parent = new LocationComponent();
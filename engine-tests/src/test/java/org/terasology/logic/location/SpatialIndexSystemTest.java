@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.location;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
+import org.terasology.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.entitySystem.entity.lifecycleEvents.OnChangedComponent;
+import org.terasology.math.geom.Vector3f;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class SpatialIndexSystemTest {
+
+    private SpatialIndexSystem index;
+    private long nextFakeEntityId = 1;
+
+    @Before
+    public void setup() {
+        index = new SpatialIndexSystem();
+    }
+
+    private EntityRef createFakeEntityWith(LocationComponent locationComponent) {
+        EntityRef entRef = mock(EntityRef.class);
+        when(entRef.getComponent(LocationComponent.class)).thenReturn(locationComponent);
+        when(entRef.exists()).thenReturn(true);
+        when(entRef.getId()).thenReturn(nextFakeEntityId++);
+        return entRef;
+    }
+
+    @Test
+    public void testSavedMoveIsFoundRightAway() {
+        LocationComponent location = new LocationComponent(new Vector3f(0, 0, 0));
+        EntityRef entity = createFakeEntityWith(location);
+        index.onActivated(OnActivatedComponent.newInstance(), entity, location);
+
+        location.setWorldPosition(new Vector3f(100, 0, 0));
+        index.onChanged(OnChangedComponent.newInstance(), entity, location);
+
+        assertEquals(ImmutableList.of(entity), index.getEntitiesInRadius(new Vector3f(100, 0, 0), 1));
+    }
+
+    @Test
+    public void testUnsavedMoveIsFoundOnceMarked() {
+        LocationComponent location = new LocationComponent(new Vector3f(0, 0, 0));
+        EntityRef entity = createFakeEntityWith(location);
+        index.onActivated(OnActivatedComponent.newInstance(), entity, location);
+
+        // as physics does, without saving the component
+        location.setWorldPosition(new Vector3f(100, 0, 0));
+        assertEquals(ImmutableList.of(entity), index.getEntitiesInRadius(new Vector3f(0, 0, 0), 1));
+
+        index.markMoved(entity);
+        assertEquals(ImmutableList.of(), index.getEntitiesInRadius(new Vector3f(0, 0, 0), 1));
+        assertEquals(ImmutableList.of(entity), index.getEntitiesInRadius(new Vector3f(100, 0, 0), 1));
+    }
+
+    @Test
+    public void testMarkedMoveAlsoMovesChildren() {
+        LocationComponent parentLocation = new LocationComponent(new Vector3f(0, 0, 0));
+        EntityRef parent = createFakeEntityWith(parentLocation);
+        LocationComponent childLocation = new LocationComponent(new Vector3f(1, 0, 0));
+        EntityRef child = createFakeEntityWith(childLocation);
+        Location.attachChild(parent, child);
+        index.onActivated(OnActivatedComponent.newInstance(), parent, parentLocation);
+        index.onActivated(OnActivatedComponent.newInstance(), child, childLocation);
+
+        parentLocation.setWorldPosition(new Vector3f(100, 0, 0));
+        index.markMoved(parent);
+        assertEquals(ImmutableList.of(child), index.getEntitiesInRadius(new Vector3f(101, 0, 0), 0.5f));
+    }
+
+    @Test
+    public void testEntityWithoutPositionIsAddedOnceItHasOne() {
+        LocationComponent location = new LocationComponent(new Vector3f(Float.NaN, Float.NaN, Float.NaN));
+        EntityRef entity = createFakeEntityWith(location);
+        index.onActivated(OnActivatedComponent.newInstance(), entity, location);
+        assertEquals(0, index.size());
+
+        location.setWorldPosition(new Vector3f(5, 5, 5));
+        index.markMoved(entity);
+        assertEquals(ImmutableList.of(entity), index.getEntitiesInRadius(new Vector3f(5, 5, 5), 1));
+    }
+
+    @Test
+    public void testDeactivatedEntityIsNotAddedAgainByMarkedMove() {
+        LocationComponent location = new LocationComponent(new Vector3f(0, 0, 0));
+        EntityRef entity = createFakeEntityWith(location);
+        index.onActivated(OnActivatedComponent.newInstance(), entity, location);
+        index.markMoved(entity);
+        index.onDeactivated(BeforeDeactivateComponent.newInstance(), entity, location);
+        index.markMoved(entity);
+
+        assertEquals(0, index.size());
+    }
+}
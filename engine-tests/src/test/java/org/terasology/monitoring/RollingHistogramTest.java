@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.monitoring;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ */
+public class RollingHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        RollingHistogram histogram = new RollingHistogram(4);
+        assertEquals(0, histogram.getSampleCount());
+        assertEquals(0, histogram.getLast());
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals(0, histogram.getMean(), 0.0001);
+    }
+
+    @Test
+    public void testWindowKeepsMostRecentSamples() {
+        RollingHistogram histogram = new RollingHistogram(4);
+        for (int i = 1; i <= 10; ++i) {
+            histogram.record(i);
+        }
+        assertEquals(4, histogram.getSampleCount());
+        assertEquals(10, histogram.getTotalCount());
+        assertEquals(55, histogram.getTotal());
+        assertEquals(10, histogram.getLast());
+        assertEquals(10, histogram.getMax());
+        assertEquals(8.5, histogram.getMean(), 0.0001);
+    }
+
+    @Test
+    public void testPercentiles() {
+        RollingHistogram histogram = new RollingHistogram(100);
+        for (int i = 100; i > 0; --i) {
+            histogram.record(i);
+        }
+        assertEquals(1, histogram.getPercentile(0));
+        assertEquals(50, histogram.getPercentile(50));
+        assertEquals(95, histogram.getPercentile(95));
+        assertEquals(100, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void testBucketCounts() {
+        RollingHistogram histogram = new RollingHistogram(8);
+        histogram.record(0);
+        histogram.record(5);
+        histogram.record(10);
+        histogram.record(11);
+        histogram.record(1000);
+        assertArrayEquals(new int[]{2, 1, 1, 1}, histogram.getBucketCounts(5, 10, 100));
+    }
+
+    @Test
+    public void testClear() {
+        RollingHistogram histogram = new RollingHistogram(4);
+        histogram.record(3);
+        histogram.clear();
+        assertEquals(0, histogram.getSampleCount());
+        assertEquals(0, histogram.getTotal());
+    }
+}
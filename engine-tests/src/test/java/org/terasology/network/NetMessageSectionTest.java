@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network;
+
+import org.junit.Test;
+import org.terasology.protobuf.NetData;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ */
+public class NetMessageSectionTest {
+
+    @Test
+    public void testSectionsAddUpToMessageSize() {
+        NetData.Vector3iData pos = NetData.Vector3iData.newBuilder().setX(1).setY(-20).setZ(300).build();
+        NetData.NetMessage message = NetData.NetMessage.newBuilder()
+                .setTime(123456789L)
+                .addBlockChange(NetData.BlockChangeMessage.newBuilder().setPos(pos).setNewBlock(12))
+                .addBlockChange(NetData.BlockChangeMessage.newBuilder().setPos(pos).setNewBlock(3000))
+                .addInvalidateChunk(NetData.InvalidateChunkMessage.newBuilder().setPos(pos))
+                .addRemoveEntity(NetData.RemoveEntityMessage.newBuilder().setNetId(42))
+                .build();
+
+        int total = 0;
+        for (NetMessageSection section : NetMessageSection.values()) {
+            total += section.getSerializedSize(message);
+        }
+        assertEquals(message.getSerializedSize(), total);
+        assertEquals(2, NetMessageSection.BLOCK_CHANGE.getCount(message));
+        assertEquals(0, NetMessageSection.EVENT.getSerializedSize(message));
+        assertEquals(5, NetMessageSection.OTHER.getSerializedSize(message));
+    }
+}
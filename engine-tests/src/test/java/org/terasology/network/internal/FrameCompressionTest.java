@@ -0,0 +1,132 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import com.google.common.base.Charsets;
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.handler.codec.compression.CompressionException;
+import org.jboss.netty.handler.codec.embedder.CodecEmbedderException;
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder;
+import org.jboss.netty.handler.codec.embedder.EncoderEmbedder;
+import org.junit.Test;
+import org.terasology.protobuf.NetData;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ */
+public class FrameCompressionTest {
+
+    private static final byte[] SMALL = "engine:stone".getBytes(Charsets.UTF_8);
+    private static final byte[] LARGE = new String(new char[40]).replace("\0", "LocationComponent position rotation ").getBytes(Charsets.UTF_8);
+
+    @Test
+    public void testSmallFramesAreNotCompressed() {
+        ChannelBuffer encoded = encode(new FrameCompressionEncoder(64, null), SMALL);
+        assertEquals(SMALL.length + 1, encoded.readableBytes());
+        assertEquals(FrameCompressionEncoder.UNCOMPRESSED, encoded.getByte(0));
+        assertArrayEquals(SMALL, decode(new FrameCompressionDecoder(null), encoded));
+    }
+
+    @Test
+    public void testLargeFramesAreCompressed() {
+        ChannelBuffer encoded = encode(new FrameCompressionEncoder(64, null), LARGE);
+        assertEquals(FrameCompressionEncoder.COMPRESSED, encoded.getByte(0));
+        assertTrue(encoded.readableBytes() < LARGE.length);
+        assertArrayEquals(LARGE, decode(new FrameCompressionDecoder(null), encoded));
+    }
+
+    @Test
+    public void testDictionaryRoundTrip() {
+        byte[] dictionary = FrameCompression.getDefaultDictionary();
+        ChannelBuffer withDictionary = encode(new FrameCompressionEncoder(1, dictionary), LARGE);
+        ChannelBuffer withoutDictionary = encode(new FrameCompressionEncoder(1, null), LARGE);
+        assertTrue(withDictionary.readableBytes() <= withoutDictionary.readableBytes());
+        assertArrayEquals(LARGE, decode(new FrameCompressionDecoder(dictionary), withDictionary));
+    }
+
+    @Test
+    public void testFrameLengthIsChecked() {
+        assertLengthRejected(-1);
+        assertLengthRejected(FrameCompression.MAX_FRAME_LENGTH + 1);
+        assertLengthRejected(Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testNegotiation() {
+        byte[] dictionary = FrameCompression.getDefaultDictionary();
+        NetData.NetMessage.Builder offer = NetData.NetMessage.newBuilder();
+        FrameCompression.offer(offer, 128, dictionary);
+        NetData.NetMessage offerMessage = roundTrip(offer.build());
+        assertEquals(128, FrameCompression.getOfferedThreshold(offerMessage));
+        assertTrue(FrameCompression.isDictionaryOffered(offerMessage, dictionary));
+        assertFalse(FrameCompression.isDictionaryOffered(offerMessage, SMALL));
+
+        NetData.NetMessage.Builder reply = NetData.NetMessage.newBuilder();
+        FrameCompression.accept(reply, false);
+        NetData.NetMessage replyMessage = roundTrip(reply.build());
+        assertTrue(FrameCompression.isAccepted(replyMessage));
+        assertFalse(FrameCompression.isDictionaryAccepted(replyMessage));
+    }
+
+    @Test
+    public void testNoOffer() {
+        NetData.NetMessage message = roundTrip(NetData.NetMessage.newBuilder().setTime(1).build());
+        assertEquals(0, FrameCompression.getOfferedThreshold(message));
+        assertFalse(FrameCompression.isAccepted(message));
+    }
+
+    private NetData.NetMessage roundTrip(NetData.NetMessage message) {
+        try {
+            return NetData.NetMessage.parseFrom(message.toByteArray());
+        } catch (InvalidProtocolBufferException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private void assertLengthRejected(int length) {
+        ChannelBuffer frame = ChannelBuffers.buffer(5);
+        frame.writeByte(FrameCompressionEncoder.COMPRESSED);
+        frame.writeInt(length);
+        try {
+            decode(new FrameCompressionDecoder(null), frame);
+            fail("Accepted frame length " + length);
+        } catch (CodecEmbedderException e) {
+            assertTrue(e.getCause() instanceof CompressionException);
+        }
+    }
+
+    private ChannelBuffer encode(FrameCompressionEncoder encoder, byte[] data) {
+        EncoderEmbedder<ChannelBuffer> embedder = new EncoderEmbedder<>(encoder);
+        embedder.offer(ChannelBuffers.wrappedBuffer(data));
+        return embedder.poll();
+    }
+
+    private byte[] decode(FrameCompressionDecoder decoder, ChannelBuffer data) {
+        DecoderEmbedder<ChannelBuffer> embedder = new DecoderEmbedder<>(decoder);
+        embedder.offer(data);
+        ChannelBuffer result = embedder.poll();
+        byte[] bytes = new byte[result.readableBytes()];
+        result.readBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.typeHandling.protobuf;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.terasology.context.Context;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.engine.SimpleUri;
+import org.terasology.engine.bootstrap.EntitySystemSetupUtil;
+import org.terasology.engine.module.ModuleManager;
+import org.terasology.entitySystem.entity.internal.EngineEntityManager;
+import org.terasology.entitySystem.metadata.ComponentLibrary;
+import org.terasology.entitySystem.stubs.SimpleFieldsComponent;
+import org.terasology.entitySystem.stubs.StringComponent;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.network.NetworkSystem;
+import org.terasology.persistence.serializers.ComponentSerializer;
+import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
+import org.terasology.persistence.typeHandling.mathTypes.Vector3fTypeHandler;
+import org.terasology.protobuf.EntityData;
+import org.terasology.reflection.copy.CopyStrategyLibrary;
+import org.terasology.reflection.reflect.ByteCodeReflectFactory;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.testUtil.ModuleManagerFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks that generated codecs produce exactly what the type handlers produce.
+ */
+public class ProtobufCodecLibraryTest {
+    private static ModuleManager moduleManager;
+
+    private ComponentLibrary componentLibrary;
+    private ProtobufCodecLibrary codecLibrary;
+    private ComponentSerializer generatedSerializer;
+    private ComponentSerializer reflectiveSerializer;
+
+    @BeforeClass
+    public static void setupClass() throws Exception {
+        moduleManager = ModuleManagerFactory.create();
+    }
+
+    @Before
+    public void setup() {
+        Context context = new ContextImpl();
+        context.put(ModuleManager.class, moduleManager);
+        CoreRegistry.setContext(context);
+        context.put(NetworkSystem.class, mock(NetworkSystem.class));
+        EntitySystemSetupUtil.addReflectionBasedLibraries(context);
+        EntitySystemSetupUtil.addEntityManagementRelatedClasses(context);
+        EngineEntityManager entityManager = context.get(EngineEntityManager.class);
+        componentLibrary = entityManager.getComponentLibrary();
+        componentLibrary.register(new SimpleUri("test", "simpleFields"), SimpleFieldsComponent.class);
+        componentLibrary.register(new SimpleUri("test", "string"), StringComponent.class);
+
+        ByteCodeReflectFactory reflectFactory = new ByteCodeReflectFactory();
+        TypeSerializationLibrary serializationLibrary = new TypeSerializationLibrary(reflectFactory, new CopyStrategyLibrary(reflectFactory));
+        serializationLibrary.add(Vector3f.class, new Vector3fTypeHandler());
+
+        generatedSerializer = new ComponentSerializer(componentLibrary, serializationLibrary);
+        codecLibrary = new ProtobufCodecLibrary(reflectFactory, serializationLibrary);
+        generatedSerializer.setCodecLibrary(codecLibrary);
+        reflectiveSerializer = new ComponentSerializer(componentLibrary, serializationLibrary);
+        reflectiveSerializer.setCodecLibrary(null);
+    }
+
+    @Test
+    public void testCoversOnlySimpleFields() {
+        ProtobufClassCodec codec = codecLibrary.getCodecFor(componentLibrary.getMetadata(SimpleFieldsComponent.class));
+        assertEquals(11, codec.getCoveredFieldCount());
+        assertTrue(codec.covers(componentLibrary.getMetadata(SimpleFieldsComponent.class).getField("text")));
+        assertFalse(codec.covers(componentLibrary.getMetadata(SimpleFieldsComponent.class).getField("position")));
+        assertFalse(codec.covers(componentLibrary.getMetadata(SimpleFieldsComponent.class).getField("wrapped")));
+    }
+
+    @Test
+    public void testSerializeMatchesTypeHandlers() {
+        SimpleFieldsComponent component = createComponent();
+        assertEquals(reflectiveSerializer.serialize(component), generatedSerializer.serialize(component));
+    }
+
+    @Test
+    public void testSerializeNullsMatchesTypeHandlers() {
+        SimpleFieldsComponent component = new SimpleFieldsComponent();
+        assertEquals(reflectiveSerializer.serialize(component), generatedSerializer.serialize(component));
+    }
+
+    @Test
+    public void testSerializeWithFieldIdsMatchesTypeHandlers() {
+        generatedSerializer.setUsingFieldIds(true);
+        reflectiveSerializer.setUsingFieldIds(true);
+        SimpleFieldsComponent component = createComponent();
+        assertEquals(reflectiveSerializer.serialize(component), generatedSerializer.serialize(component));
+    }
+
+    @Test
+    public void testSerializeDeltaMatchesTypeHandlers() {
+        SimpleFieldsComponent base = createComponent();
+        SimpleFieldsComponent delta = createComponent();
+        delta.floatValue = -1.5f;
+        delta.boxedInt = null;
+        delta.text = "changed";
+        assertEquals(reflectiveSerializer.serialize(base, delta), generatedSerializer.serialize(base, delta));
+        assertEquals(reflectiveSerializer.serialize(new StringComponent("a"), new StringComponent("b")),
+                generatedSerializer.serialize(new StringComponent("a"), new StringComponent("b")));
+    }
+
+    @Test
+    public void testDeserializeMatchesTypeHandlers() {
+        EntityData.Component data = reflectiveSerializer.serialize(createComponent());
+        assertFieldsEqual((SimpleFieldsComponent) reflectiveSerializer.deserialize(data), (SimpleFieldsComponent) generatedSerializer.deserialize(data));
+    }
+
+    @Test
+    public void testDeserializeFallsBackForOtherRepresentations() {
+        EntityData.Component data = EntityData.Component.newBuilder()
+                .setType("test:simpleFields")
+                .addField(EntityData.NameValue.newBuilder().setName("floatValue").setValue(EntityData.Value.newBuilder().addDouble(2.5)))
+                .addField(EntityData.NameValue.newBuilder().setName("intValue").setValue(EntityData.Value.newBuilder().addLong(7)))
+                .addField(EntityData.NameValue.newBuilder().setName("longValue").setValue(EntityData.Value.newBuilder().addLong(9)))
+                .addField(EntityData.NameValue.newBuilder().setName("boxedDouble").setValue(EntityData.Value.newBuilder().addFloat(1.25f)))
+                .addField(EntityData.NameValue.newBuilder().setName("text").setValue(EntityData.Value.newBuilder()))
+                .build();
+        SimpleFieldsComponent generated = (SimpleFieldsComponent) generatedSerializer.deserialize(data);
+        assertFieldsEqual((SimpleFieldsComponent) reflectiveSerializer.deserialize(data), generated);
+        assertEquals(2.5f, generated.floatValue, 0.0f);
+        assertEquals(7, generated.intValue);
+        assertNull(generated.text);
+    }
+
+    private SimpleFieldsComponent createComponent() {
+        SimpleFieldsComponent component = new SimpleFieldsComponent();
+        component.floatValue = 3.25f;
+        component.intValue = -42;
+        component.longValue = 1L << 20;
+        component.booleanValue = true;
+        component.doubleValue = Math.PI;
+        component.boxedFloat = 0.5f;
+        component.boxedInt = 17;
+        component.boxedLong = 123456L;
+        component.boxedBoolean = false;
+        component.boxedDouble = -0.125;
+        component.text = "text";
+        component.position = new Vector3f(1, 2, 3);
+        component.setWrapped("wrapped");
+        return component;
+    }
+
+    private void assertFieldsEqual(SimpleFieldsComponent expected, SimpleFieldsComponent actual) {
+        assertEquals(expected.floatValue, actual.floatValue, 0.0f);
+        assertEquals(expected.intValue, actual.intValue);
+        assertEquals(expected.longValue, actual.longValue);
+        assertEquals(expected.booleanValue, actual.booleanValue);
+        assertEquals(expected.doubleValue, actual.doubleValue, 0.0);
+        assertEquals(expected.boxedFloat, actual.boxedFloat);
+        assertEquals(expected.boxedInt, actual.boxedInt);
+        assertEquals(expected.boxedLong, actual.boxedLong);
+        assertEquals(expected.boxedBoolean, actual.boxedBoolean);
+        assertEquals(expected.boxedDouble, actual.boxedDouble);
+        assertEquals(expected.text, actual.text);
+        assertEquals(expected.position, actual.position);
+        assertEquals(expected.getWrapped(), actual.getWrapped());
+    }
+}
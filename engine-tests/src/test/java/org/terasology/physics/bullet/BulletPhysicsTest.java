@@ -0,0 +1,110 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.physics.bullet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.physics.HitResult;
+import org.terasology.physics.StandardCollisionGroup;
+import org.terasology.physics.components.RigidBodyComponent;
+import org.terasology.physics.shapes.BoxShapeComponent;
+import org.terasology.testUtil.WorldProviderCoreStub;
+import org.terasology.world.WorldProvider;
+import org.terasology.world.block.Block;
+import org.terasology.world.internal.WorldProviderWrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class BulletPhysicsTest {
+
+    private static final float DELTA = 1 / 60f;
+    private static final int FRAMES = 30;
+
+    private BulletPhysics synchronous;
+    private BulletPhysics asynchronous;
+    private EntityRef synchronousBox;
+    private EntityRef asynchronousBox;
+
+    @Before
+    public void setup() {
+        WorldProvider world = new WorldProviderWrapper(new WorldProviderCoreStub(new Block(), null));
+        synchronous = new BulletPhysics(world, false);
+        asynchronous = new BulletPhysics(world, true);
+        synchronousBox = createFallingBox();
+        asynchronousBox = createFallingBox();
+        synchronous.getRigidBody(synchronousBox);
+        asynchronous.getRigidBody(asynchronousBox);
+    }
+
+    @After
+    public void teardown() {
+        synchronous.dispose();
+        asynchronous.dispose();
+    }
+
+    private EntityRef createFallingBox() {
+        EntityRef entity = mock(EntityRef.class);
+        when(entity.getComponent(LocationComponent.class)).thenReturn(new LocationComponent(new Vector3f(0, 10, 0)));
+        when(entity.getComponent(RigidBodyComponent.class)).thenReturn(new RigidBodyComponent());
+        when(entity.getComponent(BoxShapeComponent.class)).thenReturn(new BoxShapeComponent());
+        return entity;
+    }
+
+    private static Vector3f getPosition(EntityRef entity) {
+        return entity.getComponent(LocationComponent.class).getWorldPosition();
+    }
+
+    @Test
+    public void testAsynchronousStepsMatchSynchronousSteps() {
+        for (int i = 0; i < FRAMES; i++) {
+            synchronous.update(DELTA);
+            asynchronous.update(DELTA);
+            asynchronous.beginStep();
+        }
+        asynchronous.awaitStep();
+
+        assertTrue(getPosition(synchronousBox).y < 10);
+        assertEquals(getPosition(synchronousBox), getPosition(asynchronousBox));
+    }
+
+    @Test
+    public void testRayTraceDuringStepSeesFinishedStep() {
+        for (int i = 0; i < FRAMES; i++) {
+            synchronous.update(DELTA);
+            asynchronous.update(DELTA);
+            asynchronous.beginStep();
+        }
+        // the last step may still be running
+        HitResult asynchronousHit = asynchronous.rayTrace(new Vector3f(0, 20, 0), new Vector3f(0, -1, 0), 30, StandardCollisionGroup.DEFAULT);
+        HitResult synchronousHit = synchronous.rayTrace(new Vector3f(0, 20, 0), new Vector3f(0, -1, 0), 30, StandardCollisionGroup.DEFAULT);
+
+        assertTrue(synchronousHit.isHit());
+        assertTrue(asynchronousHit.isHit());
+        assertSame(asynchronousBox, asynchronousHit.getEntity());
+        assertEquals(synchronousHit.getHitPoint(), asynchronousHit.getHitPoint());
+        assertEquals(getPosition(synchronousBox), getPosition(asynchronousBox));
+    }
+}
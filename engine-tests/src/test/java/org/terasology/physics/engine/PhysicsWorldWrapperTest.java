@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.physics.engine;
+
+import com.bulletphysics.collision.shapes.BoxShape;
+import com.bulletphysics.collision.shapes.voxel.VoxelInfo;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.testUtil.WorldProviderCoreStub;
+import org.terasology.world.block.Block;
+import org.terasology.world.internal.WorldProviderWrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class PhysicsWorldWrapperTest {
+
+    private WorldProviderCoreStub worldStub;
+    private PhysicsWorldWrapper wrapper;
+    private boolean worldLoaded = true;
+    private Block air;
+    private Block stone;
+
+    @Before
+    public void setup() {
+        air = new Block();
+        stone = new Block();
+        stone.setCollision(new Vector3f(), new BoxShape(new javax.vecmath.Vector3f(0.5f, 0.5f, 0.5f)));
+        worldStub = new WorldProviderCoreStub(air, null) {
+            @Override
+            public boolean isBlockRelevant(int x, int y, int z) {
+                return worldLoaded;
+            }
+        };
+        wrapper = new PhysicsWorldWrapper(new WorldProviderWrapper(worldStub));
+    }
+
+    @Test
+    public void blockWithoutShapeDoesNotCollide() {
+        VoxelInfo info = wrapper.getCollisionShapeAt(1, 2, 3);
+        assertFalse(info.isColliding());
+        assertFalse(info.isBlocking());
+        assertNull(info.getCollisionShape());
+        assertSame(info, wrapper.getCollisionShapeAt(1, 2, 3));
+    }
+
+    @Test
+    public void solidBlockCollidesAtItsPosition() {
+        worldStub.setBlock(new Vector3i(1, 2, 3), stone);
+        VoxelInfo info = wrapper.getCollisionShapeAt(1, 2, 3);
+        assertTrue(info.isColliding());
+        assertTrue(info.isBlocking());
+        assertSame(stone.getCollisionShape(), info.getCollisionShape());
+        assertEquals(new Vector3i(1, 2, 3), info.getUserData());
+    }
+
+    @Test
+    public void blockChangeUpdatesCachedFlags() {
+        assertFalse(wrapper.getCollisionShapeAt(-1, 2, -3).isColliding());
+
+        worldStub.setBlock(new Vector3i(-1, 2, -3), stone);
+        wrapper.onBlockChanged(new Vector3i(-1, 2, -3), stone, air);
+        assertTrue(wrapper.getCollisionShapeAt(-1, 2, -3).isColliding());
+
+        worldStub.setBlock(new Vector3i(-1, 2, -3), air);
+        wrapper.onBlockChanged(new Vector3i(-1, 2, -3), air, stone);
+        assertFalse(wrapper.getCollisionShapeAt(-1, 2, -3).isColliding());
+    }
+
+    @Test
+    public void invalidatedChunkIsLookedUpAgain() {
+        assertFalse(wrapper.getCollisionShapeAt(40, 0, 0).isColliding());
+
+        worldStub.setBlock(new Vector3i(40, 0, 0), stone);
+        assertFalse(wrapper.getCollisionShapeAt(40, 0, 0).isColliding());
+
+        wrapper.invalidateChunk(new Vector3i(1, 0, 0));
+        assertTrue(wrapper.getCollisionShapeAt(40, 0, 0).isColliding());
+    }
+
+    @Test
+    public void collisionOffsetCannotBeModified() {
+        worldStub.setBlock(new Vector3i(1, 2, 3), stone);
+        worldStub.setBlock(new Vector3i(1, 2, 4), stone);
+        VoxelInfo info = wrapper.getCollisionShapeAt(1, 2, 3);
+        info.getCollisionOffset().set(5, 5, 5);
+        assertEquals(new javax.vecmath.Vector3f(), info.getCollisionOffset());
+        assertEquals(new javax.vecmath.Vector3f(), wrapper.getCollisionShapeAt(1, 2, 4).getCollisionOffset());
+    }
+
+    @Test
+    public void unloadedChunkIsNotCached() {
+        worldLoaded = false;
+        assertFalse(wrapper.getCollisionShapeAt(40, 0, 0).isColliding());
+
+        // loaded without an invalidation reaching the wrapper yet
+        worldLoaded = true;
+        worldStub.setBlock(new Vector3i(40, 0, 0), stone);
+        assertTrue(wrapper.getCollisionShapeAt(40, 0, 0).isColliding());
+    }
+}
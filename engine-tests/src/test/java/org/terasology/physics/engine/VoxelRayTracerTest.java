@@ -0,0 +1,90 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.physics.engine;
+
+import com.bulletphysics.collision.shapes.BoxShape;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.physics.HitResult;
+import org.terasology.testUtil.WorldProviderCoreStub;
+import org.terasology.world.block.Block;
+import org.terasology.world.internal.WorldProviderWrapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class VoxelRayTracerTest {
+
+    private static final float EPSILON = 0.0001f;
+
+    private WorldProviderCoreStub worldStub;
+    private VoxelRayTracer tracer;
+    private Block stone;
+
+    @Before
+    public void setup() {
+        stone = new Block();
+        stone.setCollision(new Vector3f(), new BoxShape(new javax.vecmath.Vector3f(0.5f, 0.5f, 0.5f)));
+        worldStub = new WorldProviderCoreStub(new Block(), null);
+        tracer = new VoxelRayTracer(new WorldProviderWrapper(worldStub));
+    }
+
+    @Test
+    public void rayDownHitsTopOfBlock() {
+        worldStub.setBlock(new Vector3i(2, 0, -3), stone);
+        HitResult hit = tracer.trace(new Vector3f(2.2f, 10f, -3.1f), new Vector3f(0, -1, 0), 20f);
+        assertTrue(hit.isWorldHit());
+        assertEquals(new Vector3i(2, 0, -3), hit.getBlockPosition());
+        assertEquals(0.5f, hit.getHitPoint().y, EPSILON);
+        assertEquals(new Vector3f(0, 1, 0), hit.getHitNormal());
+    }
+
+    @Test
+    public void diagonalRayHitsSideOfNearestBlock() {
+        worldStub.setBlock(new Vector3i(5, 1, 0), stone);
+        worldStub.setBlock(new Vector3i(8, 2, 0), stone);
+        HitResult hit = tracer.trace(new Vector3f(0, 0, 0), new Vector3f(1, 0.25f, 0), 20f);
+        assertTrue(hit.isWorldHit());
+        assertEquals(new Vector3i(5, 1, 0), hit.getBlockPosition());
+        assertEquals(4.5f, hit.getHitPoint().x, EPSILON);
+        assertEquals(new Vector3f(-1, 0, 0), hit.getHitNormal());
+    }
+
+    @Test
+    public void blockBeyondDistanceIsNotHit() {
+        worldStub.setBlock(new Vector3i(0, 0, 10), stone);
+        assertFalse(tracer.trace(new Vector3f(), new Vector3f(0, 0, 1), 9f).isHit());
+        assertTrue(tracer.trace(new Vector3f(), new Vector3f(0, 0, 1), 10f).isHit());
+    }
+
+    @Test
+    public void blockContainingStartIsNotHit() {
+        worldStub.setBlock(new Vector3i(0, 0, 0), stone);
+        assertFalse(tracer.trace(new Vector3f(), new Vector3f(0, 1, 0), 5f).isHit());
+    }
+
+    @Test
+    public void nonTargetableBlockIsIgnored() {
+        stone.setTargetable(false);
+        worldStub.setBlock(new Vector3i(0, -2, 0), stone);
+        assertFalse(tracer.trace(new Vector3f(), new Vector3f(0, -1, 0), 5f).isHit());
+    }
+}
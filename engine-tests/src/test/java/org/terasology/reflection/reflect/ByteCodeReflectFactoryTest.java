@@ -15,16 +15,28 @@
  */
 package org.terasology.reflection.reflect;
 
+import com.google.common.collect.ImmutableList;
 import org.junit.Test;
+import org.terasology.engine.SimpleUri;
+import org.terasology.entitySystem.stubs.SimpleFieldsComponent;
 import org.terasology.entitySystem.stubs.GetterSetterComponent;
 import org.terasology.entitySystem.stubs.IntegerComponent;
 import org.terasology.entitySystem.stubs.StringComponent;
 import org.terasology.logic.characters.events.AttackRequest;
 import org.terasology.logic.location.LocationComponent;
 import org.terasology.math.geom.Vector3f;
+import org.terasology.reflection.copy.CopyStrategy;
+import org.terasology.reflection.copy.CopyStrategyLibrary;
+import org.terasology.reflection.copy.strategy.Vector3fCopyStrategy;
+import org.terasology.reflection.metadata.DefaultClassMetadata;
+
+import java.lang.reflect.Field;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -81,4 +93,41 @@ public void testAccessIntegerField() throws Exception {
         assertEquals(1, fieldAccessor.getValue(comp));
     }
 
+    @Test
+    public void testCreateFieldCopierSkipsFieldsWithGetterSetter() throws Exception {
+        ReflectFactory reflectFactory = new ByteCodeReflectFactory();
+        CopyStrategyLibrary copyStrategies = new CopyStrategyLibrary(reflectFactory);
+        Field text = SimpleFieldsComponent.class.getDeclaredField("text");
+        Field wrapped = SimpleFieldsComponent.class.getDeclaredField("wrapped");
+        FieldCopier<SimpleFieldsComponent> copier = reflectFactory.createFieldCopier(SimpleFieldsComponent.class, ImmutableList.of(text, wrapped),
+                ImmutableList.<CopyStrategy<?>>of(copyStrategies.getStrategy(String.class), copyStrategies.getStrategy(String.class)));
+        assertTrue(copier.covers(text));
+        assertFalse(copier.covers(wrapped));
+    }
+
+    @Test
+    public void testCopyThroughGeneratedCopier() throws Exception {
+        ReflectFactory reflectFactory = new ByteCodeReflectFactory();
+        CopyStrategyLibrary copyStrategies = new CopyStrategyLibrary(reflectFactory);
+        copyStrategies.register(Vector3f.class, new Vector3fCopyStrategy());
+        DefaultClassMetadata<SimpleFieldsComponent> metadata = new DefaultClassMetadata<>(new SimpleUri("test:simpleFields"), SimpleFieldsComponent.class,
+                reflectFactory, copyStrategies);
+
+        SimpleFieldsComponent original = new SimpleFieldsComponent();
+        original.floatValue = 1.5f;
+        original.longValue = 3L;
+        original.boxedInt = 7;
+        original.text = "text";
+        original.position = new Vector3f(1, 2, 3);
+        original.setWrapped("wrapped");
+        SimpleFieldsComponent copy = metadata.copy(original);
+
+        assertEquals(1.5f, copy.floatValue, 0.0f);
+        assertEquals(3L, copy.longValue);
+        assertEquals(Integer.valueOf(7), copy.boxedInt);
+        assertSame(original.text, copy.text);
+        assertEquals(original.position, copy.position);
+        assertNotSame(original.position, copy.position);
+        assertEquals("wrapped", copy.getWrapped());
+    }
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.assets.font;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.rendering.FontColor;
+import org.terasology.rendering.FontUnderline;
+import org.terasology.rendering.assets.material.Material;
+import org.terasology.rendering.assets.mesh.MeshData;
+import org.terasology.rendering.assets.texture.Texture;
+import org.terasology.rendering.nui.Color;
+import org.terasology.rendering.nui.HorizontalAlign;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class FontMeshBuilderTest {
+
+    private static final int WIDTH = 400;
+
+    private Font font;
+    private Material pageMaterial;
+    private Material underlineMaterial;
+
+    @Before
+    public void setup() {
+        pageMaterial = mock(Material.class);
+        underlineMaterial = mock(Material.class);
+        Texture page = mock(Texture.class);
+        when(page.getWidth()).thenReturn(256);
+        when(page.getHeight()).thenReturn(256);
+        FontCharacter character = new FontCharacter(0, 0, 8, 10, 1, 2, 10, page, pageMaterial);
+
+        font = mock(Font.class);
+        when(font.getWidth(anyString())).thenAnswer(invocation -> 10 * ((String) invocation.getArguments()[0]).length());
+        when(font.getLineHeight()).thenReturn(12);
+        when(font.getBaseHeight()).thenReturn(10);
+        when(font.getUnderlineOffset()).thenReturn(1);
+        when(font.getUnderlineThickness()).thenReturn(1);
+        when(font.getCharacterData(any(Character.class))).thenAnswer(invocation -> {
+            char c = (Character) invocation.getArguments()[0];
+            return (FontColor.isValid(c) || FontUnderline.isValid(c)) ? null : character;
+        });
+    }
+
+    @Test
+    public void testCachedLinesGiveTheSameMeshData() {
+        FontMeshBuilder uncached = new FontMeshBuilder(underlineMaterial);
+        FontMeshBuilder cached = new FontMeshBuilder(underlineMaterial, 16);
+
+        List<List<String>> texts = Lists.newArrayList();
+        texts.add(Lists.newArrayList("first line", "second line", "third line"));
+        texts.add(Lists.newArrayList("first line", "changed line", "third line"));
+        texts.add(Lists.newArrayList(FontColor.getColored("red", Color.RED) + " first line", "second line", "third line"));
+        texts.add(Lists.newArrayList("first " + FontColor.toChar(Color.GREEN) + "line", "second line" + FontColor.getReset(), "third line"));
+        texts.add(Lists.newArrayList(FontUnderline.markUnderlined("first") + " line", "second line", "third line"));
+
+        for (List<String> lines : texts) {
+            for (HorizontalAlign align : HorizontalAlign.values()) {
+                assertMeshDataEquals(uncached.createTextMeshData(font, lines, WIDTH, align, Color.WHITE, Color.BLACK, false),
+                        cached.createTextMeshData(font, lines, WIDTH, align, Color.WHITE, Color.BLACK, false));
+                assertMeshDataEquals(uncached.createTextMeshData(font, lines, WIDTH, align, Color.WHITE, Color.BLACK, true),
+                        cached.createTextMeshData(font, lines, WIDTH, align, Color.WHITE, Color.BLACK, true));
+            }
+        }
+    }
+
+    @Test
+    public void testOnlyChangedLinesAreLaidOutAgain() {
+        FontMeshBuilder builder = new FontMeshBuilder(underlineMaterial, 16);
+
+        builder.createTextMeshData(font, Lists.newArrayList("Health: 10", "Mana: 5", "Stamina: 7"), WIDTH, HorizontalAlign.LEFT,
+                Color.WHITE, Color.BLACK, false);
+        assertEquals(3, builder.getLineCacheMisses());
+        assertEquals(0, builder.getLineCacheHits());
+
+        builder.createTextMeshData(font, Lists.newArrayList("Health: 9", "Mana: 5", "Stamina: 7"), WIDTH, HorizontalAlign.LEFT,
+                Color.WHITE, Color.BLACK, false);
+        assertEquals(4, builder.getLineCacheMisses());
+        assertEquals(2, builder.getLineCacheHits());
+    }
+
+    @Test
+    public void testLinesAfterAColourChangeAreNotReused() {
+        FontMeshBuilder builder = new FontMeshBuilder(underlineMaterial, 16);
+
+        builder.createTextMeshData(font, Lists.newArrayList("first", "second"), WIDTH, HorizontalAlign.LEFT, Color.WHITE, Color.BLACK, false);
+        builder.createTextMeshData(font, Lists.newArrayList("first" + FontColor.toChar(Color.RED), "second"), WIDTH, HorizontalAlign.LEFT,
+                Color.WHITE, Color.BLACK, false);
+        assertEquals(4, builder.getLineCacheMisses());
+    }
+
+    @Test
+    public void testLineCacheIsBounded() {
+        FontMeshBuilder builder = new FontMeshBuilder(underlineMaterial, 4);
+        for (int i = 0; i < 10; i++) {
+            builder.createTextMeshData(font, Lists.newArrayList("line " + i), WIDTH, HorizontalAlign.LEFT, Color.WHITE, Color.BLACK, false);
+        }
+        assertEquals(4, builder.getCachedLineCount());
+    }
+
+    private static void assertMeshDataEquals(Map<Material, MeshData> expected, Map<Material, MeshData> actual) {
+        assertEquals(Lists.newArrayList(expected.keySet()), Lists.newArrayList(actual.keySet()));
+        for (Map.Entry<Material, MeshData> entry : expected.entrySet()) {
+            MeshData actualData = actual.get(entry.getKey());
+            assertEquals(entry.getValue().getVertices(), actualData.getVertices());
+            assertEquals(entry.getValue().getColors(), actualData.getColors());
+            assertEquals(entry.getValue().getTexCoord0(), actualData.getTexCoord0());
+            assertEquals(entry.getValue().getIndices(), actualData.getIndices());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.collada;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.terasology.math.geom.Quat4f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.rendering.assets.mesh.MeshData;
+import org.terasology.rendering.assets.skeletalmesh.Bone;
+import org.terasology.rendering.assets.skeletalmesh.BoneWeight;
+import org.terasology.rendering.assets.skeletalmesh.SkeletalMeshData;
+import org.terasology.rendering.assets.skeletalmesh.SkeletalMeshDataBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ColladaCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+    private ColladaCache cache;
+
+    @Before
+    public void setup() throws IOException {
+        directory = temporaryFolder.newFolder("meshes").toPath();
+        cache = new ColladaCache(directory);
+    }
+
+    @Test
+    public void testStoredMeshIsLoaded() {
+        MeshData data = createTriangle(0);
+        data.getColors().add(new float[]{1, 0, 0, 1, 0, 1, 0, 1, 0, 0, 1, 1});
+        cache.storeMesh("key", data);
+
+        assertTrue(cache.hasMesh("key"));
+        assertFalse(cache.hasSkeletalMesh("key"));
+        Optional<MeshData> loaded = cache.loadMesh("key");
+        assertTrue(loaded.isPresent());
+        assertEquals(data.getVertices(), loaded.get().getVertices());
+        assertEquals(data.getTexCoord0(), loaded.get().getTexCoord0());
+        assertEquals(data.getTexCoord1(), loaded.get().getTexCoord1());
+        assertEquals(data.getNormals(), loaded.get().getNormals());
+        assertEquals(data.getColors(), loaded.get().getColors());
+        assertEquals(data.getIndices(), loaded.get().getIndices());
+        assertEquals(1, cache.getStoredCount());
+        assertEquals(1, cache.getLoadedCount());
+    }
+
+    @Test
+    public void testStoredSkeletalMeshIsLoaded() {
+        SkeletalMeshData data = createSkeletalMesh();
+        cache.storeSkeletalMesh("key", data);
+
+        Optional<SkeletalMeshData> loaded = cache.loadSkeletalMesh("key");
+        assertTrue(loaded.isPresent());
+        List<Bone> bones = Lists.newArrayList(data.getBones());
+        List<Bone> loadedBones = Lists.newArrayList(loaded.get().getBones());
+        assertEquals(bones.size(), loadedBones.size());
+        for (int i = 0; i < bones.size(); i++) {
+            assertEquals(bones.get(i).getName(), loadedBones.get(i).getName());
+            assertEquals(bones.get(i).getParentIndex(), loadedBones.get(i).getParentIndex());
+            assertEquals(bones.get(i).getObjectPosition(), loadedBones.get(i).getObjectPosition());
+            assertEquals(bones.get(i).getObjectRotation(), loadedBones.get(i).getObjectRotation());
+        }
+        assertEquals(data.getRootBone().getName(), loaded.get().getRootBone().getName());
+
+        List<BoneWeight> weights = data.getWeights();
+        List<BoneWeight> loadedWeights = loaded.get().getWeights();
+        assertEquals(weights.size(), loadedWeights.size());
+        for (int i = 0; i < weights.size(); i++) {
+            assertEquals(weights.get(i).getPosition(), loadedWeights.get(i).getPosition());
+            assertEquals(weights.get(i).getBias(), loadedWeights.get(i).getBias(), 0f);
+            assertEquals(weights.get(i).getBoneIndex(), loadedWeights.get(i).getBoneIndex());
+            assertEquals(weights.get(i).getNormal(), loadedWeights.get(i).getNormal());
+        }
+        assertEquals(data.getUVs(), loaded.get().getUVs());
+        assertEquals(data.getVertexStartWeights(), loaded.get().getVertexStartWeights());
+        assertEquals(data.getVertexWeightCounts(), loaded.get().getVertexWeightCounts());
+        assertEquals(data.getIndices(), loaded.get().getIndices());
+        assertEquals(data.getStaticAABB().getMin(), loaded.get().getStaticAABB().getMin());
+        assertEquals(data.getStaticAABB().getMax(), loaded.get().getStaticAABB().getMax());
+        assertEquals(data.getBindPoseVertexPositions(), loaded.get().getBindPoseVertexPositions());
+    }
+
+    @Test
+    public void testMissingOrTruncatedMeshIsNotLoaded() throws IOException {
+        assertFalse(cache.loadMesh("other").isPresent());
+        assertFalse(cache.loadSkeletalMesh("other").isPresent());
+
+        cache.storeMesh("key", createTriangle(0));
+        cache.storeSkeletalMesh("key", createSkeletalMesh());
+        for (String name : new String[]{"key.mesh", "key.skeletalmesh"}) {
+            Path file = directory.resolve(name);
+            byte[] content = Files.readAllBytes(file);
+            Files.write(file, Arrays.copyOf(content, content.length - 5));
+        }
+        assertFalse(cache.loadMesh("key").isPresent());
+        assertFalse(cache.loadSkeletalMesh("key").isPresent());
+    }
+
+    @Test
+    public void testKeyDependsOnContent() {
+        byte[] source = "<COLLADA/>".getBytes(StandardCharsets.UTF_8);
+        String key = cache.computeKey(source);
+        assertEquals(key, cache.computeKey(source.clone()));
+        source[1] = 'c';
+        assertNotEquals(key, cache.computeKey(source));
+    }
+
+    private static MeshData createTriangle(float offset) {
+        MeshData data = new MeshData();
+        data.getVertices().add(new float[]{offset, 0, 0, offset + 1, 0, 0, offset, 1, 0});
+        data.getTexCoord0().add(new float[]{0, 0, 1, 0, 0, 1});
+        data.getNormals().add(new float[]{0, 0, 1, 0, 0, 1, 0, 0, 1});
+        data.getIndices().add(new int[]{0, 1, 2});
+        return data;
+    }
+
+    private static SkeletalMeshData createSkeletalMesh() {
+        Bone root = new Bone(0, "root", new Vector3f(0, 1, 0), new Quat4f(0, 0, 0, 1));
+        Bone arm = new Bone(1, "arm", new Vector3f(1, 2, 0), new Quat4f(0.5f, 0, 0));
+        root.addChild(arm);
+        SkeletalMeshDataBuilder builder = new SkeletalMeshDataBuilder();
+        builder.addBone(root);
+        builder.addMesh(root, createTriangle(0));
+        builder.addMesh(arm, createTriangle(2));
+        return builder.build();
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.collada;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ColladaLoaderTest {
+
+    private static final String LIST = "\n\t 1 -2  +3\r\n40\t\t5 ";
+
+    @Test
+    public void testItemsAreSplitOnAnyWhitespace() {
+        assertArrayEquals(new String[]{"1", "-2", "+3", "40", "5"}, ColladaLoader.getItemsInString(LIST));
+        assertEquals(0, ColladaLoader.getItemsInString(" \n ").length);
+    }
+
+    @Test
+    public void testIntsAreParsed() {
+        assertArrayEquals(new int[]{1, -2, 3, 40, 5}, ColladaLoader.parseInts(LIST));
+        assertEquals(0, ColladaLoader.parseInts("").length);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testInvalidIntsAreRejected() {
+        ColladaLoader.parseInts("1 2.5");
+    }
+
+    @Test
+    public void testFloatsAreParsedAndCounted() {
+        float[] values = new float[3];
+        assertEquals(4, ColladaLoader.parseFloats(" 0.5 -1e2\n3 4 ", values));
+        assertArrayEquals(new float[]{0.5f, -100f, 3f}, values, 0f);
+    }
+}
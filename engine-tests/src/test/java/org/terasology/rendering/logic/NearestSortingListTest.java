@@ -0,0 +1,156 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.logic;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.rendering.cameras.Camera;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class NearestSortingListTest {
+
+    private NearestSortingList list;
+    private long nextFakeEntityId = 1;
+
+    @Before
+    public void setup() {
+        Camera camera = mock(Camera.class);
+        when(camera.getPosition()).thenReturn(new Vector3f());
+        list = new NearestSortingList();
+        list.initialiseAndPause(camera);
+    }
+
+    @After
+    public void teardown() {
+        list.stop();
+    }
+
+    @Test
+    public void testNewEntitiesComeFirstUntilSorted() {
+        EntityRef far = createEntityAt(10);
+        EntityRef near = createEntityAt(1);
+        list.add(far);
+        list.add(near);
+
+        assertArrayEquals(new EntityRef[]{near, far}, list.getNearest(2));
+        EntityRef newest = createEntityAt(5);
+        list.add(newest);
+        assertArrayEquals(new EntityRef[]{newest, near, far}, list.getNearest(3));
+
+        list.sortNow();
+        assertArrayEquals(new EntityRef[]{near, newest, far}, list.getNearest(3));
+    }
+
+    @Test
+    public void testGetNearestIsLimitedToCount() {
+        EntityRef[] entities = new EntityRef[5];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = createEntityAt(i);
+            list.add(entities[i]);
+        }
+        list.sortNow();
+
+        assertArrayEquals(Arrays.copyOf(entities, 2), list.getNearest(2));
+        assertEquals(5, list.getEntities().size());
+    }
+
+    @Test
+    public void testRemovedEntitiesAreSkipped() {
+        EntityRef first = createEntityAt(1);
+        EntityRef second = createEntityAt(2);
+        EntityRef third = createEntityAt(3);
+        list.add(first);
+        list.add(second);
+        list.add(third);
+        list.sortNow();
+
+        list.remove(second);
+
+        assertFalse(list.contains(second));
+        assertEquals(2, list.size());
+        assertArrayEquals(new EntityRef[]{first, third}, list.getNearest(3));
+    }
+
+    @Test
+    public void testEntityReaddedAfterSortIsNotDuplicated() {
+        EntityRef first = createEntityAt(1);
+        EntityRef second = createEntityAt(2);
+        list.add(first);
+        list.add(second);
+        list.sortNow();
+
+        list.remove(second);
+        list.add(second);
+
+        assertEquals(Arrays.asList(second, first), list.getEntities());
+    }
+
+    @Test
+    public void testMovedEntitiesAreResorted() {
+        EntityRef[] entities = new EntityRef[200];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = createEntityAt(i);
+            list.add(entities[i]);
+        }
+        list.sortNow();
+        // reverse the distances, far beyond what the insertion sort handles
+        for (int i = 0; i < entities.length; i++) {
+            entities[i].getComponent(LocationComponent.class).setWorldPosition(new Vector3f(entities.length - i, 0, 0));
+        }
+        list.sortNow();
+
+        EntityRef[] nearest = list.getNearest(entities.length);
+        for (int i = 0; i < entities.length; i++) {
+            assertEquals(entities[entities.length - 1 - i], nearest[i]);
+        }
+    }
+
+    @Test
+    public void testEntitiesWithoutLocationAreSortedLast() {
+        EntityRef unlocated = createEntity(null);
+        EntityRef located = createEntityAt(100);
+        list.add(located);
+        list.add(unlocated);
+        list.sortNow();
+
+        assertArrayEquals(new EntityRef[]{located, unlocated}, list.getNearest(2));
+    }
+
+    private EntityRef createEntityAt(float x) {
+        return createEntity(new LocationComponent(new Vector3f(x, 0, 0)));
+    }
+
+    private EntityRef createEntity(LocationComponent location) {
+        EntityRef entity = mock(EntityRef.class);
+        when(entity.getComponent(LocationComponent.class)).thenReturn(location);
+        when(entity.exists()).thenReturn(true);
+        when(entity.getId()).thenReturn(nextFakeEntityId++);
+        return entity;
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.nui.internal;
+
+import com.google.common.collect.Maps;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.geom.Vector2i;
+import org.terasology.rendering.nui.Canvas;
+import org.terasology.rendering.nui.LayoutRevision;
+import org.terasology.rendering.nui.UIWidget;
+import org.terasology.rendering.nui.databinding.DefaultBinding;
+import org.terasology.rendering.nui.layouts.ColumnLayout;
+import org.terasology.rendering.nui.skin.UISkin;
+import org.terasology.rendering.nui.skin.UIStyle;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class LayoutCacheTest {
+
+    private static final Vector2i RESTRICTION = new Vector2i(200, 100);
+
+    private LayoutCache cache;
+    private Canvas canvas;
+    private UISkin skin;
+    private UIStyle style;
+
+    private ColumnLayout layout;
+    private UIWidget first;
+    private UIWidget second;
+    private Map<UIWidget, Vector2i> childSizes = Maps.newHashMap();
+
+    @Before
+    public void setup() {
+        cache = new LayoutCache();
+        canvas = mock(Canvas.class);
+        skin = mock(UISkin.class);
+        style = mock(UIStyle.class);
+
+        first = createChild(new Vector2i(50, 10));
+        second = createChild(new Vector2i(30, 20));
+        layout = new ColumnLayout();
+        layout.addWidget(first);
+        layout.addWidget(second);
+
+        when(canvas.calculateRestrictedSize(any(UIWidget.class), any(Vector2i.class)))
+                .thenAnswer(invocation -> calculate((UIWidget) invocation.getArguments()[0], (Vector2i) invocation.getArguments()[1]));
+        cache.beginFrame();
+    }
+
+    @Test
+    public void testLeafSizesAreKeptForOneFrame() {
+        calculate(first, RESTRICTION);
+        assertNotNull(find(first));
+
+        cache.beginFrame();
+        assertNull(find(first));
+    }
+
+    @Test
+    public void testLayoutSizesAreKeptWhileChildrenKeepTheirSizes() {
+        calculate(layout, RESTRICTION);
+        assertEquals(3, cache.getFrameMisses());
+
+        cache.beginFrame();
+        assertEquals(new Vector2i(50, 30), calculate(layout, RESTRICTION));
+        assertEquals(1, cache.getFrameRetainedHits());
+        assertEquals(2, cache.getFrameMisses());
+    }
+
+    @Test
+    public void testLayoutSizeIsDroppedWhenAChildChangesSize() {
+        calculate(layout, RESTRICTION);
+
+        cache.beginFrame();
+        childSizes.put(second, new Vector2i(80, 20));
+        assertEquals(new Vector2i(80, 30), calculate(layout, RESTRICTION));
+        assertEquals(0, cache.getFrameRetainedHits());
+    }
+
+    @Test
+    public void testLayoutSizeIsDroppedWhenTheRevisionChanges() {
+        calculate(layout, RESTRICTION);
+        LayoutRevision.invalidate();
+        assertNull(find(layout));
+    }
+
+    @Test
+    public void testLayoutSizeIsDroppedWhenChildrenChange() {
+        calculate(layout, RESTRICTION);
+        cache.beginFrame();
+        assertNotNull(find(layout));
+
+        when(second.isVisible()).thenReturn(false);
+        assertNull(find(layout));
+    }
+
+    @Test
+    public void testLayoutIsNotKeptWithoutTheSizesOfAllVisibleChildren() {
+        cache.beginCalculation();
+        calculate(first, RESTRICTION);
+        cache.endCalculation(layout, skin, "", style, RESTRICTION, false, new Vector2i(50, 10));
+
+        assertNotNull(find(layout));
+        cache.beginFrame();
+        assertNull(find(layout));
+    }
+
+    @Test
+    public void testPreferredAndMaximumSizesAreKeptApart() {
+        calculate(first, RESTRICTION);
+        assertNull(cache.find(first, skin, "", style, RESTRICTION, true));
+    }
+
+    @Test
+    public void testDefaultBindingInvalidatesOnlyWhenTheValueChanges() {
+        DefaultBinding<String> binding = new DefaultBinding<>("text");
+        long revision = LayoutRevision.get();
+        binding.set("text");
+        assertEquals(revision, LayoutRevision.get());
+        binding.set("other text");
+        assertNotEquals(revision, LayoutRevision.get());
+    }
+
+    @Test
+    public void testDisabledCacheKeepsNothing() {
+        cache.setEnabled(false);
+        calculate(first, RESTRICTION);
+        assertFalse(cache.isEnabled());
+        assertNull(find(first));
+        assertEquals(0, cache.getWidgetCount());
+    }
+
+    private UIWidget createChild(Vector2i size) {
+        UIWidget child = mock(UIWidget.class);
+        when(child.isVisible()).thenReturn(true);
+        childSizes.put(child, size);
+        return child;
+    }
+
+    private LayoutCache.Entry find(UIWidget widget) {
+        return cache.find(widget, skin, "", style, RESTRICTION, false);
+    }
+
+    /**
+     * Follows the steps of the canvas: a layout is as wide as its widest child and as high as all of them together.
+     */
+    private Vector2i calculate(UIWidget widget, Vector2i restriction) {
+        LayoutCache.Entry cached = cache.find(widget, skin, "", style, restriction, false);
+        if (cached != null && (cache.isCurrent(cached) || cache.revalidate(cached, canvas))) {
+            return cache.use(cached);
+        }
+
+        cache.beginCalculation();
+        Vector2i size = childSizes.get(widget);
+        if (widget == layout) {
+            size = new Vector2i();
+            for (UIWidget child : layout) {
+                Vector2i childSize = canvas.calculateRestrictedSize(child, restriction);
+                size.x = Math.max(size.x, childSize.x);
+                size.y += childSize.y;
+            }
+        }
+        cache.endCalculation(widget, skin, "", style, restriction, false, size);
+        return new Vector2i(size);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.opengl;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.lwjgl.opengl.GL20;
+import org.terasology.config.RenderingConfig;
+import org.terasology.rendering.assets.shader.ShaderData;
+import org.terasology.rendering.assets.shader.ShaderProgramFeature;
+import org.terasology.world.block.tiles.WorldAtlas;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ShaderPreprocessorTest {
+
+    private static final String VERTEX_PROGRAM = "void main() { gl_Position = ftransform(); }";
+    private static final String FRAGMENT_PROGRAM = "void main() { gl_FragColor = vec4(1.0); }";
+
+    private RenderingConfig renderConfig;
+    private ShaderPreprocessor preprocessor;
+
+    @Before
+    public void setup() {
+        renderConfig = new RenderingConfig();
+        preprocessor = new ShaderPreprocessor(new ShaderData(VERTEX_PROGRAM, FRAGMENT_PROGRAM, Lists.newArrayList()));
+    }
+
+    @Test
+    public void testPreambleFollowsConfig() {
+        renderConfig.setSsao(true);
+        renderConfig.setBloom(false);
+        String preamble = ShaderPreprocessor.createPreamble(renderConfig, null);
+
+        assertTrue(preamble.startsWith("#version 120\n"));
+        assertTrue(preamble.contains("#define TEXTURE_OFFSET 0.06125\n"));
+        assertTrue(preamble.contains("#define SSAO \n"));
+        assertFalse(preamble.contains("#define BLOOM \n"));
+    }
+
+    @Test
+    public void testPreambleUsesTileSizeOfAtlas() {
+        WorldAtlas atlas = mock(WorldAtlas.class);
+        when(atlas.getRelativeTileSize()).thenReturn(0.125f);
+        assertTrue(ShaderPreprocessor.createPreamble(renderConfig, atlas).contains("#define TEXTURE_OFFSET 0.125\n"));
+    }
+
+    @Test
+    public void testSourcesContainProgramAndFeatures() {
+        String preamble = ShaderPreprocessor.createPreamble(renderConfig, null);
+        Set<ShaderProgramFeature> features = EnumSet.of(ShaderProgramFeature.FEATURE_ALPHA_REJECT);
+
+        String vertex = preprocessor.getSource(GL20.GL_VERTEX_SHADER, preamble, features);
+        String fragment = preprocessor.getSource(GL20.GL_FRAGMENT_SHADER, preamble, features);
+
+        assertTrue(vertex.startsWith(preamble));
+        assertTrue(vertex.contains("#define FEATURE_ALPHA_REJECT\n"));
+        assertTrue(vertex.endsWith(VERTEX_PROGRAM));
+        assertTrue(fragment.contains("#define FEATURE_ALPHA_REJECT\n"));
+        assertTrue(fragment.endsWith(FRAGMENT_PROGRAM));
+        assertFalse(preprocessor.getSource(GL20.GL_VERTEX_SHADER, preamble, EnumSet.noneOf(ShaderProgramFeature.class))
+                .contains("FEATURE_ALPHA_REJECT"));
+    }
+
+    @Test
+    public void testSourcesAreAssembledOncePerPermutation() {
+        String preamble = ShaderPreprocessor.createPreamble(renderConfig, null);
+        Set<ShaderProgramFeature> features = EnumSet.of(ShaderProgramFeature.FEATURE_LIGHT_POINT);
+
+        String first = preprocessor.getSource(GL20.GL_FRAGMENT_SHADER, preamble, features);
+        String second = preprocessor.getSource(GL20.GL_FRAGMENT_SHADER, ShaderPreprocessor.createPreamble(renderConfig, null),
+                EnumSet.of(ShaderProgramFeature.FEATURE_LIGHT_POINT));
+
+        assertSame(first, second);
+        assertEquals(1, preprocessor.getAssembledCount());
+    }
+
+    @Test
+    public void testChangedPreambleAssemblesAgain() {
+        String first = preprocessor.getSource(GL20.GL_VERTEX_SHADER, ShaderPreprocessor.createPreamble(renderConfig, null),
+                EnumSet.noneOf(ShaderProgramFeature.class));
+        renderConfig.setAnimateGrass(!renderConfig.isAnimateGrass());
+        String second = preprocessor.getSource(GL20.GL_VERTEX_SHADER, ShaderPreprocessor.createPreamble(renderConfig, null),
+                EnumSet.noneOf(ShaderProgramFeature.class));
+
+        assertNotEquals(first, second);
+        assertEquals(2, preprocessor.getAssembledCount());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.opengl;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShaderProgramCacheTest {
+
+    private static final String DRIVER = "Vendor|Renderer|4.5";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+    private ShaderProgramCache cache;
+
+    @Before
+    public void setup() throws IOException {
+        directory = temporaryFolder.newFolder("shaders").toPath();
+        cache = new ShaderProgramCache(directory, DRIVER);
+    }
+
+    @Test
+    public void testKeyDependsOnSourcesAndDriver() {
+        String key = cache.computeKey("vertex", "fragment");
+        assertEquals(key, cache.computeKey("vertex", "fragment"));
+        assertNotEquals(key, cache.computeKey("vertex ", "fragment"));
+        assertNotEquals(key, cache.computeKey("vertexf", "ragment"));
+        assertNotEquals(key, new ShaderProgramCache(temporaryFolder.getRoot().toPath(), "Vendor|Renderer|4.6").computeKey("vertex", "fragment"));
+    }
+
+    @Test
+    public void testStoredBinaryIsRead() {
+        ByteBuffer data = ByteBuffer.allocateDirect(64);
+        for (int i = 0; i < 64; i++) {
+            data.put((byte) (i * 3));
+        }
+        data.flip();
+        cache.write("key", new ShaderProgramCache.ProgramBinary(0x1234, data));
+
+        Optional<ShaderProgramCache.ProgramBinary> binary = cache.read("key");
+        assertTrue(binary.isPresent());
+        assertEquals(0x1234, binary.get().getFormat());
+        assertEquals(data, binary.get().getData());
+        assertTrue(binary.get().getData().isDirect());
+    }
+
+    @Test
+    public void testMissingBinaryIsNotRead() {
+        assertFalse(cache.read("key").isPresent());
+    }
+
+    @Test
+    public void testBinaryWithBadLengthIsDiscarded() throws IOException {
+        cache.write("key", new ShaderProgramCache.ProgramBinary(0x1234, ByteBuffer.allocateDirect(64)));
+        Path file = directory.resolve("key.bin");
+        try (RandomAccessFile out = new RandomAccessFile(file.toFile(), "rw")) {
+            out.seek(8);
+            out.writeInt(Integer.MAX_VALUE);
+        }
+
+        assertFalse(cache.read("key").isPresent());
+        assertFalse(Files.exists(file));
+    }
+}
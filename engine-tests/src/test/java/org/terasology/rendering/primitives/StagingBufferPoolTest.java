@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.junit.Test;
+
+import java.nio.IntBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ */
+public class StagingBufferPoolTest {
+
+    @Test
+    public void testBuffersAreRoundedUpToSlabs() {
+        StagingBufferPool pool = new StagingBufferPool(1 << 20);
+        IntBuffer buffer = pool.acquire(1500);
+        assertEquals(1500, buffer.limit());
+        assertEquals(2048, buffer.capacity());
+        assertEquals(StagingBufferPool.MIN_SLAB_INTS, pool.acquire(1).capacity());
+    }
+
+    @Test
+    public void testReleasedBufferIsReusedForSameSlab() {
+        StagingBufferPool pool = new StagingBufferPool(1 << 20);
+        IntBuffer buffer = pool.acquire(1500);
+        buffer.put(42);
+        buffer.flip();
+        pool.release(buffer);
+        assertEquals(4 * 2048, pool.getRetainedBytes());
+
+        IntBuffer reused = pool.acquire(1100);
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position());
+        assertEquals(1100, reused.limit());
+        assertEquals(0, pool.getRetainedBytes());
+        assertEquals(1, pool.getReuses());
+        assertEquals(1, pool.getAllocations());
+
+        assertNotSame(buffer, pool.acquire(1100));
+    }
+
+    @Test
+    public void testRetainedBytesAreCapped() {
+        StagingBufferPool pool = new StagingBufferPool(4 * 2048);
+        IntBuffer first = pool.acquire(2048);
+        IntBuffer second = pool.acquire(2048);
+        pool.release(first);
+        pool.release(second);
+        assertEquals(4 * 2048, pool.getRetainedBytes());
+
+        assertSame(first, pool.acquire(2048));
+        assertEquals(0, pool.getRetainedBytes());
+        pool.acquire(2048);
+        assertEquals(3, pool.getAllocations());
+    }
+
+    @Test
+    public void testOversizedBuffersAreNotPooled() {
+        StagingBufferPool pool = new StagingBufferPool(Long.MAX_VALUE);
+        IntBuffer buffer = pool.acquire(StagingBufferPool.MAX_SLAB_INTS + 1);
+        assertEquals(StagingBufferPool.MAX_SLAB_INTS + 1, buffer.capacity());
+        pool.release(buffer);
+        assertEquals(0, pool.getRetainedBytes());
+    }
+
+    @Test
+    public void testClearDropsPooledBuffers() {
+        StagingBufferPool pool = new StagingBufferPool(1 << 20);
+        pool.release(pool.acquire(100));
+        pool.clear();
+        assertEquals(0, pool.getRetainedBytes());
+        pool.acquire(100);
+        assertEquals(2, pool.getAllocations());
+    }
+
+    @Test
+    public void testDisposedMeshReturnsItsBuffers() {
+        StagingBufferPool pool = new StagingBufferPool(1 << 20);
+        ChunkMesh mesh = new ChunkMesh(null, pool);
+        ChunkMesh.VertexElements elements = mesh.getVertexElements(ChunkMesh.RenderType.OPAQUE);
+        elements.finalVertices = pool.acquire(3000);
+        elements.finalIndices = pool.acquire(600);
+        assertEquals(4 * 3600, mesh.getStagingBytes());
+
+        mesh.dispose();
+        assertEquals(4 * (4096 + 1024), pool.getRetainedBytes());
+        assertEquals(0, mesh.getStagingBytes());
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.terasology.TerasologyTestingEnvironment;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.assets.management.AssetManager;
+import org.terasology.engine.subsystem.lwjgl.GLBufferPool;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.rendering.primitives.ChunkMesh;
+import org.terasology.rendering.primitives.ChunkTessellator;
+import org.terasology.world.biomes.BiomeManager;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.family.SymmetricBlockFamilyFactory;
+import org.terasology.world.block.internal.BlockManagerImpl;
+import org.terasology.world.block.loader.BlockFamilyDefinition;
+import org.terasology.world.block.loader.BlockFamilyDefinitionData;
+import org.terasology.world.block.shapes.BlockShape;
+import org.terasology.world.block.tiles.NullWorldAtlas;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.internal.ChunkViewCoreImpl;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class ChunkLodMeshTest extends TerasologyTestingEnvironment {
+
+    private static final int GROUND_HEIGHT = 16;
+
+    private BlockManager blockManager;
+    private BiomeManager biomeManager;
+    private Block airBlock;
+    private Block solidBlock;
+    private ChunkTessellator tessellator;
+
+    @Before
+    public void setup() throws IOException {
+        AssetManager assetManager = CoreRegistry.get(AssetManager.class);
+        blockManager = new BlockManagerImpl(new NullWorldAtlas(), assetManager);
+        CoreRegistry.put(BlockManager.class, blockManager);
+        airBlock = blockManager.getBlock(BlockManager.AIR_ID);
+
+        biomeManager = Mockito.mock(BiomeManager.class);
+
+        BlockFamilyDefinitionData solidData = new BlockFamilyDefinitionData();
+        solidData.getBaseSection().setDisplayName("Stone");
+        solidData.getBaseSection().setShape(assetManager.getAsset("engine:cube", BlockShape.class).get());
+        solidData.getBaseSection().setTranslucent(false);
+        solidData.setFamilyFactory(new SymmetricBlockFamilyFactory());
+        assetManager.loadAsset(new ResourceUrn("engine:stone"), solidData, BlockFamilyDefinition.class);
+        solidBlock = blockManager.getBlock(new BlockUri(new ResourceUrn("engine:stone")));
+
+        tessellator = new ChunkTessellator(new GLBufferPool(false));
+    }
+
+    @Test
+    public void testLodScaleHalvesDetailWithEveryLodDistance() {
+        assertEquals(1, ChunkMeshUpdateManager.getLodScale(20, 0));
+        assertEquals(1, ChunkMeshUpdateManager.getLodScale(0, 4));
+        assertEquals(1, ChunkMeshUpdateManager.getLodScale(4, 4));
+        assertEquals(2, ChunkMeshUpdateManager.getLodScale(5, 4));
+        assertEquals(2, ChunkMeshUpdateManager.getLodScale(8, 4));
+        assertEquals(4, ChunkMeshUpdateManager.getLodScale(9, 4));
+        assertEquals(8, ChunkMeshUpdateManager.getLodScale(13, 4));
+        assertEquals(ChunkTessellator.MAX_LOD_SCALE, ChunkMeshUpdateManager.getLodScale(100, 4));
+    }
+
+    @Test
+    public void testLodMeshesHaveFewerVertices() {
+        ChunkViewCoreImpl view = createView(createGroundChunk());
+        int previousVertices = vertexCount(tessellator.generateMesh(view, ChunkConstants.SIZE_Y, 0));
+        for (int scale = 2; scale <= ChunkTessellator.MAX_LOD_SCALE; scale *= 2) {
+            int vertices = vertexCount(tessellator.generateLodMesh(view, scale));
+            assertTrue("Expected fewer vertices at scale " + scale + " than " + previousVertices + ", was " + vertices,
+                    vertices > 0 && vertices < previousVertices);
+            previousVertices = vertices;
+        }
+    }
+
+    @Test
+    public void testLodMeshKeepsTheGroundSurface() {
+        ChunkViewCoreImpl view = createView(createGroundChunk());
+        float surface = maxVertexHeight(tessellator.generateMesh(view, ChunkConstants.SIZE_Y, 0));
+        for (int scale = 2; scale <= ChunkTessellator.MAX_LOD_SCALE; scale *= 2) {
+            ChunkMesh mesh = tessellator.generateLodMesh(view, scale);
+            assertEquals(scale, mesh.getLodScale());
+            assertEquals(surface, maxVertexHeight(mesh), 0.001f);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsScalesThatAreNotPowersOfTwo() {
+        tessellator.generateLodMesh(createView(createGroundChunk()), 3);
+    }
+
+    private Chunk createGroundChunk() {
+        Chunk chunk = new ChunkImpl(Vector3i.zero(), blockManager, biomeManager);
+        for (Vector3i pos : ChunkConstants.CHUNK_REGION) {
+            if (pos.y < GROUND_HEIGHT) {
+                chunk.setBlock(pos, solidBlock);
+            }
+        }
+        return chunk;
+    }
+
+    private ChunkViewCoreImpl createView(Chunk chunk) {
+        return new ChunkViewCoreImpl(new Chunk[]{chunk},
+                Region3i.createFromCenterExtents(chunk.getPosition(), Vector3i.zero()), new Vector3i(), airBlock);
+    }
+
+    private static int vertexCount(ChunkMesh mesh) {
+        int count = 0;
+        for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+            count += mesh.getVertexElements(type).vertexCount;
+        }
+        return count;
+    }
+
+    private static float maxVertexHeight(ChunkMesh mesh) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+            ChunkMesh.VertexElements elements = mesh.getVertexElements(type);
+            for (int i = 1; i < elements.vertices.size(); i += 3) {
+                max = Math.max(max, elements.vertices.get(i));
+            }
+        }
+        return max;
+    }
+}
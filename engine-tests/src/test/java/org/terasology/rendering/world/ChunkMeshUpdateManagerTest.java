@@ -0,0 +1,194 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.monitoring.chunk.ChunkMonitor;
+import org.terasology.world.WorldProvider;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.RenderableChunk;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class ChunkMeshUpdateManagerTest {
+
+    private WorldProvider worldProvider;
+    private ChunkMeshUpdateManager manager;
+
+    @Before
+    public void setup() {
+        worldProvider = Mockito.mock(WorldProvider.class);
+        manager = new ChunkMeshUpdateManager(null, worldProvider, 1);
+    }
+
+    @After
+    public void teardown() {
+        manager.shutdown();
+    }
+
+    @Test
+    public void testLodScaleChangesOnlyPastTheMargin() {
+        // with a lod distance of 4, the scale is 1 up to 4 chunks away, then 2 up to 8
+        assertEquals(2, ChunkMeshUpdateManager.getLodScale(5, 4, 0));
+        assertEquals(1, ChunkMeshUpdateManager.getLodScale(5, 4, 1));
+        assertEquals(2, ChunkMeshUpdateManager.getLodScale(6, 4, 1));
+        assertEquals(2, ChunkMeshUpdateManager.getLodScale(4, 4, 2));
+        assertEquals(1, ChunkMeshUpdateManager.getLodScale(3, 4, 2));
+        assertEquals(1, ChunkMeshUpdateManager.getLodScale(5, 0, 2));
+    }
+
+    @Test
+    public void testLodScaleOfChunkDoesNotFlipOnBoundary() {
+        manager.setLodDistance(4);
+        Vector3i chunkPos = new Vector3i(5, 0, 0);
+        moveCameraToChunk(0);
+        assertEquals(2, manager.getLodScale(chunkPos));
+
+        // back and forth across the boundary
+        moveCameraToChunk(1);
+        assertEquals(2, manager.getLodScale(chunkPos));
+        moveCameraToChunk(0);
+        assertEquals(2, manager.getLodScale(chunkPos));
+
+        moveCameraToChunk(2);
+        assertEquals(1, manager.getLodScale(chunkPos));
+        moveCameraToChunk(0);
+        assertEquals(1, manager.getLodScale(chunkPos));
+        moveCameraToChunk(-1);
+        assertEquals(2, manager.getLodScale(chunkPos));
+    }
+
+    @Test
+    public void testRequestsForQueuedChunkAreMerged() throws InterruptedException {
+        CountDownLatch release = blockWorker();
+        RenderableChunk chunk = createChunk(new Vector3i(1, 0, 0), false);
+
+        assertTrue(manager.queueChunkUpdate(chunk));
+        assertFalse(manager.queueChunkUpdate(chunk));
+        release.countDown();
+
+        assertEquals(2, awaitUpdates(2).size());
+    }
+
+    @Test
+    public void testMeshedChunkIsNotRemeshedRightAway() throws InterruptedException {
+        manager.shutdown();
+        manager = new ChunkMeshUpdateManager(null, worldProvider, 1, TimeUnit.MINUTES.toMillis(1));
+        RenderableChunk chunk = createChunk(new Vector3i(), true);
+        assertTrue(manager.queueChunkUpdate(chunk));
+        assertEquals(1, awaitUpdates(1).size());
+
+        assertFalse(manager.queueChunkUpdate(chunk));
+    }
+
+    @Test
+    public void testMeshedChunkIsRemeshedAfterCoalescingTime() throws InterruptedException {
+        manager.shutdown();
+        manager = new ChunkMeshUpdateManager(null, worldProvider, 1, 10);
+        RenderableChunk chunk = createChunk(new Vector3i(), true);
+        assertTrue(manager.queueChunkUpdate(chunk));
+        assertEquals(1, awaitUpdates(1).size());
+
+        Thread.sleep(20);
+        assertTrue(manager.queueChunkUpdate(chunk));
+    }
+
+    @Test
+    public void testCancelledChunkIsSkipped() throws InterruptedException {
+        long cancelledBefore = ChunkMonitor.getRemeshesCancelled();
+        CountDownLatch release = blockWorker();
+        RenderableChunk cancelled = createChunk(new Vector3i(1, 0, 0), false);
+        manager.queueChunkUpdate(cancelled);
+        manager.cancelChunkUpdate(cancelled);
+        RenderableChunk kept = createChunk(new Vector3i(2, 0, 0), false);
+        manager.queueChunkUpdate(kept);
+        release.countDown();
+
+        List<RenderableChunk> updated = awaitUpdates(2);
+        assertFalse(updated.contains(cancelled));
+        assertTrue(updated.contains(kept));
+        assertEquals(cancelledBefore + 1, ChunkMonitor.getRemeshesCancelled());
+
+        // Once skipped it can be queued again
+        assertTrue(manager.queueChunkUpdate(cancelled));
+    }
+
+    @Test
+    public void testQueueingAgainRevokesCancellation() throws InterruptedException {
+        CountDownLatch release = blockWorker();
+        RenderableChunk chunk = createChunk(new Vector3i(1, 0, 0), false);
+        manager.queueChunkUpdate(chunk);
+        manager.cancelChunkUpdate(chunk);
+        manager.queueChunkUpdate(chunk);
+        release.countDown();
+
+        assertTrue(awaitUpdates(2).contains(chunk));
+    }
+
+    /**
+     * Occupies the single update thread until the returned latch is released.
+     */
+    private CountDownLatch blockWorker() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Vector3i blockerPos = new Vector3i(0, 0, 0);
+        Mockito.when(worldProvider.getLocalView(blockerPos)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return null;
+        });
+        manager.queueChunkUpdate(createChunk(blockerPos, false));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return release;
+    }
+
+    private List<RenderableChunk> awaitUpdates(int count) throws InterruptedException {
+        List<RenderableChunk> result = manager.availableChunksForUpdate();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (result.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            result.addAll(manager.availableChunksForUpdate());
+        }
+        // Give skipped tasks a moment, they do not report back
+        Thread.sleep(50);
+        result.addAll(manager.availableChunksForUpdate());
+        return result;
+    }
+
+    private void moveCameraToChunk(int chunkX) {
+        manager.setCameraPosition(new Vector3f((chunkX + 0.5f) * ChunkConstants.SIZE_X, 0.5f, 0.5f));
+    }
+
+    private static RenderableChunk createChunk(Vector3i position, boolean hasMesh) {
+        RenderableChunk chunk = Mockito.mock(RenderableChunk.class);
+        Mockito.when(chunk.getPosition()).thenReturn(position);
+        Mockito.when(chunk.hasMesh()).thenReturn(hasMesh);
+        return chunk;
+    }
+}
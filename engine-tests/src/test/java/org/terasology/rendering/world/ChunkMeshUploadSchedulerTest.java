@@ -0,0 +1,113 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.rendering.primitives.ChunkMesh;
+import org.terasology.rendering.primitives.StagingBufferPool;
+import org.terasology.world.chunks.RenderableChunk;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ */
+public class ChunkMeshUploadSchedulerTest {
+
+    private static final int MESH_INTS = 1024;
+    private static final int MESH_BYTES = 4 * MESH_INTS;
+
+    private final StagingBufferPool pool = new StagingBufferPool(0);
+
+    @Test
+    public void testNearestChunksAreUploadedFirst() {
+        RenderableChunk far = createChunk(new Vector3i(5, 0, 0));
+        RenderableChunk near = createChunk(new Vector3i(0, 0, 0));
+        RenderableChunk middle = createChunk(new Vector3i(-2, 0, 0));
+
+        ChunkMeshUploadScheduler scheduler = new ChunkMeshUploadScheduler();
+        scheduler.addAll(Arrays.asList(far, near, middle));
+        List<RenderableChunk> uploaded = Lists.newArrayList();
+        assertEquals(3, scheduler.upload(new Vector3f(), 0, uploaded::add));
+
+        assertEquals(Arrays.asList(near, middle, far), uploaded);
+        assertEquals(0, scheduler.getWaitingCount());
+        assertEquals(3 * MESH_BYTES, scheduler.getUploadedBytes());
+    }
+
+    @Test
+    public void testByteBudgetSpreadsUploadsOverFrames() {
+        ChunkMeshUploadScheduler scheduler = new ChunkMeshUploadScheduler();
+        for (int x = 0; x < 5; x++) {
+            scheduler.addAll(Arrays.asList(createChunk(new Vector3i(x, 0, 0))));
+        }
+        List<RenderableChunk> uploaded = Lists.newArrayList();
+
+        assertEquals(2, scheduler.upload(new Vector3f(), 2 * MESH_BYTES + 10, uploaded::add));
+        assertEquals(3, scheduler.getWaitingCount());
+        assertEquals(2, scheduler.upload(new Vector3f(), 2 * MESH_BYTES + 10, uploaded::add));
+        assertEquals(1, scheduler.upload(new Vector3f(), 2 * MESH_BYTES + 10, uploaded::add));
+        assertEquals(0, scheduler.upload(new Vector3f(), 2 * MESH_BYTES + 10, uploaded::add));
+        assertEquals(5, uploaded.size());
+    }
+
+    @Test
+    public void testMeshLargerThanBudgetStillUploads() {
+        ChunkMeshUploadScheduler scheduler = new ChunkMeshUploadScheduler();
+        scheduler.addAll(Arrays.asList(createChunk(new Vector3i(0, 0, 0)), createChunk(new Vector3i(1, 0, 0))));
+        assertEquals(1, scheduler.upload(new Vector3f(), MESH_BYTES / 2, chunk -> { }));
+        assertEquals(1, scheduler.getWaitingCount());
+    }
+
+    @Test
+    public void testChunksWithoutPendingMeshAreDropped() {
+        RenderableChunk chunk = Mockito.mock(RenderableChunk.class);
+        Mockito.when(chunk.getPosition()).thenReturn(new Vector3i());
+        Mockito.when(chunk.hasPendingMesh()).thenReturn(false);
+
+        ChunkMeshUploadScheduler scheduler = new ChunkMeshUploadScheduler();
+        scheduler.addAll(Arrays.asList(chunk));
+        assertEquals(0, scheduler.upload(new Vector3f(), 0, uploaded -> { }));
+        assertEquals(0, scheduler.getWaitingCount());
+    }
+
+    @Test
+    public void testChunkAddedTwiceIsUploadedOnce() {
+        RenderableChunk chunk = createChunk(new Vector3i());
+        ChunkMeshUploadScheduler scheduler = new ChunkMeshUploadScheduler();
+        scheduler.addAll(Arrays.asList(chunk));
+        scheduler.addAll(Arrays.asList(chunk));
+        assertEquals(1, scheduler.getWaitingCount());
+        assertEquals(1, scheduler.upload(new Vector3f(), 0, uploaded -> { }));
+    }
+
+    private RenderableChunk createChunk(Vector3i position) {
+        ChunkMesh mesh = new ChunkMesh(null, pool);
+        mesh.getVertexElements(ChunkMesh.RenderType.OPAQUE).finalVertices = pool.acquire(MESH_INTS);
+
+        RenderableChunk chunk = Mockito.mock(RenderableChunk.class);
+        Mockito.when(chunk.getPosition()).thenReturn(position);
+        Mockito.when(chunk.hasPendingMesh()).thenReturn(true);
+        Mockito.when(chunk.getPendingMesh()).thenReturn(mesh);
+        return chunk;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.TerasologyTestingEnvironment;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.assets.management.AssetManager;
+import org.terasology.math.Region3i;
+import org.terasology.math.Side;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.rendering.primitives.ChunkFaceConnectivity;
+import org.terasology.utilities.procedural.SimplexNoise;
+import org.terasology.world.biomes.BiomeManager;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.family.SymmetricBlockFamilyFactory;
+import org.terasology.world.block.internal.BlockManagerImpl;
+import org.terasology.world.block.loader.BlockFamilyDefinition;
+import org.terasology.world.block.loader.BlockFamilyDefinitionData;
+import org.terasology.world.block.shapes.BlockShape;
+import org.terasology.world.block.tiles.NullWorldAtlas;
+import org.terasology.world.chunks.Chunk;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.internal.ChunkImpl;
+import org.terasology.world.internal.ChunkViewCoreImpl;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class ChunkOcclusionCullerTest extends TerasologyTestingEnvironment {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkOcclusionCullerTest.class);
+
+    private BlockManager blockManager;
+    private BiomeManager biomeManager;
+    private Block airBlock;
+    private Block solidBlock;
+
+    @Before
+    public void setup() throws IOException {
+        AssetManager assetManager = CoreRegistry.get(AssetManager.class);
+        blockManager = new BlockManagerImpl(new NullWorldAtlas(), assetManager);
+        CoreRegistry.put(BlockManager.class, blockManager);
+        airBlock = blockManager.getBlock(BlockManager.AIR_ID);
+
+        biomeManager = Mockito.mock(BiomeManager.class);
+
+        BlockFamilyDefinitionData solidData = new BlockFamilyDefinitionData();
+        solidData.getBaseSection().setDisplayName("Stone");
+        solidData.getBaseSection().setShape(assetManager.getAsset("engine:cube", BlockShape.class).get());
+        solidData.getBaseSection().setTranslucent(false);
+        solidData.setFamilyFactory(new SymmetricBlockFamilyFactory());
+        assetManager.loadAsset(new ResourceUrn("engine:stone"), solidData, BlockFamilyDefinition.class);
+        solidBlock = blockManager.getBlock(new BlockUri(new ResourceUrn("engine:stone")));
+    }
+
+    @Test
+    public void testEmptyAndSolidChunks() {
+        assertEquals(ChunkFaceConnectivity.ALL, connectivityOf(new ChunkImpl(Vector3i.zero(), blockManager, biomeManager)));
+        assertEquals(ChunkFaceConnectivity.NONE, connectivityOf(createSolidChunk(Vector3i.zero())));
+    }
+
+    @Test
+    public void testTunnelOnlyConnectsItsEnds() {
+        Chunk chunk = createSolidChunk(Vector3i.zero());
+        for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+            chunk.setBlock(x, 10, 10, airBlock);
+        }
+        long connectivity = connectivityOf(chunk);
+
+        assertTrue(ChunkFaceConnectivity.isConnected(connectivity, Side.LEFT, Side.RIGHT));
+        assertTrue(ChunkFaceConnectivity.isConnected(connectivity, Side.RIGHT, Side.LEFT));
+        assertFalse(ChunkFaceConnectivity.isConnected(connectivity, Side.LEFT, Side.TOP));
+        assertFalse(ChunkFaceConnectivity.isConnected(connectivity, Side.TOP, Side.BOTTOM));
+        assertFalse(ChunkFaceConnectivity.isConnected(connectivity, Side.FRONT, Side.BACK));
+    }
+
+    @Test
+    public void testEnclosedCaveConnectsNothing() {
+        Chunk chunk = createSolidChunk(Vector3i.zero());
+        for (int x = 4; x < 12; x++) {
+            for (int y = 4; y < 12; y++) {
+                for (int z = 4; z < 12; z++) {
+                    chunk.setBlock(x, y, z, airBlock);
+                }
+            }
+        }
+        assertEquals(ChunkFaceConnectivity.NONE, connectivityOf(chunk));
+    }
+
+    @Test
+    public void testSolidChunkHidesChunksBehindIt() {
+        ChunkOcclusionCuller culler = new ChunkOcclusionCuller();
+        culler.reset(Region3i.createFromMinAndSize(Vector3i.zero(), new Vector3i(5, 1, 1)));
+        culler.setConnectivity(new Vector3i(2, 0, 0), ChunkFaceConnectivity.NONE);
+        culler.cull(Vector3i.zero());
+
+        assertTrue(culler.isVisible(new Vector3i(0, 0, 0)));
+        assertTrue(culler.isVisible(new Vector3i(1, 0, 0)));
+        assertTrue(culler.isVisible(new Vector3i(2, 0, 0)));
+        assertFalse(culler.isVisible(new Vector3i(3, 0, 0)));
+        assertFalse(culler.isVisible(new Vector3i(4, 0, 0)));
+        assertEquals(3, culler.getVisibleCount());
+    }
+
+    @Test
+    public void testWalkDoesNotTurnBackTowardsCamera() {
+        // An arch: going up from the camera, across and back down again is not a line of sight
+        ChunkOcclusionCuller culler = new ChunkOcclusionCuller();
+        culler.reset(Region3i.createFromMinAndSize(Vector3i.zero(), new Vector3i(3, 3, 1)));
+        for (Vector3i pos : culler.getRegion()) {
+            culler.setConnectivity(pos, ChunkFaceConnectivity.NONE);
+        }
+        culler.setConnectivity(new Vector3i(0, 1, 0), connect(Side.BOTTOM, Side.TOP));
+        culler.setConnectivity(new Vector3i(0, 2, 0), connect(Side.BOTTOM, Side.RIGHT));
+        culler.setConnectivity(new Vector3i(1, 2, 0), connect(Side.LEFT, Side.RIGHT));
+        culler.setConnectivity(new Vector3i(2, 2, 0), connect(Side.LEFT, Side.BOTTOM));
+        culler.setConnectivity(new Vector3i(2, 1, 0), connect(Side.TOP, Side.BOTTOM));
+        culler.cull(Vector3i.zero());
+
+        assertTrue(culler.isVisible(new Vector3i(0, 2, 0)));
+        assertTrue(culler.isVisible(new Vector3i(2, 2, 0)));
+        assertFalse(culler.isVisible(new Vector3i(2, 1, 0)));
+        assertFalse(culler.isVisible(new Vector3i(2, 0, 0)));
+    }
+
+    @Test
+    public void testCullsUndergroundOfGeneratedTerrain() {
+        Region3i region = Region3i.createFromMinAndSize(new Vector3i(-2, 0, -2), new Vector3i(5, 4, 5));
+        SimplexNoise surfaceNoise = new SimplexNoise(42);
+        SimplexNoise caveNoise = new SimplexNoise(43);
+
+        ChunkOcclusionCuller culler = new ChunkOcclusionCuller();
+        culler.reset(region);
+        int emptyChunks = 0;
+        for (Vector3i chunkPos : region) {
+            Chunk chunk = createTerrainChunk(chunkPos, surfaceNoise, caveNoise);
+            long connectivity = connectivityOf(chunk);
+            if (connectivity == ChunkFaceConnectivity.ALL) {
+                emptyChunks++;
+            }
+            culler.setConnectivity(chunkPos, connectivity);
+        }
+
+        // Camera in the sky above the center of the terrain
+        culler.cull(new Vector3i(0, 3, 0));
+
+        int total = culler.getRegionVolume();
+        float culledFraction = (float) (total - culler.getVisibleCount()) / total;
+        logger.info("Occlusion culling hid {} of {} chunks ({}%)", total - culler.getVisibleCount(), total, Math.round(culledFraction * 100));
+
+        assertTrue("Every chunk of open sky must be visible", culler.getVisibleCount() >= emptyChunks);
+        for (int x = region.minX(); x <= region.maxX(); x++) {
+            for (int z = region.minZ(); z <= region.maxZ(); z++) {
+                assertTrue(culler.isVisible(new Vector3i(x, 3, z)));
+            }
+        }
+        assertTrue("Expected a notable part of the underground to be culled, was " + culledFraction, culledFraction > 0.2f);
+    }
+
+    private Chunk createTerrainChunk(Vector3i chunkPos, SimplexNoise surfaceNoise, SimplexNoise caveNoise) {
+        Chunk chunk = new ChunkImpl(chunkPos, blockManager, biomeManager);
+        for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                int worldX = chunkPos.x * ChunkConstants.SIZE_X + x;
+                int worldZ = chunkPos.z * ChunkConstants.SIZE_Z + z;
+                int surface = 150 + Math.round(24 * surfaceNoise.noise(worldX * 0.01f, worldZ * 0.01f));
+                for (int y = 0; y < ChunkConstants.SIZE_Y; y++) {
+                    int worldY = chunkPos.y * ChunkConstants.SIZE_Y + y;
+                    if (worldY < surface && caveNoise.noise(worldX * 0.04f, worldY * 0.04f, worldZ * 0.04f) < 0.7f) {
+                        chunk.setBlock(x, y, z, solidBlock);
+                    }
+                }
+            }
+        }
+        return chunk;
+    }
+
+    private Chunk createSolidChunk(Vector3i chunkPos) {
+        Chunk chunk = new ChunkImpl(chunkPos, blockManager, biomeManager);
+        for (Vector3i pos : ChunkConstants.CHUNK_REGION) {
+            chunk.setBlock(pos, solidBlock);
+        }
+        return chunk;
+    }
+
+    private long connectivityOf(Chunk chunk) {
+        ChunkViewCoreImpl view = new ChunkViewCoreImpl(new Chunk[]{chunk},
+                Region3i.createFromCenterExtents(chunk.getPosition(), Vector3i.zero()), new Vector3i(), airBlock);
+        return ChunkFaceConnectivity.calculate(view);
+    }
+
+    private static long connect(Side a, Side b) {
+        return (1L << (a.ordinal() * 6 + b.ordinal())) | (1L << (b.ordinal() * 6 + a.ordinal()));
+    }
+}
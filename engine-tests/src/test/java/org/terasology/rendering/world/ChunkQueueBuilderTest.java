@@ -0,0 +1,116 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.chunks.RenderableChunk;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ */
+public class ChunkQueueBuilderTest {
+
+    private ChunkQueueBuilder builder;
+    private List<RenderableChunk> chunks;
+
+    @Before
+    public void setup() {
+        builder = new ChunkQueueBuilder(3);
+        chunks = Lists.newArrayList();
+        // 16 * 6 * 16 chunks, enough for classify() to use all three threads
+        for (int x = -8; x < 8; x++) {
+            for (int y = 0; y < 6; y++) {
+                for (int z = -8; z < 8; z++) {
+                    RenderableChunk chunk = mock(RenderableChunk.class);
+                    Vector3i position = new Vector3i(x, y, z);
+                    when(chunk.getPosition()).thenReturn(position);
+                    chunks.add(chunk);
+                }
+            }
+        }
+        Collections.shuffle(chunks, new Random(0));
+    }
+
+    @After
+    public void teardown() {
+        builder.shutdown();
+    }
+
+    @Test
+    public void testSortsFrontToBack() {
+        Vector3f camera = new Vector3f(10, 40, -20);
+        assertTrue(builder.sortFrontToBack(chunks, camera));
+        assertFrontToBack(camera);
+    }
+
+    @Test
+    public void testKeepsOrderWhileCameraMoves() {
+        Vector3f camera = new Vector3f();
+        builder.sortFrontToBack(chunks, camera);
+        int fullSorts = builder.getFullSortCount();
+
+        FastRandom random = new FastRandom(0);
+        for (int step = 0; step < 50; step++) {
+            camera.add(new Vector3f(random.nextFloat(-2, 2), random.nextFloat(-1, 1), random.nextFloat(-2, 2)));
+            builder.invalidateOrder();
+            builder.sortFrontToBack(chunks, camera);
+            assertFrontToBack(camera);
+        }
+        assertEquals("Small camera steps should not need sorting from scratch", fullSorts, builder.getFullSortCount());
+    }
+
+    @Test
+    public void testSkipsSortWhenCameraBarelyMoved() {
+        builder.sortFrontToBack(chunks, new Vector3f());
+        assertFalse(builder.sortFrontToBack(chunks, new Vector3f(0.1f, 0, 0)));
+
+        builder.invalidateOrder();
+        assertTrue(builder.sortFrontToBack(chunks, new Vector3f(0.1f, 0, 0)));
+    }
+
+    @Test
+    public void testClassifiesEveryChunkOnce() {
+        // Enough chunks to be split across all three threads, at most 512 per thread
+        assertTrue(chunks.size() > 2 * 512);
+        builder.classify(chunks, (chunk, index) -> chunk.getPosition().y * 1000 + index);
+
+        for (int i = 0; i < chunks.size(); i++) {
+            assertEquals(chunks.get(i).getPosition().y * 1000 + i, builder.getFlags(i));
+        }
+    }
+
+    private void assertFrontToBack(Vector3f camera) {
+        for (int i = 1; i < chunks.size(); i++) {
+            assertTrue(ChunkQueueBuilder.squaredDistanceToCamera(chunks.get(i - 1), camera)
+                    <= ChunkQueueBuilder.squaredDistanceToCamera(chunks.get(i), camera));
+        }
+    }
+}
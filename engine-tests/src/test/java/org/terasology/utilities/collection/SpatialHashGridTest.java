@@ -0,0 +1,144 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.collection;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.junit.Test;
+import org.terasology.utilities.random.FastRandom;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class SpatialHashGridTest {
+
+    @Test
+    public void testRadiusQuery() {
+        SpatialHashGrid<String> grid = new SpatialHashGrid<>(4);
+        grid.put("near", 1, 0, 0);
+        grid.put("edge", 0, 0, 5);
+        grid.put("far", 20, 0, 0);
+
+        assertEquals(ImmutableSet.of("near", "edge"), Sets.newHashSet(grid.getInRadius(0, 0, 0, 5, value -> true)));
+        assertEquals(ImmutableSet.of("near"), Sets.newHashSet(grid.getInRadius(0, 0, 0, 5, value -> !value.equals("edge"))));
+    }
+
+    @Test
+    public void testBoxQuery() {
+        SpatialHashGrid<String> grid = new SpatialHashGrid<>(4);
+        grid.put("inside", -3, 2, 7);
+        grid.put("outside", -3, 2, 12);
+
+        assertEquals(ImmutableList.of("inside"), grid.getInBox(-5, 0, 0, 0, 5, 10, value -> true));
+    }
+
+    @Test
+    public void testPutMovesValue() {
+        SpatialHashGrid<String> grid = new SpatialHashGrid<>(4);
+        grid.put("a", 0, 0, 0);
+        grid.put("a", 100, 0, 0);
+
+        assertEquals(1, grid.size());
+        assertTrue(grid.getInRadius(0, 0, 0, 10, value -> true).isEmpty());
+        assertEquals(ImmutableList.of("a"), grid.getInRadius(100, 0, 0, 10, value -> true));
+    }
+
+    @Test
+    public void testRemove() {
+        SpatialHashGrid<String> grid = new SpatialHashGrid<>(4);
+        grid.put("a", 0, 0, 0);
+        grid.put("b", 0, 0, 0);
+
+        assertTrue(grid.remove("a"));
+        assertFalse(grid.remove("a"));
+        assertFalse(grid.contains("a"));
+        assertEquals(ImmutableList.of("b"), grid.getInRadius(0, 0, 0, 1, value -> true));
+    }
+
+    @Test
+    public void testNearestAreSortedByDistance() {
+        SpatialHashGrid<String> grid = new SpatialHashGrid<>(2);
+        grid.put("c", 30, 0, 0);
+        grid.put("a", 0, 1, 0);
+        grid.put("b", 0, 0, -7);
+        grid.put("d", -200, 0, 0);
+
+        assertEquals(ImmutableList.of("a", "b", "c"), grid.getNearest(0, 0, 0, 3, Float.POSITIVE_INFINITY, value -> true));
+        assertEquals(ImmutableList.of("a", "b"), grid.getNearest(0, 0, 0, 3, 10, value -> true));
+        assertEquals(ImmutableList.of("d"), grid.getNearest(0, 0, 0, 1, Float.POSITIVE_INFINITY, value -> value.equals("d")));
+    }
+
+    @Test
+    public void testQueriesMatchBruteForce() {
+        FastRandom random = new FastRandom(1234L);
+        SpatialHashGrid<Integer> grid = new SpatialHashGrid<>(8);
+        Map<Integer, float[]> positions = Maps.newHashMap();
+        for (int i = 0; i < 2000; i++) {
+            int value = random.nextInt(500);
+            if (random.nextInt(5) == 0) {
+                grid.remove(value);
+                positions.remove(value);
+            } else {
+                float[] position = {random.nextFloat(-100, 100), random.nextFloat(-100, 100), random.nextFloat(-100, 100)};
+                grid.put(value, position[0], position[1], position[2]);
+                positions.put(value, position);
+            }
+        }
+        assertEquals(positions.size(), grid.size());
+
+        for (int query = 0; query < 50; query++) {
+            float x = random.nextFloat(-120, 120);
+            float y = random.nextFloat(-120, 120);
+            float z = random.nextFloat(-120, 120);
+            float radius = random.nextFloat(0, 60);
+
+            Set<Integer> expected = Sets.newHashSet();
+            List<Float> distances = Lists.newArrayList();
+            for (Map.Entry<Integer, float[]> entry : positions.entrySet()) {
+                float distanceSquared = distanceSquared(entry.getValue(), x, y, z);
+                if (distanceSquared <= radius * radius) {
+                    expected.add(entry.getKey());
+                }
+                distances.add(distanceSquared);
+            }
+            assertEquals(expected, Sets.newHashSet(grid.getInRadius(x, y, z, radius, value -> true)));
+
+            distances.sort(Float::compare);
+            List<Integer> nearest = grid.getNearest(x, y, z, 10, Float.POSITIVE_INFINITY, value -> true);
+            assertEquals(Math.min(10, positions.size()), nearest.size());
+            for (int i = 0; i < nearest.size(); i++) {
+                assertEquals(distances.get(i), distanceSquared(positions.get(nearest.get(i)), x, y, z), 0);
+            }
+        }
+    }
+
+    private static float distanceSquared(float[] position, float x, float y, float z) {
+        float dx = position[0] - x;
+        float dy = position[1] - y;
+        float dz = position[2] - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
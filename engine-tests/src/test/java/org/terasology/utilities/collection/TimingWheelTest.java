@@ -0,0 +1,138 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.collection;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.TreeMultimap;
+import org.junit.Test;
+import org.terasology.utilities.random.FastRandom;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ */
+public class TimingWheelTest {
+
+    @Test
+    public void testKeysBecomeDueAtTheirTime() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        wheel.schedule("a", 10);
+        wheel.schedule("b", 20);
+
+        assertEquals(ImmutableList.of(), wheel.advance(9));
+        assertEquals(ImmutableList.of("a"), wheel.advance(10));
+        assertEquals(ImmutableList.of(), wheel.advance(19));
+        assertEquals(ImmutableList.of("b"), wheel.advance(25));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testDueKeysAreReturnedInOrder() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        wheel.schedule("c", 100000);
+        wheel.schedule("a", 5);
+        wheel.schedule("b", 300);
+
+        assertEquals(ImmutableList.of("a", "b", "c"), wheel.advance(200000));
+    }
+
+    @Test
+    public void testRescheduleReplacesTime() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        wheel.schedule("a", 10);
+        wheel.schedule("a", 5000);
+
+        assertEquals(1, wheel.size());
+        assertEquals(5000, wheel.getScheduledTime("a"));
+        assertEquals(ImmutableList.of(), wheel.advance(4999));
+        assertEquals(ImmutableList.of("a"), wheel.advance(5000));
+    }
+
+    @Test
+    public void testCancel() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        wheel.schedule("a", 10);
+        wheel.schedule("b", 10);
+
+        assertTrue(wheel.cancel("a"));
+        assertFalse(wheel.cancel("a"));
+        assertFalse(wheel.isScheduled("a"));
+        assertEquals(ImmutableList.of("b"), wheel.advance(10));
+    }
+
+    @Test
+    public void testPastTimeIsDueAtNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        wheel.advance(1000);
+        wheel.schedule("a", 500);
+
+        assertEquals(ImmutableList.of("a"), wheel.advance(1000));
+    }
+
+    @Test
+    public void testFarFutureTime() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        long farFuture = 1L << 40;
+        wheel.schedule("a", farFuture);
+
+        assertEquals(ImmutableList.of(), wheel.advance(farFuture - 1));
+        assertEquals(ImmutableList.of("a"), wheel.advance(farFuture));
+    }
+
+    @Test
+    public void testKeysAtLevelBoundaryAreNotDelayed() {
+        TimingWheel<String> wheel = new TimingWheel<>();
+        wheel.schedule("a", 127);
+        wheel.schedule("b", 128);
+        wheel.schedule("c", 4096);
+
+        assertEquals(ImmutableList.of("a"), wheel.advance(127));
+        assertEquals(ImmutableList.of("b"), wheel.advance(128));
+        assertEquals(ImmutableList.of(), wheel.advance(4095));
+        assertEquals(ImmutableList.of("c"), wheel.advance(4096));
+    }
+
+    @Test
+    public void testMatchesSortedScheduling() {
+        FastRandom random = new FastRandom(42);
+        TimingWheel<Integer> wheel = new TimingWheel<>();
+        TreeMultimap<Long, Integer> expected = TreeMultimap.create();
+        long now = 0;
+        for (int key = 0; key < 2000; key++) {
+            long time = now + random.nextInt(1, 1 << 20);
+            wheel.schedule(key, time);
+            expected.put(time, key);
+        }
+
+        while (!expected.isEmpty()) {
+            now += random.nextInt(1, 5000);
+            List<Integer> due = Lists.newArrayList();
+            while (!expected.isEmpty() && expected.keySet().first() <= now) {
+                due.addAll(expected.removeAll(expected.keySet().first()));
+            }
+            List<Integer> actual = wheel.advance(now);
+            actual.sort(null);
+            due.sort(null);
+            assertEquals(due, actual);
+        }
+        assertEquals(0, wheel.size());
+    }
+}
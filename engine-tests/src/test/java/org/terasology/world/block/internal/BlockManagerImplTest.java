@@ -0,0 +1,76 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.block.internal;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.family.SymmetricFamily;
+import org.terasology.world.block.tiles.NullWorldAtlas;
+
+import static org.junit.Assert.assertSame;
+
+public class BlockManagerImplTest {
+
+    private BlockManagerImpl blockManager;
+    private Block air;
+
+    @Before
+    public void setup() {
+        blockManager = new BlockManagerImpl(new NullWorldAtlas(), null, false);
+        air = register(BlockManager.AIR_ID, (short) 0);
+    }
+
+    @Test
+    public void testGetBlockById() {
+        Block stone = register(new BlockUri(new ResourceUrn("test:stone")), (short) 1);
+
+        assertSame(air, blockManager.getBlock((short) 0));
+        assertSame(stone, blockManager.getBlock((short) 1));
+    }
+
+    @Test
+    public void testGetBlockByIdAboveShortRange() {
+        Block block = register(new BlockUri(new ResourceUrn("test:high")), (short) 40000);
+
+        assertSame(block, blockManager.getBlock((short) 40000));
+    }
+
+    @Test
+    public void testUnknownIdIsAir() {
+        assertSame(air, blockManager.getBlock((short) 7));
+        assertSame(air, blockManager.getBlock((short) 65535));
+    }
+
+    @Test
+    public void testLaterRegistrationIsVisible() {
+        assertSame(air, blockManager.getBlock((short) 2));
+        Block dirt = register(new BlockUri(new ResourceUrn("test:dirt")), (short) 2);
+
+        assertSame(dirt, blockManager.getBlock((short) 2));
+    }
+
+    private Block register(BlockUri uri, short id) {
+        Block block = new Block();
+        block.setUri(uri);
+        block.setId(id);
+        blockManager.registerFamily(new SymmetricFamily(uri, block));
+        return block;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.block.tiles;
+
+import com.google.common.collect.Lists;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TileAtlasCacheTest {
+
+    private static final int ATLAS_SIZE = 32;
+    private static final int MIPMAPS = 3;
+    private static final int LAYERS = 2;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+    private TileAtlasCache cache;
+
+    @Before
+    public void setup() throws IOException {
+        directory = temporaryFolder.newFolder("atlas").toPath();
+        cache = new TileAtlasCache(directory, "engine:1.0.0");
+    }
+
+    @Test
+    public void testStoredAtlasIsLoaded() {
+        ByteBuffer[][] layers = createLayers();
+        cache.store("key", ATLAS_SIZE, layers);
+
+        Optional<ByteBuffer[][]> loaded = cache.load("key", ATLAS_SIZE, MIPMAPS, LAYERS);
+        assertTrue(loaded.isPresent());
+        for (int layer = 0; layer < LAYERS; layer++) {
+            for (int level = 0; level < MIPMAPS; level++) {
+                assertEquals(layers[layer][level], loaded.get()[layer][level]);
+            }
+        }
+    }
+
+    @Test
+    public void testLoadedAtlasDoesNotKeepFileOpen() throws IOException {
+        cache.store("key", ATLAS_SIZE, createLayers());
+        ByteBuffer[][] loaded = cache.load("key", ATLAS_SIZE, MIPMAPS, LAYERS).get();
+        assertTrue(loaded[0][0].isDirect());
+
+        Files.delete(directory.resolve("key.atlas"));
+        assertEquals(4 * ATLAS_SIZE * ATLAS_SIZE, loaded[0][0].remaining());
+    }
+
+    @Test
+    public void testAtlasOfDifferentSizeIsNotLoaded() {
+        cache.store("key", ATLAS_SIZE, createLayers());
+        assertFalse(cache.load("key", ATLAS_SIZE, MIPMAPS + 1, LAYERS).isPresent());
+        assertFalse(cache.load("key", ATLAS_SIZE * 2, MIPMAPS, LAYERS).isPresent());
+        assertFalse(cache.load("other", ATLAS_SIZE, MIPMAPS, LAYERS).isPresent());
+    }
+
+    @Test
+    public void testTruncatedAtlasIsNotLoaded() throws IOException {
+        cache.store("key", ATLAS_SIZE, createLayers());
+        Path file = directory.resolve("key.atlas");
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length / 2));
+        assertFalse(cache.load("key", ATLAS_SIZE, MIPMAPS, LAYERS).isPresent());
+    }
+
+    @Test
+    public void testOnlyRecentAtlasesAreKept() {
+        for (int i = 0; i < 10; i++) {
+            cache.store("key" + i, ATLAS_SIZE, createLayers());
+        }
+        File[] files = directory.toFile().listFiles();
+        assertTrue(files.length < 10);
+        assertTrue(cache.load("key9", ATLAS_SIZE, MIPMAPS, LAYERS).isPresent());
+    }
+
+    @Test
+    public void testKeyDependsOnPixelsAndModules() {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        List<List<BlockTile>> layers = Lists.newArrayList();
+        layers.add(Lists.newArrayList(createTile(image), null));
+
+        String key = cache.computeKey(4096, layers);
+        assertEquals(key, cache.computeKey(4096, layers));
+        assertNotEquals(key, cache.computeKey(2048, layers));
+        assertNotEquals(key, new TileAtlasCache(directory, "engine:1.0.1").computeKey(4096, layers));
+
+        image.setRGB(3, 4, 0xff102030);
+        assertNotEquals(key, cache.computeKey(4096, layers));
+    }
+
+    private static BlockTile createTile(BufferedImage image) {
+        BlockTile tile = mock(BlockTile.class);
+        when(tile.getImage()).thenReturn(image);
+        return tile;
+    }
+
+    private static ByteBuffer[][] createLayers() {
+        ByteBuffer[][] layers = new ByteBuffer[LAYERS][MIPMAPS];
+        for (int layer = 0; layer < LAYERS; layer++) {
+            for (int level = 0; level < MIPMAPS; level++) {
+                int size = ATLAS_SIZE >> level;
+                ByteBuffer data = ByteBuffer.allocateDirect(4 * size * size);
+                for (int i = 0; i < data.capacity(); i++) {
+                    data.put((byte) (i * 7 + layer * 3 + level));
+                }
+                data.flip();
+                layers[layer][level] = data;
+            }
+        }
+        return layers;
+    }
+}
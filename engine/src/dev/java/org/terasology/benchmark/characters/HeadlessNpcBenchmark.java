@@ -0,0 +1,164 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.characters;
+
+import org.terasology.config.SystemConfig;
+import org.terasology.engine.ComponentSystemManager;
+import org.terasology.engine.TerasologyEngine;
+import org.terasology.engine.TerasologyEngineBuilder;
+import org.terasology.engine.modes.StateIngame;
+import org.terasology.engine.paths.PathManager;
+import org.terasology.engine.subsystem.headless.HeadlessAudio;
+import org.terasology.engine.subsystem.headless.HeadlessGraphics;
+import org.terasology.engine.subsystem.headless.HeadlessInput;
+import org.terasology.engine.subsystem.headless.HeadlessTimer;
+import org.terasology.engine.subsystem.headless.mode.StateHeadlessSetup;
+import org.terasology.entitySystem.entity.EntityManager;
+import org.terasology.entitySystem.systems.BaseComponentSystem;
+import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.logic.ai.SimpleAIComponent;
+import org.terasology.logic.characters.CharacterMovementComponent;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.RelevanceRegionComponent;
+import org.terasology.world.WorldProvider;
+
+/**
+ * Starts a headless server, spawns wandering {@link SimpleAIComponent} characters around the origin and measures the
+ * average duration of a game tick once they are all moving.
+ * <p>
+ * Arguments: the number of characters (default 300) and the number of measured ticks (default 600). Run it with
+ * different values of the {@value SystemConfig#MOVEMENT_THREADS_PROPERTY} system property to compare stepping the
+ * characters on the main thread with stepping them in parallel.
+ */
+public final class HeadlessNpcBenchmark {
+
+    private static final int WARMUP_TICKS = 120;
+    private static final int SPAWN_RADIUS = 24;
+    private static final int MAX_SURFACE_HEIGHT = 128;
+    private static final int MIN_SURFACE_HEIGHT = -64;
+
+    private HeadlessNpcBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int npcCount = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+
+        PathManager.getInstance().useDefaultHomePath();
+
+        TerasologyEngine engine = new TerasologyEngineBuilder()
+                .add(new HeadlessGraphics())
+                .add(new HeadlessTimer())
+                .add(new HeadlessAudio())
+                .add(new HeadlessInput())
+                .build();
+
+        NpcTickMonitor monitor = new NpcTickMonitor(engine, npcCount, ticks);
+        engine.subscribeToStateChange(() -> {
+            if (engine.getState() instanceof StateIngame && monitor.entityManager == null) {
+                monitor.start(((StateIngame) engine.getState()).getContext().get(EntityManager.class),
+                        ((StateIngame) engine.getState()).getContext().get(WorldProvider.class));
+                ((StateIngame) engine.getState()).getContext().get(ComponentSystemManager.class).register(monitor);
+            }
+        });
+
+        engine.run(new StateHeadlessSetup());
+
+        String threads = System.getProperty(SystemConfig.MOVEMENT_THREADS_PROPERTY, "config default");
+        if (monitor.measuredTicks < ticks) {
+            System.out.println("Benchmark ended before " + ticks + " ticks were measured (movement threads: " + threads + ")");
+        } else {
+            double millis = monitor.measuredNanos / 1000000.0 / monitor.measuredTicks;
+            System.out.println(String.format("%d characters: %.3f ms per tick over %d ticks (movement threads: %s)",
+                    npcCount, millis, monitor.measuredTicks, threads));
+        }
+    }
+
+    /**
+     * Keeps the area around the origin loaded, spawns the characters once it is, and times the ticks afterwards.
+     */
+    private static final class NpcTickMonitor extends BaseComponentSystem implements UpdateSubscriberSystem {
+
+        private final TerasologyEngine engine;
+        private final int npcCount;
+        private final int ticks;
+
+        private EntityManager entityManager;
+        private WorldProvider worldProvider;
+        private boolean spawned;
+        private int warmupTicks;
+        private int measuredTicks;
+        private long measuredNanos;
+        private long lastTickTime;
+
+        NpcTickMonitor(TerasologyEngine engine, int npcCount, int ticks) {
+            this.engine = engine;
+            this.npcCount = npcCount;
+            this.ticks = ticks;
+        }
+
+        void start(EntityManager manager, WorldProvider world) {
+            this.entityManager = manager;
+            this.worldProvider = world;
+            RelevanceRegionComponent relevanceRegion = new RelevanceRegionComponent();
+            relevanceRegion.distance = new Vector3i(4, 4, 4);
+            entityManager.create(new LocationComponent(new Vector3f()), relevanceRegion);
+        }
+
+        @Override
+        public void update(float delta) {
+            if (!spawned) {
+                spawnCharacters();
+                return;
+            }
+            long now = System.nanoTime();
+            if (warmupTicks < WARMUP_TICKS) {
+                warmupTicks++;
+            } else if (measuredTicks < ticks) {
+                measuredNanos += now - lastTickTime;
+                measuredTicks++;
+            } else {
+                engine.shutdown();
+            }
+            lastTickTime = now;
+        }
+
+        private void spawnCharacters() {
+            int side = (int) Math.ceil(Math.sqrt(npcCount));
+            float spacing = 2f * SPAWN_RADIUS / side;
+            for (int i = 0; i < npcCount; i++) {
+                int x = Math.round(-SPAWN_RADIUS + spacing * (i % side));
+                int z = Math.round(-SPAWN_RADIUS + spacing * (i / side));
+                if (!worldProvider.isBlockRelevant(x, MAX_SURFACE_HEIGHT, z) || !worldProvider.isBlockRelevant(x, MIN_SURFACE_HEIGHT, z)) {
+                    return;
+                }
+            }
+            for (int i = 0; i < npcCount; i++) {
+                int x = Math.round(-SPAWN_RADIUS + spacing * (i % side));
+                int z = Math.round(-SPAWN_RADIUS + spacing * (i / side));
+                int y = MAX_SURFACE_HEIGHT;
+                while (y > MIN_SURFACE_HEIGHT && worldProvider.getBlock(x, y, z).isPenetrable()) {
+                    y--;
+                }
+                entityManager.create(new LocationComponent(new Vector3f(x, y + 2f, z)),
+                        new CharacterMovementComponent(), new SimpleAIComponent());
+            }
+            spawned = true;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks.blocks;
+
+import com.google.common.collect.Lists;
+import gnu.trove.map.TShortObjectMap;
+import gnu.trove.map.hash.TShortObjectHashMap;
+import org.terasology.assets.ResourceUrn;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.block.BlockUri;
+import org.terasology.world.block.family.BlockFamily;
+import org.terasology.world.block.family.SymmetricFamily;
+import org.terasology.world.block.internal.BlockManagerImpl;
+import org.terasology.world.block.tiles.NullWorldAtlas;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Compares reading the blocks of a chunk through the flat block table of {@link BlockManagerImpl} with reading them
+ * through a hash map keyed by block id.
+ */
+public final class BlockLookupBenchmark {
+
+    private static final int BLOCK_TYPES = 200;
+
+    private BlockLookupBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        List<Block> blocks = Lists.newArrayList();
+        List<BlockFamily> families = Lists.newArrayList();
+        for (int i = 0; i < BLOCK_TYPES; i++) {
+            Block block = new Block();
+            block.setId((short) i);
+            block.setTranslucent(i % 3 == 0);
+            BlockUri uri = (i == 0) ? BlockManager.AIR_ID : new BlockUri(new ResourceUrn("benchmark:block" + i));
+            block.setUri(uri);
+            families.add(new SymmetricFamily(uri, block));
+            blocks.add(block);
+        }
+
+        TableBlockManager tableBlockManager = new TableBlockManager();
+        MapBlockManager mapBlockManager = new MapBlockManager();
+        for (BlockFamily family : families) {
+            tableBlockManager.register(family);
+            mapBlockManager.register(family);
+        }
+
+        final List<Benchmark> benchmarks = Lists.newArrayList();
+        benchmarks.add(new ChunkBlockReadBenchmark("id hash map", mapBlockManager, blocks));
+        benchmarks.add(new ChunkBlockReadBenchmark("flat block table", tableBlockManager, blocks));
+
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+
+    private static final class TableBlockManager extends BlockManagerImpl {
+
+        TableBlockManager() {
+            super(new NullWorldAtlas(), null, false);
+        }
+
+        void register(BlockFamily family) {
+            registerFamily(family);
+        }
+    }
+
+    /**
+     * Looks blocks up the way the block manager did before it kept a flat table: through an atomically published
+     * map from id to block.
+     */
+    private static final class MapBlockManager extends BlockManager {
+        private final AtomicReference<TShortObjectMap<Block>> blocksById = new AtomicReference<>(new TShortObjectHashMap<>());
+
+        void register(BlockFamily family) {
+            TShortObjectMap<Block> newBlocks = new TShortObjectHashMap<>(blocksById.get());
+            for (Block block : family.getBlocks()) {
+                newBlocks.put(block.getId(), block);
+            }
+            blocksById.set(newBlocks);
+        }
+
+        @Override
+        public Map<String, Short> getBlockIdMap() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public BlockFamily getBlockFamily(String uri) {
+            return null;
+        }
+
+        @Override
+        public BlockFamily getBlockFamily(BlockUri uri) {
+            return null;
+        }
+
+        @Override
+        public Block getBlock(String uri) {
+            return blocksById.get().get((short) 0);
+        }
+
+        @Override
+        public Block getBlock(BlockUri uri) {
+            return blocksById.get().get((short) 0);
+        }
+
+        @Override
+        public Block getBlock(short id) {
+            Block result = blocksById.get().get(id);
+            if (result == null) {
+                return blocksById.get().get((short) 0);
+            }
+            return result;
+        }
+
+        @Override
+        public Collection<BlockUri> listRegisteredBlockUris() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Collection<BlockFamily> listRegisteredBlockFamilies() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public int getBlockFamilyCount() {
+            return 0;
+        }
+
+        @Override
+        public Collection<Block> listRegisteredBlocks() {
+            return blocksById.get().valueCollection();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.chunks.blocks;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockManager;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.internal.ChunkImpl;
+
+import java.util.List;
+
+/**
+ * Reads every block of a chunk filled with a random mix of block types, the way meshing and lighting do.
+ */
+public class ChunkBlockReadBenchmark extends AbstractBenchmark {
+
+    private final BlockManager blockManager;
+    private final List<Block> blocks;
+    private ChunkImpl chunk;
+    private int translucent;
+
+    public ChunkBlockReadBenchmark(String title, BlockManager blockManager, List<Block> blocks) {
+        super("Full chunk block reads via " + title, 1000, new int[]{5000});
+        this.blockManager = blockManager;
+        this.blocks = blocks;
+    }
+
+    @Override
+    public void setup() {
+        chunk = new ChunkImpl(new Vector3i(), blockManager, null);
+        FastRandom random = new FastRandom(0L);
+        for (int y = 0; y < ChunkConstants.SIZE_Y; y++) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+                    chunk.setBlock(x, y, z, blocks.get(random.nextInt(blocks.size())));
+                }
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        int count = 0;
+        for (int y = 0; y < ChunkConstants.SIZE_Y; y++) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+                    if (chunk.getBlock(x, y, z).isTranslucent()) {
+                        count++;
+                    }
+                }
+            }
+        }
+        translucent = count;
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        if (!aborted && translucent < 0) {
+            // keeps the reads from being optimised away
+            System.out.println(translucent);
+        }
+    }
+}
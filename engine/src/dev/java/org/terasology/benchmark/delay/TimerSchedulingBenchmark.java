@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.delay;
+
+import com.google.common.collect.Ordering;
+import com.google.common.collect.SortedSetMultimap;
+import com.google.common.collect.TreeMultimap;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.utilities.collection.TimingWheel;
+import org.terasology.utilities.random.FastRandom;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Simulates the scheduling work of the DelayedActionSystem for many long running timers, like crop growth: each tick
+ * advances the time by a frame, reschedules every timer that fired and moves a few others, as when their actions are
+ * cancelled and added again. Either with a {@link TimingWheel} or with the sorted multimap the system used before.
+ */
+public class TimerSchedulingBenchmark extends AbstractBenchmark {
+
+    private static final long FRAME_MS = 16;
+    private static final int MAX_DELAY_MS = 10 * 60 * 1000;
+    private static final int MOVED_PER_TICK = 100;
+
+    private final int timerCount;
+    private final boolean timingWheel;
+
+    private FastRandom random;
+    private long now;
+    private long[] scheduledTimes;
+    private TimingWheel<Integer> wheel;
+    private SortedSetMultimap<Long, Integer> sortedTimes;
+
+    public TimerSchedulingBenchmark(int timerCount, boolean timingWheel) {
+        super(timerCount + " timers, " + (timingWheel ? "timing wheel" : "sorted multimap"), 1000, new int[]{1000});
+        this.timerCount = timerCount;
+        this.timingWheel = timingWheel;
+    }
+
+    @Override
+    public void setup() {
+        random = new FastRandom(42);
+        now = 0;
+        scheduledTimes = new long[timerCount];
+        wheel = new TimingWheel<>();
+        sortedTimes = TreeMultimap.create(Ordering.natural(), Ordering.arbitrary());
+        for (int i = 0; i < timerCount; i++) {
+            schedule(i, random.nextInt(1, MAX_DELAY_MS));
+        }
+    }
+
+    @Override
+    public void run() {
+        now += FRAME_MS;
+        for (Integer timer : collectDue()) {
+            schedule(timer, now + random.nextInt(1, MAX_DELAY_MS));
+        }
+        for (int i = 0; i < MOVED_PER_TICK; i++) {
+            int timer = random.nextInt(timerCount);
+            if (timingWheel) {
+                wheel.cancel(timer);
+            } else {
+                sortedTimes.remove(scheduledTimes[timer], timer);
+            }
+            schedule(timer, now + random.nextInt(1, MAX_DELAY_MS));
+        }
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        wheel = null;
+        sortedTimes = null;
+    }
+
+    private void schedule(int timer, long time) {
+        scheduledTimes[timer] = time;
+        if (timingWheel) {
+            wheel.schedule(timer, time);
+        } else {
+            sortedTimes.put(time, timer);
+        }
+    }
+
+    private List<Integer> collectDue() {
+        if (timingWheel) {
+            return wheel.advance(now);
+        }
+        List<Integer> due = new LinkedList<>();
+        Iterator<Long> times = sortedTimes.keySet().iterator();
+        while (times.hasNext()) {
+            long time = times.next();
+            if (time > now) {
+                break;
+            }
+            due.addAll(sortedTimes.get(time));
+            times.remove();
+        }
+        return due;
+    }
+}
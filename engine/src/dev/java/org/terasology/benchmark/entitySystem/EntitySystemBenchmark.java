@@ -40,6 +40,14 @@ public static void main(String[] args) {
         benchmarks.add(new EntityCreateBenchmark());
         benchmarks.add(new IterateSingleComponentBenchmark());
         benchmarks.add(new IterateMultipleComponentBenchmark());
+        for (int depth : new int[]{1, 3, 6}) {
+            benchmarks.add(new LocationHierarchyBenchmark(depth, true));
+            benchmarks.add(new LocationHierarchyBenchmark(depth, false));
+        }
+        for (int entityCount : new int[]{10000, 100000}) {
+            benchmarks.add(new ProximityQueryBenchmark(entityCount, false));
+            benchmarks.add(new ProximityQueryBenchmark(entityCount, true));
+        }
         Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
 
     }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.entitySystem;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.PojoEntityManager;
+import org.terasology.logic.location.Location;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Quat4f;
+import org.terasology.math.geom.Vector3f;
+
+import java.util.List;
+
+/**
+ * Moves the roots of location hierarchies, like characters carrying held items or riding mounts, and then queries the
+ * world position of every entity in them. Either through the cached world transform of the location components, or by
+ * walking the parent chain with an entity lookup per level as the components used to do.
+ */
+public class LocationHierarchyBenchmark extends AbstractBenchmark {
+
+    private static final int HIERARCHIES = 1000;
+
+    private final int depth;
+    private final boolean walkParents;
+
+    private PojoEntityManager entityManager;
+    private List<EntityRef> roots;
+    private List<EntityRef> entities;
+    private final Vector3f output = new Vector3f();
+
+    public LocationHierarchyBenchmark(int depth, boolean walkParents) {
+        super("World positions in " + HIERARCHIES + " hierarchies of depth " + depth + (walkParents ? ", walking the parents" : ", cached"),
+                1000, new int[]{1000});
+        this.depth = depth;
+        this.walkParents = walkParents;
+    }
+
+    @Override
+    public void setup() {
+        entityManager = new PojoEntityManager();
+        roots = Lists.newArrayListWithCapacity(HIERARCHIES);
+        entities = Lists.newArrayListWithCapacity(HIERARCHIES * (depth + 1));
+        Quat4f rotation = new Quat4f(0.5f, 0, 0);
+        for (int i = 0; i < HIERARCHIES; i++) {
+            EntityRef parent = entityManager.create(new LocationComponent(new Vector3f(i, 0, 0)));
+            roots.add(parent);
+            entities.add(parent);
+            for (int level = 0; level < depth; level++) {
+                EntityRef child = entityManager.create(new LocationComponent());
+                Location.attachChild(parent, child, new Vector3f(0, 1, 0.5f), rotation);
+                entities.add(child);
+                parent = child;
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        for (EntityRef root : roots) {
+            LocationComponent location = root.getComponent(LocationComponent.class);
+            location.getLocalPosition().y += 0.01f;
+            root.saveComponent(location);
+        }
+        for (EntityRef entity : entities) {
+            LocationComponent location = entity.getComponent(LocationComponent.class);
+            if (walkParents) {
+                walkToWorldPosition(location, output);
+            } else {
+                location.getWorldPosition(output);
+            }
+        }
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        entityManager = null;
+        roots = null;
+        entities = null;
+    }
+
+    private static void walkToWorldPosition(LocationComponent location, Vector3f result) {
+        result.set(location.getLocalPosition());
+        LocationComponent parentLoc = location.getParent().getComponent(LocationComponent.class);
+        while (parentLoc != null) {
+            result.scale(parentLoc.getLocalScale());
+            parentLoc.getLocalRotation().rotate(result, result);
+            result.add(parentLoc.getLocalPosition());
+            parentLoc = parentLoc.getParent().getComponent(LocationComponent.class);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.entitySystem;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.PojoEntityManager;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.logic.location.SpatialIndexSystem;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.utilities.random.FastRandom;
+
+import java.util.List;
+
+/**
+ * Finds the entities within interaction range of random points in a world populated with located entities, either
+ * through the {@link SpatialIndexSystem} or by iterating over all located entities and checking their distance.
+ * <br><br>
+ * Before each query some of the entities move without saving their location, as physics moves them, so the indexed
+ * variant includes the cost of keeping the index up to date.
+ */
+public class ProximityQueryBenchmark extends AbstractBenchmark {
+
+    private static final float WORLD_EXTENT = 1000;
+    private static final float RADIUS = 16;
+    private static final int QUERY_POINTS = 1024;
+    private static final int MOVES_PER_QUERY = 32;
+    private static final float MOVE_DISTANCE = 1;
+
+    private final int entityCount;
+    private final boolean indexed;
+
+    private PojoEntityManager entityManager;
+    private SpatialIndexSystem spatialIndex;
+    private EntityRef[] entities;
+    private Vector3f[] queryPoints;
+    private FastRandom moves;
+    private final Vector3f position = new Vector3f();
+    private int next;
+    private int nextMoved;
+    private int found;
+
+    public ProximityQueryBenchmark(int entityCount, boolean indexed) {
+        super("Radius queries among " + entityCount + " entities" + (indexed ? " via the spatial index" : " via iteration"),
+                100, new int[]{1000});
+        this.entityCount = entityCount;
+        this.indexed = indexed;
+    }
+
+    @Override
+    public void setup() {
+        entityManager = new PojoEntityManager();
+        spatialIndex = new SpatialIndexSystem();
+        FastRandom random = new FastRandom(0L);
+        entities = new EntityRef[entityCount];
+        for (int i = 0; i < entityCount; i++) {
+            LocationComponent location = new LocationComponent(new Vector3f(random.nextFloat(-WORLD_EXTENT, WORLD_EXTENT),
+                    random.nextFloat(0, 64), random.nextFloat(-WORLD_EXTENT, WORLD_EXTENT)));
+            EntityRef entity = entityManager.create(location);
+            // the entity manager has no event system to deliver the activation to the index
+            spatialIndex.onActivated(null, entity, location);
+            entities[i] = entity;
+        }
+        moves = new FastRandom(1L);
+        queryPoints = new Vector3f[QUERY_POINTS];
+        for (int i = 0; i < QUERY_POINTS; i++) {
+            queryPoints[i] = new Vector3f(random.nextFloat(-WORLD_EXTENT, WORLD_EXTENT), random.nextFloat(0, 64),
+                    random.nextFloat(-WORLD_EXTENT, WORLD_EXTENT));
+        }
+    }
+
+    @Override
+    public void run() {
+        for (int i = 0; i < MOVES_PER_QUERY; i++) {
+            EntityRef entity = entities[nextMoved++ % entityCount];
+            LocationComponent location = entity.getComponent(LocationComponent.class);
+            location.getWorldPosition(position);
+            position.x += moves.nextFloat(-MOVE_DISTANCE, MOVE_DISTANCE);
+            position.z += moves.nextFloat(-MOVE_DISTANCE, MOVE_DISTANCE);
+            location.setWorldPosition(position);
+            if (indexed) {
+                spatialIndex.markMoved(entity);
+            }
+        }
+        Vector3f center = queryPoints[next++ % QUERY_POINTS];
+        if (indexed) {
+            found += spatialIndex.getEntitiesInRadius(center, RADIUS).size();
+        } else {
+            List<EntityRef> result = Lists.newArrayList();
+            for (EntityRef entity : entityManager.getEntitiesWith(LocationComponent.class)) {
+                entity.getComponent(LocationComponent.class).getWorldPosition(position);
+                position.sub(center);
+                if (position.lengthSquared() <= RADIUS * RADIUS) {
+                    result.add(entity);
+                }
+            }
+            found += result.size();
+        }
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        entityManager = null;
+        spatialIndex = null;
+        entities = null;
+    }
+}
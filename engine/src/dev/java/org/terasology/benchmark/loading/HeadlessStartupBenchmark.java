@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.loading;
+
+import org.terasology.config.SystemConfig;
+import org.terasology.engine.TerasologyEngine;
+import org.terasology.engine.TerasologyEngineBuilder;
+import org.terasology.engine.modes.StateIngame;
+import org.terasology.engine.paths.PathManager;
+import org.terasology.engine.subsystem.headless.HeadlessAudio;
+import org.terasology.engine.subsystem.headless.HeadlessGraphics;
+import org.terasology.engine.subsystem.headless.HeadlessInput;
+import org.terasology.engine.subsystem.headless.HeadlessTimer;
+import org.terasology.engine.subsystem.headless.mode.StateHeadlessSetup;
+
+/**
+ * Starts a headless server, measures how long it takes to get from the setup state into the game and shuts down again.
+ * <p>
+ * Run it with different values of the {@value SystemConfig#LOADING_THREADS_PROPERTY} system property to compare
+ * the sequential and the parallel loading pipeline. The per-stage timings are written to the log by the
+ * {@link org.terasology.engine.modes.LoadProcessScheduler}.
+ */
+public final class HeadlessStartupBenchmark {
+
+    private HeadlessStartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        PathManager.getInstance().useDefaultHomePath();
+
+        TerasologyEngine engine = new TerasologyEngineBuilder()
+                .add(new HeadlessGraphics())
+                .add(new HeadlessTimer())
+                .add(new HeadlessAudio())
+                .add(new HeadlessInput())
+                .build();
+
+        final long startTime = System.nanoTime();
+        final long[] ingameTime = {-1};
+        engine.subscribeToStateChange(() -> {
+            if (engine.getState() instanceof StateIngame && ingameTime[0] < 0) {
+                ingameTime[0] = System.nanoTime();
+                engine.shutdown();
+            }
+        });
+
+        engine.run(new StateHeadlessSetup());
+
+        String threads = System.getProperty(SystemConfig.LOADING_THREADS_PROPERTY, "config default");
+        if (ingameTime[0] < 0) {
+            System.out.println("Headless startup did not reach the game state (loading threads: " + threads + ")");
+        } else {
+            long millis = (ingameTime[0] - startTime) / 1000000;
+            System.out.println("Headless startup took " + millis + " ms (loading threads: " + threads + ")");
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.loading;
+
+import com.google.common.collect.Lists;
+import org.terasology.engine.paths.PathManager;
+import org.terasology.rendering.assets.mesh.ColladaMeshFormat;
+import org.terasology.rendering.collada.ColladaCache;
+import org.terasology.rendering.md5.ColladaSkeletalMeshLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Times loading every Collada file below a directory as a mesh, or as a skeletal mesh if it is in a skeletalMesh
+ * folder: decoded one after the other on one thread, decoded on a pool of threads, decoded on the pool into an empty
+ * {@link ColladaCache}, and loaded from the filled cache one after the other, as the main thread does once the meshes
+ * have been prepared while loading a game.
+ * <p>
+ * Arguments: the directory to search (default: the modules directory of the home path), which should hold unpacked
+ * modules, and the number of threads (default: one per processor).
+ */
+public final class MeshLoadingBenchmark {
+
+    private MeshLoadingBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path root;
+        if (args.length > 0) {
+            root = Paths.get(args[0]);
+        } else {
+            PathManager.getInstance().useDefaultHomePath();
+            root = PathManager.getInstance().getHomeModPath();
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(file -> file.getFileName().toString().endsWith(".dae")).collect(Collectors.toList());
+        }
+        if (files.isEmpty()) {
+            System.out.println("No Collada files found below " + root);
+            return;
+        }
+        List<byte[]> sources = Lists.newArrayList();
+        long bytes = 0;
+        for (Path file : files) {
+            byte[] source = Files.readAllBytes(file);
+            sources.add(source);
+            bytes += source.length;
+        }
+        System.out.println(String.format("%d Collada files, %.1f MB", files.size(), bytes / 1048576.0));
+
+        // Once to warm up the parser, not timed
+        loadAll(files, sources, null, 1);
+
+        report("Decoded on 1 thread", loadAll(files, sources, null, 1));
+        report("Decoded on " + threads + " threads", loadAll(files, sources, null, threads));
+
+        Path directory = Files.createTempDirectory("meshes");
+        ColladaCache cache = new ColladaCache(directory);
+        report("Decoded into the cache on " + threads + " threads", loadAll(files, sources, cache, threads));
+        report("Loaded from the cache on 1 thread", loadAll(files, sources, cache, 1));
+        System.out.println("Cache stored " + cache.getStoredCount() + " and loaded " + cache.getLoadedCount() + " meshes in " + directory);
+    }
+
+    private static long loadAll(List<Path> files, List<byte[]> sources, ColladaCache cache, int threads) throws Exception {
+        ColladaMeshFormat meshFormat = new ColladaMeshFormat(cache);
+        ColladaSkeletalMeshLoader skeletalMeshFormat = new ColladaSkeletalMeshLoader(cache);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> results = Lists.newArrayList();
+            for (int i = 0; i < files.size(); i++) {
+                Path file = files.get(i);
+                byte[] source = sources.get(i);
+                results.add(executor.submit(() -> load(file, source, meshFormat, skeletalMeshFormat)));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            return System.nanoTime() - start;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void load(Path file, byte[] source, ColladaMeshFormat meshFormat, ColladaSkeletalMeshLoader skeletalMeshFormat) {
+        boolean skeletal = false;
+        for (Path part : file) {
+            skeletal |= part.toString().equals("skeletalMesh");
+        }
+        try {
+            if (skeletal) {
+                skeletalMeshFormat.load(file.toString(), source);
+            } else {
+                meshFormat.load(file.toString(), source);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Failed to load " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static void report(String name, long nanos) {
+        System.out.println(String.format("%-50s %8.1f ms", name, nanos / 1000000.0));
+    }
+}
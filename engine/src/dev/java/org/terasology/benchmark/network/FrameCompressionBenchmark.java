@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.network;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.ChannelDownstreamHandler;
+import org.jboss.netty.channel.ChannelUpstreamHandler;
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder;
+import org.jboss.netty.handler.codec.embedder.EncoderEmbedder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.protobuf.NetData;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Passes a recorded stream of server messages through a compressing encoder and the matching decoder, as a loopback
+ * connection would, and reports the bytes on the wire alongside the time taken.
+ */
+public class FrameCompressionBenchmark extends AbstractBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(FrameCompressionBenchmark.class);
+
+    private final Supplier<ChannelDownstreamHandler> encoderFactory;
+    private final Supplier<ChannelUpstreamHandler> decoderFactory;
+    private final List<NetData.NetMessage> messages;
+
+    private EncoderEmbedder<ChannelBuffer> encoder;
+    private DecoderEmbedder<ChannelBuffer> decoder;
+    private long rawBytes;
+    private long wireBytes;
+
+    public FrameCompressionBenchmark(String title, Supplier<ChannelDownstreamHandler> encoderFactory,
+                                     Supplier<ChannelUpstreamHandler> decoderFactory, List<NetData.NetMessage> messages) {
+        super("Frame compression: " + title, 10, new int[]{200, 200, 200});
+        this.encoderFactory = encoderFactory;
+        this.decoderFactory = decoderFactory;
+        this.messages = messages;
+    }
+
+    @Override
+    public void setup() {
+        encoder = new EncoderEmbedder<>(encoderFactory.get());
+        decoder = new DecoderEmbedder<>(decoderFactory.get());
+    }
+
+    @Override
+    public void prerun() {
+        rawBytes = 0;
+        wireBytes = 0;
+    }
+
+    @Override
+    public void run() {
+        for (NetData.NetMessage message : messages) {
+            byte[] data = message.toByteArray();
+            rawBytes += data.length;
+            encoder.offer(ChannelBuffers.wrappedBuffer(data));
+            ChannelBuffer encoded;
+            while ((encoded = encoder.poll()) != null) {
+                wireBytes += encoded.readableBytes();
+                decoder.offer(encoded);
+            }
+            while (decoder.poll() != null) {
+                // Drained, only the work matters
+            }
+        }
+    }
+
+    @Override
+    public void postrun() {
+        logger.info("{}: {} raw bytes -> {} wire bytes ({}%)", getTitle(), rawBytes, wireBytes,
+                rawBytes == 0 ? 100 : wireBytes * 100 / rawBytes);
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        encoder.finish();
+        decoder.finish();
+    }
+}
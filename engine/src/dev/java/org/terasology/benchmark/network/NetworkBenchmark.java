@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.network;
+
+import com.google.common.collect.Lists;
+import com.google.protobuf.ByteString;
+import org.jboss.netty.handler.codec.compression.ZlibDecoder;
+import org.jboss.netty.handler.codec.compression.ZlibEncoder;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.network.internal.FrameCompression;
+import org.terasology.network.internal.FrameCompressionDecoder;
+import org.terasology.network.internal.FrameCompressionEncoder;
+import org.terasology.protobuf.EntityData;
+import org.terasology.protobuf.NetData;
+import org.terasology.utilities.random.FastRandom;
+
+import java.util.List;
+
+/**
+ */
+public final class NetworkBenchmark {
+
+    private static final int THRESHOLD = 256;
+
+    private NetworkBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        final List<NetData.NetMessage> messages = createServerTraffic(1000);
+        final List<byte[]> samples = Lists.newArrayList();
+        for (NetData.NetMessage message : messages.subList(0, 100)) {
+            samples.add(message.toByteArray());
+        }
+        final byte[] trained = FrameCompression.train(samples, 8, 16384);
+        final byte[] dictionary = FrameCompression.getDefaultDictionary();
+
+        final List<Benchmark> benchmarks = Lists.newArrayList();
+        benchmarks.add(new FrameCompressionBenchmark("zlib stream", ZlibEncoder::new, ZlibDecoder::new, messages));
+        benchmarks.add(new FrameCompressionBenchmark("threshold " + THRESHOLD,
+                () -> new FrameCompressionEncoder(THRESHOLD, null), () -> new FrameCompressionDecoder(null), messages));
+        benchmarks.add(new FrameCompressionBenchmark("threshold " + THRESHOLD + " with default dictionary",
+                () -> new FrameCompressionEncoder(THRESHOLD, dictionary), () -> new FrameCompressionDecoder(dictionary), messages));
+        benchmarks.add(new FrameCompressionBenchmark("threshold " + THRESHOLD + " with trained dictionary",
+                () -> new FrameCompressionEncoder(THRESHOLD, trained), () -> new FrameCompressionDecoder(trained), messages));
+
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+
+    /**
+     * Simulates the messages a server sends a client: mostly small per tick entity updates, with the occasional large
+     * message of created entities and block registrations.
+     */
+    private static List<NetData.NetMessage> createServerTraffic(int count) {
+        FastRandom random = new FastRandom(7);
+        List<NetData.NetMessage> messages = Lists.newArrayListWithCapacity(count);
+        for (int i = 0; i < count; ++i) {
+            NetData.NetMessage.Builder message = NetData.NetMessage.newBuilder().setTime(i * 50L);
+            int updates = random.nextInt(0, 3);
+            for (int j = 0; j < updates; ++j) {
+                message.addUpdateEntity(NetData.UpdateEntityMessage.newBuilder()
+                        .setNetId(random.nextInt(1, 200))
+                        .setEntity(createEntity(random, 1)));
+            }
+            if (i % 25 == 0) {
+                for (int j = 0; j < 10; ++j) {
+                    message.addCreateEntity(NetData.CreateEntityMessage.newBuilder().setEntity(createEntity(random, 6)
+                            .setParentPrefabUri("engine:item" + random.nextInt(0, 20))));
+                }
+                NetData.BlockFamilyRegisteredMessage.Builder family = NetData.BlockFamilyRegisteredMessage.newBuilder();
+                for (int j = 0; j < 6; ++j) {
+                    family.addBlockUri("core:stone.stair." + j).addBlockId(100 + j);
+                }
+                message.addBlockFamilyRegistered(family);
+            }
+            messages.add(message.build());
+        }
+        return messages;
+    }
+
+    private static EntityData.PackedEntity.Builder createEntity(FastRandom random, int components) {
+        EntityData.PackedEntity.Builder entity = EntityData.PackedEntity.newBuilder();
+        byte[] fieldIds = new byte[components * 3];
+        byte[] fieldCounts = new byte[components];
+        for (int i = 0; i < components; ++i) {
+            entity.addComponentId(random.nextInt(0, 60));
+            fieldCounts[i] = 3;
+            for (int j = 0; j < 3; ++j) {
+                fieldIds[i * 3 + j] = (byte) j;
+                entity.addFieldValue(EntityData.Value.newBuilder()
+                        .addFloat(random.nextFloat() * 100)
+                        .addFloat(random.nextFloat() * 100)
+                        .addFloat(random.nextFloat() * 100));
+            }
+        }
+        return entity.setComponentFieldCounts(ByteString.copyFrom(fieldCounts)).setFieldIds(ByteString.copyFrom(fieldIds));
+    }
+}
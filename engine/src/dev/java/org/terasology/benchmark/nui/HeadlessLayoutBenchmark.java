@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.nui;
+
+import org.terasology.context.Context;
+import org.terasology.engine.ComponentSystemManager;
+import org.terasology.engine.TerasologyEngine;
+import org.terasology.engine.TerasologyEngineBuilder;
+import org.terasology.engine.modes.StateIngame;
+import org.terasology.engine.paths.PathManager;
+import org.terasology.engine.subsystem.headless.HeadlessAudio;
+import org.terasology.engine.subsystem.headless.HeadlessGraphics;
+import org.terasology.engine.subsystem.headless.HeadlessInput;
+import org.terasology.engine.subsystem.headless.HeadlessTimer;
+import org.terasology.engine.subsystem.headless.mode.StateHeadlessSetup;
+import org.terasology.engine.subsystem.headless.renderer.HeadlessCanvasRenderer;
+import org.terasology.entitySystem.systems.BaseComponentSystem;
+import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.math.geom.Vector2i;
+import org.terasology.rendering.nui.NUIManager;
+import org.terasology.rendering.nui.UIWidget;
+import org.terasology.rendering.nui.databinding.ReadOnlyBinding;
+import org.terasology.rendering.nui.internal.CanvasImpl;
+import org.terasology.rendering.nui.internal.LayoutCache;
+import org.terasology.rendering.nui.layouts.ColumnLayout;
+import org.terasology.rendering.nui.widgets.UIButton;
+import org.terasology.rendering.nui.widgets.UILabel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts a headless server and lays out a screen of 1,000 labels and buttons in nested column layouts over and over,
+ * once with the {@link LayoutCache} of the canvas disabled and once with it enabled, printing the average time per
+ * frame and how many sizes were calculated and reused in the last frame. One label shows the frame number through a
+ * binding, so that its size has to be checked every frame.
+ * <p>
+ * Arguments: the number of timed frames (default 200).
+ */
+public final class HeadlessLayoutBenchmark {
+
+    private static final int GROUPS = 100;
+    private static final int WIDGETS_PER_GROUP = 10;
+    private static final int WARMUP_FRAMES = 20;
+
+    private HeadlessLayoutBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+        PathManager.getInstance().useDefaultHomePath();
+
+        TerasologyEngine engine = new TerasologyEngineBuilder()
+                .add(new HeadlessGraphics())
+                .add(new HeadlessTimer())
+                .add(new HeadlessAudio())
+                .add(new HeadlessInput())
+                .build();
+
+        LayoutMonitor monitor = new LayoutMonitor(engine, frames);
+        engine.subscribeToStateChange(() -> {
+            if (engine.getState() instanceof StateIngame && monitor.context == null) {
+                monitor.context = ((StateIngame) engine.getState()).getContext();
+                monitor.context.get(ComponentSystemManager.class).register(monitor);
+            }
+        });
+
+        engine.run(new StateHeadlessSetup());
+
+        if (monitor.results.isEmpty()) {
+            System.out.println("Benchmark ended before the game was started");
+        }
+        for (String result : monitor.results) {
+            System.out.println(result);
+        }
+    }
+
+    private static UIWidget createScreen(int[] frame) {
+        ColumnLayout screen = new ColumnLayout();
+        screen.setColumns(1);
+        for (int group = 0; group < GROUPS; group++) {
+            ColumnLayout groupLayout = new ColumnLayout();
+            groupLayout.setColumns(WIDGETS_PER_GROUP / 2);
+            groupLayout.setAutoSizeColumns(true);
+            for (int i = 0; i < WIDGETS_PER_GROUP; i++) {
+                if (group == 0 && i == 0) {
+                    groupLayout.addWidget(new UILabel(new ReadOnlyBinding<String>() {
+                        @Override
+                        public String get() {
+                            return "Frame " + frame[0];
+                        }
+                    }));
+                } else if (i % 2 == 0) {
+                    groupLayout.addWidget(new UILabel("Label " + group + "." + i));
+                } else {
+                    groupLayout.addWidget(new UIButton("button" + group + "." + i, "Button " + i));
+                }
+            }
+            screen.addWidget(groupLayout);
+        }
+        return screen;
+    }
+
+    /**
+     * Lays out the screen on the first update once the game has started.
+     */
+    private static final class LayoutMonitor extends BaseComponentSystem implements UpdateSubscriberSystem {
+
+        private final TerasologyEngine engine;
+        private final int frames;
+        private final List<String> results = new ArrayList<>();
+
+        private Context context;
+
+        LayoutMonitor(TerasologyEngine engine, int frames) {
+            this.engine = engine;
+            this.frames = frames;
+        }
+
+        @Override
+        public void update(float delta) {
+            CanvasImpl canvas = new CanvasImpl(context.get(NUIManager.class), context, new ScreenSizedRenderer());
+            int[] frame = new int[1];
+            UIWidget screen = createScreen(frame);
+
+            for (boolean enabled : new boolean[]{false, true}) {
+                LayoutCache cache = canvas.getLayoutCache();
+                cache.setEnabled(enabled);
+                for (int i = 0; i < WARMUP_FRAMES; i++) {
+                    frame[0]++;
+                    drawFrame(canvas, screen);
+                }
+                long start = System.nanoTime();
+                for (int i = 0; i < frames; i++) {
+                    frame[0]++;
+                    drawFrame(canvas, screen);
+                }
+                double millis = (System.nanoTime() - start) / 1000000.0 / frames;
+                results.add(String.format("Layout cache %s: %.3f ms per frame, %d sizes calculated and %d reused"
+                                + " (%d layouts kept) in the last frame",
+                        enabled ? "enabled" : "disabled", millis, cache.getFrameMisses(), cache.getFrameHits(),
+                        cache.getFrameRetainedHits()));
+            }
+            engine.shutdown();
+        }
+
+        private static void drawFrame(CanvasImpl canvas, UIWidget screen) {
+            canvas.preRender();
+            canvas.drawWidget(screen);
+            canvas.postRender();
+        }
+    }
+
+    /**
+     * Gives the canvas the size of a common screen instead of the empty region of the headless renderer.
+     */
+    private static final class ScreenSizedRenderer extends HeadlessCanvasRenderer {
+        @Override
+        public Vector2i getTargetSize() {
+            return new Vector2i(1920, 1080);
+        }
+    }
+}
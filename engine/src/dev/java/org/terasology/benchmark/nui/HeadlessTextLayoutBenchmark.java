@@ -0,0 +1,171 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.nui;
+
+import org.terasology.context.Context;
+import org.terasology.engine.ComponentSystemManager;
+import org.terasology.engine.TerasologyEngine;
+import org.terasology.engine.TerasologyEngineBuilder;
+import org.terasology.engine.modes.StateIngame;
+import org.terasology.engine.paths.PathManager;
+import org.terasology.engine.subsystem.headless.HeadlessAudio;
+import org.terasology.engine.subsystem.headless.HeadlessGraphics;
+import org.terasology.engine.subsystem.headless.HeadlessInput;
+import org.terasology.engine.subsystem.headless.HeadlessTimer;
+import org.terasology.engine.subsystem.headless.mode.StateHeadlessSetup;
+import org.terasology.entitySystem.systems.BaseComponentSystem;
+import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.rendering.FontColor;
+import org.terasology.rendering.assets.font.Font;
+import org.terasology.rendering.assets.font.FontMeshBuilder;
+import org.terasology.rendering.assets.material.Material;
+import org.terasology.rendering.nui.Color;
+import org.terasology.rendering.nui.HorizontalAlign;
+import org.terasology.rendering.nui.TextLineBuilder;
+import org.terasology.utilities.Assets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Starts a headless server and runs the text layout path of the canvas renderer, from splitting a text into lines to
+ * the mesh data of every line, without creating meshes, so no graphics context is needed.
+ * <br><br>
+ * Two texts change every frame: a metrics panel of which one line shows a changing number, and a chat log that gets a
+ * new coloured line at the bottom and loses its top line. Each is laid out with and without the line cache of
+ * {@link FontMeshBuilder}, printing the average time per frame and the line cache hit rate.
+ * <p>
+ * Arguments: the number of timed frames (default 1000).
+ */
+public final class HeadlessTextLayoutBenchmark {
+
+    private static final int PANEL_LINES = 20;
+    private static final int CHAT_LINES = 40;
+    private static final int WIDTH = 600;
+    private static final int WARMUP_FRAMES = 100;
+    private static final int MAX_CACHED_LINES = 2048;
+
+    private HeadlessTextLayoutBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+        PathManager.getInstance().useDefaultHomePath();
+
+        TerasologyEngine engine = new TerasologyEngineBuilder()
+                .add(new HeadlessGraphics())
+                .add(new HeadlessTimer())
+                .add(new HeadlessAudio())
+                .add(new HeadlessInput())
+                .build();
+
+        TextLayoutMonitor monitor = new TextLayoutMonitor(engine, frames);
+        engine.subscribeToStateChange(() -> {
+            if (engine.getState() instanceof StateIngame && monitor.context == null) {
+                monitor.context = ((StateIngame) engine.getState()).getContext();
+                monitor.context.get(ComponentSystemManager.class).register(monitor);
+            }
+        });
+
+        engine.run(new StateHeadlessSetup());
+
+        if (monitor.results.isEmpty()) {
+            System.out.println("Benchmark ended before the game was started");
+        }
+        for (String result : monitor.results) {
+            System.out.println(result);
+        }
+    }
+
+    private static String panelText(int frame) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < PANEL_LINES; i++) {
+            if (i == PANEL_LINES / 2) {
+                builder.append("Frame time: ").append(frame % 97).append('.').append(frame % 10).append(" ms");
+            } else {
+                builder.append("Metric ").append(i).append(": ").append(i * 31);
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static String chatLine(int frame) {
+        return FontColor.getColored("Player" + (frame % 5), Color.YELLOW) + ": message number " + frame;
+    }
+
+    /**
+     * Runs the benchmark on the first update once the game has started.
+     */
+    private static final class TextLayoutMonitor extends BaseComponentSystem implements UpdateSubscriberSystem {
+
+        private final TerasologyEngine engine;
+        private final int frames;
+        private final List<String> results = new ArrayList<>();
+
+        private Context context;
+
+        TextLayoutMonitor(TerasologyEngine engine, int frames) {
+            this.engine = engine;
+            this.frames = frames;
+        }
+
+        @Override
+        public void update(float delta) {
+            Font font = Assets.getFont("engine:default").get();
+            Material underline = Assets.getMaterial("engine:UIUnderline").get();
+
+            for (int maxCachedLines : new int[]{0, MAX_CACHED_LINES}) {
+                FontMeshBuilder builder = new FontMeshBuilder(underline, maxCachedLines);
+                Deque<String> chat = new ArrayDeque<>();
+                for (int i = 0; i < CHAT_LINES; i++) {
+                    chat.addLast(chatLine(-i));
+                }
+
+                for (int frame = 0; frame < WARMUP_FRAMES; frame++) {
+                    layoutFrame(builder, font, chat, frame);
+                }
+                long hitsBefore = builder.getLineCacheHits();
+                long missesBefore = builder.getLineCacheMisses();
+                long start = System.nanoTime();
+                for (int frame = WARMUP_FRAMES; frame < WARMUP_FRAMES + frames; frame++) {
+                    layoutFrame(builder, font, chat, frame);
+                }
+                double millis = (System.nanoTime() - start) / 1000000.0 / frames;
+                long hits = builder.getLineCacheHits() - hitsBefore;
+                long lookups = hits + builder.getLineCacheMisses() - missesBefore;
+                results.add(String.format("Line cache of %d lines: %.4f ms per frame, %.1f%% of lines reused",
+                        maxCachedLines, millis, (lookups > 0) ? 100.0 * hits / lookups : 0.0));
+            }
+            engine.shutdown();
+        }
+
+        private static void layoutFrame(FontMeshBuilder builder, Font font, Deque<String> chat, int frame) {
+            String panel = panelText(frame);
+            builder.createTextMeshData(font, TextLineBuilder.getLines(font, panel, WIDTH), WIDTH, HorizontalAlign.LEFT,
+                    Color.WHITE, Color.BLACK, false);
+
+            chat.removeFirst();
+            chat.addLast(chatLine(frame));
+            String log = String.join("\n", chat);
+            builder.createTextMeshData(font, TextLineBuilder.getLines(font, log, WIDTH), WIDTH, HorizontalAlign.LEFT,
+                    Color.WHITE, Color.BLACK, false);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.physics;
+
+import com.bulletphysics.collision.broadphase.DbvtBroadphase;
+import com.bulletphysics.collision.dispatch.CollisionConfiguration;
+import com.bulletphysics.collision.dispatch.CollisionDispatcher;
+import com.bulletphysics.collision.dispatch.CollisionFlags;
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.collision.dispatch.DefaultCollisionConfiguration;
+import com.bulletphysics.collision.shapes.BoxShape;
+import com.bulletphysics.collision.shapes.voxel.VoxelPhysicsWorld;
+import com.bulletphysics.collision.shapes.voxel.VoxelWorldShape;
+import com.bulletphysics.dynamics.DiscreteDynamicsWorld;
+import com.bulletphysics.dynamics.RigidBody;
+import com.bulletphysics.dynamics.RigidBodyConstructionInfo;
+import com.bulletphysics.dynamics.constraintsolver.SequentialImpulseConstraintSolver;
+import com.bulletphysics.linearmath.DefaultMotionState;
+import com.bulletphysics.linearmath.Transform;
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.world.WorldProvider;
+import org.terasology.world.internal.WorldProviderWrapper;
+
+import javax.vecmath.Matrix4f;
+import javax.vecmath.Quat4f;
+import javax.vecmath.Vector3f;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Drops a grid of small rigid bodies onto generated terrain and measures single physics steps while they fall and settle.
+ */
+public class FallingBodiesBenchmark extends AbstractBenchmark {
+
+    private static final int GRID_SIZE = 32;
+    private static final int TERRAIN_EXTENT = 64;
+    private static final float STEP = 1f / 60f;
+
+    private final Function<WorldProvider, VoxelPhysicsWorld> voxelWorldFactory;
+    private final int bodyCount;
+
+    private DiscreteDynamicsWorld dynamicsWorld;
+    private List<RigidBody> bodies;
+
+    public FallingBodiesBenchmark(String title, int bodyCount, Function<WorldProvider, VoxelPhysicsWorld> voxelWorldFactory) {
+        super(bodyCount + " falling bodies, " + title, 60, new int[]{600});
+        this.bodyCount = bodyCount;
+        this.voxelWorldFactory = voxelWorldFactory;
+    }
+
+    @Override
+    public void setup() {
+        CollisionConfiguration collisionConfiguration = new DefaultCollisionConfiguration();
+        dynamicsWorld = new DiscreteDynamicsWorld(new CollisionDispatcher(collisionConfiguration), new DbvtBroadphase(),
+                new SequentialImpulseConstraintSolver(), collisionConfiguration);
+        dynamicsWorld.setGravity(new Vector3f(0f, -15f, 0f));
+
+        WorldProvider world = new WorldProviderWrapper(new TerrainWorldCore(TERRAIN_EXTENT, 42));
+        VoxelWorldShape worldShape = new VoxelWorldShape(voxelWorldFactory.apply(world));
+        DefaultMotionState worldMotionState = new DefaultMotionState(new Transform(new Matrix4f(new Quat4f(0, 0, 0, 1), new Vector3f(), 1.0f)));
+        RigidBody worldBody = new RigidBody(new RigidBodyConstructionInfo(0, worldMotionState, worldShape, new Vector3f()));
+        worldBody.setCollisionFlags(CollisionFlags.STATIC_OBJECT | worldBody.getCollisionFlags());
+        dynamicsWorld.addRigidBody(worldBody);
+
+        BoxShape boxShape = new BoxShape(new Vector3f(0.25f, 0.25f, 0.25f));
+        Vector3f inertia = new Vector3f();
+        boxShape.calculateLocalInertia(1f, inertia);
+        bodies = Lists.newArrayListWithCapacity(bodyCount);
+        for (int i = 0; i < bodyCount; i++) {
+            RigidBody body = new RigidBody(new RigidBodyConstructionInfo(1f, new DefaultMotionState(), boxShape, inertia));
+            dynamicsWorld.addRigidBody(body);
+            bodies.add(body);
+        }
+    }
+
+    @Override
+    public void prerun() {
+        Transform transform = new Transform();
+        transform.setIdentity();
+        Vector3f zero = new Vector3f();
+        for (int i = 0; i < bodies.size(); i++) {
+            RigidBody body = bodies.get(i);
+            int layer = i / (GRID_SIZE * GRID_SIZE);
+            int cell = i % (GRID_SIZE * GRID_SIZE);
+            transform.origin.set(2f * (cell % GRID_SIZE) - GRID_SIZE, 24f + 2f * layer, 2f * (cell / GRID_SIZE) - GRID_SIZE);
+            body.setWorldTransform(transform);
+            body.getMotionState().setWorldTransform(transform);
+            body.setLinearVelocity(zero);
+            body.setAngularVelocity(zero);
+            body.activate(true);
+            body.forceActivationState(CollisionObject.ACTIVE_TAG);
+        }
+    }
+
+    @Override
+    public void run() {
+        dynamicsWorld.stepSimulation(STEP, 1, STEP);
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        dynamicsWorld.destroy();
+    }
+}
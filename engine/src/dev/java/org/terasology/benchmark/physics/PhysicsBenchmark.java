@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.physics;
+
+import com.bulletphysics.collision.shapes.CollisionShape;
+import com.bulletphysics.collision.shapes.voxel.VoxelInfo;
+import com.bulletphysics.collision.shapes.voxel.VoxelPhysicsWorld;
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.Benchmark;
+import org.terasology.benchmark.Benchmarks;
+import org.terasology.benchmark.PrintToConsoleCallback;
+import org.terasology.math.VecMath;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.physics.engine.PhysicsWorldWrapper;
+import org.terasology.world.WorldProvider;
+import org.terasology.world.block.Block;
+
+import java.util.List;
+
+/**
+ * Compares physics steps against the cached {@link PhysicsWorldWrapper} and a direct per-block world lookup, and
+ * game ticks with synchronous and asynchronous physics stepping, and block targeting rays through bullet and the
+ * block grid.
+ */
+public final class PhysicsBenchmark {
+
+    private PhysicsBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        final List<Benchmark> benchmarks = Lists.newArrayList();
+
+        benchmarks.add(new FallingBodiesBenchmark("direct world lookup", 1000, DirectVoxelWorld::new));
+        benchmarks.add(new FallingBodiesBenchmark("cached collision data", 1000, PhysicsWorldWrapper::new));
+        benchmarks.add(new PhysicsTickBenchmark(false, 1000, 4000));
+        benchmarks.add(new PhysicsTickBenchmark(true, 1000, 4000));
+        benchmarks.add(new RayTraceBenchmark(false));
+        benchmarks.add(new RayTraceBenchmark(true));
+
+        Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
+    }
+
+    /**
+     * Looks up every block in the world and allocates its collision info on each call.
+     */
+    private static final class DirectVoxelWorld implements VoxelPhysicsWorld {
+        private final WorldProvider world;
+
+        DirectVoxelWorld(WorldProvider world) {
+            this.world = world;
+        }
+
+        @Override
+        public VoxelInfo getCollisionShapeAt(int x, int y, int z) {
+            Block block = world.getBlock(x, y, z);
+            Vector3i position = new Vector3i(x, y, z);
+            boolean hasShape = block.getCollisionShape() != null;
+            return new VoxelInfo() {
+                @Override
+                public boolean isColliding() {
+                    return hasShape && block.isTargetable();
+                }
+
+                @Override
+                public Object getUserData() {
+                    return position;
+                }
+
+                @Override
+                public CollisionShape getCollisionShape() {
+                    return block.getCollisionShape();
+                }
+
+                @Override
+                public javax.vecmath.Vector3f getCollisionOffset() {
+                    return VecMath.to(block.getCollisionOffset());
+                }
+
+                @Override
+                public boolean isBlocking() {
+                    return hasShape && !block.isPenetrable();
+                }
+            };
+        }
+    }
+}
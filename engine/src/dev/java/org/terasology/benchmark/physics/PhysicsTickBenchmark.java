@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.physics;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.PojoEntityManager;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Quat4f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.physics.bullet.BulletPhysics;
+import org.terasology.physics.components.RigidBodyComponent;
+import org.terasology.physics.engine.RigidBody;
+import org.terasology.physics.shapes.BoxShapeComponent;
+import org.terasology.world.internal.WorldProviderWrapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a headless game tick with many rigid body entities: the physics update, reading the bodies back the way
+ * the PhysicsSystem does, and a fixed amount of other work standing in for the remaining systems of the tick.
+ * With asynchronous stepping the simulation overlaps with that other work.
+ */
+public class PhysicsTickBenchmark extends AbstractBenchmark {
+
+    private static final int GRID_SIZE = 32;
+    private static final float TICK = 1f / 60f;
+
+    private final boolean asynchronous;
+    private final int bodyCount;
+    private final long otherWorkNanos;
+
+    private BulletPhysics physics;
+    private List<EntityRef> entities;
+    private final Vector3f location = new Vector3f();
+    private final Vector3f velocity = new Vector3f();
+
+    public PhysicsTickBenchmark(boolean asynchronous, int bodyCount, long otherWorkMicros) {
+        super(bodyCount + " bodies, " + otherWorkMicros + "us other work per tick, " + (asynchronous ? "asynchronous" : "synchronous") + " stepping",
+                60, new int[]{600});
+        this.asynchronous = asynchronous;
+        this.bodyCount = bodyCount;
+        this.otherWorkNanos = TimeUnit.MICROSECONDS.toNanos(otherWorkMicros);
+    }
+
+    @Override
+    public void setup() {
+        physics = new BulletPhysics(new WorldProviderWrapper(new TerrainWorldCore(64, 42)), asynchronous);
+        PojoEntityManager entityManager = new PojoEntityManager();
+        entities = Lists.newArrayListWithCapacity(bodyCount);
+        for (int i = 0; i < bodyCount; i++) {
+            BoxShapeComponent shape = new BoxShapeComponent();
+            shape.extents.set(0.5f, 0.5f, 0.5f);
+            EntityRef entity = entityManager.create(new LocationComponent(), new RigidBodyComponent(), shape);
+            physics.getRigidBody(entity);
+            entities.add(entity);
+        }
+    }
+
+    @Override
+    public void prerun() {
+        physics.update(0);
+        Quat4f rotation = new Quat4f(0, 0, 0, 1);
+        for (int i = 0; i < entities.size(); i++) {
+            int layer = i / (GRID_SIZE * GRID_SIZE);
+            int cell = i % (GRID_SIZE * GRID_SIZE);
+            RigidBody body = physics.getRigidBody(entities.get(i));
+            body.setTransform(new Vector3f(2f * (cell % GRID_SIZE) - GRID_SIZE, 24f + 2f * layer, 2f * (cell / GRID_SIZE) - GRID_SIZE), rotation);
+            body.setVelocity(new Vector3f(), new Vector3f());
+        }
+    }
+
+    @Override
+    public void run() {
+        physics.update(TICK);
+        for (EntityRef entity : entities) {
+            RigidBody body = physics.getRigidBody(entity);
+            if (body.isActive()) {
+                body.getLocation(location);
+                body.getLinearVelocity(velocity);
+            }
+        }
+        physics.getCollisionPairs();
+        physics.beginStep();
+
+        long end = System.nanoTime() + otherWorkNanos;
+        while (System.nanoTime() < end) {
+            Thread.yield();
+        }
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        physics.dispose();
+    }
+}
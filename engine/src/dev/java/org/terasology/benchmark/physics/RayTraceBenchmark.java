@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.physics;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.physics.StandardCollisionGroup;
+import org.terasology.physics.bullet.BulletPhysics;
+import org.terasology.registry.CoreRegistry;
+import org.terasology.utilities.random.FastRandom;
+import org.terasology.world.BlockEntityRegistry;
+import org.terasology.world.block.Block;
+import org.terasology.world.internal.WorldProviderWrapper;
+
+/**
+ * Casts block targeting rays at generated terrain, either through the bullet world or through the block grid.
+ */
+public class RayTraceBenchmark extends AbstractBenchmark {
+
+    private static final int RAY_COUNT = 1024;
+
+    private final boolean voxel;
+    private BulletPhysics physics;
+    private Vector3f[] origins;
+    private Vector3f[] directions;
+    private int next;
+
+    public RayTraceBenchmark(boolean voxel) {
+        super("Block targeting rays via " + (voxel ? "voxel grid traversal" : "bullet ray test"), 10000, new int[]{100000});
+        this.voxel = voxel;
+    }
+
+    @Override
+    public void setup() {
+        ContextImpl context = new ContextImpl();
+        context.put(BlockEntityRegistry.class, new NullBlockEntityRegistry());
+        CoreRegistry.setContext(context);
+        physics = new BulletPhysics(new WorldProviderWrapper(new TerrainWorldCore(64, 42)));
+
+        FastRandom random = new FastRandom(0L);
+        origins = new Vector3f[RAY_COUNT];
+        directions = new Vector3f[RAY_COUNT];
+        for (int i = 0; i < RAY_COUNT; i++) {
+            origins[i] = new Vector3f(random.nextFloat(-48f, 48f), random.nextFloat(18f, 24f), random.nextFloat(-48f, 48f));
+            directions[i] = new Vector3f(random.nextFloat(-1f, 1f), random.nextFloat(-1f, -0.2f), random.nextFloat(-1f, 1f));
+            directions[i].normalize();
+        }
+    }
+
+    @Override
+    public void run() {
+        int i = next++ % RAY_COUNT;
+        if (voxel) {
+            physics.voxelRayTrace(origins[i], directions[i], 64f, StandardCollisionGroup.DEFAULT, StandardCollisionGroup.WORLD);
+        } else {
+            physics.rayTrace(origins[i], directions[i], 64f, StandardCollisionGroup.DEFAULT, StandardCollisionGroup.WORLD);
+        }
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        physics.dispose();
+        CoreRegistry.setContext(null);
+    }
+
+    private static final class NullBlockEntityRegistry implements BlockEntityRegistry {
+
+        @Override
+        public EntityRef getExistingBlockEntityAt(Vector3i blockPosition) {
+            return EntityRef.NULL;
+        }
+
+        @Override
+        public Block setBlockForceUpdateEntity(Vector3i position, Block type) {
+            return null;
+        }
+
+        @Override
+        @SafeVarargs
+        public final Block setBlockRetainComponent(Vector3i position, Block type, Class<? extends Component>... components) {
+            return null;
+        }
+
+        @Override
+        public EntityRef getBlockEntityAt(Vector3f position) {
+            return EntityRef.NULL;
+        }
+
+        @Override
+        public EntityRef getBlockEntityAt(Vector3i blockPosition) {
+            return EntityRef.NULL;
+        }
+
+        @Override
+        public EntityRef getExistingEntityAt(Vector3i blockPosition) {
+            return EntityRef.NULL;
+        }
+
+        @Override
+        public EntityRef getEntityAt(Vector3i blockPosition) {
+            return EntityRef.NULL;
+        }
+
+        @Override
+        public boolean hasPermanentBlockEntity(Vector3i blockPos) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.physics;
+
+import com.bulletphysics.collision.shapes.BoxShape;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.utilities.procedural.SimplexNoise;
+import org.terasology.world.WorldChangeListener;
+import org.terasology.world.biomes.Biome;
+import org.terasology.world.block.Block;
+import org.terasology.world.internal.ChunkViewCore;
+import org.terasology.world.internal.WorldInfo;
+import org.terasology.world.internal.WorldProviderCore;
+import org.terasology.world.liquid.LiquidData;
+import org.terasology.world.time.WorldTime;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * A read-only world of noise-generated hills, just enough of a {@link WorldProviderCore} to feed the physics engine.
+ */
+class TerrainWorldCore implements WorldProviderCore {
+
+    private final Block air = new Block();
+    private final Block ground = new Block();
+    private final int extent;
+    private final int[] heights;
+
+    TerrainWorldCore(int extent, long seed) {
+        this.extent = extent;
+        ground.setCollision(new Vector3f(), new BoxShape(new javax.vecmath.Vector3f(0.5f, 0.5f, 0.5f)));
+
+        SimplexNoise noise = new SimplexNoise(seed);
+        int size = 2 * extent;
+        heights = new int[size * size];
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                heights[z * size + x] = 8 + Math.round(6 * noise.noise(x * 0.05f, z * 0.05f));
+            }
+        }
+    }
+
+    @Override
+    public Block getBlock(int x, int y, int z) {
+        if (x < -extent || x >= extent || z < -extent || z >= extent) {
+            return air;
+        }
+        return y <= heights[(z + extent) * 2 * extent + x + extent] ? ground : air;
+    }
+
+    @Override
+    public boolean isBlockRelevant(int x, int y, int z) {
+        return true;
+    }
+
+    @Override
+    public boolean isRegionRelevant(Region3i region) {
+        return true;
+    }
+
+    @Override
+    public EntityRef getWorldEntity() {
+        return EntityRef.NULL;
+    }
+
+    @Override
+    public String getTitle() {
+        return "terrain";
+    }
+
+    @Override
+    public String getSeed() {
+        return null;
+    }
+
+    @Override
+    public WorldInfo getWorldInfo() {
+        return null;
+    }
+
+    @Override
+    public void processPropagation() {
+    }
+
+    @Override
+    public void registerListener(WorldChangeListener listener) {
+    }
+
+    @Override
+    public void unregisterListener(WorldChangeListener listener) {
+    }
+
+    @Override
+    public ChunkViewCore getLocalView(Vector3i chunkPos) {
+        return null;
+    }
+
+    @Override
+    public ChunkViewCore getWorldViewAround(Vector3i chunk) {
+        return null;
+    }
+
+    @Override
+    public Block setBlock(Vector3i pos, Block type) {
+        return null;
+    }
+
+    @Override
+    public Biome setBiome(Vector3i pos, Biome biome) {
+        return null;
+    }
+
+    @Override
+    public Biome getBiome(Vector3i pos) {
+        return null;
+    }
+
+    @Override
+    public boolean setLiquid(int x, int y, int z, LiquidData newData, LiquidData oldData) {
+        return false;
+    }
+
+    @Override
+    public LiquidData getLiquid(int x, int y, int z) {
+        return new LiquidData();
+    }
+
+    @Override
+    public byte getLight(int x, int y, int z) {
+        return 0;
+    }
+
+    @Override
+    public byte getSunlight(int x, int y, int z) {
+        return 0;
+    }
+
+    @Override
+    public byte getTotalLight(int x, int y, int z) {
+        return 0;
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+    @Override
+    public WorldTime getTime() {
+        return null;
+    }
+
+    @Override
+    public Collection<Region3i> getRelevantRegions() {
+        return Collections.emptyList();
+    }
+}
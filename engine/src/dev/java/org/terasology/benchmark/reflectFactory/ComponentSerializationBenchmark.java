@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.reflectFactory;
+
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.context.Context;
+import org.terasology.context.internal.ContextImpl;
+import org.terasology.engine.SimpleUri;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.metadata.ComponentLibrary;
+import org.terasology.logic.characters.CharacterMovementComponent;
+import org.terasology.persistence.serializers.ComponentSerializer;
+import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
+import org.terasology.protobuf.EntityData;
+import org.terasology.reflection.copy.CopyStrategyLibrary;
+import org.terasology.reflection.reflect.ReflectFactory;
+
+/**
+ * Measures the throughput of serializing and deserializing a component with many simple fields. With a
+ * ByteCodeReflectFactory, those fields go through generated codecs instead of the type handlers.
+ */
+public class ComponentSerializationBenchmark extends AbstractBenchmark {
+
+    private ReflectFactory reflectFactory;
+    private ComponentSerializer serializer;
+    private CharacterMovementComponent comp;
+    private int i;
+
+    public ComponentSerializationBenchmark(ReflectFactory reflectFactory) {
+        super("Component serialization via " + reflectFactory.getClass().getSimpleName(), 100000, new int[]{1000000, 1000000});
+        this.reflectFactory = reflectFactory;
+    }
+
+    @Override
+    public void setup() {
+        i = 0;
+        CopyStrategyLibrary copyStrategyLibrary = new CopyStrategyLibrary(reflectFactory);
+        Context context = new ContextImpl();
+        context.put(ReflectFactory.class, reflectFactory);
+        context.put(CopyStrategyLibrary.class, copyStrategyLibrary);
+        ComponentLibrary componentLibrary = new ComponentLibrary(context);
+        componentLibrary.register(new SimpleUri("engine", "characterMovement"), CharacterMovementComponent.class);
+        serializer = new ComponentSerializer(componentLibrary, TypeSerializationLibrary.createDefaultLibrary(reflectFactory, copyStrategyLibrary));
+        comp = new CharacterMovementComponent();
+    }
+
+    @Override
+    public void run() {
+        comp.footstepDelta = i++;
+        EntityData.Component data = serializer.serialize(comp);
+        Component result = serializer.deserialize(data);
+        result.getClass();
+    }
+}
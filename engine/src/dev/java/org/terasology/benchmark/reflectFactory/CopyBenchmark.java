@@ -0,0 +1,61 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.reflectFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.engine.SimpleUri;
+import org.terasology.logic.characters.CharacterMovementComponent;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.reflection.copy.CopyStrategyLibrary;
+import org.terasology.reflection.copy.strategy.Vector3fCopyStrategy;
+import org.terasology.reflection.metadata.ClassMetadata;
+import org.terasology.reflection.metadata.DefaultClassMetadata;
+import org.terasology.reflection.reflect.ReflectFactory;
+
+/**
+ * Measures copying a component through its ClassMetadata, as done for prefab-derived components and entity snapshots.
+ */
+public class CopyBenchmark extends AbstractBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(CopyBenchmark.class);
+    private ReflectFactory reflectFactory;
+    private ClassMetadata<CharacterMovementComponent, ?> metadata;
+    private CharacterMovementComponent comp;
+
+    public CopyBenchmark(ReflectFactory reflectFactory) {
+        super("Copy via " + reflectFactory.getClass().getSimpleName(), 10000000, new int[]{10000000, 10000000});
+        this.reflectFactory = reflectFactory;
+    }
+
+    @Override
+    public void setup() {
+        CopyStrategyLibrary copyStrategies = new CopyStrategyLibrary(reflectFactory);
+        copyStrategies.register(Vector3f.class, new Vector3fCopyStrategy());
+        try {
+            metadata = new DefaultClassMetadata<>(new SimpleUri("engine:characterMovement"), CharacterMovementComponent.class, reflectFactory, copyStrategies);
+        } catch (NoSuchMethodException e) {
+            logger.error("Failed to establish class metadata", e);
+        }
+        comp = new CharacterMovementComponent();
+    }
+
+    @Override
+    public void run() {
+        metadata.copy(comp);
+    }
+}
@@ -45,6 +45,10 @@ public static void main(String[] args) {
         benchmarks.add(new GetterSetterAccessBenchmark(new ByteCodeReflectFactory()));
         benchmarks.add(new ConstructionBenchmark(new ReflectionReflectFactory()));
         benchmarks.add(new ConstructionBenchmark(new ByteCodeReflectFactory()));
+        benchmarks.add(new CopyBenchmark(new ReflectionReflectFactory()));
+        benchmarks.add(new CopyBenchmark(new ByteCodeReflectFactory()));
+        benchmarks.add(new ComponentSerializationBenchmark(new ReflectionReflectFactory()));
+        benchmarks.add(new ComponentSerializationBenchmark(new ByteCodeReflectFactory()));
 
         Benchmarks.execute(benchmarks, new PrintToConsoleCallback());
 
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.rendering;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.math.AABB;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.rendering.world.ChunkQueueBuilder;
+import org.terasology.rendering.world.viewDistance.ViewDistance;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.RenderableChunk;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Queues the chunks of a MEGA view distance for rendering while a synthetic camera circles and turns above them.
+ * Either the way {@code RenderableWorldImpl} used to, classifying on one thread and ordering through priority queues
+ * that compare distances to the camera, or through a {@link ChunkQueueBuilder}.
+ * <br><br>
+ * The chunks are dynamic proxies that only know their position, so no chunk data has to be allocated. Frustum tests
+ * are replaced with a view cone test of similar cost.
+ */
+public class ChunkQueueBenchmark extends AbstractBenchmark {
+
+    private static final int FLAG_VISIBLE = 1;
+    private static final float CAMERA_PATH_RADIUS = 200f;
+    private static final float COS_HALF_FOV = (float) Math.cos(Math.toRadians(60));
+
+    private final int threads;
+    private final boolean builder;
+
+    private List<RenderableChunk> chunks;
+    private ChunkQueueBuilder queueBuilder;
+    private final Vector3f cameraPosition = new Vector3f();
+    private final Vector3f viewDirection = new Vector3f();
+    private float pathAngle;
+
+    private PriorityQueue<RenderableChunk> sortedQueue;
+    private Deque<RenderableChunk> queue;
+    private int queuedChunks;
+
+    /**
+     * @param threads The threads of the chunk queue builder, ignored if not using it
+     * @param builder Whether to use a {@link ChunkQueueBuilder} or priority queues
+     */
+    public ChunkQueueBenchmark(int threads, boolean builder) {
+        super("Queueing MEGA view distance chunks" + (builder ? ", chunk queue builder with " + threads + " threads" : ", priority queues"),
+                100, new int[]{500});
+        this.threads = threads;
+        this.builder = builder;
+    }
+
+    @Override
+    public void setup() {
+        Vector3i size = ViewDistance.MEGA.getChunkDistance();
+        Region3i region = Region3i.createFromCenterExtents(new Vector3i(0, 1, 0), new Vector3i(size.x / 2, size.y / 2, size.z / 2));
+        chunks = Lists.newArrayListWithCapacity(region.sizeX() * region.sizeY() * region.sizeZ());
+        for (Vector3i pos : region) {
+            chunks.add(createChunk(pos));
+        }
+        moveCamera();
+        if (builder) {
+            queueBuilder = new ChunkQueueBuilder(threads);
+            queue = new ArrayDeque<>(chunks.size());
+        } else {
+            sortedQueue = new PriorityQueue<>(chunks.size(), new FrontToBackComparator());
+        }
+    }
+
+    @Override
+    public void run() {
+        moveCamera();
+        queuedChunks = 0;
+        if (builder) {
+            queueBuilder.sortFrontToBack(chunks, cameraPosition);
+            queueBuilder.classify(chunks, (chunk, index) -> isInViewCone(chunk) ? FLAG_VISIBLE : 0);
+            for (int i = 0; i < chunks.size(); i++) {
+                if ((queueBuilder.getFlags(i) & FLAG_VISIBLE) != 0) {
+                    queue.add(chunks.get(i));
+                }
+            }
+            while (queue.poll() != null) {
+                queuedChunks++;
+            }
+        } else {
+            for (RenderableChunk chunk : chunks) {
+                if (isInViewCone(chunk)) {
+                    sortedQueue.add(chunk);
+                }
+            }
+            while (sortedQueue.poll() != null) {
+                queuedChunks++;
+            }
+        }
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        if (queueBuilder != null) {
+            queueBuilder.shutdown();
+        }
+        chunks = null;
+    }
+
+    /**
+     * Circles the origin at walking pace, always looking a bit ahead along the path.
+     */
+    private void moveCamera() {
+        pathAngle += 0.5f / CAMERA_PATH_RADIUS;
+        cameraPosition.set(CAMERA_PATH_RADIUS * (float) Math.cos(pathAngle), 100f, CAMERA_PATH_RADIUS * (float) Math.sin(pathAngle));
+        viewDirection.set(-(float) Math.sin(pathAngle + 0.3f), -0.2f, (float) Math.cos(pathAngle + 0.3f));
+        viewDirection.normalize();
+    }
+
+    private boolean isInViewCone(RenderableChunk chunk) {
+        for (Vector3f vertex : chunk.getAABB().getVertices()) {
+            float x = vertex.x - cameraPosition.x;
+            float y = vertex.y - cameraPosition.y;
+            float z = vertex.z - cameraPosition.z;
+            float dot = x * viewDirection.x + y * viewDirection.y + z * viewDirection.z;
+            if (dot > 0 && dot * dot >= COS_HALF_FOV * COS_HALF_FOV * (x * x + y * y + z * z)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static RenderableChunk createChunk(Vector3i position) {
+        Vector3f min = new Vector3f(position.x * ChunkConstants.SIZE_X, position.y * ChunkConstants.SIZE_Y, position.z * ChunkConstants.SIZE_Z);
+        Vector3f max = new Vector3f(min);
+        max.add(ChunkConstants.CHUNK_SIZE.toVector3f());
+        AABB aabb = AABB.createMinMax(min, max);
+        return (RenderableChunk) Proxy.newProxyInstance(RenderableChunk.class.getClassLoader(), new Class<?>[]{RenderableChunk.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getPosition":
+                            return new Vector3i(position);
+                        case "getAABB":
+                            return aabb;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "Chunk " + position;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private final class FrontToBackComparator implements Comparator<RenderableChunk> {
+
+        @Override
+        public int compare(RenderableChunk chunk1, RenderableChunk chunk2) {
+            return Float.compare(squaredDistance(chunk1), squaredDistance(chunk2));
+        }
+
+        private float squaredDistance(RenderableChunk chunk) {
+            Vector3i position = chunk.getPosition();
+            float x = (position.x + 0.5f) * ChunkConstants.SIZE_X - cameraPosition.x;
+            float y = (position.y + 0.5f) * ChunkConstants.SIZE_Y - cameraPosition.y;
+            float z = (position.z + 0.5f) * ChunkConstants.SIZE_Z - cameraPosition.z;
+            return x * x + y * y + z * z;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.rendering;
+
+import org.terasology.engine.ComponentSystemManager;
+import org.terasology.engine.TerasologyEngine;
+import org.terasology.engine.TerasologyEngineBuilder;
+import org.terasology.engine.modes.StateIngame;
+import org.terasology.engine.paths.PathManager;
+import org.terasology.engine.subsystem.headless.HeadlessAudio;
+import org.terasology.engine.subsystem.headless.HeadlessGraphics;
+import org.terasology.engine.subsystem.headless.HeadlessInput;
+import org.terasology.engine.subsystem.headless.HeadlessTimer;
+import org.terasology.engine.subsystem.headless.mode.StateHeadlessSetup;
+import org.terasology.engine.subsystem.lwjgl.GLBufferPool;
+import org.terasology.entitySystem.entity.EntityManager;
+import org.terasology.entitySystem.systems.BaseComponentSystem;
+import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.Region3i;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.rendering.primitives.ChunkMesh;
+import org.terasology.rendering.primitives.ChunkTessellator;
+import org.terasology.world.ChunkView;
+import org.terasology.world.RelevanceRegionComponent;
+import org.terasology.world.WorldProvider;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts a headless server, loads the chunks around the origin and meshes each of them at full detail and at every
+ * level of detail of {@link ChunkTessellator#generateLodMesh}, printing the vertices and the average meshing time per
+ * chunk for each.
+ * <p>
+ * Arguments: the horizontal radius in chunks of the meshed area (default 2) and the number of times every chunk is
+ * meshed at each level (default 5).
+ */
+public final class HeadlessChunkLodBenchmark {
+
+    private static final int WARMUP_PASSES = 2;
+
+    private HeadlessChunkLodBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int radius = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int passes = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        PathManager.getInstance().useDefaultHomePath();
+
+        TerasologyEngine engine = new TerasologyEngineBuilder()
+                .add(new HeadlessGraphics())
+                .add(new HeadlessTimer())
+                .add(new HeadlessAudio())
+                .add(new HeadlessInput())
+                .build();
+
+        LodMeshingMonitor monitor = new LodMeshingMonitor(engine, radius, passes);
+        engine.subscribeToStateChange(() -> {
+            if (engine.getState() instanceof StateIngame && monitor.worldProvider == null) {
+                monitor.start(((StateIngame) engine.getState()).getContext().get(EntityManager.class),
+                        ((StateIngame) engine.getState()).getContext().get(WorldProvider.class));
+                ((StateIngame) engine.getState()).getContext().get(ComponentSystemManager.class).register(monitor);
+            }
+        });
+
+        engine.run(new StateHeadlessSetup());
+
+        if (monitor.results.isEmpty()) {
+            System.out.println("Benchmark ended before the chunks around the origin were loaded");
+        }
+        for (String result : monitor.results) {
+            System.out.println(result);
+        }
+    }
+
+    /**
+     * Keeps the area around the origin loaded and meshes it once every chunk of it is available.
+     */
+    private static final class LodMeshingMonitor extends BaseComponentSystem implements UpdateSubscriberSystem {
+
+        private final TerasologyEngine engine;
+        private final Region3i region;
+        private final int passes;
+        private final List<String> results = new ArrayList<>();
+
+        private WorldProvider worldProvider;
+
+        LodMeshingMonitor(TerasologyEngine engine, int radius, int passes) {
+            this.engine = engine;
+            this.region = Region3i.createFromCenterExtents(new Vector3i(0, 0, 0), new Vector3i(radius, 1, radius));
+            this.passes = passes;
+        }
+
+        void start(EntityManager entityManager, WorldProvider world) {
+            this.worldProvider = world;
+            RelevanceRegionComponent relevanceRegion = new RelevanceRegionComponent();
+            relevanceRegion.distance = new Vector3i(region.sizeX() + 2, region.sizeY() + 2, region.sizeZ() + 2);
+            entityManager.create(new LocationComponent(new Vector3f()), relevanceRegion);
+        }
+
+        @Override
+        public void update(float delta) {
+            List<ChunkView> views = new ArrayList<>();
+            for (Vector3i chunkPos : region) {
+                ChunkView view = worldProvider.getLocalView(chunkPos);
+                if (view == null || !view.isValidView()) {
+                    return;
+                }
+                views.add(view);
+            }
+
+            ChunkTessellator tessellator = new ChunkTessellator(new GLBufferPool(false));
+            for (int scale = 1; scale <= ChunkTessellator.MAX_LOD_SCALE; scale *= 2) {
+                for (int i = 0; i < WARMUP_PASSES; i++) {
+                    meshAll(tessellator, views, scale);
+                }
+                long vertices = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < passes; i++) {
+                    vertices = meshAll(tessellator, views, scale);
+                }
+                double millis = (System.nanoTime() - start) / 1000000.0 / passes / views.size();
+                results.add(String.format("%d blocks per cell: %d vertices in %d chunks, %.3f ms per chunk",
+                        scale, vertices, views.size(), millis));
+            }
+            engine.shutdown();
+        }
+
+        private static long meshAll(ChunkTessellator tessellator, List<ChunkView> views, int scale) {
+            long vertices = 0;
+            for (ChunkView view : views) {
+                ChunkMesh mesh = scale == 1
+                        ? tessellator.generateMesh(view, ChunkConstants.SIZE_Y, 0)
+                        : tessellator.generateLodMesh(view, scale);
+                for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
+                    vertices += mesh.getVertexElements(type).vertexCount;
+                }
+            }
+            return vertices;
+        }
+    }
+}
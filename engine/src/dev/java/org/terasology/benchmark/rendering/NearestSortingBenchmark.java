@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.benchmark.rendering;
+
+import com.google.common.collect.Lists;
+import org.terasology.benchmark.AbstractBenchmark;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.internal.PojoEntityManager;
+import org.terasology.logic.location.DistanceComparator;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.rendering.cameras.OrthographicCamera;
+import org.terasology.rendering.logic.NearestSortingList;
+import org.terasology.utilities.random.FastRandom;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Re-sorts entities by their distance to a slowly moving camera. Either with a full comparison sort over a copy of
+ * the entities, as the sorting list used to do, or with a {@link NearestSortingList} sorting pass, which captures the
+ * distances once and insertion sorts the nearly sorted previous order.
+ */
+public class NearestSortingBenchmark extends AbstractBenchmark {
+
+    private final int entityCount;
+    private final boolean incremental;
+
+    private PojoEntityManager entityManager;
+    private OrthographicCamera camera;
+    private NearestSortingList sortingList;
+    private List<EntityRef> entities;
+    private DistanceComparator comparator;
+
+    public NearestSortingBenchmark(int entityCount, boolean incremental) {
+        super("Sorting " + entityCount + " entities by distance" + (incremental ? ", incremental" : ", full comparison sort"),
+                100, new int[]{1000});
+        this.entityCount = entityCount;
+        this.incremental = incremental;
+    }
+
+    @Override
+    public void setup() {
+        entityManager = new PojoEntityManager();
+        camera = new OrthographicCamera(-1, 1, 1, -1);
+        sortingList = new NearestSortingList();
+        sortingList.initialiseAndPause(camera);
+        entities = Lists.newLinkedList();
+        comparator = new DistanceComparator();
+        FastRandom random = new FastRandom(0L);
+        for (int i = 0; i < entityCount; i++) {
+            EntityRef entity = entityManager.create(new LocationComponent(new Vector3f(random.nextFloat(-200, 200),
+                    random.nextFloat(0, 64), random.nextFloat(-200, 200))));
+            entities.add(entity);
+            sortingList.add(entity);
+        }
+    }
+
+    @Override
+    public void run() {
+        camera.getPosition().x += 0.1f;
+        if (incremental) {
+            sortingList.sortNow();
+        } else {
+            comparator.setOrigin(camera.getPosition());
+            List<EntityRef> copy = Lists.newLinkedList(entities);
+            Collections.sort(copy, comparator);
+            entities = copy;
+        }
+    }
+
+    @Override
+    public void finish(boolean aborted) {
+        sortingList.stop();
+        entityManager = null;
+        entities = null;
+    }
+}
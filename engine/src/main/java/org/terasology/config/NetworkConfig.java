@@ -44,6 +44,17 @@ public class NetworkConfig {
      */
     private String masterServer = "meta.terasology.org";
 
+    /**
+     * The size in bytes above which outgoing frames are compressed, if the client supports it. 0 compresses the whole
+     * stream instead.
+     */
+    private int frameCompressionThreshold = 256;
+
+    /**
+     * Whether frames compressed by size threshold use the preset dictionary, if the client has the same one
+     */
+    private boolean frameCompressionDictionary = true;
+
     public void clear() {
         servers.clear();
     }
@@ -83,4 +94,20 @@ public String getMasterServer() {
     public void setMasterServer(String masterServer) {
         this.masterServer = masterServer;
     }
+
+    public int getFrameCompressionThreshold() {
+        return frameCompressionThreshold;
+    }
+
+    public void setFrameCompressionThreshold(int frameCompressionThreshold) {
+        this.frameCompressionThreshold = frameCompressionThreshold;
+    }
+
+    public boolean isFrameCompressionDictionary() {
+        return frameCompressionDictionary;
+    }
+
+    public void setFrameCompressionDictionary(boolean frameCompressionDictionary) {
+        this.frameCompressionDictionary = frameCompressionDictionary;
+    }
 }
@@ -67,6 +67,8 @@ public class RenderingConfig extends AbstractSubscribable {
     public static final String RENDER_NEAREST = "RenderNearest";
     public static final String PARTICLE_EFFECT_LIMIT = "ParticleEffectLimit";
     public static final String MESH_LIMIT = "MeshLimit";
+    public static final String CHUNK_LOD_DISTANCE = "ChunkLodDistance";
+    public static final String CHUNK_UPLOAD_BUDGET = "ChunkUploadBudget";
     public static final String V_SYNC = "VSync";
     public static final String FRAME_LIMIT = "FrameLimit";
     public static final String FBO_SCALE = "FboScale";
@@ -113,6 +115,8 @@ public class RenderingConfig extends AbstractSubscribable {
     private int particleEffectLimit;
     private int frameLimit;
     private int meshLimit;
+    private int chunkLodDistance;
+    private int chunkUploadBudget;
     private boolean inscattering;
     private boolean localReflections;
     private boolean vSync;
@@ -524,6 +528,34 @@ public void setMeshLimit(int meshLimit) {
         this.meshLimit = meshLimit;
         propertyChangeSupport.firePropertyChange(MESH_LIMIT, oldLimit, this.meshLimit);
     }
+
+    /**
+     * @return The distance in chunks from the camera beyond which chunks are meshed at a lower level of detail,
+     * 0 for full detail at every distance
+     */
+    public int getChunkLodDistance() {
+        return chunkLodDistance;
+    }
+
+    public void setChunkLodDistance(int chunkLodDistance) {
+        int oldValue = this.chunkLodDistance;
+        this.chunkLodDistance = chunkLodDistance;
+        propertyChangeSupport.firePropertyChange(CHUNK_LOD_DISTANCE, oldValue, this.chunkLodDistance);
+    }
+
+    /**
+     * @return The kilobytes of chunk mesh data uploaded to the GPU per frame, 0 to upload every finished mesh at once
+     */
+    public int getChunkUploadBudget() {
+        return chunkUploadBudget;
+    }
+
+    public void setChunkUploadBudget(int chunkUploadBudget) {
+        int oldValue = this.chunkUploadBudget;
+        this.chunkUploadBudget = chunkUploadBudget;
+        propertyChangeSupport.firePropertyChange(CHUNK_UPLOAD_BUDGET, oldValue, this.chunkUploadBudget);
+    }
+
     public boolean isVSync() {
         return this.vSync;
     }
@@ -16,21 +16,38 @@
 
 package org.terasology.config;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.util.Locale;
 import java.util.Locale.Category;
 
 /**
  */
 public class SystemConfig {
+    private static final Logger logger = LoggerFactory.getLogger(SystemConfig.class);
+
     public static final String SAVED_GAMES_ENABLED_PROPERTY = "org.terasology.savedGamesEnabled";
+    public static final String LOADING_THREADS_PROPERTY = "org.terasology.loadingThreads";
+    public static final String ASYNC_PHYSICS_PROPERTY = "org.terasology.asyncPhysics";
+    public static final String MOVEMENT_THREADS_PROPERTY = "org.terasology.movementThreads";
+    public static final String BEHAVIOR_TICK_BUDGET_PROPERTY = "org.terasology.behaviorTickBudget";
+    public static final String CHUNK_QUEUE_THREADS_PROPERTY = "org.terasology.chunkQueueThreads";
+    public static final String CHUNK_MESH_THREADS_PROPERTY = "org.terasology.chunkMeshThreads";
 
     private long dayNightLengthInMs;
     private int maxThreads;
+    private int loadingThreads;
     private int maxSecondsBetweenSaves;
     private int maxUnloadedChunksPercentageTillSave;
     private boolean debugEnabled;
     private boolean monitoringEnabled;
     private boolean writeSaveGamesEnabled;
+    private boolean asyncPhysicsEnabled;
+    private int movementThreads;
+    private float behaviorTickBudget;
+    private int chunkQueueThreads;
+    private int chunkMeshThreads;
     private String locale;
 
     public long getDayNightLengthInMs() {
@@ -49,6 +66,18 @@ public void setMaxThreads(int maxThreads) {
         this.maxThreads = maxThreads;
     }
 
+    /**
+     * @return The number of threads used to run load processes that do not need the main thread. 0 runs all of them
+     * on the main thread, one after the other.
+     */
+    public int getLoadingThreads() {
+        return getIntProperty(LOADING_THREADS_PROPERTY, loadingThreads);
+    }
+
+    public void setLoadingThreads(int loadingThreads) {
+        this.loadingThreads = loadingThreads;
+    }
+
     public int getMaxSecondsBetweenSaves() {
         return maxSecondsBetweenSaves;
     }
@@ -93,6 +122,73 @@ public void setWriteSaveGamesEnabled(boolean writeSaveGamesEnabled) {
         this.writeSaveGamesEnabled = writeSaveGamesEnabled;
     }
 
+    /**
+     * @return Whether the physics simulation steps on its own thread, overlapping with the rest of the frame.
+     */
+    public boolean isAsyncPhysicsEnabled() {
+        String property = System.getProperty(ASYNC_PHYSICS_PROPERTY);
+        if (property != null) {
+            return Boolean.parseBoolean(property);
+        }
+        return asyncPhysicsEnabled;
+    }
+
+    public void setAsyncPhysicsEnabled(boolean asyncPhysicsEnabled) {
+        this.asyncPhysicsEnabled = asyncPhysicsEnabled;
+    }
+
+    /**
+     * @return The number of threads the server uses to calculate the movement of characters not controlled by a
+     * client. 0 calculates each movement on the main thread, as soon as its input arrives.
+     */
+    public int getMovementThreads() {
+        return getIntProperty(MOVEMENT_THREADS_PROPERTY, movementThreads);
+    }
+
+    public void setMovementThreads(int movementThreads) {
+        this.movementThreads = movementThreads;
+    }
+
+    /**
+     * @return The milliseconds behavior trees may be ticked for each frame. Trees left over are ticked first in the
+     * next frame. 0 ticks every tree that is due in each frame.
+     */
+    public float getBehaviorTickBudget() {
+        return getFloatProperty(BEHAVIOR_TICK_BUDGET_PROPERTY, behaviorTickBudget);
+    }
+
+    public void setBehaviorTickBudget(float behaviorTickBudget) {
+        this.behaviorTickBudget = behaviorTickBudget;
+    }
+
+    /**
+     * @return The number of threads that decide which render queues the chunks around the camera go into.
+     * 0 does it on the rendering thread.
+     */
+    public int getChunkQueueThreads() {
+        return getIntProperty(CHUNK_QUEUE_THREADS_PROPERTY, chunkQueueThreads);
+    }
+
+    public void setChunkQueueThreads(int chunkQueueThreads) {
+        this.chunkQueueThreads = chunkQueueThreads;
+    }
+
+    /**
+     * @return The number of threads that tessellate chunk meshes. 0 uses one thread per available core but one, and
+     * at least one.
+     */
+    public int getChunkMeshThreads() {
+        int threads = getIntProperty(CHUNK_MESH_THREADS_PROPERTY, chunkMeshThreads);
+        if (threads <= 0) {
+            return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        }
+        return threads;
+    }
+
+    public void setChunkMeshThreads(int chunkMeshThreads) {
+        this.chunkMeshThreads = chunkMeshThreads;
+    }
+
     public Locale getLocale() {
         if (locale == null) {
             setLocale(Locale.getDefault(Category.DISPLAY));
@@ -103,4 +199,34 @@ public Locale getLocale() {
     public void setLocale(Locale locale) {
         this.locale = locale.toLanguageTag();
     }
+
+    /**
+     * @return The value of the system property, or the default if it is not set or not an int
+     */
+    private static int getIntProperty(String name, int defaultValue) {
+        String property = System.getProperty(name);
+        if (property != null) {
+            try {
+                return Integer.parseInt(property.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring system property {}={}, which is not an integer", name, property);
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * @return The value of the system property, or the default if it is not set or not a number
+     */
+    private static float getFloatProperty(String name, float defaultValue) {
+        String property = System.getProperty(name);
+        if (property != null) {
+            try {
+                return Float.parseFloat(property.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring system property {}={}, which is not a number", name, property);
+            }
+        }
+        return defaultValue;
+    }
 }
@@ -16,6 +16,8 @@
 
 package org.terasology.engine.modes;
 
+import java.util.Set;
+
 /**
  */
 public interface LoadProcess {
@@ -46,4 +48,22 @@ public interface LoadProcess {
      * @return A relative cost for this process. A small process would have a cost of 1, a large process a bigger cost.
      */
     int getExpectedCost();
+
+    /**
+     * @return The thread this process must run on
+     */
+    default LoadThreadAffinity getThreadAffinity() {
+        return LoadThreadAffinity.MAIN_THREAD;
+    }
+
+    /**
+     * Processes on the main thread always run in the order they were queued, so dependencies only decide which worker
+     * processes a process waits for, and when a worker process may start. Only processes queued earlier can be depended on.
+     *
+     * @return The types of the processes that must have finished before this one begins, or null if it must wait for
+     * every process queued before it
+     */
+    default Set<Class<? extends LoadProcess>> getDependencies() {
+        return null;
+    }
 }
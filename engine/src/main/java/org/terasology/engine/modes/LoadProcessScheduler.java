@@ -0,0 +1,286 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.modes;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Queues;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a sequence of {@link LoadProcess}es, honouring their dependencies and thread affinity.
+ * <br><br>
+ * Main thread processes run one step per call to {@link #step()}, in the order they were added. Worker processes are
+ * run to completion on a pool of loading threads as soon as their dependencies have finished, concurrently with the
+ * main thread and each other. Without worker threads every process runs on the main thread, in order.
+ * <br><br>
+ * Once everything has finished, the time taken by each process is written to the log.
+ */
+public class LoadProcessScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadProcessScheduler.class);
+
+    private final List<Stage> stages = Lists.newArrayList();
+    private final Queue<Stage> mainThreadStages = Queues.newArrayDeque();
+    private final List<Stage> pendingWorkerStages = Lists.newArrayList();
+    private final ExecutorService workers;
+
+    private Stage current;
+    private int totalCost;
+    private long startTime;
+    private long endTime;
+
+    /**
+     * @param workerThreads The number of threads to run worker processes on. With 0, every process runs on the main thread.
+     */
+    public LoadProcessScheduler(int workerThreads) {
+        if (workerThreads > 0) {
+            workers = Executors.newFixedThreadPool(workerThreads, new ThreadFactoryBuilder().setNameFormat("Loading-%d").setDaemon(true).build());
+        } else {
+            workers = null;
+        }
+    }
+
+    /**
+     * Adds a process, after those already added.
+     *
+     * @param process The process to add
+     */
+    public void add(LoadProcess process) {
+        Stage stage = new Stage(process, workers != null && process.getThreadAffinity() == LoadThreadAffinity.WORKER);
+        Set<Class<? extends LoadProcess>> dependencies = process.getDependencies();
+        for (Stage previous : stages) {
+            if (dependencies == null || dependencies.stream().anyMatch(type -> type.isInstance(previous.process))) {
+                stage.dependencies.add(previous);
+            }
+        }
+        stages.add(stage);
+        if (stage.onWorker) {
+            pendingWorkerStages.add(stage);
+        } else {
+            mainThreadStages.add(stage);
+        }
+        totalCost += process.getExpectedCost();
+    }
+
+    /**
+     * Does the next piece of main thread work, starting any worker processes that have become ready.
+     *
+     * @return Whether any work was done. If not, loading is either finished or waiting on worker processes.
+     */
+    public boolean step() {
+        if (startTime == 0) {
+            startTime = System.nanoTime();
+        }
+        startReadyWorkerStages();
+        rethrowWorkerFailure();
+
+        if (current == null) {
+            if (mainThreadStages.isEmpty() || !mainThreadStages.peek().isReady()) {
+                return false;
+            }
+            current = mainThreadStages.remove();
+            logger.debug(current.process.getMessage());
+            current.start();
+            current.process.begin();
+        }
+
+        long stepStart = System.nanoTime();
+        boolean finished = current.process.step();
+        current.activeTime += System.nanoTime() - stepStart;
+        if (finished) {
+            current.finish();
+            current = null;
+            startReadyWorkerStages();
+        }
+        return true;
+    }
+
+    /**
+     * The first call to find every process finished writes the timing report to the log and stops the worker threads.
+     *
+     * @return Whether every process has finished
+     */
+    public boolean isFinished() {
+        if (endTime != 0) {
+            return true;
+        }
+        if (stages.stream().allMatch(Stage::isDone)) {
+            endTime = System.nanoTime();
+            if (startTime == 0) {
+                startTime = endTime;
+            }
+            shutdown();
+            logReport();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return A message describing what is currently being loaded
+     */
+    public String getMessage() {
+        if (current != null) {
+            return current.process.getMessage();
+        }
+        for (Stage stage : stages) {
+            if (stage.isRunning()) {
+                return stage.process.getMessage();
+            }
+        }
+        if (!mainThreadStages.isEmpty()) {
+            return mainThreadStages.peek().process.getMessage();
+        }
+        return "";
+    }
+
+    /**
+     * @return The overall progress, between 0f and 1f inclusive
+     */
+    public float getProgress() {
+        if (totalCost == 0) {
+            return 0f;
+        }
+        float progress = 0;
+        for (Stage stage : stages) {
+            if (stage.isDone()) {
+                progress += stage.process.getExpectedCost();
+            } else if (stage.isRunning()) {
+                progress += stage.process.getExpectedCost() * stage.process.getProgress();
+            }
+        }
+        return progress / totalCost;
+    }
+
+    /**
+     * Stops the worker threads, interrupting any processes still running on them.
+     */
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+
+    private void startReadyWorkerStages() {
+        Iterator<Stage> iterator = pendingWorkerStages.iterator();
+        while (iterator.hasNext()) {
+            Stage stage = iterator.next();
+            if (stage.isReady()) {
+                iterator.remove();
+                stage.start();
+                workers.execute(() -> runOnWorker(stage));
+            }
+        }
+    }
+
+    private void runOnWorker(Stage stage) {
+        try {
+            logger.debug(stage.process.getMessage());
+            long start = System.nanoTime();
+            stage.process.begin();
+            while (!stage.process.step()) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+            }
+            stage.activeTime = System.nanoTime() - start;
+            stage.finish();
+        } catch (RuntimeException | Error e) {
+            stage.failure = e;
+        }
+    }
+
+    private void rethrowWorkerFailure() {
+        for (Stage stage : stages) {
+            if (stage.failure != null) {
+                shutdown();
+                throw new RuntimeException("Failed to load: " + stage.process.getMessage(), stage.failure);
+            }
+        }
+    }
+
+    private void logReport() {
+        logger.info("Loading took {} ms", TimeUnit.NANOSECONDS.toMillis(endTime - startTime));
+        List<Stage> sorted = Lists.newArrayList(stages);
+        Collections.sort(sorted, Comparator.comparingLong(stage -> stage.startTime));
+        for (Stage stage : sorted) {
+            logger.info(String.format("  %-40s started at %6d ms, took %6d ms (%d ms active) on %s",
+                    stage.process.getClass().getSimpleName(),
+                    TimeUnit.NANOSECONDS.toMillis(stage.startTime - startTime),
+                    TimeUnit.NANOSECONDS.toMillis(stage.endTime - stage.startTime),
+                    TimeUnit.NANOSECONDS.toMillis(stage.activeTime),
+                    stage.threadName));
+        }
+    }
+
+    private static final class Stage {
+        private final LoadProcess process;
+        private final boolean onWorker;
+        private final List<Stage> dependencies = Lists.newArrayList();
+
+        private volatile boolean running;
+        private volatile boolean done;
+        private volatile Throwable failure;
+        private long startTime;
+        private long endTime;
+        private long activeTime;
+        private String threadName;
+
+        private Stage(LoadProcess process, boolean onWorker) {
+            this.process = process;
+            this.onWorker = onWorker;
+        }
+
+        private boolean isReady() {
+            return dependencies.stream().allMatch(Stage::isDone);
+        }
+
+        private boolean isRunning() {
+            return running;
+        }
+
+        private boolean isDone() {
+            return done;
+        }
+
+        private void start() {
+            startTime = System.nanoTime();
+            threadName = onWorker ? "worker" : Thread.currentThread().getName();
+            running = true;
+        }
+
+        private void finish() {
+            endTime = System.nanoTime();
+            if (onWorker) {
+                threadName = Thread.currentThread().getName();
+            }
+            running = false;
+            done = true;
+        }
+    }
+}
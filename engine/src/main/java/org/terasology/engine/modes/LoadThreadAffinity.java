@@ -0,0 +1,31 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.modes;
+
+/**
+ * Where a {@link LoadProcess} may run.
+ */
+public enum LoadThreadAffinity {
+    /**
+     * The process uses OpenGL, or engine state that is only safe to touch from the main thread. This is the default.
+     */
+    MAIN_THREAD,
+    /**
+     * The process is pure CPU or IO work that only touches state it owns or that is thread safe, and may run on a
+     * loading worker thread concurrently with other processes.
+     */
+    WORKER
+}
@@ -17,9 +17,9 @@
 package org.terasology.engine.modes;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Queues;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.config.Config;
 import org.terasology.context.Context;
 import org.terasology.engine.EngineTime;
 import org.terasology.engine.GameEngine;
@@ -45,6 +45,7 @@
 import org.terasology.engine.modes.loadProcesses.LoadPrefabs;
 import org.terasology.engine.modes.loadProcesses.PostBeginSystems;
 import org.terasology.engine.modes.loadProcesses.PreBeginSystems;
+import org.terasology.engine.modes.loadProcesses.PrepareMeshes;
 import org.terasology.engine.modes.loadProcesses.PrepareWorld;
 import org.terasology.engine.modes.loadProcesses.ProcessBlockPrefabs;
 import org.terasology.engine.modes.loadProcesses.RegisterBiomes;
@@ -65,7 +66,6 @@
 import org.terasology.rendering.nui.internal.NUIManagerInternal;
 import org.terasology.rendering.nui.layers.mainMenu.loadingScreen.LoadingScreen;
 
-import java.util.Queue;
 
 /**
  */
@@ -76,17 +76,13 @@ public class StateLoading implements GameState {
     private Context context;
     private GameManifest gameManifest;
     private NetworkMode netMode;
-    private Queue<LoadProcess> loadProcesses = Queues.newArrayDeque();
-    private LoadProcess current;
+    private LoadProcessScheduler loadProcesses;
     private JoinStatus joinStatus;
 
     private NUIManager nuiManager;
 
     private LoadingScreen loadingScreen;
 
-    private int progress;
-    private int maxProgress;
-
     /**
      * Constructor for server or single player games
      *
@@ -124,6 +120,7 @@ public void init(GameEngine engine) {
         time.setGameTime(gameManifest.getTime());
 
         context.get(Game.class).load(gameManifest);
+        loadProcesses = new LoadProcessScheduler(context.get(Config.class).getSystem().getLoadingThreads());
         switch (netMode) {
             case CLIENT:
                 initClient();
@@ -133,15 +130,8 @@ public void init(GameEngine engine) {
                 break;
         }
 
-        progress = 0;
-        maxProgress = 0;
-        for (LoadProcess process : loadProcesses) {
-            maxProgress += process.getExpectedCost();
-        }
-
-        popStep();
         loadingScreen = nuiManager.pushScreen("engine:loadingScreen", LoadingScreen.class);
-        loadingScreen.updateStatus(current.getMessage(), current.getProgress());
+        loadingScreen.updateStatus(loadProcesses.getMessage(), loadProcesses.getProgress());
     }
 
     private void initClient() {
@@ -152,6 +142,7 @@ private void initClient() {
         loadProcesses.add(new RegisterBiomes(context, gameManifest));
         loadProcesses.add(new InitialiseGraphics(context));
         loadProcesses.add(new CacheBlocks(context));
+        loadProcesses.add(new PrepareMeshes(context));
         loadProcesses.add(new LoadPrefabs(context));
         loadProcesses.add(new ProcessBlockPrefabs(context));
         loadProcesses.add(new InitialiseComponentSystemManager(context));
@@ -177,6 +168,7 @@ private void initHost() {
         loadProcesses.add(new RegisterBiomes(context, gameManifest));
         loadProcesses.add(new InitialiseGraphics(context));
         loadProcesses.add(new CacheBlocks(context));
+        loadProcesses.add(new PrepareMeshes(context));
         loadProcesses.add(new LoadPrefabs(context));
         loadProcesses.add(new ProcessBlockPrefabs(context));
         loadProcesses.add(new InitialiseComponentSystemManager(context));
@@ -211,22 +203,11 @@ private void initHost() {
         loadProcesses.add(new PrepareWorld(context));
     }
 
-    private void popStep() {
-        if (current != null) {
-            progress += current.getExpectedCost();
-        }
-        current = null;
-        if (!loadProcesses.isEmpty()) {
-            current = loadProcesses.remove();
-            logger.debug(current.getMessage());
-            current.begin();
-        }
-    }
-
     @Override
     public void dispose() {
         EngineTime time = (EngineTime) context.get(Time.class);
         time.setPaused(false);
+        loadProcesses.shutdown();
     }
 
     @Override
@@ -238,18 +219,17 @@ public void update(float delta) {
         GameEngine gameEngine = context.get(GameEngine.class);
         EngineTime time = (EngineTime) context.get(Time.class);
         long startTime = time.getRealTimeInMs();
-        while (current != null && time.getRealTimeInMs() - startTime < 20 && !gameEngine.hasPendingState()) {
-            if (current.step()) {
-                popStep();
+        while (time.getRealTimeInMs() - startTime < 20 && !gameEngine.hasPendingState()) {
+            if (!loadProcesses.step()) {
+                break;
             }
         }
-        if (current == null) {
+        if (loadProcesses.isFinished()) {
             nuiManager.closeScreen(loadingScreen);
             nuiManager.setHUDVisible(true);
             context.get(GameEngine.class).changeState(new StateIngame(gameManifest, context));
         } else {
-            float progressValue = (progress + current.getExpectedCost() * current.getProgress()) / maxProgress;
-            loadingScreen.updateStatus(current.getMessage(), progressValue);
+            loadingScreen.updateStatus(loadProcesses.getMessage(), loadProcesses.getProgress());
             nuiManager.update(delta);
         }
     }
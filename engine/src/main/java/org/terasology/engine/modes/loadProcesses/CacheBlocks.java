@@ -17,10 +17,13 @@
 package org.terasology.engine.modes.loadProcesses;
 
 import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadProcess;
 import org.terasology.world.block.BlockManager;
 import org.terasology.world.block.family.BlockFamily;
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.Set;
 
 /**
  */
@@ -59,4 +62,12 @@ public void begin() {
     public int getExpectedCost() {
         return 1;
     }
+
+    /**
+     * Block meshes do not involve biomes, so they are cached while biomes are registered.
+     */
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return Collections.emptySet();
+    }
 }
@@ -15,11 +15,14 @@
  */
 package org.terasology.engine.modes.loadProcesses;
 
+import com.google.common.collect.ImmutableSet;
 import org.terasology.context.Context;
 import org.terasology.engine.modes.LoadProcess;
+import org.terasology.engine.modes.LoadThreadAffinity;
 import org.terasology.persistence.StorageManager;
 
 import java.io.IOException;
+import java.util.Set;
 
 /**
  * Repairs the save game when it is in an inconsistent state after a crash.
@@ -60,4 +63,18 @@ public float getProgress() {
     public int getExpectedCost() {
         return 0;
     }
+
+    /**
+     * Repairing the save only touches files in the save directory, so it runs off the main thread, which keeps drawing
+     * the loading screen. Every later process still waits for it.
+     */
+    @Override
+    public LoadThreadAffinity getThreadAffinity() {
+        return LoadThreadAffinity.WORKER;
+    }
+
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return ImmutableSet.of(InitialiseWorld.class);
+    }
 }
@@ -19,6 +19,7 @@
 import org.terasology.assets.ResourceUrn;
 import org.terasology.context.Context;
 import org.terasology.engine.TerasologyConstants;
+import org.terasology.engine.modes.LoadProcess;
 import org.terasology.math.geom.Vector4f;
 import org.terasology.naming.Name;
 import org.terasology.rendering.nui.NUIManager;
@@ -26,6 +27,9 @@
 import org.terasology.rendering.primitives.Tessellator;
 import org.terasology.rendering.primitives.TessellatorHelper;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  */
 public class InitialiseGraphics extends SingleStepLoadProcess {
@@ -60,4 +64,12 @@ public boolean step() {
     public int getExpectedCost() {
         return 1;
     }
+
+    /**
+     * Only sets up rendering, so it does not wait for biomes to be registered.
+     */
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return Collections.emptySet();
+    }
 }
@@ -15,6 +15,7 @@
  */
 package org.terasology.engine.modes.loadProcesses;
 
+import org.terasology.config.Config;
 import org.terasology.context.Context;
 import org.terasology.physics.Physics;
 import org.terasology.physics.bullet.BulletPhysics;
@@ -37,7 +38,8 @@ public String getMessage() {
 
     @Override
     public boolean step() {
-        BulletPhysics physicsEngine = new BulletPhysics(context.get(WorldProvider.class));
+        BulletPhysics physicsEngine = new BulletPhysics(context.get(WorldProvider.class),
+                context.get(Config.class).getSystem().isAsyncPhysicsEnabled());
         context.put(Physics.class, physicsEngine);
         context.put(PhysicsEngine.class, physicsEngine);
         return true;
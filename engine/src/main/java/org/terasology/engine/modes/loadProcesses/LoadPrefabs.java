@@ -19,9 +19,12 @@
 import org.terasology.assets.ResourceUrn;
 import org.terasology.assets.management.AssetManager;
 import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadProcess;
 import org.terasology.entitySystem.prefab.Prefab;
 
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.Set;
 
 /**
  */
@@ -57,4 +60,13 @@ public void begin() {
     public int getExpectedCost() {
         return 1;
     }
+
+    /**
+     * Prefabs do not involve biomes, so they are loaded while biomes are registered. They do load the meshes they
+     * refer to, so they wait for those to be decoded into the mesh cache.
+     */
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return Collections.singleton(PrepareMeshes.class);
+    }
 }
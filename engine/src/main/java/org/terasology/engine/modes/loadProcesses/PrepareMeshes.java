@@ -0,0 +1,183 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.engine.modes.loadProcesses;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadProcess;
+import org.terasology.engine.modes.LoadThreadAffinity;
+import org.terasology.engine.module.ModuleManager;
+import org.terasology.module.Module;
+import org.terasology.module.ModuleEnvironment;
+import org.terasology.rendering.assets.mesh.ColladaMeshFormat;
+import org.terasology.rendering.collada.ColladaCache;
+import org.terasology.rendering.md5.ColladaSkeletalMeshLoader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Decodes the Collada meshes and skeletal meshes of every module into the {@link ColladaCache} on a pool of threads,
+ * so that loading them as assets, mostly while prefabs are loaded, reads the decoded data instead of parsing the XML on
+ * the main thread. Files that are cached already are skipped. Files that fail to decode are left for the asset system
+ * to report when they are loaded.
+ */
+public class PrepareMeshes extends StepBasedLoadProcess {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrepareMeshes.class);
+
+    private static final String EXTENSION = ".dae";
+
+    private final Context context;
+
+    private ColladaCache cache;
+    private ExecutorService decoders;
+    private List<Future<?>> decoding = Lists.newArrayList();
+    private int finishedCount;
+    private long startTime;
+
+    public PrepareMeshes(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Decoding Meshes...";
+    }
+
+    @Override
+    public void begin() {
+        startTime = System.nanoTime();
+        cache = ColladaCache.createDefault();
+        if (cache == null) {
+            return;
+        }
+        ColladaMeshFormat meshFormat = new ColladaMeshFormat(cache);
+        ColladaSkeletalMeshLoader skeletalMeshFormat = new ColladaSkeletalMeshLoader(cache);
+        ModuleEnvironment environment = context.get(ModuleManager.class).getEnvironment();
+
+        List<Path> meshFiles = Lists.newArrayList();
+        List<Path> skeletalMeshFiles = Lists.newArrayList();
+        for (Module module : environment) {
+            meshFiles.addAll(findColladaFiles(environment, module, "mesh"));
+            skeletalMeshFiles.addAll(findColladaFiles(environment, module, "skeletalMesh"));
+        }
+        setTotalSteps(meshFiles.size() + skeletalMeshFiles.size());
+        if (meshFiles.isEmpty() && skeletalMeshFiles.isEmpty()) {
+            return;
+        }
+
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        decoders = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("Mesh-Decoding-%d").setDaemon(true).build());
+        for (Path file : meshFiles) {
+            decoding.add(decoders.submit(() -> {
+                meshFormat.prepare(file.toString(), readAllBytes(file));
+                return null;
+            }));
+        }
+        for (Path file : skeletalMeshFiles) {
+            decoding.add(decoders.submit(() -> {
+                skeletalMeshFormat.prepare(file.toString(), readAllBytes(file));
+                return null;
+            }));
+        }
+    }
+
+    @Override
+    public boolean step() {
+        if (finishedCount < decoding.size()) {
+            try {
+                decoding.get(finishedCount).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while decoding meshes, leaving the rest to be decoded when loaded");
+                decoders.shutdownNow();
+                return true;
+            } catch (ExecutionException e) {
+                logger.warn("Failed to decode a mesh ahead of loading it", e.getCause());
+            }
+            finishedCount++;
+            stepDone();
+        }
+        if (finishedCount < decoding.size()) {
+            return false;
+        }
+
+        if (decoders != null) {
+            decoders.shutdown();
+        }
+        if (cache != null) {
+            cache.trim();
+            logger.info("Decoded {} of {} Collada meshes into the cache in {} ms", cache.getStoredCount(), decoding.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        }
+        return true;
+    }
+
+    @Override
+    public int getExpectedCost() {
+        return 1;
+    }
+
+    /**
+     * Decoding only reads module files and writes to the mesh cache, so it runs while textures, blocks and graphics are
+     * set up. Prefabs, which load the meshes, wait for it.
+     */
+    @Override
+    public LoadThreadAffinity getThreadAffinity() {
+        return LoadThreadAffinity.WORKER;
+    }
+
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return ImmutableSet.of(RegisterMods.class, JoinServer.class);
+    }
+
+    private static List<Path> findColladaFiles(ModuleEnvironment environment, Module module, String folder) {
+        Path root = environment.getFileSystem().getPath(module.getId().toString(), "assets", folder);
+        if (!Files.isDirectory(root)) {
+            return Lists.newArrayList();
+        }
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(EXTENSION)).collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.warn("Failed to list the {} files of module {}", folder, module.getId(), e);
+            return Lists.newArrayList();
+        }
+    }
+
+    private static byte[] readAllBytes(Path file) throws IOException {
+        try (InputStream stream = Files.newInputStream(file)) {
+            return ByteStreams.toByteArray(stream);
+        }
+    }
+}
@@ -16,11 +16,15 @@
 package org.terasology.engine.modes.loadProcesses;
 
 import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadProcess;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.world.block.BlockManager;
 import org.terasology.world.block.internal.BlockManagerImpl;
 import org.terasology.world.block.internal.BlockPrefabManager;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  */
 public class ProcessBlockPrefabs extends SingleStepLoadProcess {
@@ -47,4 +51,12 @@ public boolean step() {
     public int getExpectedCost() {
         return 1;
     }
+
+    /**
+     * Only needs the blocks and prefabs set up before it on the main thread.
+     */
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return Collections.emptySet();
+    }
 }
@@ -16,7 +16,10 @@
 
 package org.terasology.engine.modes.loadProcesses;
 
+import com.google.common.collect.ImmutableSet;
 import org.terasology.context.Context;
+import org.terasology.engine.modes.LoadProcess;
+import org.terasology.engine.modes.LoadThreadAffinity;
 import org.terasology.engine.module.ModuleManager;
 import org.terasology.game.GameManifest;
 import org.terasology.module.ModuleEnvironment;
@@ -24,6 +27,8 @@
 import org.terasology.world.biomes.BiomeManager;
 import org.terasology.world.biomes.BiomeRegistry;
 
+import java.util.Set;
+
 /**
  */
 public class RegisterBiomes extends SingleStepLoadProcess {
@@ -65,4 +70,17 @@ public int getExpectedCost() {
         return 1;
     }
 
+    /**
+     * Biomes only depend on the module environment and the biome id map in the game manifest, so they are registered
+     * off the main thread while graphics, blocks and prefabs are set up.
+     */
+    @Override
+    public LoadThreadAffinity getThreadAffinity() {
+        return LoadThreadAffinity.WORKER;
+    }
+
+    @Override
+    public Set<Class<? extends LoadProcess>> getDependencies() {
+        return ImmutableSet.of(RegisterMods.class, JoinServer.class);
+    }
 }
@@ -19,6 +19,8 @@
 import org.terasology.assets.management.AssetManager;
 import org.terasology.config.Config;
 import org.terasology.context.Context;
+import org.terasology.engine.module.ModuleManager;
+import org.terasology.engine.paths.PathManager;
 import org.terasology.game.GameManifest;
 import org.terasology.network.NetworkSystem;
 import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
@@ -28,12 +30,15 @@
 import org.terasology.world.block.BlockManager;
 import org.terasology.world.block.family.BlockFamily;
 import org.terasology.world.block.internal.BlockManagerImpl;
+import org.terasology.world.block.tiles.TileAtlasCache;
 import org.terasology.world.block.tiles.WorldAtlas;
 import org.terasology.world.block.tiles.WorldAtlasImpl;
 
 /**
  */
 public class RegisterBlocks extends SingleStepLoadProcess {
+    private static final String ATLAS_CACHE_DIR = "blockAtlas";
+
     private final Context context;
     private final GameManifest gameManifest;
 
@@ -50,7 +55,9 @@ public String getMessage() {
     @Override
     public boolean step() {
         NetworkSystem networkSystem = context.get(NetworkSystem.class);
-        WorldAtlas atlas = new WorldAtlasImpl(context.get(Config.class).getRendering().getMaxTextureAtlasResolution());
+        TileAtlasCache atlasCache = new TileAtlasCache(PathManager.getInstance().getCachePath().resolve(ATLAS_CACHE_DIR),
+                context.get(ModuleManager.class).getEnvironment());
+        WorldAtlas atlas = new WorldAtlasImpl(context.get(Config.class).getRendering().getMaxTextureAtlasResolution(), atlasCache);
         context.put(WorldAtlas.class, atlas);
 
         BlockManagerImpl blockManager;
@@ -45,6 +45,7 @@ public final class PathManager {
     private static final String MOD_DIR = "modules";
     private static final String SCREENSHOT_DIR = "screenshots";
     private static final String NATIVES_DIR = "natives";
+    private static final String CACHE_DIR = "cache";
 
     private static PathManager instance;
     private Path installPath;
@@ -57,6 +58,7 @@ public final class PathManager {
     private ImmutableList<Path> modPaths = ImmutableList.of();
     private Path screenshotPath;
     private Path nativesPath;
+    private Path cachePath;
 
     private PathManager() {
         // By default, the path should be the code location (where terasology.jar is)
@@ -190,6 +192,14 @@ public Path getNativesPath() {
         return nativesPath;
     }
 
+    /**
+     * @return The directory for data derived from assets that is kept between runs to speed up loading. Everything
+     * in it may be deleted at any time.
+     */
+    public Path getCachePath() {
+        return cachePath;
+    }
+
     private void updateDirs() throws IOException {
         Files.createDirectories(homePath);
         savesPath = homePath.resolve(SAVED_GAMES_DIR);
@@ -210,6 +220,8 @@ private void updateDirs() throws IOException {
         screenshotPath = homePath.resolve(SCREENSHOT_DIR);
         Files.createDirectories(screenshotPath);
         nativesPath = installPath.resolve(NATIVES_DIR);
+        cachePath = homePath.resolve(CACHE_DIR);
+        Files.createDirectories(cachePath);
         if (currentWorldPath == null) {
             currentWorldPath = homePath;
         }
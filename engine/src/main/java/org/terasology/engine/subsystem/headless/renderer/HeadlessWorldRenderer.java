@@ -39,7 +39,7 @@
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.Queue;
 
 public class HeadlessWorldRenderer implements WorldRenderer {
 
@@ -86,7 +86,7 @@ public boolean isFirstRenderingStageForCurrentFrame() {
     }
 
     @Override
-    public void renderChunks(PriorityQueue<RenderableChunk> chunks, ChunkMesh.RenderPhase phase, Camera camera, WorldRendererImpl.ChunkRenderMode mode) {
+    public void renderChunks(Queue<RenderableChunk> chunks, ChunkMesh.RenderPhase phase, Camera camera, WorldRendererImpl.ChunkRenderMode mode) {
 
     }
 
@@ -36,6 +36,7 @@
 import org.terasology.engine.GameEngine;
 import org.terasology.engine.GameThread;
 import org.terasology.engine.modes.GameState;
+import org.terasology.engine.paths.PathManager;
 import org.terasology.engine.subsystem.DisplayDevice;
 import org.terasology.engine.subsystem.RenderingSubsystemFactory;
 import org.terasology.rendering.ShaderManager;
@@ -69,6 +70,7 @@
 import org.terasology.rendering.opengl.OpenGLMesh;
 import org.terasology.rendering.opengl.OpenGLSkeletalMesh;
 import org.terasology.rendering.opengl.OpenGLTexture;
+import org.terasology.rendering.opengl.ShaderProgramCache;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
@@ -96,6 +98,8 @@
 public class LwjglGraphics extends BaseLwjglSubsystem {
     private static final Logger logger = LoggerFactory.getLogger(LwjglGraphics.class);
 
+    private static final String SHADER_CACHE_DIR = "shaders";
+
     private GLBufferPool bufferPool = new GLBufferPool(false);
 
     private BlockingDeque<Runnable> displayThreadActions = Queues.newLinkedBlockingDeque();
@@ -271,6 +275,14 @@ private void initOpenGL(Context currentContext) {
         checkOpenGL();
         glViewport(0, 0, Display.getWidth(), Display.getHeight());
         initOpenGLParams();
+        if (ShaderProgramCache.isSupported()) {
+            ShaderProgramCache programCache = new ShaderProgramCache(PathManager.getInstance().getCachePath().resolve(SHADER_CACHE_DIR),
+                    ShaderProgramCache.getDriverString());
+            programCache.trim();
+            currentContext.put(ShaderProgramCache.class, programCache);
+        } else {
+            logger.info("Shader program binaries are not supported, shaders are compiled at every start");
+        }
         currentContext.put(ShaderManager.class, new ShaderManagerLwjgl());
     }
 
@@ -109,7 +109,7 @@ public void update(float delta) {
         }
 
 
-        HitResult hitInfo = physics.rayTrace(new Vector3f(localPlayer.getViewPosition()),
+        HitResult hitInfo = physics.voxelRayTrace(new Vector3f(localPlayer.getViewPosition()),
                 new Vector3f(localPlayer.getViewDirection()), targetDistance, filter);
         updateFocalDistance(hitInfo, delta);
         Vector3i newBlockPos = null;
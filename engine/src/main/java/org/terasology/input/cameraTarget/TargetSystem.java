@@ -66,7 +66,7 @@ public boolean updateTarget(Vector3f pos, Vector3f dir, float maxDist) {
             target = blockRegistry.getEntityAt(targetBlockPos);
         }
 
-        HitResult hitInfo = physics.rayTrace(pos, dir, maxDist, filter);
+        HitResult hitInfo = physics.voxelRayTrace(pos, dir, maxDist, filter);
         EntityRef newTarget = hitInfo.getEntity();
 
         if (hitInfo.isWorldHit()) {
@@ -23,12 +23,14 @@
 import org.terasology.entitySystem.systems.RegisterMode;
 import org.terasology.entitySystem.systems.RegisterSystem;
 import org.terasology.entitySystem.systems.UpdateSubscriberSystem;
+import org.terasology.logic.characters.CharacterComponent;
 import org.terasology.logic.characters.CharacterMoveInputEvent;
 import org.terasology.logic.characters.CharacterMovementComponent;
 import org.terasology.logic.characters.events.HorizontalCollisionEvent;
 import org.terasology.logic.location.LocationComponent;
-import org.terasology.logic.players.LocalPlayer;
+import org.terasology.logic.location.SpatialIndex;
 import org.terasology.math.geom.Vector3f;
+import org.terasology.network.ClientComponent;
 import org.terasology.registry.In;
 import org.terasology.utilities.random.FastRandom;
 import org.terasology.utilities.random.Random;
@@ -39,6 +41,11 @@
 @RegisterSystem(RegisterMode.AUTHORITY)
 public class SimpleAISystem extends BaseComponentSystem implements UpdateSubscriberSystem {
 
+    /**
+     * Players within this distance, but not too close, are followed.
+     */
+    private static final float PLAYER_SENSE_RANGE = 4;
+
     @In
     private WorldProvider worldProvider;
     @In
@@ -47,7 +54,7 @@ public class SimpleAISystem extends BaseComponentSystem implements UpdateSubscri
     @In
     private Time time;
     @In
-    private LocalPlayer localPlayer;
+    private SpatialIndex spatialIndex;
 
     @Override
     public void update(float delta) {
@@ -62,40 +69,66 @@ public void update(float delta) {
             SimpleAIComponent ai = entity.getComponent(SimpleAIComponent.class);
 
             Vector3f drive = new Vector3f();
-            // TODO: shouldn't use local player, need some way to find nearest player
-            if (localPlayer != null) {
+            Vector3f playerPos = findNearestPlayerPosition(worldPos);
+            double distanceToPlayer = Double.POSITIVE_INFINITY;
+            if (playerPos != null) {
                 Vector3f dist = new Vector3f(worldPos);
-                dist.sub(localPlayer.getPosition());
-                double distanceToPlayer = dist.lengthSquared();
+                dist.sub(playerPos);
+                distanceToPlayer = dist.lengthSquared();
+            }
 
-                if (distanceToPlayer > 6 && distanceToPlayer < 16) {
-                    // Head to player
-                    ai.movementTarget.set(localPlayer.getPosition());
-                    ai.followingPlayer = true;
+            if (distanceToPlayer > 6 && distanceToPlayer < 16) {
+                // Head to player
+                ai.movementTarget.set(playerPos);
+                ai.followingPlayer = true;
+                entity.saveComponent(ai);
+            } else {
+                // Random walk
+                if (time.getGameTimeInMs() - ai.lastChangeOfDirectionAt > 12000 || ai.followingPlayer) {
+                    ai.movementTarget.set(worldPos.x + random.nextFloat(-500.0f, 500.0f), worldPos.y, worldPos.z + random.nextFloat(-500.0f, 500.0f));
+                    ai.lastChangeOfDirectionAt = time.getGameTimeInMs();
+                    ai.followingPlayer = false;
                     entity.saveComponent(ai);
-                } else {
-                    // Random walk
-                    if (time.getGameTimeInMs() - ai.lastChangeOfDirectionAt > 12000 || ai.followingPlayer) {
-                        ai.movementTarget.set(worldPos.x + random.nextFloat(-500.0f, 500.0f), worldPos.y, worldPos.z + random.nextFloat(-500.0f, 500.0f));
-                        ai.lastChangeOfDirectionAt = time.getGameTimeInMs();
-                        ai.followingPlayer = false;
-                        entity.saveComponent(ai);
-                    }
                 }
+            }
 
-                Vector3f targetDirection = new Vector3f();
-                targetDirection.sub(ai.movementTarget, worldPos);
-                targetDirection.normalize();
-                drive.set(targetDirection);
+            Vector3f targetDirection = new Vector3f();
+            targetDirection.sub(ai.movementTarget, worldPos);
+            targetDirection.normalize();
+            drive.set(targetDirection);
 
-                float yaw = (float) Math.atan2(targetDirection.x, targetDirection.z);
-                location.getLocalRotation().set(new Vector3f(0, 1, 0), yaw);
-                entity.saveComponent(location);
-            }
+            float yaw = (float) Math.atan2(targetDirection.x, targetDirection.z);
+            location.getLocalRotation().set(new Vector3f(0, 1, 0), yaw);
+            entity.saveComponent(location);
             entity.send(new CharacterMoveInputEvent(0, 0, 0, drive, false, false, time.getGameDeltaInMs()));
         }
     }
 
+    /**
+     * @return The world position of the nearest character controlled by a client within {@link #PLAYER_SENSE_RANGE}
+     * of the position, or null if there is none
+     */
+    private Vector3f findNearestPlayerPosition(Vector3f position) {
+        Vector3f nearest = null;
+        float nearestDistance = Float.POSITIVE_INFINITY;
+        for (EntityRef character : spatialIndex.getEntitiesInRadius(position, PLAYER_SENSE_RANGE, CharacterComponent.class)) {
+            CharacterComponent characterComponent = character.getComponent(CharacterComponent.class);
+            LocationComponent characterLocation = character.getComponent(LocationComponent.class);
+            if (characterComponent == null || characterLocation == null || !characterComponent.controller.hasComponent(ClientComponent.class)) {
+                continue;
+            }
+            Vector3f characterPos = characterLocation.getWorldPosition();
+            Vector3f dist = new Vector3f(characterPos);
+            dist.sub(position);
+            float distance = dist.lengthSquared();
+            if (distance < nearestDistance) {
+                nearest = characterPos;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+
     @ReceiveEvent(components = {SimpleAIComponent.class})
     public void onBump(HorizontalCollisionEvent event, EntityRef entity) {
         CharacterMovementComponent moveComp = entity.getComponent(CharacterMovementComponent.class);
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.behavior;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.terasology.logic.behavior.tree.Actor;
+import org.terasology.logic.behavior.tree.Interpreter;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.monitoring.RollingHistogram;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Spreads the ticks of behavior tree interpreters across frames.
+ * <br><br>
+ * Each interpreter is ticked at an interval that depends on the distance of its actor to the nearest viewer: actors
+ * near a viewer are ticked every frame, far away actors only every few frames. The time that passed while an
+ * interpreter was waiting is handed to it on its next tick, so timers keep running at the same speed.
+ * <br><br>
+ * In addition, the interpreters ticked in one frame may use up a time budget. Once it is spent, the remaining
+ * interpreters stay due and are ticked first in the next frame. At least one interpreter is ticked per frame, so
+ * every interpreter is eventually ticked however small the budget is.
+ */
+public class BehaviorScheduler {
+    /**
+     * The squared distances up to which actors are ticked every 1, 2 or 4 frames. Actors further away are ticked
+     * every {@link #MAX_TICK_INTERVAL} frames.
+     */
+    private static final float[] LOD_DISTANCES_SQUARED = {32 * 32, 64 * 64, 128 * 128};
+    private static final int MAX_TICK_INTERVAL = 8;
+    private static final int METRICS_WINDOW = 300;
+
+    private final LongSupplier nanoClock;
+    private long budgetNanos;
+
+    private final List<Entry> entries = Lists.newArrayList();
+    private final Map<Interpreter, Entry> entryLookup = Maps.newHashMap();
+    private int cursor;
+    private boolean updating;
+    private boolean entriesRemoved;
+
+    private final Vector3f actorPosition = new Vector3f();
+    private final RollingHistogram tickedPerFrame = new RollingHistogram(METRICS_WINDOW);
+    private final RollingHistogram skippedPerFrame = new RollingHistogram(METRICS_WINDOW);
+
+    /**
+     * @param budgetMs the time interpreters may be ticked for each frame, in milliseconds. 0 or less for no limit.
+     */
+    public BehaviorScheduler(float budgetMs) {
+        this(budgetMs, System::nanoTime);
+    }
+
+    BehaviorScheduler(float budgetMs, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        setBudget(budgetMs);
+    }
+
+    /**
+     * @param budgetMs the time interpreters may be ticked for each frame, in milliseconds. 0 or less for no limit.
+     */
+    public void setBudget(float budgetMs) {
+        this.budgetNanos = budgetMs > 0 ? (long) (budgetMs * 1000000) : Long.MAX_VALUE;
+    }
+
+    public void add(Interpreter interpreter) {
+        if (!entryLookup.containsKey(interpreter)) {
+            Entry entry = new Entry(interpreter);
+            entries.add(entry);
+            entryLookup.put(interpreter, entry);
+        }
+    }
+
+    public void remove(Interpreter interpreter) {
+        Entry entry = entryLookup.remove(interpreter);
+        if (entry != null) {
+            if (updating) {
+                // removed from the list once the current update is done
+                entry.removed = true;
+                entriesRemoved = true;
+            } else {
+                removeEntry(entry);
+            }
+        }
+    }
+
+    public void clear() {
+        entryLookup.clear();
+        if (updating) {
+            entries.forEach(entry -> entry.removed = true);
+            entriesRemoved = true;
+        } else {
+            entries.clear();
+            cursor = 0;
+        }
+    }
+
+    public int size() {
+        return entryLookup.size();
+    }
+
+    /**
+     * Ticks the interpreters that are due, starting with those that were left over from the last frame.
+     *
+     * @param delta   the seconds since the last update
+     * @param viewers the positions actors are near to, if they should be ticked every frame
+     */
+    public void update(float delta, List<Vector3f> viewers) {
+        int ticked = 0;
+        int skipped = 0;
+        int count = entries.size();
+        int nextCursor = cursor;
+        boolean budgetSpent = false;
+        long start = nanoClock.getAsLong();
+        updating = true;
+        try {
+            for (int i = 0; i < count; i++) {
+                int index = (cursor + i) % count;
+                Entry entry = entries.get(index);
+                if (entry.removed) {
+                    continue;
+                }
+                entry.pendingDelta += delta;
+                entry.framesWaited++;
+                if (entry.framesWaited < entry.tickInterval) {
+                    skipped++;
+                    continue;
+                }
+                if (budgetSpent) {
+                    skipped++;
+                    continue;
+                }
+                entry.tickInterval = getTickInterval(entry.interpreter.actor(), viewers);
+                entry.interpreter.tick(entry.pendingDelta);
+                entry.pendingDelta = 0;
+                entry.framesWaited = 0;
+                ticked++;
+                if (nanoClock.getAsLong() - start >= budgetNanos) {
+                    budgetSpent = true;
+                    nextCursor = (index + 1) % count;
+                }
+            }
+        } finally {
+            updating = false;
+        }
+        cursor = nextCursor;
+        if (entriesRemoved) {
+            entriesRemoved = false;
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                if (entries.get(i).removed) {
+                    removeAt(i);
+                }
+            }
+        }
+        tickedPerFrame.record(ticked);
+        skippedPerFrame.record(skipped);
+    }
+
+    /**
+     * @return The number of interpreters ticked in each of the recent frames
+     */
+    public RollingHistogram getTickedPerFrame() {
+        return tickedPerFrame;
+    }
+
+    /**
+     * @return The number of interpreters that were not ticked in each of the recent frames, either because they are
+     * far away from all viewers or because the time budget was spent
+     */
+    public RollingHistogram getSkippedPerFrame() {
+        return skippedPerFrame;
+    }
+
+    private int getTickInterval(Actor actor, List<Vector3f> viewers) {
+        if (actor == null || viewers.isEmpty()) {
+            return 1;
+        }
+        LocationComponent location = actor.getComponent(LocationComponent.class);
+        if (location == null) {
+            return 1;
+        }
+        location.getWorldPosition(actorPosition);
+        float nearest = Float.MAX_VALUE;
+        for (Vector3f viewer : viewers) {
+            float dx = viewer.x - actorPosition.x;
+            float dy = viewer.y - actorPosition.y;
+            float dz = viewer.z - actorPosition.z;
+            nearest = Math.min(nearest, dx * dx + dy * dy + dz * dz);
+        }
+        return getTickInterval(nearest);
+    }
+
+    static int getTickInterval(float distanceSquared) {
+        int interval = 1;
+        for (float lodDistanceSquared : LOD_DISTANCES_SQUARED) {
+            if (distanceSquared <= lodDistanceSquared) {
+                return interval;
+            }
+            interval *= 2;
+        }
+        return MAX_TICK_INTERVAL;
+    }
+
+    private void removeEntry(Entry entry) {
+        int index = entries.indexOf(entry);
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    private void removeAt(int index) {
+        entries.remove(index);
+        if (index < cursor) {
+            cursor--;
+        }
+        if (cursor >= entries.size()) {
+            cursor = 0;
+        }
+    }
+
+    private static final class Entry {
+        private final Interpreter interpreter;
+        private float pendingDelta;
+        private int framesWaited;
+        private int tickInterval = 1;
+        private boolean removed;
+
+        private Entry(Interpreter interpreter) {
+            this.interpreter = interpreter;
+        }
+    }
+}
@@ -28,6 +28,7 @@
 import org.terasology.assets.ResourceUrn;
 import org.terasology.assets.management.AssetManager;
 import org.terasology.audio.StaticSound;
+import org.terasology.config.Config;
 import org.terasology.engine.paths.PathManager;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
@@ -45,7 +46,10 @@
 import org.terasology.logic.behavior.tree.Actor;
 import org.terasology.logic.behavior.tree.Interpreter;
 import org.terasology.logic.behavior.tree.Node;
+import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Vector3f;
 import org.terasology.naming.Name;
+import org.terasology.network.ClientComponent;
 import org.terasology.registry.In;
 import org.terasology.registry.Share;
 
@@ -59,6 +63,9 @@
  * is loaded and an interpreter is started.
  * <br><br>
  * Modifications made to a behavior tree will reflect to all entities using this tree.
+ * <br><br>
+ * The interpreters are ticked by a {@link BehaviorScheduler}, which ticks actors far away from all players less often
+ * and limits the time spent on behaviors in each frame.
  *
  */
 @RegisterSystem(RegisterMode.AUTHORITY)
@@ -72,12 +79,17 @@ public class BehaviorSystem extends BaseComponentSystem implements UpdateSubscri
     private PrefabManager prefabManager;
     @In
     private AssetManager assetManager;
+    @In
+    private Config config;
 
     private Map<EntityRef, Interpreter> entityInterpreters = Maps.newHashMap();
     private List<BehaviorTree> trees = Lists.newArrayList();
+    private BehaviorScheduler scheduler;
+    private List<Vector3f> viewers = Lists.newArrayList();
 
     @Override
     public void initialise() {
+        scheduler = new BehaviorScheduler(config.getSystem().getBehaviorTickBudget());
         List<ResourceUrn> uris = Lists.newArrayList();
         uris.addAll(assetManager.getAvailableAssets(StaticSound.class).stream().collect(Collectors.toList()));
         for (ResourceUrn uri : assetManager.getAvailableAssets(BehaviorTree.class)) {
@@ -97,15 +109,23 @@ public void onBehaviorActivated(OnActivatedComponent event, EntityRef entityRef,
     @ReceiveEvent
     public void onBehaviorDeactivated(BeforeDeactivateComponent event, EntityRef entityRef, BehaviorComponent behaviorComponent) {
         if (behaviorComponent.tree != null) {
-            entityInterpreters.remove(entityRef);
+            Interpreter interpreter = entityInterpreters.remove(entityRef);
+            if (interpreter != null) {
+                scheduler.remove(interpreter);
+            }
         }
     }
 
     @Override
     public void update(float delta) {
-        for (Interpreter interpreter : entityInterpreters.values()) {
-            interpreter.tick(delta);
-        }
+        scheduler.update(delta, gatherViewers());
+    }
+
+    /**
+     * @return The scheduler ticking the interpreters, which also provides the numbers of ticked and skipped actors
+     */
+    public BehaviorScheduler getScheduler() {
+        return scheduler;
     }
 
     public BehaviorTree createTree(String name, Node root) {
@@ -163,6 +183,21 @@ private void addEntity(EntityRef entityRef, BehaviorComponent behaviorComponent)
             if (tree != null) {
                 interpreter.start(tree.getRoot());
             }
+            scheduler.add(interpreter);
+        }
+    }
+
+    private List<Vector3f> gatherViewers() {
+        int viewerCount = 0;
+        for (EntityRef client : entityManager.getEntitiesWith(ClientComponent.class)) {
+            LocationComponent location = client.getComponent(ClientComponent.class).character.getComponent(LocationComponent.class);
+            if (location != null) {
+                if (viewerCount == viewers.size()) {
+                    viewers.add(new Vector3f());
+                }
+                location.getWorldPosition(viewers.get(viewerCount++));
+            }
         }
+        return viewers.subList(0, viewerCount);
     }
 }
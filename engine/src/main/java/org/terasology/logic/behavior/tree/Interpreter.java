@@ -17,10 +17,13 @@
 
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
 
 import org.terasology.entitySystem.prefab.Prefab;
@@ -28,16 +31,16 @@
 import org.terasology.module.sandbox.API;
 import org.terasology.registry.InjectionHelper;
 
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Queues;
-import com.google.common.collect.Sets;
 
 /**
  * An interpreter evaluates a behavior tree. This is done by creating tasks for an actor for the nodes of the BT.
  * If a task returns RUNNING, the task is placed to the active list and asked next tick again.
  * Finished nodes may create new tasks, which are placed to the active list.
  * <br><br>
+ * The bookkeeping of a tick is kept in reused array based collections, so ticking a tree that only updates running
+ * tasks does not allocate.
+ * <br><br>
  *
  */
 @API
@@ -57,10 +60,12 @@ public void handle(Status result) {
 
     private Debugger debugger;
     private Actor actor;
-    private Deque<Task> tasks = Queues.newLinkedBlockingDeque();
+    private Deque<Task> tasks = new ArrayDeque<>();
     private Node root;
-    private Set<Node> startedNodes = Sets.newHashSet();
+    private Set<Node> startedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
     private Map<Task, List<Task>> startedTasks = Maps.newHashMap();
+    private Deque<List<Task>> freeSubTaskLists = new ArrayDeque<>();
+    private Deque<Task> stoppingTasks = new ArrayDeque<>();
 
     public Interpreter(Actor actor) {
         this.actor = actor;
@@ -103,7 +108,7 @@ private Task start(final Task task, Task parent) {
         if (parent != null) {
             List<Task> subTasks = startedTasks.get(parent);
             if (subTasks == null) {
-                subTasks = Lists.newArrayList();
+                subTasks = freeSubTaskLists.isEmpty() ? new ArrayList<>() : freeSubTaskLists.pop();
                 startedTasks.put(parent, subTasks);
             }
             subTasks.add(task);
@@ -128,7 +133,8 @@ public void stop(Task task, Status result) {
     }
 
     private void stopStartedTasks(Task parent) {
-        Queue<Task> open = Queues.newArrayDeque();
+        // a terminating task may stop further tasks, which then need a queue of their own
+        Deque<Task> open = stoppingTasks.isEmpty() ? stoppingTasks : new ArrayDeque<>();
         open.offer(parent);
         while (!open.isEmpty()) {
             Task current = open.poll();
@@ -139,6 +145,8 @@ private void stopStartedTasks(Task parent) {
             List<Task> subTasks = startedTasks.remove(current);
             if (subTasks != null) {
                 open.addAll(subTasks);
+                subTasks.clear();
+                freeSubTaskLists.push(subTasks);
             }
         }
     }
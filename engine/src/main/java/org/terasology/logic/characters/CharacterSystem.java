@@ -73,6 +73,9 @@ public class CharacterSystem extends BaseComponentSystem implements UpdateSubscr
     @In
     private Time time;
 
+    private final Vector3f characterPosition = new Vector3f();
+    private final Vector3f targetPosition = new Vector3f();
+
     @ReceiveEvent(components = {CharacterComponent.class})
     public void onDeath(DoDestroyEvent event, EntityRef entity) {
         CharacterComponent character = entity.getComponent(CharacterComponent.class);
@@ -307,10 +310,10 @@ public void update(float delta) {
 
     private boolean isDistanceToLarge(LocationComponent characterLocation, LocationComponent targetLocation, float maxInteractionRange) {
         float maxInteractionRangeSquared = maxInteractionRange * maxInteractionRange;
-        Vector3f positionDelta = new Vector3f();
-        positionDelta.add(characterLocation.getWorldPosition());
-        positionDelta.sub(targetLocation.getWorldPosition());
-        float interactionRangeSquared = positionDelta.lengthSquared();
+        characterLocation.getWorldPosition(characterPosition);
+        targetLocation.getWorldPosition(targetPosition);
+        characterPosition.sub(targetPosition);
+        float interactionRangeSquared = characterPosition.lengthSquared();
         // add a small epsilon to have rounding mistakes be in favor of the player:
         float epsilon = 0.00001f;
         return interactionRangeSquared > maxInteractionRangeSquared + epsilon;
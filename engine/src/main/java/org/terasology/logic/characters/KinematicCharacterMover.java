@@ -15,9 +15,12 @@
  */
 package org.terasology.logic.characters;
 
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.event.Event;
 import org.terasology.logic.characters.events.FootstepEvent;
 import org.terasology.logic.characters.events.HorizontalCollisionEvent;
 import org.terasology.logic.characters.events.JumpEvent;
@@ -38,6 +41,7 @@
 import org.terasology.world.block.Block;
 
 import java.math.RoundingMode;
+import java.util.List;
 
 /**
  * Calculates character movement using a physics-engine provided CharacterCollider.
@@ -51,6 +55,10 @@
  * <li>Finally sweep downwards to undo any stepping, and for falling</li>
  * </ol>
  * <br><br>
+ * Steps are normally calculated on the main thread, querying and notifying the character through events as they go.
+ * {@link #prepareStep} instead resolves those queries up front and holds the notifications back, so that the steps of
+ * many characters can be calculated on other threads at once.
+ * <br><br>
  * TODO: Refactor to allow additional movement modes.
  * TODO: Detect entry and exit from water while ghosting.
  *
@@ -82,10 +90,7 @@ public class KinematicCharacterMover implements CharacterMover {
     private static final float CHECK_FORWARD_DIST = 0.05f;
 
     private static final Logger logger = LoggerFactory.getLogger(KinematicCharacterMover.class);
-    private boolean stepped;
 
-    // Processing state variables
-    private float steppedUpDist;
     private WorldProvider worldProvider;
     private PhysicsEngine physics;
 
@@ -96,21 +101,38 @@ public KinematicCharacterMover(WorldProvider wp, PhysicsEngine physicsEngine) {
 
     @Override
     public CharacterStateEvent step(CharacterStateEvent initial, CharacterMoveInputEvent input, EntityRef entity) {
-        CharacterMovementComponent characterMovementComponent = entity.getComponent(CharacterMovementComponent.class);
+        return step(initial, input, new StepContext(entity));
+    }
+
+    /**
+     * Prepares a step that can be calculated on any thread. Must be called on the main thread, and the world and the
+     * physics engine must not change until the step has been run.
+     *
+     * @param initial The initial state to start from
+     * @param input   The input driving the movement change
+     * @param entity  The character
+     * @return The step, to be run and then completed on the main thread
+     */
+    public DeferredStep prepareStep(CharacterStateEvent initial, CharacterMoveInputEvent input, EntityRef entity) {
+        return new DeferredStep(initial, input, new StepContext(entity, initial, input));
+    }
+
+    private CharacterStateEvent step(CharacterStateEvent initial, CharacterMoveInputEvent input, StepContext context) {
+        CharacterMovementComponent characterMovementComponent = context.movementComp;
         CharacterStateEvent result = new CharacterStateEvent(initial);
         result.setSequenceNumber(input.getSequenceNumber());
         if (worldProvider.isBlockRelevant(initial.getPosition())) {
-            updatePosition(characterMovementComponent, result, input, entity);
+            updatePosition(characterMovementComponent, result, input, context);
 
             if (input.isFirstRun()) {
-                checkBlockEntry(entity,
+                checkBlockEntry(context,
                         new Vector3i(initial.getPosition(), RoundingMode.HALF_UP),
                         new Vector3i(result.getPosition(), RoundingMode.HALF_UP),
                         characterMovementComponent.height);
             }
 
             if (result.getMode() != MovementMode.GHOSTING && result.getMode() != MovementMode.NONE) {
-                checkMode(characterMovementComponent, result, initial, entity, input.isFirstRun());
+                checkMode(characterMovementComponent, result, initial, context.entity, input.isFirstRun());
             }
         }
         result.setTime(initial.getTime() + input.getDeltaMs());
@@ -121,16 +143,30 @@ public CharacterStateEvent step(CharacterStateEvent initial, CharacterMoveInputE
         return result;
     }
 
-    private float getMaxSpeed(EntityRef character, CharacterMovementComponent characterMovement) {
+    private static float getMaxSpeed(EntityRef character, CharacterMovementComponent characterMovement) {
         GetMaxSpeedEvent speedEvent = new GetMaxSpeedEvent(characterMovement.mode.maxSpeed, characterMovement.mode);
         character.send(speedEvent);
         return Math.max(0, speedEvent.getResultValue());
     }
 
+    private static float getJumpSpeed(EntityRef character, CharacterMovementComponent characterMovement) {
+        // Send event to allow for other systems to modify the jump force.
+        AffectJumpForceEvent affectJumpForceEvent = new AffectJumpForceEvent(characterMovement.jumpSpeed);
+        character.send(affectJumpForceEvent);
+        return affectJumpForceEvent.getResultValue();
+    }
+
+    private static int getNumberOfJumpsMax(EntityRef character, CharacterMovementComponent characterMovement) {
+        // Send event to allow for other systems to modify the max number of jumps.
+        AffectMultiJumpEvent affectMultiJumpEvent = new AffectMultiJumpEvent(characterMovement.baseNumberOfJumpsMax);
+        character.send(affectMultiJumpEvent);
+        return (int) affectMultiJumpEvent.getResultValue();
+    }
+
     /*
     * Figure out if our position has put us into a new set of blocks and fire the appropriate events.
     */
-    private void checkBlockEntry(EntityRef entity, Vector3i oldPosition, Vector3i newPosition, float characterHeight) {
+    private void checkBlockEntry(StepContext context, Vector3i oldPosition, Vector3i newPosition, float characterHeight) {
         // TODO: This will only work for tall mobs/players and single block mobs
         // is this a different position than previously
         if (!oldPosition.equals(newPosition)) {
@@ -152,7 +188,7 @@ private void checkBlockEntry(EntityRef entity, Vector3i oldPosition, Vector3i ne
 
             for (int i = 0; i < characterHeight; i++) {
                 // send a block enter/leave event for this character
-                entity.send(new OnEnterBlockEvent(oldBlocks[i], newBlocks[i], new Vector3i(0, i, 0)));
+                context.send(new OnEnterBlockEvent(oldBlocks[i], newBlocks[i], new Vector3i(0, i, 0)));
             }
         }
     }
@@ -294,14 +330,14 @@ private boolean isClimbingAllowed(boolean swimming, boolean diving) {
      * @return
      */
     private boolean checkStep(CharacterCollider collider, Vector3f position, Vector3f direction, SweepCallback callback,
-                              float slopeFactor, float stepHeight) {
-        if (!stepped) {
-            stepped = true;
+                              float slopeFactor, float stepHeight, StepContext context) {
+        if (!context.stepped) {
+            context.stepped = true;
 
             boolean moveUpStep = callback.checkForStep(direction, stepHeight, slopeFactor, CHECK_FORWARD_DIST);
 
             if (moveUpStep) {
-                steppedUpDist = moveUp(stepHeight, collider, position);
+                context.steppedUpDist = moveUp(stepHeight, collider, position);
                 return true;
             }
         }
@@ -328,20 +364,31 @@ private Vector3f extractResidualMovement(Vector3f hitNormal, Vector3f direction,
         return direction;
     }
 
-    private void followToParent(final CharacterStateEvent state, EntityRef entity) {
-        LocationComponent locationComponent = entity.getComponent(LocationComponent.class);
-        if (!locationComponent.getParent().equals(EntityRef.NULL)) {
-            Vector3f velocity = new Vector3f(locationComponent.getWorldPosition());
+    private void followToParent(final CharacterStateEvent state, StepContext context) {
+        Vector3f parentedPosition = context.getParentedPosition();
+        if (parentedPosition != null) {
+            Vector3f velocity = new Vector3f(parentedPosition);
             velocity.sub(state.getPosition());
             state.getVelocity().set(velocity);
-            state.getPosition().set(locationComponent.getWorldPosition());
+            state.getPosition().set(parentedPosition);
+        }
+    }
+
+    /**
+     * @return The world position of a character attached to a parent, or null if it has none
+     */
+    private static Vector3f findParentedPosition(EntityRef entity) {
+        LocationComponent locationComponent = entity.getComponent(LocationComponent.class);
+        if (!locationComponent.getParent().equals(EntityRef.NULL)) {
+            return locationComponent.getWorldPosition();
         }
+        return null;
     }
 
     private MoveResult move(final Vector3f startPosition, final Vector3f moveDelta, final float stepHeight,
-                            final float slopeFactor, final CharacterCollider collider) {
-        steppedUpDist = 0;
-        stepped = false;
+                            final float slopeFactor, final CharacterCollider collider, StepContext context) {
+        context.steppedUpDist = 0;
+        context.stepped = false;
         Vector3f position = new Vector3f(startPosition);
         boolean hitTop = false;
         boolean hitBottom = false;
@@ -351,10 +398,10 @@ private MoveResult move(final Vector3f startPosition, final Vector3f moveDelta,
         if (moveDelta.y > 0) {
             hitTop = moveDelta.y - moveUp(moveDelta.y, collider, position) > physics.getEpsilon();
         }
-        hitSide = moveHorizontal(new Vector3f(moveDelta.x, 0, moveDelta.z), collider, position, slopeFactor, stepHeight);
-        if (moveDelta.y < 0 || steppedUpDist > 0) {
+        hitSide = moveHorizontal(new Vector3f(moveDelta.x, 0, moveDelta.z), collider, position, slopeFactor, stepHeight, context);
+        if (moveDelta.y < 0 || context.steppedUpDist > 0) {
             float dist = (moveDelta.y < 0) ? moveDelta.y : 0;
-            dist -= steppedUpDist;
+            dist -= context.steppedUpDist;
             hitBottom = moveDown(dist, slopeFactor, collider, position);
         }
         if (!hitBottom && stepHeight > 0) {
@@ -442,7 +489,7 @@ private boolean moveDown(float dist, float slopeFactor, CharacterCollider collid
     }
 
     private boolean moveHorizontal(Vector3f horizMove, CharacterCollider collider, Vector3f position, float slopeFactor,
-                                   float stepHeight) {
+                                   float stepHeight, StepContext context) {
         float remainingFraction = 1.0f;
         float dist = horizMove.length();
         if (dist < physics.getEpsilon()) {
@@ -487,7 +534,7 @@ private boolean moveHorizontal(Vector3f horizMove, CharacterCollider collider, V
                 // We step up if we're hitting a big slope, or if we're grazing
                 // the ground, otherwise we move up a shallow slope.
                 if (slope < slopeFactor || 1 - slope < physics.getEpsilon()) {
-                    boolean stepping = checkStep(collider, position, newDir, callback, slopeFactor, stepHeight);
+                    boolean stepping = checkStep(collider, position, newDir, callback, slopeFactor, stepHeight, context);
                     if (!stepping) {
                         horizontalHit = true;
                         Vector3f newHorizDir = new Vector3f(newDir.x, 0, newDir.z);
@@ -550,13 +597,13 @@ private float moveUp(float riseAmount, CharacterCollider collider, Vector3f posi
     }
 
     private void updatePosition(final CharacterMovementComponent movementComp, final CharacterStateEvent state,
-                                CharacterMoveInputEvent input, EntityRef entity) {
+                                CharacterMoveInputEvent input, StepContext context) {
         switch (state.getMode()) {
             case NONE:
-                followToParent(state, entity);
+                followToParent(state, context);
                 break;
             default:
-                walk(movementComp, state, input, entity);
+                walk(movementComp, state, input, context);
                 break;
         }
     }
@@ -573,7 +620,7 @@ private void updateRotation(CharacterMovementComponent movementComp, CharacterSt
     }
 
     private void walk(final CharacterMovementComponent movementComp, final CharacterStateEvent state,
-                      CharacterMoveInputEvent input, EntityRef entity) {
+                      CharacterMoveInputEvent input, StepContext context) {
         Vector3f desiredVelocity = new Vector3f(input.getMovementDirection());
 
         float lengthSquared = desiredVelocity.lengthSquared();
@@ -585,7 +632,7 @@ private void walk(final CharacterMovementComponent movementComp, final Character
         }
         desiredVelocity.scale(movementComp.speedMultiplier);
 
-        float maxSpeed = getMaxSpeed(entity, movementComp);
+        float maxSpeed = context.getMaxSpeed();
         if (input.isRunning()) {
             maxSpeed *= movementComp.runFactor;
         }
@@ -622,20 +669,20 @@ private void walk(final CharacterMovementComponent movementComp, final Character
         }
         Vector3f moveDelta = new Vector3f(endVelocity);
         moveDelta.scale(input.getDelta());
-        CharacterCollider collider = movementComp.mode.useCollision ? physics.getCharacterCollider(entity) : null;
+        CharacterCollider collider = movementComp.mode.useCollision ? context.getCollider() : null;
         MoveResult moveResult = move(state.getPosition(), moveDelta,
                 (state.getMode() != MovementMode.CLIMBING && state.isGrounded() && movementComp.mode.canBeGrounded) ? movementComp.stepHeight : 0,
-                movementComp.slopeFactor, collider);
+                movementComp.slopeFactor, collider, context);
         Vector3f distanceMoved = new Vector3f(moveResult.getFinalPosition());
         distanceMoved.sub(state.getPosition());
         state.getPosition().set(moveResult.getFinalPosition());
         if (input.isFirstRun() && distanceMoved.length() > 0) {
-            entity.send(new MovedEvent(distanceMoved, state.getPosition()));
+            context.send(new MovedEvent(distanceMoved, state.getPosition()));
         }
 
         // Upon hitting solid ground, reset the number of jumps back to the maximum value.
         if (state.isGrounded()) {
-            movementComp.numberOfJumpsLeft = movementComp.numberOfJumpsMax;
+            context.resetJumps();
         }
 
         if (moveResult.isBottomHit()) {
@@ -644,10 +691,10 @@ private void walk(final CharacterMovementComponent movementComp, final Character
                     Vector3f landVelocity = new Vector3f(state.getVelocity());
                     landVelocity.y += (distanceMoved.y / moveDelta.y) * (endVelocity.y - state.getVelocity().y);
                     logger.debug("Landed at " + landVelocity);
-                    entity.send(new VerticalCollisionEvent(state.getPosition(), landVelocity));
+                    context.send(new VerticalCollisionEvent(state.getPosition(), landVelocity));
                 }
                 state.setGrounded(true);
-                movementComp.numberOfJumpsLeft = movementComp.numberOfJumpsMax;
+                context.resetJumps();
             }
             endVelocity.y = 0;
 
@@ -656,20 +703,11 @@ private void walk(final CharacterMovementComponent movementComp, final Character
 
                 state.setGrounded(false);
 
-                // Send event to allow for other systems to modify the jump force.
-                AffectJumpForceEvent affectJumpForceEvent = new AffectJumpForceEvent(movementComp.jumpSpeed);
-                entity.send(affectJumpForceEvent);
-                endVelocity.y += affectJumpForceEvent.getResultValue();
+                endVelocity.y += context.getJumpSpeed();
                 if (input.isFirstRun()) {
-                    entity.send(new JumpEvent());
+                    context.send(new JumpEvent());
                 }
-
-                // Send event to allow for other systems to modify the max number of jumps.
-                AffectMultiJumpEvent affectMultiJumpEvent = new AffectMultiJumpEvent(movementComp.baseNumberOfJumpsMax);
-                entity.send(affectMultiJumpEvent);
-                movementComp.numberOfJumpsMax = (int) affectMultiJumpEvent.getResultValue();
-
-                movementComp.numberOfJumpsLeft--;
+                context.useJump();
             }
         }
         else {
@@ -678,30 +716,21 @@ private void walk(final CharacterMovementComponent movementComp, final Character
             }
 
             // Jump again in mid-air only if a jump was requested and there are jumps remaining.
-            if (input.isJumpRequested() && movementComp.numberOfJumpsLeft > 0) {
+            if (input.isJumpRequested() && context.getNumberOfJumpsLeft() > 0) {
                 state.setGrounded(false);
 
-                // Send event to allow for other systems to modify the jump force.
-                AffectJumpForceEvent affectJumpForceEvent = new AffectJumpForceEvent(movementComp.jumpSpeed);
-                entity.send(affectJumpForceEvent);
-                endVelocity.y += affectJumpForceEvent.getResultValue();
+                endVelocity.y += context.getJumpSpeed();
                 if (input.isFirstRun()) {
-                    entity.send(new JumpEvent());
+                    context.send(new JumpEvent());
                 }
-
-                // Send event to allow for other systems to modify the max number of jumps.
-                AffectMultiJumpEvent affectMultiJumpEvent = new AffectMultiJumpEvent(movementComp.baseNumberOfJumpsMax);
-                entity.send(affectMultiJumpEvent);
-                movementComp.numberOfJumpsMax = (int) affectMultiJumpEvent.getResultValue();
-
-                movementComp.numberOfJumpsLeft--;
+                context.useJump();
             }
 
             state.setGrounded(false);
         }
         state.getVelocity().set(endVelocity);
         if (input.isFirstRun() && moveResult.isHorizontalHit()) {
-            entity.send(new HorizontalCollisionEvent(state.getPosition(), state.getVelocity()));
+            context.send(new HorizontalCollisionEvent(state.getPosition(), state.getVelocity()));
         }
         if (state.isGrounded() || movementComp.mode == MovementMode.SWIMMING || movementComp.mode == MovementMode.DIVING) {
             state.setFootstepDelta(
@@ -711,11 +740,11 @@ private void walk(final CharacterMovementComponent movementComp, final Character
                 if (input.isFirstRun()) {
                     switch (movementComp.mode) {
                         case WALKING:
-                            entity.send(new FootstepEvent());
+                            context.send(new FootstepEvent());
                             break;
                         case DIVING:
                         case SWIMMING:
-                            entity.send(new SwimStrokeEvent(worldProvider.getBlock(state.getPosition())));
+                            context.send(new SwimStrokeEvent(worldProvider.getBlock(state.getPosition())));
                             break;
                         case CLIMBING:
                         case FLYING:
@@ -792,6 +821,167 @@ private void climb(final CharacterStateEvent state, CharacterMoveInputEvent inpu
         }
     }
 
+    /**
+     * A step prepared by {@link #prepareStep}. The steps of different characters may be run concurrently; the state
+     * and the events of a step only take effect once it is completed on the main thread.
+     */
+    public final class DeferredStep {
+
+        private final CharacterStateEvent initial;
+        private final CharacterMoveInputEvent input;
+        private final StepContext context;
+        private CharacterStateEvent result;
+
+        private DeferredStep(CharacterStateEvent initial, CharacterMoveInputEvent input, StepContext context) {
+            this.initial = initial;
+            this.input = input;
+            this.context = context;
+        }
+
+        public EntityRef getEntity() {
+            return context.entity;
+        }
+
+        public CharacterMoveInputEvent getInput() {
+            return input;
+        }
+
+        /**
+         * Calculates the movement of the character. May be called from any thread.
+         */
+        public void run() {
+            result = step(initial, input, context);
+        }
+
+        public boolean hasRun() {
+            return result != null;
+        }
+
+        /**
+         * Applies the changes the step made to the character's jump count and sends it the events produced by the
+         * step. Must be called on the main thread.
+         *
+         * @return The new state of the character
+         */
+        public CharacterStateEvent complete() {
+            Preconditions.checkState(result != null, "Step of %s has not been run", context.entity);
+            context.movementComp.numberOfJumpsLeft = context.numberOfJumpsLeft;
+            context.movementComp.numberOfJumpsMax = context.currentNumberOfJumpsMax;
+            for (Event event : context.deferredEvents) {
+                context.entity.send(event);
+            }
+            context.deferredEvents.clear();
+            return result;
+        }
+    }
+
+    /**
+     * What a single step needs from the character's entity, and what it tells the entity. An immediate step asks the
+     * entity as it goes and sends its events right away. A deferred step asks everything it may need while being
+     * prepared, and keeps its events and its changes to the character's jump count until it is completed.
+     */
+    private final class StepContext {
+
+        private final EntityRef entity;
+        private final CharacterMovementComponent movementComp;
+        private final List<Event> deferredEvents;
+
+        private CharacterCollider collider;
+        private Vector3f parentedPosition;
+        private float maxSpeed;
+        private float jumpSpeed;
+        private int numberOfJumpsMax;
+        private int numberOfJumpsLeft;
+        private int currentNumberOfJumpsMax;
+
+        // Processing state variables
+        private boolean stepped;
+        private float steppedUpDist;
+
+        private StepContext(EntityRef entity) {
+            this.entity = entity;
+            this.movementComp = entity.getComponent(CharacterMovementComponent.class);
+            this.deferredEvents = null;
+        }
+
+        private StepContext(EntityRef entity, CharacterStateEvent initial, CharacterMoveInputEvent input) {
+            this.entity = entity;
+            this.movementComp = entity.getComponent(CharacterMovementComponent.class);
+            this.deferredEvents = Lists.newArrayList();
+            this.numberOfJumpsLeft = movementComp.numberOfJumpsLeft;
+            this.currentNumberOfJumpsMax = movementComp.numberOfJumpsMax;
+            if (!worldProvider.isBlockRelevant(initial.getPosition())) {
+                return;
+            }
+            if (initial.getMode() == MovementMode.NONE) {
+                parentedPosition = findParentedPosition(entity);
+            } else {
+                if (movementComp.mode.useCollision) {
+                    collider = physics.getCharacterCollider(entity);
+                }
+                maxSpeed = KinematicCharacterMover.getMaxSpeed(entity, movementComp);
+                if (input.isJumpRequested()) {
+                    jumpSpeed = KinematicCharacterMover.getJumpSpeed(entity, movementComp);
+                    numberOfJumpsMax = KinematicCharacterMover.getNumberOfJumpsMax(entity, movementComp);
+                }
+            }
+        }
+
+        private boolean isDeferred() {
+            return deferredEvents != null;
+        }
+
+        private void send(Event event) {
+            if (isDeferred()) {
+                deferredEvents.add(event);
+            } else {
+                entity.send(event);
+            }
+        }
+
+        private CharacterCollider getCollider() {
+            return isDeferred() ? collider : physics.getCharacterCollider(entity);
+        }
+
+        private Vector3f getParentedPosition() {
+            return isDeferred() ? parentedPosition : findParentedPosition(entity);
+        }
+
+        private float getMaxSpeed() {
+            return isDeferred() ? maxSpeed : KinematicCharacterMover.getMaxSpeed(entity, movementComp);
+        }
+
+        private float getJumpSpeed() {
+            return isDeferred() ? jumpSpeed : KinematicCharacterMover.getJumpSpeed(entity, movementComp);
+        }
+
+        private int getNumberOfJumpsMax() {
+            return isDeferred() ? numberOfJumpsMax : KinematicCharacterMover.getNumberOfJumpsMax(entity, movementComp);
+        }
+
+        private int getNumberOfJumpsLeft() {
+            return isDeferred() ? numberOfJumpsLeft : movementComp.numberOfJumpsLeft;
+        }
+
+        private void resetJumps() {
+            if (isDeferred()) {
+                numberOfJumpsLeft = currentNumberOfJumpsMax;
+            } else {
+                movementComp.numberOfJumpsLeft = movementComp.numberOfJumpsMax;
+            }
+        }
+
+        private void useJump() {
+            if (isDeferred()) {
+                currentNumberOfJumpsMax = numberOfJumpsMax;
+                numberOfJumpsLeft--;
+            } else {
+                movementComp.numberOfJumpsMax = KinematicCharacterMover.getNumberOfJumpsMax(entity, movementComp);
+                movementComp.numberOfJumpsLeft--;
+            }
+        }
+    }
+
     /**
      * Holds the result of movement.
      */
@@ -16,10 +16,13 @@
 
 package org.terasology.logic.characters;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.config.Config;
 import org.terasology.engine.Time;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
@@ -33,6 +36,8 @@
 import org.terasology.logic.location.LocationComponent;
 import org.terasology.logic.players.LocalPlayer;
 import org.terasology.math.geom.Vector3f;
+import org.terasology.monitoring.PerformanceMonitor;
+import org.terasology.network.ClientComponent;
 import org.terasology.network.NetworkSystem;
 import org.terasology.physics.engine.CharacterCollider;
 import org.terasology.physics.engine.PhysicsEngine;
@@ -41,8 +46,25 @@
 import org.terasology.utilities.collection.CircularBuffer;
 import org.terasology.world.WorldProvider;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * Steps the characters on the server, and replicates their states to the clients.
+ * <br><br>
+ * Characters controlled by a client are stepped as soon as their input arrives. When movement threads are configured,
+ * the input of all other characters, e.g. those moved by AI systems, is instead collected over the frame and stepped
+ * together at the next update: prepared on the main thread, calculated by worker threads and then completed on the
+ * main thread again. Such characters then move one frame after their input was sent, and the events of their steps
+ * (collisions, footsteps, jumps...) arrive during that update rather than while the input is being sent. Each
+ * character still receives the same events in the same order as when it is stepped right away.
+ */
 @RegisterSystem(RegisterMode.AUTHORITY)
 @Share(PredictionSystem.class)
 public class ServerCharacterPredictionSystem extends BaseComponentSystem implements UpdateSubscriberSystem, PredictionSystem {
@@ -70,17 +92,36 @@ public class ServerCharacterPredictionSystem extends BaseComponentSystem impleme
     @In
     private NetworkSystem networkSystem;
 
-    private CharacterMover characterMover;
+    @In
+    private Config config;
+
+    private KinematicCharacterMover characterMover;
     private Map<EntityRef, CircularBuffer<CharacterStateEvent>> characterStates = Maps.newHashMap();
     private Map<EntityRef, CharacterMoveInputEvent> lastInputEvent = Maps.newHashMap();
     private long nextSendState;
     private CharacterMovementSystemUtility characterMovementSystemUtility;
 
+    private List<PendingInput> pendingInputs = Lists.newArrayList();
+    private ExecutorService movementWorkers;
+    private int movementThreads;
+
     @Override
     public void initialise() {
         characterMover = new KinematicCharacterMover(worldProvider, physics);
         nextSendState = time.getGameTimeInMs() + TIME_BETWEEN_STATE_REPLICATE;
         characterMovementSystemUtility = new CharacterMovementSystemUtility(physics);
+        movementThreads = config.getSystem().getMovementThreads();
+        if (movementThreads > 0) {
+            movementWorkers = Executors.newFixedThreadPool(movementThreads,
+                    new ThreadFactoryBuilder().setNameFormat("Movement-%d").setDaemon(true).build());
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (movementWorkers != null) {
+            movementWorkers.shutdown();
+        }
     }
 
     @ReceiveEvent(components = {CharacterMovementComponent.class, LocationComponent.class})
@@ -115,21 +156,114 @@ public void onSetMovementModeEvent(SetMovementModeEvent event, EntityRef charact
 
     @ReceiveEvent(components = {CharacterMovementComponent.class, LocationComponent.class})
     public void onPlayerInput(CharacterMoveInputEvent input, EntityRef entity) {
+        if (movementWorkers != null && !networkSystem.getOwnerEntity(entity).hasComponent(ClientComponent.class)) {
+            pendingInputs.add(new PendingInput(input, entity));
+        } else {
+            processInput(input, entity);
+        }
+    }
+
+    private void processInput(CharacterMoveInputEvent input, EntityRef entity) {
+        CharacterStateEvent lastState = getStateToStep(input, entity);
+        if (lastState != null) {
+            applyState(input, entity, stepState(input, lastState, entity));
+        }
+    }
+
+    /**
+     * @return The last state of the character if the input should be applied to it, or null if it is to be dropped
+     */
+    private CharacterStateEvent getStateToStep(CharacterMoveInputEvent input, EntityRef entity) {
         CharacterCollider characterCollider = physics.getCharacterCollider(entity);
         if (characterCollider.isPending()) {
             logger.debug("Skipping input, collision not yet established");
-            return;
+            return null;
         }
         CircularBuffer<CharacterStateEvent> stateBuffer = characterStates.get(entity);
         CharacterStateEvent lastState = stateBuffer.getLast();
         if (input.getDelta() + lastState.getTime() < time.getGameTimeInMs() + MAX_INPUT_OVERFLOW) {
-            CharacterStateEvent newState = stepState(input, lastState, entity);
-            stateBuffer.add(newState);
+            return lastState;
+        }
+        logger.warn("Received too much input from {}, dropping input.", entity);
+        return null;
+    }
 
-            characterMovementSystemUtility.setToState(entity, newState);
-            lastInputEvent.put(entity, input);
-        } else {
-            logger.warn("Received too much input from {}, dropping input.", entity);
+    private void applyState(CharacterMoveInputEvent input, EntityRef entity, CharacterStateEvent newState) {
+        characterStates.get(entity).add(newState);
+        characterMovementSystemUtility.setToState(entity, newState);
+        lastInputEvent.put(entity, input);
+    }
+
+    /**
+     * Steps the input collected since the last update. Only the first input of each character can be stepped in
+     * parallel, as the next one starts from its result; the rare further ones are stepped afterwards, in order.
+     */
+    private void processPendingInputs() {
+        if (pendingInputs.isEmpty()) {
+            return;
+        }
+        PerformanceMonitor.startActivity("Step Character Movement");
+        List<PendingInput> inputs = pendingInputs;
+        pendingInputs = Lists.newArrayList();
+
+        // Nothing may change the physics engine while the steps are running
+        physics.awaitStep();
+        List<KinematicCharacterMover.DeferredStep> steps = Lists.newArrayListWithCapacity(inputs.size());
+        List<PendingInput> followingInputs = Lists.newArrayList();
+        Set<EntityRef> steppedCharacters = Sets.newHashSet();
+        for (PendingInput pending : inputs) {
+            if (!characterStates.containsKey(pending.entity)) {
+                continue;
+            }
+            if (!steppedCharacters.add(pending.entity)) {
+                followingInputs.add(pending);
+                continue;
+            }
+            CharacterStateEvent lastState = getStateToStep(pending.input, pending.entity);
+            if (lastState != null) {
+                steps.add(characterMover.prepareStep(lastState, pending.input, pending.entity));
+            }
+        }
+
+        runSteps(steps);
+        for (KinematicCharacterMover.DeferredStep step : steps) {
+            if (step.hasRun()) {
+                applyState(step.getInput(), step.getEntity(), step.complete());
+            }
+        }
+        for (PendingInput pending : followingInputs) {
+            if (characterStates.containsKey(pending.entity)) {
+                processInput(pending.input, pending.entity);
+            }
+        }
+        PerformanceMonitor.endActivity();
+    }
+
+    private void runSteps(List<KinematicCharacterMover.DeferredStep> steps) {
+        int batchSize = (steps.size() + movementThreads - 1) / movementThreads;
+        List<Callable<Void>> batches = Lists.newArrayListWithCapacity(movementThreads);
+        for (int start = 0; start < steps.size(); start += batchSize) {
+            List<KinematicCharacterMover.DeferredStep> batch = steps.subList(start, Math.min(start + batchSize, steps.size()));
+            batches.add(() -> {
+                for (KinematicCharacterMover.DeferredStep step : batch) {
+                    try {
+                        step.run();
+                    } catch (RuntimeException e) {
+                        logger.error("Failed to step the movement of {}", step.getEntity(), e);
+                    }
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> result : movementWorkers.invokeAll(batches)) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while stepping character movement");
+        } catch (ExecutionException e) {
+            logger.error("Failed to step character movement", e.getCause());
         }
     }
 
@@ -170,6 +304,7 @@ private CharacterStateEvent stepState(CharacterMoveInputEvent input, CharacterSt
 
     @Override
     public void update(float delta) {
+        processPendingInputs();
         if (nextSendState < time.getGameTimeInMs()) {
             long lastSendTime = nextSendState - TIME_BETWEEN_STATE_REPLICATE;
             for (Map.Entry<EntityRef, CircularBuffer<CharacterStateEvent>> entry : characterStates.entrySet()) {
@@ -182,7 +317,7 @@ public void update(float delta) {
                         CharacterMoveInputEvent lastInput = lastInputEvent.get(entry.getKey());
                         if (lastInput != null) {
                             CharacterMoveInputEvent newInput = new CharacterMoveInputEvent(lastInput, (int) (time.getGameTimeInMs() - state.getTime()));
-                            onPlayerInput(newInput, entry.getKey());
+                            processInput(newInput, entry.getKey());
                         }
                         entry.getKey().send(state);
                     }
@@ -238,4 +373,14 @@ public void restoreToPresent() {
             setToTime(renderTime, entry.getKey(), entry.getValue());
         }
     }
+
+    private static final class PendingInput {
+        private final CharacterMoveInputEvent input;
+        private final EntityRef entity;
+
+        private PendingInput(CharacterMoveInputEvent input, EntityRef entity) {
+            this.input = input;
+            this.entity = entity;
+        }
+    }
 }
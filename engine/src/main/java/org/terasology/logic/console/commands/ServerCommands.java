@@ -32,15 +32,20 @@
 import org.terasology.logic.permission.PermissionManager;
 import org.terasology.logic.players.PlayerUtil;
 import org.terasology.math.geom.Vector3i;
+import org.terasology.monitoring.RollingHistogram;
 import org.terasology.network.Client;
 import org.terasology.network.ClientComponent;
 import org.terasology.network.ClientInfoComponent;
+import org.terasology.network.NetMessageSection;
+import org.terasology.network.NetMetricSource;
 import org.terasology.network.NetworkComponent;
 import org.terasology.network.NetworkSystem;
 import org.terasology.persistence.StorageManager;
 import org.terasology.registry.In;
 import org.terasology.world.chunks.ChunkProvider;
 
+import java.util.Map;
+
 /**
  * Commands to administer a remote server
  *
@@ -167,6 +172,35 @@ public String listUsers() {
         return stringBuilder.toString();
     }
 
+    @Command(shortDescription = "Dumps network metrics of all connections",
+            helpText = "Lists round trip time, send queue depth and per message section byte statistics for every connection",
+            runOnServer = true, requiredPermission = PermissionManager.DEBUG_PERMISSION)
+    public String dumpNetMetrics() {
+        Map<String, NetMetricSource> connections = networkSystem.getConnectionMetrics();
+        if (connections.isEmpty()) {
+            return "No remote connections";
+        }
+
+        StringBuilder stringBuilder = new StringBuilder();
+        for (Map.Entry<String, NetMetricSource> connection : connections.entrySet()) {
+            NetMetricSource metrics = connection.getValue();
+            stringBuilder.append(connection.getKey());
+            stringBuilder.append(Console.NEW_LINE);
+            stringBuilder.append(String.format("  Round trip (ms): %s", metrics.getRoundTripTimes()));
+            stringBuilder.append(Console.NEW_LINE);
+            stringBuilder.append(String.format("  Send queue depth: %d", metrics.getSendQueueDepth()));
+            stringBuilder.append(Console.NEW_LINE);
+            for (NetMessageSection section : NetMessageSection.values()) {
+                RollingHistogram in = metrics.getReceivedSectionSizes(section);
+                RollingHistogram out = metrics.getSentSectionSizes(section);
+                stringBuilder.append(String.format("  %s: in %d bytes total [%s], out %d bytes total [%s]",
+                        section.getDisplayName(), in.getTotal(), in, out.getTotal(), out));
+                stringBuilder.append(Console.NEW_LINE);
+            }
+        }
+        return stringBuilder.toString();
+    }
+
     private String kick(EntityRef clientEntity) {
         Client client = networkSystem.getOwner(clientEntity);
 
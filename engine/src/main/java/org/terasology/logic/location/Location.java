@@ -18,6 +18,9 @@
 
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.entitySystem.entity.lifecycleEvents.BeforeRemoveComponent;
+import org.terasology.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.entitySystem.entity.lifecycleEvents.OnAddedComponent;
+import org.terasology.entitySystem.entity.lifecycleEvents.OnChangedComponent;
 import org.terasology.entitySystem.event.ReceiveEvent;
 import org.terasology.entitySystem.systems.BaseComponentSystem;
 import org.terasology.entitySystem.systems.RegisterMode;
@@ -121,6 +124,40 @@ public void onDestroyed(BeforeRemoveComponent event, EntityRef entity, LocationC
         }
     }
 
+    /**
+     * The children of a changed location may still refer to a replaced component of it for their world transform.
+     */
+    @ReceiveEvent
+    public void onChanged(OnChangedComponent event, EntityRef entity, LocationComponent location) {
+        invalidateChildren(location);
+    }
+
+    @ReceiveEvent
+    public void onAdded(OnAddedComponent event, EntityRef entity, LocationComponent location) {
+        invalidateChildren(location);
+    }
+
+    /**
+     * An entity that is loaded again gets new components, which its children have not seen yet.
+     */
+    @ReceiveEvent
+    public void onActivated(OnActivatedComponent event, EntityRef entity, LocationComponent location) {
+        invalidateChildren(location);
+    }
+
+    /**
+     * Only the children refer to the component directly. Their own children notice that the world transform of their
+     * parent was derived again, so this invalidates the whole subtree.
+     */
+    private static void invalidateChildren(LocationComponent location) {
+        for (EntityRef child : location.children) {
+            LocationComponent childLoc = child.getComponent(LocationComponent.class);
+            if (childLoc != null) {
+                childLoc.invalidateWorldTransform();
+            }
+        }
+    }
+
     @ReceiveEvent(netFilter = RegisterMode.REMOTE_CLIENT)
     public void onResyncLocation(LocationResynchEvent event, EntityRef entityRef, LocationComponent locationComponent) {
         locationComponent.setWorldPosition(event.getPosition());
@@ -32,6 +32,11 @@
 
 /**
  * Component represent the location and facing of an entity in the world
+ * <br><br>
+ * The world transform is cached along with the local values and the revision of the parent's world transform it was
+ * derived from. It is recalculated when either of them changed, so world space queries need no entity lookups as long
+ * as the hierarchy stays the same. The {@link Location} system drops the cached parent of the children when a location
+ * is changed through the entity system, as the parent's component may have been replaced.
  *
  */
 public final class LocationComponent implements Component, ReplicationCheck {
@@ -54,6 +59,21 @@ public final class LocationComponent implements Component, ReplicationCheck {
     @Replicate
     float scale = 1.0f;
 
+    // Cached world transform, not part of the component's data
+    private transient boolean worldTransformValid;
+    private transient int worldTransformRevision;
+    private transient final Vector3f worldPosition = new Vector3f();
+    private transient final Quat4f worldRotation = new Quat4f(0, 0, 0, 1);
+    private transient float worldScale = 1.0f;
+
+    // What the cached world transform was derived from
+    private transient final Vector3f cachedPosition = new Vector3f();
+    private transient final Quat4f cachedRotation = new Quat4f(0, 0, 0, 1);
+    private transient float cachedScale;
+    private transient EntityRef cachedParent;
+    private transient LocationComponent parentLocation;
+    private transient int parentRevision;
+
     public LocationComponent() {
     }
 
@@ -102,14 +122,8 @@ public Vector3f getWorldPosition() {
     }
 
     public Vector3f getWorldPosition(Vector3f output) {
-        output.set(position);
-        LocationComponent parentLoc = parent.getComponent(LocationComponent.class);
-        while (parentLoc != null) {
-            output.scale(parentLoc.scale);
-            parentLoc.getLocalRotation().rotate(output, output);
-            output.add(parentLoc.position);
-            parentLoc = parentLoc.parent.getComponent(LocationComponent.class);
-        }
+        updateWorldTransform();
+        output.set(worldPosition);
         return output;
     }
 
@@ -124,23 +138,14 @@ public Quat4f getWorldRotation() {
     }
 
     public Quat4f getWorldRotation(Quat4f output) {
-        output.set(rotation);
-        LocationComponent parentLoc = parent.getComponent(LocationComponent.class);
-        while (parentLoc != null) {
-            output.mul(parentLoc.rotation, output);
-            parentLoc = parentLoc.parent.getComponent(LocationComponent.class);
-        }
+        updateWorldTransform();
+        output.set(worldRotation);
         return output;
     }
 
     public float getWorldScale() {
-        float result = scale;
-        LocationComponent parentLoc = parent.getComponent(LocationComponent.class);
-        while (parentLoc != null) {
-            result *= parentLoc.getLocalScale();
-            parentLoc = parentLoc.parent.getComponent(LocationComponent.class);
-        }
-        return result;
+        updateWorldTransform();
+        return worldScale;
     }
 
     public void setWorldPosition(Vector3f value) {
@@ -177,6 +182,51 @@ public EntityRef getParent() {
         return parent;
     }
 
+    /**
+     * Forgets the parent location the cached world transform was derived from, so that it is looked up again.
+     */
+    void invalidateWorldTransform() {
+        worldTransformValid = false;
+        parentLocation = null;
+    }
+
+    private void updateWorldTransform() {
+        if (worldTransformValid && scale == cachedScale && position.equals(cachedPosition) && rotation.equals(cachedRotation)
+                && parent.equals(cachedParent)) {
+            if (parentLocation == null) {
+                return;
+            }
+            parentLocation.updateWorldTransform();
+            if (parentLocation.worldTransformRevision == parentRevision) {
+                return;
+            }
+        }
+
+        LocationComponent parentLoc = (worldTransformValid && parent.equals(cachedParent))
+                ? parentLocation : parent.getComponent(LocationComponent.class);
+        if (parentLoc != null) {
+            parentLoc.updateWorldTransform();
+            worldScale = parentLoc.worldScale * scale;
+            worldRotation.mul(parentLoc.worldRotation, rotation);
+            worldPosition.set(position);
+            worldPosition.scale(parentLoc.worldScale);
+            parentLoc.worldRotation.rotate(worldPosition, worldPosition);
+            worldPosition.add(parentLoc.worldPosition);
+            parentRevision = parentLoc.worldTransformRevision;
+        } else {
+            worldScale = scale;
+            worldRotation.set(rotation);
+            worldPosition.set(position);
+        }
+        cachedScale = scale;
+        cachedPosition.set(position);
+        cachedRotation.set(rotation);
+        cachedParent = parent;
+        parentLocation = parentLoc;
+        worldTransformValid = true;
+        worldTransformRevision++;
+    }
+
     public Collection<EntityRef> getChildren() {
         return children;
     }
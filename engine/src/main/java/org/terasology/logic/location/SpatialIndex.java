@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.location;
+
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.AABB;
+import org.terasology.math.geom.Vector3f;
+
+import java.util.List;
+
+/**
+ * Finds active entities with a {@link LocationComponent} by their world position, without iterating over all of them.
+ * <br><br>
+ * The index follows the location changes that are saved to the entities right away. Systems that change locations
+ * without saving them, such as physics, report the moved entities through {@link #markMoved(EntityRef)}; an unsaved
+ * change that is not reported leaves the entity at its previous position in the index.
+ */
+public interface SpatialIndex {
+
+    /**
+     * Tells the index that the location of the entity has changed without being saved. The entity, along with its
+     * children, is found at its new position from the next query on.
+     *
+     * @param entity the moved entity
+     */
+    void markMoved(EntityRef entity);
+
+    /**
+     * @param position         the center of the sphere
+     * @param radius           the radius of the sphere
+     * @param componentClasses components the entities must have
+     * @return The entities within the sphere, in no particular order
+     */
+    List<EntityRef> getEntitiesInRadius(Vector3f position, float radius, Class<? extends Component>... componentClasses);
+
+    /**
+     * @param region           the box to search, bounds included
+     * @param componentClasses components the entities must have
+     * @return The entities within the box, in no particular order
+     */
+    List<EntityRef> getEntitiesInRegion(AABB region, Class<? extends Component>... componentClasses);
+
+    /**
+     * @param position         the point to search around
+     * @param count            the maximum number of entities to return
+     * @param maxDistance      the distance beyond which entities are ignored
+     * @param componentClasses components the entities must have
+     * @return Up to count entities nearest to the position, nearest first
+     */
+    List<EntityRef> getNearestEntities(Vector3f position, int count, float maxDistance, Class<? extends Component>... componentClasses);
+}
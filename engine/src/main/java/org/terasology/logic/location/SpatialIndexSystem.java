@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.logic.location;
+
+import com.google.common.collect.Sets;
+import org.terasology.entitySystem.Component;
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
+import org.terasology.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
+import org.terasology.entitySystem.entity.lifecycleEvents.OnChangedComponent;
+import org.terasology.entitySystem.event.EventPriority;
+import org.terasology.entitySystem.event.ReceiveEvent;
+import org.terasology.entitySystem.systems.BaseComponentSystem;
+import org.terasology.entitySystem.systems.RegisterSystem;
+import org.terasology.math.AABB;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.registry.Share;
+import org.terasology.utilities.collection.SpatialHashGrid;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the world positions of all active located entities in a {@link SpatialHashGrid}, updated as their location
+ * components are activated, saved and deactivated. Moving an entity also moves its children.
+ * <br><br>
+ * Entities whose location changed without being saved, such as those moved by physics, are reported through
+ * {@link #markMoved(EntityRef)}, and only those are put back into the grid before the next query.
+ */
+@RegisterSystem
+@Share(SpatialIndex.class)
+public class SpatialIndexSystem extends BaseComponentSystem implements SpatialIndex {
+
+    /**
+     * About the range of typical proximity queries, such as interaction ranges and AI senses.
+     */
+    private static final float CELL_SIZE = 16;
+
+    private final SpatialHashGrid<EntityRef> grid = new SpatialHashGrid<>(CELL_SIZE);
+    private final Vector3f worldPosition = new Vector3f();
+    // all active located entities, including those without a valid position, which are not in the grid
+    private final Set<EntityRef> located = Sets.newHashSet();
+    // located entities moved without saving their location since the last query
+    private final Set<EntityRef> moved = Sets.newHashSet();
+
+    @Override
+    public void shutdown() {
+        grid.clear();
+        located.clear();
+        moved.clear();
+    }
+
+    @ReceiveEvent(priority = EventPriority.PRIORITY_CRITICAL)
+    public void onActivated(OnActivatedComponent event, EntityRef entity, LocationComponent location) {
+        located.add(entity);
+        updateEntry(entity, location);
+    }
+
+    @ReceiveEvent(priority = EventPriority.PRIORITY_CRITICAL)
+    public void onChanged(OnChangedComponent event, EntityRef entity, LocationComponent location) {
+        updateEntry(entity, location);
+    }
+
+    @ReceiveEvent(priority = EventPriority.PRIORITY_TRIVIAL)
+    public void onDeactivated(BeforeDeactivateComponent event, EntityRef entity, LocationComponent location) {
+        located.remove(entity);
+        moved.remove(entity);
+        grid.remove(entity);
+    }
+
+    @Override
+    public void markMoved(EntityRef entity) {
+        if (located.contains(entity)) {
+            moved.add(entity);
+        }
+    }
+
+    @Override
+    public List<EntityRef> getEntitiesInRadius(Vector3f position, float radius, Class<? extends Component>... componentClasses) {
+        updateMoved();
+        return grid.getInRadius(position.x, position.y, position.z, radius, withComponents(componentClasses));
+    }
+
+    @Override
+    public List<EntityRef> getEntitiesInRegion(AABB region, Class<? extends Component>... componentClasses) {
+        updateMoved();
+        return grid.getInBox(region.minX(), region.minY(), region.minZ(), region.maxX(), region.maxY(), region.maxZ(),
+                withComponents(componentClasses));
+    }
+
+    @Override
+    public List<EntityRef> getNearestEntities(Vector3f position, int count, float maxDistance, Class<? extends Component>... componentClasses) {
+        updateMoved();
+        return grid.getNearest(position.x, position.y, position.z, count, maxDistance, withComponents(componentClasses));
+    }
+
+    /**
+     * @return The number of entities in the index
+     */
+    public int size() {
+        updateMoved();
+        return grid.size();
+    }
+
+    private void updateMoved() {
+        if (moved.isEmpty()) {
+            return;
+        }
+        for (EntityRef entity : moved) {
+            LocationComponent location = entity.getComponent(LocationComponent.class);
+            if (location != null) {
+                updateEntry(entity, location);
+            }
+        }
+        moved.clear();
+    }
+
+    private void updateEntry(EntityRef entity, LocationComponent location) {
+        updatePosition(entity, location);
+        // the world positions of the children follow this one
+        for (EntityRef child : location.getChildren()) {
+            LocationComponent childLocation = child.getComponent(LocationComponent.class);
+            if (childLocation != null && located.contains(child)) {
+                // this may run before Location drops the child's reference to a replaced parent component
+                childLocation.invalidateWorldTransform();
+                updateEntry(child, childLocation);
+            }
+        }
+    }
+
+    private void updatePosition(EntityRef entity, LocationComponent location) {
+        location.getWorldPosition(worldPosition);
+        if (Float.isNaN(worldPosition.x) || Float.isNaN(worldPosition.y) || Float.isNaN(worldPosition.z)) {
+            grid.remove(entity);
+        } else {
+            grid.put(entity, worldPosition.x, worldPosition.y, worldPosition.z);
+        }
+    }
+
+    private static Predicate<EntityRef> withComponents(Class<? extends Component>[] componentClasses) {
+        if (componentClasses.length == 0) {
+            return entity -> true;
+        }
+        return entity -> {
+            for (Class<? extends Component> componentClass : componentClasses) {
+                if (!entity.hasComponent(componentClass)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.monitoring;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent samples of a metric in a fixed size ring, and provides statistics over them.
+ * <br><br>
+ * Recording a sample does not allocate, so it is safe to call from network and worker threads every tick.
+ * Statistics are computed on request over a copy of the current window.
+ */
+public final class RollingHistogram {
+
+    private final long[] samples;
+    private int next;
+    private int occupancy;
+    private long total;
+    private long totalCount;
+
+    /**
+     * @param windowSize the number of most recent samples to keep
+     */
+    public RollingHistogram(int windowSize) {
+        Preconditions.checkArgument(windowSize > 0, "windowSize must be greater than zero");
+        this.samples = new long[windowSize];
+    }
+
+    public synchronized void record(long value) {
+        samples[next] = value;
+        next = (next + 1) % samples.length;
+        if (occupancy < samples.length) {
+            occupancy++;
+        }
+        total += value;
+        totalCount++;
+    }
+
+    public synchronized void clear() {
+        next = 0;
+        occupancy = 0;
+        total = 0;
+        totalCount = 0;
+    }
+
+    /**
+     * @return The number of samples in the current window
+     */
+    public synchronized int getSampleCount() {
+        return occupancy;
+    }
+
+    /**
+     * @return The number of samples recorded since creation or the last clear, including those that left the window
+     */
+    public synchronized long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return The sum of all samples recorded since creation or the last clear, including those that left the window
+     */
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return The most recently recorded sample, or 0 if there are none
+     */
+    public synchronized long getLast() {
+        if (occupancy == 0) {
+            return 0;
+        }
+        return samples[(next + samples.length - 1) % samples.length];
+    }
+
+    public synchronized double getMean() {
+        if (occupancy == 0) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = 0; i < occupancy; ++i) {
+            sum += samples[i];
+        }
+        return (double) sum / occupancy;
+    }
+
+    public synchronized long getMax() {
+        long max = 0;
+        for (int i = 0; i < occupancy; ++i) {
+            max = Math.max(max, samples[i]);
+        }
+        return max;
+    }
+
+    /**
+     * @param percentile a value between 0 and 100
+     * @return The sample at the given percentile of the current window, or 0 if there are no samples
+     */
+    public long getPercentile(double percentile) {
+        Preconditions.checkArgument(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+        long[] sorted = getSortedWindow();
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    /**
+     * Distributes the current window across the given bucket upper bounds. A sample falls into the first bucket
+     * whose bound it does not exceed; the returned array has one extra trailing bucket for samples above the last bound.
+     *
+     * @param upperBounds ascending, inclusive upper bounds of the buckets
+     * @return The number of samples in each bucket
+     */
+    public int[] getBucketCounts(long... upperBounds) {
+        int[] counts = new int[upperBounds.length + 1];
+        for (long sample : getSortedWindow()) {
+            int bucket = Arrays.binarySearch(upperBounds, sample);
+            if (bucket < 0) {
+                bucket = -bucket - 1;
+            }
+            counts[bucket]++;
+        }
+        return counts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("mean %.1f, p50 %d, p95 %d, max %d (%d samples)", getMean(), getPercentile(50), getPercentile(95), getMax(), getSampleCount());
+    }
+
+    private synchronized long[] getSortedWindow() {
+        long[] window = Arrays.copyOf(samples, occupancy);
+        Arrays.sort(window);
+        return window;
+    }
+}
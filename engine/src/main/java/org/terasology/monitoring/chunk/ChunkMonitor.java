@@ -19,18 +19,26 @@
 import com.google.common.collect.Maps;
 import com.google.common.eventbus.EventBus;
 import org.terasology.math.geom.Vector3i;
+import org.terasology.monitoring.RollingHistogram;
 import org.terasology.rendering.primitives.ChunkMesh;
 import org.terasology.world.chunks.Chunk;
 import org.terasology.world.chunks.ChunkProvider;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 public final class ChunkMonitor {
 
     private static final EventBus EVENT_BUS = new EventBus("ChunkMonitor");
     private static final Map<Vector3i, ChunkMonitorEntry> CHUNKS = Maps.newConcurrentMap();
 
+    private static final int REMESH_WINDOW = 512;
+    private static final RollingHistogram REMESH_QUEUE_MICROS = new RollingHistogram(REMESH_WINDOW);
+    private static final RollingHistogram REMESH_TESSELLATION_MICROS = new RollingHistogram(REMESH_WINDOW);
+    private static final RollingHistogram REMESH_LATENCY_MICROS = new RollingHistogram(REMESH_WINDOW);
+    private static final AtomicLong REMESHES_CANCELLED = new AtomicLong();
+
     private ChunkMonitor() {
     }
 
@@ -61,6 +69,10 @@ public static void fireChunkProviderInitialized(ChunkProvider provider) {
 
     public static void fireChunkProviderDisposed(ChunkProvider provider) {
         CHUNKS.clear();
+        REMESH_QUEUE_MICROS.clear();
+        REMESH_TESSELLATION_MICROS.clear();
+        REMESH_LATENCY_MICROS.clear();
+        REMESHES_CANCELLED.set(0);
         post(new ChunkMonitorEvent.ChunkProviderDisposed(provider));
     }
 
@@ -92,6 +104,50 @@ public static void fireChunkTessellated(Vector3i chunkPos, ChunkMesh mesh) {
         post(new ChunkMonitorEvent.Tessellated(chunkPos, mesh));
     }
 
+    /**
+     * Records the timings of a chunk remesh, in microseconds.
+     *
+     * @param queueMicros        From the remesh request to a thread picking it up
+     * @param tessellationMicros Spent generating the mesh
+     */
+    public static void recordRemesh(long queueMicros, long tessellationMicros) {
+        REMESH_QUEUE_MICROS.record(queueMicros);
+        REMESH_TESSELLATION_MICROS.record(tessellationMicros);
+        REMESH_LATENCY_MICROS.record(queueMicros + tessellationMicros);
+    }
+
+    /**
+     * Counts a pending remesh dropped because its chunk left the renderable region.
+     */
+    public static void recordRemeshCancelled() {
+        REMESHES_CANCELLED.incrementAndGet();
+    }
+
+    /**
+     * @return Microseconds from the remesh request to a thread picking it up, over the most recent remeshes
+     */
+    public static RollingHistogram getRemeshQueueTimes() {
+        return REMESH_QUEUE_MICROS;
+    }
+
+    /**
+     * @return Microseconds spent generating meshes, over the most recent remeshes
+     */
+    public static RollingHistogram getRemeshTessellationTimes() {
+        return REMESH_TESSELLATION_MICROS;
+    }
+
+    /**
+     * @return Microseconds from the remesh request to the finished mesh, over the most recent remeshes
+     */
+    public static RollingHistogram getRemeshLatencies() {
+        return REMESH_LATENCY_MICROS;
+    }
+
+    public static long getRemeshesCancelled() {
+        return REMESHES_CANCELLED.get();
+    }
+
     public static synchronized void getChunks(List<ChunkMonitorEntry> output) {
         Preconditions.checkNotNull(output, "The parameter 'output' must not be null");
         output.addAll(CHUNKS.values());
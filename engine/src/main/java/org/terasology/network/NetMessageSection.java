@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+import org.terasology.protobuf.NetData;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * The sections of a {@link NetData.NetMessage} that network metrics are broken down by.
+ */
+public enum NetMessageSection {
+    CHUNK_INFO("Chunks", NetData.NetMessage.CHUNKINFO_FIELD_NUMBER, NetData.NetMessage::getChunkInfoList),
+    INVALIDATE_CHUNK("Invalidations", NetData.NetMessage.INVALIDATECHUNK_FIELD_NUMBER, NetData.NetMessage::getInvalidateChunkList),
+    BLOCK_CHANGE("Block changes", NetData.NetMessage.BLOCKCHANGE_FIELD_NUMBER, NetData.NetMessage::getBlockChangeList),
+    BIOME_CHANGE("Biome changes", NetData.NetMessage.BIOMECHANGE_FIELD_NUMBER, NetData.NetMessage::getBiomeChangeList),
+    CREATE_ENTITY("Entity creates", NetData.NetMessage.CREATEENTITY_FIELD_NUMBER, NetData.NetMessage::getCreateEntityList),
+    UPDATE_ENTITY("Entity updates", NetData.NetMessage.UPDATEENTITY_FIELD_NUMBER, NetData.NetMessage::getUpdateEntityList),
+    REMOVE_ENTITY("Entity removals", NetData.NetMessage.REMOVEENTITY_FIELD_NUMBER, NetData.NetMessage::getRemoveEntityList),
+    EVENT("Events", NetData.NetMessage.EVENT_FIELD_NUMBER, NetData.NetMessage::getEventList),
+    /**
+     * Everything not covered by the other sections - timestamps, block registrations, handshake and join data
+     */
+    OTHER("Other", 0, message -> Collections.emptyList());
+
+    private final String displayName;
+    private final int fieldNumber;
+    private final Function<NetData.NetMessage, List<? extends MessageLite>> entries;
+
+    NetMessageSection(String displayName, int fieldNumber, Function<NetData.NetMessage, List<? extends MessageLite>> entries) {
+        this.displayName = displayName;
+        this.fieldNumber = fieldNumber;
+        this.entries = entries;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @param message the message to inspect
+     * @return The number of entries of this section in the message
+     */
+    public int getCount(NetData.NetMessage message) {
+        return entries.apply(message).size();
+    }
+
+    /**
+     * @param message the message to inspect
+     * @return The number of bytes this section contributes to the serialized (uncompressed) message
+     */
+    public int getSerializedSize(NetData.NetMessage message) {
+        if (this == OTHER) {
+            int size = message.getSerializedSize();
+            for (NetMessageSection section : values()) {
+                if (section != OTHER) {
+                    size -= section.getSerializedSize(message);
+                }
+            }
+            return size;
+        }
+        int size = 0;
+        for (MessageLite entry : entries.apply(message)) {
+            size += CodedOutputStream.computeMessageSize(fieldNumber, entry);
+        }
+        return size;
+    }
+}
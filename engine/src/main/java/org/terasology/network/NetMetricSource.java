@@ -16,6 +16,8 @@
 
 package org.terasology.network;
 
+import org.terasology.monitoring.RollingHistogram;
+
 /**
  * Interface for providers of sources of network metric information
  *
@@ -42,4 +44,38 @@ public interface NetMetricSource {
      * @return The amount of bytes sent since last time this method was called
      */
     int getSentBytesSinceLastCall();
+
+    /**
+     * @param section the message section
+     * @return The total uncompressed bytes received in the given section since the connection was opened
+     */
+    long getReceivedBytes(NetMessageSection section);
+
+    /**
+     * @param section the message section
+     * @return The total uncompressed bytes sent in the given section since the connection was opened
+     */
+    long getSentBytes(NetMessageSection section);
+
+    /**
+     * @param section the message section
+     * @return Rolling statistics of the bytes the given section contributed to each received message
+     */
+    RollingHistogram getReceivedSectionSizes(NetMessageSection section);
+
+    /**
+     * @param section the message section
+     * @return Rolling statistics of the bytes the given section contributed to each sent message
+     */
+    RollingHistogram getSentSectionSizes(NetMessageSection section);
+
+    /**
+     * @return Rolling statistics of the estimated round trip time to the remote end, in milliseconds. Empty if it is not measured.
+     */
+    RollingHistogram getRoundTripTimes();
+
+    /**
+     * @return The number of chunks, block changes and events waiting to be sent to the remote end
+     */
+    int getSendQueueDepth();
 }
@@ -25,6 +25,8 @@
 import org.terasology.world.block.internal.BlockRegistrationListener;
 import org.terasology.world.chunks.remoteChunkProvider.RemoteChunkProvider;
 
+import java.util.Map;
+
 /**
  * Interface for the network system
  *
@@ -64,5 +66,10 @@ public interface NetworkSystem extends BlockRegistrationListener {
 
     int getOutgoingBytesDelta();
 
+    /**
+     * @return The metric sources of all remote connections, keyed by the name of the remote party
+     */
+    Map<String, NetMetricSource> getConnectionMetrics();
+
     void forceDisconnect(Client client);
 }
@@ -63,6 +63,9 @@ public class ClientHandshakeHandler extends SimpleChannelUpstreamHandler {
     private ClientIdentity identity;
     private PublicIdentityCertificate serverCertificate;
 
+    private int frameCompressionThreshold;
+    private boolean frameCompressionDictionary;
+
     public ClientHandshakeHandler(JoinStatusImpl joinStatus) {
         this.joinStatus = joinStatus;
     }
@@ -77,14 +80,37 @@ public void channelOpen(ChannelHandlerContext ctx, ChannelStateEvent e) throws E
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) {
         NetData.NetMessage message = (NetData.NetMessage) e.getMessage();
         if (message.hasHandshakeHello()) {
+            frameCompressionThreshold = FrameCompression.getOfferedThreshold(message);
+            frameCompressionDictionary = FrameCompression.isDictionaryOffered(message, FrameCompression.getDefaultDictionary());
             processServerHello(message.getHandshakeHello(), ctx);
         } else if (message.hasProvisionIdentity()) {
+            switchFrameCompression(ctx);
             processNewIdentity(message.getProvisionIdentity(), ctx);
         } else if (message.hasHandshakeVerification()) {
+            switchFrameCompression(ctx);
             processHandshakeVerification(message.getHandshakeVerification(), ctx);
         }
     }
 
+    /**
+     * Switches to threshold frame compression if the server offered it, which this end accepted. The server switches
+     * right after sending the message being handled, so the decoder must be in place before the next frame arrives.
+     */
+    private void switchFrameCompression(ChannelHandlerContext ctx) {
+        if (frameCompressionThreshold > 0 && ctx.getPipeline().get(FrameCompression.DECODER_NAME) != null) {
+            byte[] dictionary = frameCompressionDictionary ? FrameCompression.getDefaultDictionary() : null;
+            ctx.getPipeline().replace(FrameCompression.DECODER_NAME, FrameCompression.DECODER_NAME, new FrameCompressionDecoder(dictionary));
+            logger.info("Server compresses frames above {} bytes{}", frameCompressionThreshold, dictionary != null ? " with dictionary" : "");
+        }
+    }
+
+    private NetData.NetMessage.Builder acceptFrameCompression(NetData.NetMessage.Builder message) {
+        if (frameCompressionThreshold > 0) {
+            FrameCompression.accept(message, frameCompressionDictionary);
+        }
+        return message;
+    }
+
     private void processHandshakeVerification(NetData.HandshakeVerification handshakeVerification, ChannelHandlerContext ctx) {
         logger.info("Received server verification");
         if (serverHello == null || clientHello == null) {
@@ -210,10 +236,10 @@ private void sendCertificate(NetData.HandshakeHello helloMessage, ChannelHandler
         byte[] dataToSign = Bytes.concat(helloMessage.toByteArray(), clientHello.toByteArray());
         byte[] signature = identity.getPlayerPrivateCertificate().sign(dataToSign);
 
-        ctx.getChannel().write(NetData.NetMessage.newBuilder()
+        ctx.getChannel().write(acceptFrameCompression(NetData.NetMessage.newBuilder()
                 .setHandshakeHello(clientHello)
                 .setHandshakeVerification(NetData.HandshakeVerification.newBuilder()
-                        .setSignature(ByteString.copyFrom(signature)))
+                        .setSignature(ByteString.copyFrom(signature))))
                 .build());
     }
 
@@ -226,10 +252,10 @@ private void requestIdentity(ChannelHandlerContext ctx) {
 
         masterSecret = HandshakeCommon.generateMasterSecret(preMasterSecret, clientRandom, serverRandom);
 
-        ctx.getChannel().write(NetData.NetMessage.newBuilder()
+        ctx.getChannel().write(acceptFrameCompression(NetData.NetMessage.newBuilder()
                 .setNewIdentityRequest(NetData.NewIdentityRequest.newBuilder()
                         .setPreMasterSecret(ByteString.copyFrom(encryptedPreMasterSecret))
-                        .setRandom(ByteString.copyFrom(clientRandom)))
+                        .setRandom(ByteString.copyFrom(clientRandom))))
                 .build());
         requestedCertificate = true;
     }
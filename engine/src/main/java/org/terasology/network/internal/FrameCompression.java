@@ -0,0 +1,186 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import com.google.protobuf.UnknownFieldSet;
+import org.terasology.protobuf.NetData;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Negotiation and shared data for the threshold frame compression mode.
+ * <br><br>
+ * By default the server deflates its whole outgoing stream. If both ends support it, they instead agree during the
+ * handshake to only compress frames above a size threshold, each one independently and optionally primed with a preset
+ * dictionary (see {@link FrameCompressionEncoder} and {@link FrameCompressionDecoder}).
+ * <br><br>
+ * The negotiation values travel in the extension range of {@link NetData.NetMessage}, so peers that do not know about
+ * them ignore them and keep using the stream compression:
+ * <ol>
+ * <li>The server offers the mode in the message carrying its hello, along with the checksum of its dictionary</li>
+ * <li>The client accepts in its reply (new identity request or verification), stating whether its dictionary matches</li>
+ * <li>The server switches its encoder right after writing its response to that reply, and the client switches its
+ * decoder when it receives that response</li>
+ * </ol>
+ */
+public final class FrameCompression {
+
+    /**
+     * Written by the server: the size threshold in bytes above which frames will be compressed.
+     */
+    static final int OFFER_THRESHOLD_FIELD = 5000;
+
+    /**
+     * Written by the server: the checksum of the preset dictionary it would use, if any.
+     */
+    static final int OFFER_DICTIONARY_FIELD = 5001;
+
+    /**
+     * Written by the client: 1 if it accepts threshold compression.
+     */
+    static final int ACCEPT_FIELD = 5002;
+
+    /**
+     * Written by the client: 1 if its dictionary matches the one offered.
+     */
+    static final int ACCEPT_DICTIONARY_FIELD = 5003;
+
+    /**
+     * The largest frame a client accepts from the server, in bytes, before or after inflating it.
+     */
+    public static final int MAX_FRAME_LENGTH = 8388608;
+
+    public static final String ENCODER_NAME = "deflateEncoder";
+    public static final String DECODER_NAME = "inflateDecoder";
+
+    /**
+     * Strings commonly found in the messages sent during and after joining - module and block uris, asset and
+     * component names. Frequent content should be near the end, as deflate encodes closer matches more cheaply.
+     */
+    private static final String[] DEFAULT_DICTIONARY_STRINGS = {
+        "Terasology", "version", "name", "description", "display",
+        "engine:", "core:", "Core:", "CoreBlocks:", "engine:air", "engine:unloaded", "engine:player", "engine:client",
+        "engine:clientInfo", "engine:emptyInventory", "Component", "Event", "Prefab", "Block", "Family",
+        "LocationComponent", "position", "rotation", "scale", "parent", "children", "worldPosition",
+        "CharacterMovementComponent", "CharacterComponent", "velocity", "grounded", "mode", "sequenceNumber",
+        "InventoryComponent", "itemSlots", "ItemComponent", "stackId", "stackCount", "icon",
+        "DisplayNameComponent", "NetworkComponent", "ClientComponent", "ClientInfoComponent",
+        "HealthComponent", "currentHealth", "maxHealth", "MeshComponent", "SkeletalMeshComponent",
+        "BlockComponent", "BlockItemComponent", "blockFamily", "EntityRef",
+        "engine:stone", "engine:dirt", "engine:grass", "engine:water", "engine:sand", "engine:snow",
+        "core:stone", "core:dirt", "core:grass", "core:water", "core:sand", "core:snow",
+    };
+
+    private static final byte[] DEFAULT_DICTIONARY = String.join("", DEFAULT_DICTIONARY_STRINGS).getBytes(Charsets.UTF_8);
+
+    private FrameCompression() {
+    }
+
+    /**
+     * @return A copy of the dictionary used when both ends have the same one
+     */
+    public static byte[] getDefaultDictionary() {
+        return DEFAULT_DICTIONARY.clone();
+    }
+
+    public static long checksum(byte[] dictionary) {
+        CRC32 crc = new CRC32();
+        crc.update(dictionary);
+        return crc.getValue();
+    }
+
+    /**
+     * Builds a dictionary from sample payloads, by collecting their most common substrings.
+     *
+     * @param samples       representative uncompressed frames
+     * @param fragmentSize  the length of the substrings to collect
+     * @param maxSize       the maximum size of the dictionary in bytes
+     * @return A dictionary with the most common substrings last
+     */
+    public static byte[] train(List<byte[]> samples, int fragmentSize, int maxSize) {
+        Map<String, Integer> counts = Maps.newHashMap();
+        for (byte[] sample : samples) {
+            for (int i = 0; i + fragmentSize <= sample.length; i += fragmentSize / 2 + 1) {
+                String fragment = new String(sample, i, fragmentSize, Charsets.ISO_8859_1);
+                counts.merge(fragment, 1, Integer::sum);
+            }
+        }
+        List<String> common = counts.entrySet().stream()
+                .filter(entry -> entry.getValue() > 1)
+                .sorted(Comparator.comparing(Map.Entry::getValue))
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+
+        ByteArrayOutputStream dictionary = new ByteArrayOutputStream(maxSize);
+        int start = Math.max(0, common.size() - maxSize / fragmentSize);
+        for (String fragment : common.subList(start, common.size())) {
+            byte[] bytes = fragment.getBytes(Charsets.ISO_8859_1);
+            dictionary.write(bytes, 0, bytes.length);
+        }
+        return dictionary.toByteArray();
+    }
+
+    static void offer(NetData.NetMessage.Builder message, int threshold, byte[] dictionary) {
+        UnknownFieldSet.Builder fields = UnknownFieldSet.newBuilder(message.getUnknownFields())
+                .addField(OFFER_THRESHOLD_FIELD, UnknownFieldSet.Field.newBuilder().addVarint(threshold).build());
+        if (dictionary != null) {
+            fields.addField(OFFER_DICTIONARY_FIELD, UnknownFieldSet.Field.newBuilder().addVarint(checksum(dictionary)).build());
+        }
+        message.setUnknownFields(fields.build());
+    }
+
+    /**
+     * @return The threshold offered in the message, or 0 if there is no offer
+     */
+    static int getOfferedThreshold(NetData.NetMessage message) {
+        return (int) getVarint(message, OFFER_THRESHOLD_FIELD);
+    }
+
+    static boolean isDictionaryOffered(NetData.NetMessage message, byte[] dictionary) {
+        return message.getUnknownFields().hasField(OFFER_DICTIONARY_FIELD)
+                && getVarint(message, OFFER_DICTIONARY_FIELD) == checksum(dictionary);
+    }
+
+    static void accept(NetData.NetMessage.Builder message, boolean useDictionary) {
+        message.setUnknownFields(UnknownFieldSet.newBuilder(message.getUnknownFields())
+                .addField(ACCEPT_FIELD, UnknownFieldSet.Field.newBuilder().addVarint(1).build())
+                .addField(ACCEPT_DICTIONARY_FIELD, UnknownFieldSet.Field.newBuilder().addVarint(useDictionary ? 1 : 0).build())
+                .build());
+    }
+
+    static boolean isAccepted(NetData.NetMessage message) {
+        return getVarint(message, ACCEPT_FIELD) == 1;
+    }
+
+    static boolean isDictionaryAccepted(NetData.NetMessage message) {
+        return getVarint(message, ACCEPT_DICTIONARY_FIELD) == 1;
+    }
+
+    private static long getVarint(NetData.NetMessage message, int field) {
+        UnknownFieldSet fields = message.getUnknownFields();
+        if (fields.hasField(field) && !fields.getField(field).getVarintList().isEmpty()) {
+            return fields.getField(field).getVarintList().get(0);
+        }
+        return 0;
+    }
+}
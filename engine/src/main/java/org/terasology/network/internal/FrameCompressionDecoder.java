@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.compression.CompressionException;
+import org.jboss.netty.handler.codec.oneone.OneToOneDecoder;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Decodes frames written by a {@link FrameCompressionEncoder}.
+ */
+public class FrameCompressionDecoder extends OneToOneDecoder {
+
+    private final byte[] dictionary;
+    private final int maxFrameLength;
+    private final Inflater inflater = new Inflater(true);
+    private byte[] input = new byte[0];
+
+    /**
+     * @param dictionary the preset dictionary the encoder uses, or null for none
+     */
+    public FrameCompressionDecoder(byte[] dictionary) {
+        this(dictionary, FrameCompression.MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * @param dictionary     the preset dictionary the encoder uses, or null for none
+     * @param maxFrameLength the largest inflated frame to accept, in bytes
+     */
+    public FrameCompressionDecoder(byte[] dictionary, int maxFrameLength) {
+        this.dictionary = dictionary;
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, Channel channel, Object msg) throws Exception {
+        if (!(msg instanceof ChannelBuffer)) {
+            return msg;
+        }
+        ChannelBuffer frame = (ChannelBuffer) msg;
+        byte type = frame.readByte();
+        if (type == FrameCompressionEncoder.UNCOMPRESSED) {
+            return frame.slice();
+        } else if (type != FrameCompressionEncoder.COMPRESSED) {
+            throw new CompressionException("Unknown frame type " + type);
+        }
+
+        int length = frame.readInt();
+        if (length < 0 || length > maxFrameLength) {
+            throw new CompressionException("Frame length " + length + " is outside 0.." + maxFrameLength);
+        }
+        int compressedLength = frame.readableBytes();
+        if (input.length < compressedLength) {
+            input = new byte[compressedLength];
+        }
+        frame.readBytes(input, 0, compressedLength);
+
+        inflater.reset();
+        if (dictionary != null) {
+            inflater.setDictionary(dictionary);
+        }
+        inflater.setInput(input, 0, compressedLength);
+        byte[] result = new byte[length];
+        try {
+            int inflated = 0;
+            while (inflated < length && !inflater.finished()) {
+                int count = inflater.inflate(result, inflated, length - inflated);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != length) {
+                throw new CompressionException("Frame inflated to " + inflated + " bytes, expected " + length);
+            }
+        } catch (DataFormatException e) {
+            throw new CompressionException(e);
+        }
+        return ChannelBuffers.wrappedBuffer(result);
+    }
+}
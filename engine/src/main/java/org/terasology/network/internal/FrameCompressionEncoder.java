@@ -0,0 +1,84 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.network.internal;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.handler.codec.oneone.OneToOneEncoder;
+
+import java.util.zip.Deflater;
+
+/**
+ * Compresses each outgoing frame on its own, but only if it is at least a threshold size. Small frames - such as the
+ * per tick entity updates - are sent as they are, prefixed by a single byte marker.
+ * <br><br>
+ * Compressed frames are raw deflate streams, optionally primed with a preset dictionary shared with the decoder.
+ */
+public class FrameCompressionEncoder extends OneToOneEncoder {
+
+    static final byte UNCOMPRESSED = 0;
+    static final byte COMPRESSED = 1;
+
+    private final int threshold;
+    private final byte[] dictionary;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private byte[] input = new byte[0];
+    private final byte[] output = new byte[8192];
+
+    /**
+     * @param threshold  the minimum size of a frame for it to be compressed
+     * @param dictionary the preset dictionary to use, or null for none
+     */
+    public FrameCompressionEncoder(int threshold, byte[] dictionary) {
+        this.threshold = threshold;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    protected Object encode(ChannelHandlerContext ctx, Channel channel, Object msg) throws Exception {
+        if (!(msg instanceof ChannelBuffer)) {
+            return msg;
+        }
+        ChannelBuffer frame = (ChannelBuffer) msg;
+        int length = frame.readableBytes();
+        if (length < threshold) {
+            return ChannelBuffers.wrappedBuffer(ChannelBuffers.wrappedBuffer(new byte[]{UNCOMPRESSED}), frame);
+        }
+
+        if (input.length < length) {
+            input = new byte[length];
+        }
+        frame.readBytes(input, 0, length);
+
+        deflater.reset();
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
+        deflater.setInput(input, 0, length);
+        deflater.finish();
+
+        ChannelBuffer result = ChannelBuffers.dynamicBuffer(length / 2 + 16);
+        result.writeByte(COMPRESSED);
+        result.writeInt(length);
+        while (!deflater.finished()) {
+            int compressed = deflater.deflate(output);
+            result.writeBytes(output, 0, compressed);
+        }
+        return result;
+    }
+}
@@ -20,23 +20,46 @@
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.channel.SimpleChannelHandler;
+import org.terasology.monitoring.RollingHistogram;
+import org.terasology.network.NetMessageSection;
 import org.terasology.network.NetMetricSource;
+import org.terasology.protobuf.NetData;
 
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A generic Netty handler for recording metrics on sent and received bytes and messages.
+ * <br><br>
+ * Per section metrics are fed by a {@link NetMessageMetricsHandler} placed on the decoded side of the pipeline, while
+ * round trip time and send queue depth are provided by the owning connection.
  *
  */
 public class MetricRecordingHandler extends SimpleChannelHandler implements NetMetricSource {
 
     public static final String NAME = "metrics";
 
+    private static final int SECTION_WINDOW = 256;
+    private static final int ROUND_TRIP_WINDOW = 64;
+
     private AtomicInteger receivedMessages = new AtomicInteger();
     private AtomicInteger receivedBytes = new AtomicInteger();
     private AtomicInteger sentMessages = new AtomicInteger();
     private AtomicInteger sentBytes = new AtomicInteger();
 
+    private final Map<NetMessageSection, RollingHistogram> receivedSectionSizes = new EnumMap<>(NetMessageSection.class);
+    private final Map<NetMessageSection, RollingHistogram> sentSectionSizes = new EnumMap<>(NetMessageSection.class);
+    private final RollingHistogram roundTripTimes = new RollingHistogram(ROUND_TRIP_WINDOW);
+    private volatile int sendQueueDepth;
+
+    public MetricRecordingHandler() {
+        for (NetMessageSection section : NetMessageSection.values()) {
+            receivedSectionSizes.put(section, new RollingHistogram(SECTION_WINDOW));
+            sentSectionSizes.put(section, new RollingHistogram(SECTION_WINDOW));
+        }
+    }
+
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
         ChannelBuffer buf = (ChannelBuffer) e.getMessage();
@@ -53,6 +76,34 @@ public void writeRequested(ChannelHandlerContext ctx, MessageEvent e) throws Exc
         ctx.sendDownstream(e);
     }
 
+    void recordReceived(NetData.NetMessage message) {
+        record(message, receivedSectionSizes);
+    }
+
+    void recordSent(NetData.NetMessage message) {
+        record(message, sentSectionSizes);
+    }
+
+    void recordRoundTripTime(long millis) {
+        roundTripTimes.record(millis);
+    }
+
+    void setSendQueueDepth(int depth) {
+        this.sendQueueDepth = depth;
+    }
+
+    private void record(NetData.NetMessage message, Map<NetMessageSection, RollingHistogram> sizes) {
+        int other = message.getSerializedSize();
+        for (NetMessageSection section : NetMessageSection.values()) {
+            if (section != NetMessageSection.OTHER) {
+                int size = section.getSerializedSize(message);
+                sizes.get(section).record(size);
+                other -= size;
+            }
+        }
+        sizes.get(NetMessageSection.OTHER).record(other);
+    }
+
     @Override
     public int getReceivedMessagesSinceLastCall() {
         return receivedMessages.getAndSet(0);
@@ -72,4 +123,34 @@ public int getSentMessagesSinceLastCall() {
     public int getSentBytesSinceLastCall() {
         return sentBytes.getAndSet(0);
     }
+
+    @Override
+    public long getReceivedBytes(NetMessageSection section) {
+        return receivedSectionSizes.get(section).getTotal();
+    }
+
+    @Override
+    public long getSentBytes(NetMessageSection section) {
+        return sentSectionSizes.get(section).getTotal();
+    }
+
+    @Override
+    public RollingHistogram getReceivedSectionSizes(NetMessageSection section) {
+        return receivedSectionSizes.get(section);
+    }
+
+    @Override
+    public RollingHistogram getSentSectionSizes(NetMessageSection section) {
+        return sentSectionSizes.get(section);
+    }
+
+    @Override
+    public RollingHistogram getRoundTripTimes() {
+        return roundTripTimes;
+    }
+
+    @Override
+    public int getSendQueueDepth() {
+        return sendQueueDepth;
+    }
 }
@@ -92,7 +92,7 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
     private NetworkEntitySerializer entitySerializer;
     private EventSerializer eventSerializer;
     private EventLibrary eventLibrary;
-    private NetMetricSource metricSource;
+    private MetricRecordingHandler metricSource;
     private BiomeManager biomeManager;
 
     // Relevance
@@ -138,7 +138,7 @@ public class NetClient extends AbstractClient implements WorldChangeListener {
 
     public NetClient(Channel channel, NetworkSystemImpl networkSystem, PublicIdentityCertificate identity) {
         this.channel = channel;
-        metricSource = (NetMetricSource) channel.getPipeline().get(MetricRecordingHandler.NAME);
+        metricSource = (MetricRecordingHandler) channel.getPipeline().get(MetricRecordingHandler.NAME);
         this.networkSystem = networkSystem;
         this.time = CoreRegistry.get(Time.class);
         this.identity = identity;
@@ -216,6 +216,8 @@ public void disconnect() {
     @Override
     public void update(boolean netTick) {
         if (netTick) {
+            metricSource.setSendQueueDepth(readyChunks.size() + queuedOutgoingBlockChanges.size()
+                    + queuedOutgoingBiomeChanges.size() + queuedOutgoingEvents.size());
             NetData.NetMessage.Builder message = NetData.NetMessage.newBuilder();
             message.setTime(time.getGameTimeInMs());
             sendRegisteredBlocks(message);
@@ -416,8 +418,13 @@ private void processReceivedMessages() {
         List<NetData.NetMessage> messages = Lists.newArrayListWithExpectedSize(queuedIncomingMessage.size());
         queuedIncomingMessage.drainTo(messages);
         for (NetData.NetMessage message : messages) {
-            if (message.hasTime() && message.getTime() > lastReceivedTime) {
-                lastReceivedTime = message.getTime();
+            if (message.hasTime()) {
+                if (message.getTime() > lastReceivedTime) {
+                    lastReceivedTime = message.getTime();
+                }
+                // The client's clock trails ours by the time our messages take to reach it, so the age of its timestamp
+                // on arrival approximates a full round trip
+                metricSource.recordRoundTripTime(Math.max(0, time.getGameTimeInMs() - message.getTime()));
             }
             processEntityUpdates(message);
             processEvents(message);
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.network.internal;
+
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelHandler;
+import org.terasology.protobuf.NetData;
+
+/**
+ * A Netty handler that breaks decoded messages down by section, feeding the results into the connection's
+ * {@link MetricRecordingHandler}. It must be placed after the protobuf decoder and encoder in the pipeline.
+ *
+ */
+public class NetMessageMetricsHandler extends SimpleChannelHandler {
+
+    public static final String NAME = "messageMetrics";
+
+    private final MetricRecordingHandler metrics;
+
+    public NetMessageMetricsHandler(MetricRecordingHandler metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        if (e.getMessage() instanceof NetData.NetMessage) {
+            metrics.recordReceived((NetData.NetMessage) e.getMessage());
+        }
+        ctx.sendUpstream(e);
+    }
+
+    @Override
+    public void writeRequested(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        if (e.getMessage() instanceof NetData.NetMessage) {
+            metrics.recordSent((NetData.NetMessage) e.getMessage());
+        }
+        ctx.sendDownstream(e);
+    }
+}
@@ -61,6 +61,7 @@
 import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.network.Client;
 import org.terasology.network.JoinStatus;
+import org.terasology.network.NetMetricSource;
 import org.terasology.network.NetworkComponent;
 import org.terasology.network.NetworkMode;
 import org.terasology.network.NetworkSystem;
@@ -720,6 +721,31 @@ public int getOutgoingBytesDelta() {
         }
     }
 
+    @Override
+    public Map<String, NetMetricSource> getConnectionMetrics() {
+        Map<String, NetMetricSource> result = Maps.newLinkedHashMap();
+        switch (mode) {
+            case LISTEN_SERVER:
+            case DEDICATED_SERVER:
+                for (NetClient client : netClientList) {
+                    String name = client.getName();
+                    if (result.containsKey(name)) {
+                        name = name + " (" + client.getId() + ")";
+                    }
+                    result.put(name, client.getMetrics());
+                }
+                break;
+            case CLIENT:
+                if (server != null) {
+                    result.put("Server", server.getMetrics());
+                }
+                break;
+            default:
+                break;
+        }
+        return result;
+    }
+
     long getEntityId(int netId) {
         return netIdToEntityId.get(netId);
     }
@@ -50,6 +50,8 @@ public class ServerHandshakeHandler extends SimpleChannelUpstreamHandler {
     private ServerConnectionHandler serverConnectionHandler;
     private byte[] serverRandom = new byte[IdentityConstants.SERVER_CLIENT_RANDOM_LENGTH];
     private NetData.HandshakeHello serverHello;
+    private int frameCompressionThreshold;
+    private byte[] frameCompressionDictionary;
 
     @Override
     public void channelOpen(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
@@ -70,22 +72,44 @@ public void channelConnected(ChannelHandlerContext ctx, ChannelStateEvent e) thr
                 .setTimestamp(System.currentTimeMillis())
                 .build();
 
-        e.getChannel().write(NetData.NetMessage.newBuilder()
-                .setHandshakeHello(serverHello)
-                .build());
+        NetData.NetMessage.Builder message = NetData.NetMessage.newBuilder().setHandshakeHello(serverHello);
+        frameCompressionThreshold = config.getNetwork().getFrameCompressionThreshold();
+        if (frameCompressionThreshold > 0) {
+            if (config.getNetwork().isFrameCompressionDictionary()) {
+                frameCompressionDictionary = FrameCompression.getDefaultDictionary();
+            }
+            FrameCompression.offer(message, frameCompressionThreshold, frameCompressionDictionary);
+        }
+        e.getChannel().write(message.build());
     }
 
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) {
         NetData.NetMessage message = (NetData.NetMessage) e.getMessage();
         if (message.hasNewIdentityRequest()) {
-            processNewIdentityRequest(message.getNewIdentityRequest(), ctx);
+            processNewIdentityRequest(message.getNewIdentityRequest(), FrameCompression.isAccepted(message),
+                    FrameCompression.isDictionaryAccepted(message), ctx);
         } else if (message.hasHandshakeHello() && message.hasHandshakeVerification()) {
-            processClientHandshake(message.getHandshakeHello(), message.getHandshakeVerification(), ctx);
+            processClientHandshake(message.getHandshakeHello(), message.getHandshakeVerification(), FrameCompression.isAccepted(message),
+                    FrameCompression.isDictionaryAccepted(message), ctx);
+        }
+    }
+
+    /**
+     * Switches to threshold frame compression if it was accepted by the client. Must be called directly after writing
+     * the final handshake message, as the client switches its decoder upon receiving it.
+     */
+    private void switchFrameCompression(boolean accepted, boolean dictionaryAccepted, ChannelHandlerContext ctx) {
+        if (frameCompressionThreshold > 0 && accepted) {
+            byte[] dictionary = dictionaryAccepted ? frameCompressionDictionary : null;
+            ctx.getPipeline().replace(FrameCompression.ENCODER_NAME, FrameCompression.ENCODER_NAME,
+                    new FrameCompressionEncoder(frameCompressionThreshold, dictionary));
+            logger.info("Compressing frames above {} bytes{}", frameCompressionThreshold, dictionary != null ? " with dictionary" : "");
         }
     }
 
-    private void processClientHandshake(NetData.HandshakeHello clientHello, NetData.HandshakeVerification handshakeVerification, ChannelHandlerContext ctx) {
+    private void processClientHandshake(NetData.HandshakeHello clientHello, NetData.HandshakeVerification handshakeVerification,
+                                        boolean frameCompressionAccepted, boolean dictionaryAccepted, ChannelHandlerContext ctx) {
         logger.info("Received client certificate");
         PublicIdentityCertificate clientCert = NetMessageUtil.convert(clientHello.getCertificate());
 
@@ -108,13 +132,15 @@ private void processClientHandshake(NetData.HandshakeHello clientHello, NetData.
         ctx.getChannel().write(NetData.NetMessage.newBuilder()
                 .setHandshakeVerification(NetData.HandshakeVerification.newBuilder()
                         .setSignature(ByteString.copyFrom(serverSignature))).build());
+        switchFrameCompression(frameCompressionAccepted, dictionaryAccepted, ctx);
 
         // Identity has been established, inform the server handler and withdraw from the pipeline
         ctx.getPipeline().remove(this);
         serverConnectionHandler.channelAuthenticated(clientCert);
     }
 
-    private void processNewIdentityRequest(NetData.NewIdentityRequest newIdentityRequest, ChannelHandlerContext ctx) {
+    private void processNewIdentityRequest(NetData.NewIdentityRequest newIdentityRequest, boolean frameCompressionAccepted,
+                                           boolean dictionaryAccepted, ChannelHandlerContext ctx) {
         logger.info("Received new identity request");
         try {
             byte[] preMasterSecret = config.getSecurity().getServerPrivateCertificate().decrypt(newIdentityRequest.getPreMasterSecret().toByteArray());
@@ -144,6 +170,7 @@ private void processNewIdentityRequest(NetData.NewIdentityRequest newIdentityReq
                     .setProvisionIdentity(NetData.ProvisionIdentity.newBuilder()
                             .setEncryptedCertificates(ByteString.copyFrom(encryptedCert)))
                     .build());
+            switchFrameCompression(frameCompressionAccepted, dictionaryAccepted, ctx);
 
             // Identity has been established, inform the server handler and withdraw from the pipeline
             ctx.getPipeline().remove(this);
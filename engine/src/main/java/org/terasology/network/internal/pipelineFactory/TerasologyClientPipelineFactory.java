@@ -27,8 +27,10 @@
 import org.terasology.network.internal.ClientConnectionHandler;
 import org.terasology.network.internal.ClientHandler;
 import org.terasology.network.internal.ClientHandshakeHandler;
+import org.terasology.network.internal.FrameCompression;
 import org.terasology.network.internal.JoinStatusImpl;
 import org.terasology.network.internal.MetricRecordingHandler;
+import org.terasology.network.internal.NetMessageMetricsHandler;
 import org.terasology.network.internal.NetworkSystemImpl;
 import org.terasology.protobuf.NetData;
 
@@ -50,15 +52,17 @@ public TerasologyClientPipelineFactory(NetworkSystemImpl networkSystem) {
     public ChannelPipeline getPipeline() throws Exception {
         JoinStatusImpl joinStatus = new JoinStatusImpl();
         ChannelPipeline p = pipeline();
-        p.addLast(MetricRecordingHandler.NAME, new MetricRecordingHandler());
+        MetricRecordingHandler metrics = new MetricRecordingHandler();
+        p.addLast(MetricRecordingHandler.NAME, metrics);
 
-        p.addLast("lengthFrameDecoder", new LengthFieldBasedFrameDecoder(8388608, 0, 3, 0, 3));
-        p.addLast("inflateDecoder", new ZlibDecoder());
+        p.addLast("lengthFrameDecoder", new LengthFieldBasedFrameDecoder(FrameCompression.MAX_FRAME_LENGTH, 0, 3, 0, 3));
+        p.addLast(FrameCompression.DECODER_NAME, new ZlibDecoder());
         p.addLast("frameDecoder", new ProtobufVarint32FrameDecoder());
         p.addLast("protobufDecoder", new ProtobufDecoder(NetData.NetMessage.getDefaultInstance()));
 
         p.addLast("frameEncoder", new ProtobufVarint32LengthFieldPrepender());
         p.addLast("protobufEncoder", new ProtobufEncoder());
+        p.addLast(NetMessageMetricsHandler.NAME, new NetMessageMetricsHandler(metrics));
         p.addLast("authenticationHandler", new ClientHandshakeHandler(joinStatus));
         p.addLast("connectionHandler", new ClientConnectionHandler(joinStatus, networkSystem));
         p.addLast("handler", new ClientHandler(networkSystem));
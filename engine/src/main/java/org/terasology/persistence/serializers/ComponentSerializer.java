@@ -32,11 +32,14 @@
 import org.terasology.persistence.typeHandling.PersistedData;
 import org.terasology.persistence.typeHandling.Serializer;
 import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufClassCodec;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufCodecLibrary;
 import org.terasology.persistence.typeHandling.protobuf.ProtobufDeserializationContext;
 import org.terasology.persistence.typeHandling.protobuf.ProtobufPersistedData;
 import org.terasology.persistence.typeHandling.protobuf.ProtobufSerializationContext;
 import org.terasology.protobuf.EntityData;
 import org.terasology.reflection.metadata.FieldMetadata;
+import org.terasology.reflection.reflect.ByteCodeReflectFactory;
 
 import java.util.Map;
 
@@ -48,6 +51,9 @@
  * than the names of each component, saving some space.
  * <br><br>
  * When serializing, a FieldSerializeCheck can be provided to determine whether each field should be serialized or not
+ * <br><br>
+ * If the type serialization library uses a {@link ByteCodeReflectFactory}, fields of simple types are read and written by
+ * generated code (see {@link ProtobufCodecLibrary}) rather than through their type handlers.
  *
  */
 public class ComponentSerializer {
@@ -60,6 +66,7 @@ public class ComponentSerializer {
     private TypeSerializationLibrary typeSerializationLibrary;
     private ProtobufSerializationContext serializationContext;
     private ProtobufDeserializationContext deserializationContext;
+    private ProtobufCodecLibrary codecLibrary;
 
     /**
      * Creates the component serializer.
@@ -71,6 +78,16 @@ public ComponentSerializer(ComponentLibrary componentLibrary, TypeSerializationL
         this.typeSerializationLibrary = typeSerializationLibrary;
         this.serializationContext = new ProtobufSerializationContext(typeSerializationLibrary);
         this.deserializationContext = new ProtobufDeserializationContext(typeSerializationLibrary);
+        if (typeSerializationLibrary.getReflectFactory() instanceof ByteCodeReflectFactory) {
+            this.codecLibrary = new ProtobufCodecLibrary((ByteCodeReflectFactory) typeSerializationLibrary.getReflectFactory(), typeSerializationLibrary);
+        }
+    }
+
+    /**
+     * @param codecLibrary The library of generated codecs to use for simple fields, or null to always use the type handlers
+     */
+    public void setCodecLibrary(ProtobufCodecLibrary codecLibrary) {
+        this.codecLibrary = codecLibrary;
     }
 
     public void setUsingFieldIds(boolean usingFieldIds) {
@@ -186,6 +203,7 @@ private <T extends Component> Component deserializeOnto(Component targetComponen
         Serializer serializer = typeSerializationLibrary.getSerializerFor(componentMetadata);
         DeserializationContext context = new ProtobufDeserializationContext(typeSerializationLibrary);
         Map<FieldMetadata<?, ?>, PersistedData> dataMap = Maps.newHashMapWithExpectedSize(componentData.getFieldCount());
+        ProtobufClassCodec codec = getCodecFor(componentMetadata);
         for (EntityData.NameValue field : componentData.getFieldList()) {
             FieldMetadata<?, ?> fieldInfo = null;
             if (field.hasNameIndex()) {
@@ -194,6 +212,9 @@ private <T extends Component> Component deserializeOnto(Component targetComponen
                 fieldInfo = componentMetadata.getField(field.getName());
             }
             if (fieldInfo != null) {
+                if (fieldCheck.shouldDeserialize(componentMetadata, fieldInfo) && codec.deserializeOnto(targetComponent, fieldInfo, field.getValue())) {
+                    continue;
+                }
                 dataMap.put(fieldInfo, new ProtobufPersistedData(field.getValue()));
             } else if (field.hasName()) {
                 logger.warn("Cannot deserialize unknown field '{}' onto '{}'", field.getName(), componentMetadata.getUri());
@@ -231,11 +252,17 @@ public EntityData.Component serialize(Component component, FieldSerializeCheck<C
         serializeComponentType(componentMetadata, componentMessage);
 
         Serializer serializer = typeSerializationLibrary.getSerializerFor(componentMetadata);
+        ProtobufClassCodec codec = getCodecFor(componentMetadata);
         for (ReplicatedFieldMetadata<?, ?> field : componentMetadata.getFields()) {
             if (check.shouldSerializeField(field, component)) {
-                PersistedData result = serializer.serialize(field, component, serializationContext);
-                if (!result.isNull()) {
-                    EntityData.Value itemValue = ((ProtobufPersistedData) result).getValue();
+                EntityData.Value itemValue;
+                if (codec.covers(field)) {
+                    itemValue = codec.serialize(field, component);
+                } else {
+                    PersistedData result = serializer.serialize(field, component, serializationContext);
+                    itemValue = result.isNull() ? null : ((ProtobufPersistedData) result).getValue();
+                }
+                if (itemValue != null) {
                     if (usingFieldIds) {
                         componentMessage.addField(EntityData.NameValue.newBuilder().setNameIndex(field.getId()).setValue(itemValue));
                     } else {
@@ -248,6 +275,13 @@ public EntityData.Component serialize(Component component, FieldSerializeCheck<C
         return componentMessage.build();
     }
 
+    private ProtobufClassCodec getCodecFor(ComponentMetadata<?> componentMetadata) {
+        if (codecLibrary == null) {
+            return ProtobufClassCodec.NONE;
+        }
+        return codecLibrary.getCodecFor(componentMetadata);
+    }
+
     private void serializeComponentType(ComponentMetadata<?> componentMetadata, EntityData.Component.Builder componentMessage) {
         Integer compId = idTable.get(componentMetadata.getType());
         if (compId != null) {
@@ -287,6 +321,7 @@ public EntityData.Component serialize(Component base, Component delta, FieldSeri
         serializeComponentType(componentMetadata, componentMessage);
 
         Serializer serializer = typeSerializationLibrary.getSerializerFor(componentMetadata);
+        ProtobufClassCodec codec = getCodecFor(componentMetadata);
         boolean changed = false;
         for (ReplicatedFieldMetadata field : componentMetadata.getFields()) {
             if (check.shouldSerializeField(field, delta) && serializer.getHandlerFor(field) != null) {
@@ -294,9 +329,14 @@ public EntityData.Component serialize(Component base, Component delta, FieldSeri
                 Object deltaValue = field.getValue(delta);
 
                 if (!Objects.equal(origValue, deltaValue)) {
-                    PersistedData value = serializer.serializeValue(field, deltaValue, serializationContext);
-                    if (!value.isNull()) {
-                        EntityData.Value dataValue = ((ProtobufPersistedData) value).getValue();
+                    EntityData.Value dataValue;
+                    if (codec.covers(field)) {
+                        dataValue = codec.serialize(field, delta);
+                    } else {
+                        PersistedData value = serializer.serializeValue(field, deltaValue, serializationContext);
+                        dataValue = value.isNull() ? null : ((ProtobufPersistedData) value).getValue();
+                    }
+                    if (dataValue != null) {
                         if (usingFieldIds) {
                             componentMessage.addField(EntityData.NameValue.newBuilder().setNameIndex(field.getId()).setValue(dataValue).build());
                         } else {
@@ -37,10 +37,13 @@
 import org.terasology.persistence.typeHandling.PersistedData;
 import org.terasology.persistence.typeHandling.Serializer;
 import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufClassCodec;
+import org.terasology.persistence.typeHandling.protobuf.ProtobufCodecLibrary;
 import org.terasology.persistence.typeHandling.protobuf.ProtobufDeserializationContext;
 import org.terasology.persistence.typeHandling.protobuf.ProtobufPersistedData;
 import org.terasology.persistence.typeHandling.protobuf.ProtobufSerializationContext;
 import org.terasology.protobuf.EntityData;
+import org.terasology.reflection.reflect.ByteCodeReflectFactory;
 
 import java.util.Map;
 import java.util.Set;
@@ -56,6 +59,7 @@ public class NetworkEntitySerializer {
     private TypeSerializationLibrary typeSerializationLibrary;
     private ProtobufSerializationContext serializationContext;
     private ProtobufDeserializationContext deserializationContext;
+    private ProtobufCodecLibrary codecLibrary;
     private BiMap<Class<? extends Component>, Integer> idTable = ImmutableBiMap.<Class<? extends Component>, Integer>builder().build();
 
     public NetworkEntitySerializer(EngineEntityManager entityManager, ComponentLibrary componentLibrary, TypeSerializationLibrary typeSerializationLibrary) {
@@ -64,6 +68,16 @@ public NetworkEntitySerializer(EngineEntityManager entityManager, ComponentLibra
         this.typeSerializationLibrary = typeSerializationLibrary;
         this.serializationContext = new ProtobufSerializationContext(typeSerializationLibrary);
         this.deserializationContext = new ProtobufDeserializationContext(typeSerializationLibrary);
+        if (typeSerializationLibrary.getReflectFactory() instanceof ByteCodeReflectFactory) {
+            this.codecLibrary = new ProtobufCodecLibrary((ByteCodeReflectFactory) typeSerializationLibrary.getReflectFactory(), typeSerializationLibrary);
+        }
+    }
+
+    /**
+     * @param codecLibrary The library of generated codecs to use for simple fields, or null to always use the type handlers
+     */
+    public void setCodecLibrary(ProtobufCodecLibrary codecLibrary) {
+        this.codecLibrary = codecLibrary;
     }
 
     public void setComponentSerializeCheck(ComponentSerializeCheck componentSerializeCheck) {
@@ -152,15 +166,22 @@ private void serializeComponentDelta(Component oldComponent, Component newCompon
 
         byte fieldCount = 0;
         Serializer serializer = typeSerializationLibrary.getSerializerFor(componentMetadata);
+        ProtobufClassCodec codec = getCodecFor(componentMetadata);
         for (ReplicatedFieldMetadata field : componentMetadata.getFields()) {
             if (fieldCheck.shouldSerializeField(field, newComponent, componentInitial)) {
                 Object oldValue = field.getValue(oldComponent);
                 Object newValue = field.getValue(newComponent);
                 if (!Objects.equal(oldValue, newValue)) {
-                    PersistedData data = serializer.serializeValue(field, newValue, serializationContext);
-                    if (!data.isNull()) {
+                    EntityData.Value value;
+                    if (codec.covers(field)) {
+                        value = codec.serialize(field, newComponent);
+                    } else {
+                        PersistedData data = serializer.serializeValue(field, newValue, serializationContext);
+                        value = data.isNull() ? null : ((ProtobufPersistedData) data).getValue();
+                    }
+                    if (value != null) {
                         entityFieldIds.write(field.getId());
-                        entityData.addFieldValue(((ProtobufPersistedData) data).getValue());
+                        entityData.addFieldValue(value);
                         fieldCount++;
                     } else {
                         logger.error("Exception serializing component type: {}, field: {} - returned null", componentMetadata, field);
@@ -185,13 +206,21 @@ private void serializeComponentFull(Component component, boolean ignoreIfNoField
         }
 
         Serializer serializer = typeSerializationLibrary.getSerializerFor(componentMetadata);
+        ProtobufClassCodec codec = getCodecFor(componentMetadata);
         byte fieldCount = 0;
         for (ReplicatedFieldMetadata field : componentMetadata.getFields()) {
             if (fieldCheck.shouldSerializeField(field, component, componentInitial)) {
-                PersistedData fieldValue = serializer.serialize(field, component, serializationContext);
+                EntityData.Value value = null;
+                if (codec.covers(field)) {
+                    value = codec.serialize(field, component);
+                }
+                if (value == null) {
+                    PersistedData fieldValue = serializer.serialize(field, component, serializationContext);
+                    value = ((ProtobufPersistedData) fieldValue).getValue();
+                }
                 entityFieldIds.write(field.getId());
 
-                entityData.addFieldValue(((ProtobufPersistedData) fieldValue).getValue());
+                entityData.addFieldValue(value);
                 fieldCount++;
             }
         }
@@ -229,12 +258,15 @@ public void deserializeOnto(MutableComponentContainer entity, EntityData.PackedE
                 component = metadata.newInstance();
             }
             Serializer serializer = typeSerializationLibrary.getSerializerFor(metadata);
+            ProtobufClassCodec codec = getCodecFor(metadata);
             for (int fieldIndex = 0; fieldIndex < UnsignedBytes.toInt(entityData.getComponentFieldCounts().byteAt(componentIndex)); ++fieldIndex) {
                 byte fieldId = entityData.getFieldIds().byteAt(fieldPos);
                 ReplicatedFieldMetadata fieldMetadata = metadata.getField(fieldId);
                 if (fieldMetadata != null && fieldCheck.shouldDeserialize(metadata, fieldMetadata)) {
                     logger.trace("Deserializing field {} of component {} as value {}", fieldMetadata, metadata, entityData.getFieldValue(fieldPos));
-                    serializer.deserializeOnto(component, fieldMetadata, new ProtobufPersistedData(entityData.getFieldValue(fieldPos)), deserializationContext);
+                    if (!codec.deserializeOnto(component, fieldMetadata, entityData.getFieldValue(fieldPos))) {
+                        serializer.deserializeOnto(component, fieldMetadata, new ProtobufPersistedData(entityData.getFieldValue(fieldPos)), deserializationContext);
+                    }
                 }
                 fieldPos++;
             }
@@ -255,6 +287,13 @@ public void deserializeOnto(MutableComponentContainer entity, EntityData.PackedE
         }
     }
 
+    private ProtobufClassCodec getCodecFor(ComponentMetadata<?> componentMetadata) {
+        if (codecLibrary == null) {
+            return ProtobufClassCodec.NONE;
+        }
+        return codecLibrary.getCodecFor(componentMetadata);
+    }
+
     public EntityRef deserialize(EntityData.PackedEntity entityData) {
         EntityBuilder target;
         if (entityData.hasParentPrefabUri()) {
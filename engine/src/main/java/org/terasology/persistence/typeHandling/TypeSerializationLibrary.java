@@ -202,6 +202,13 @@ public <T> void add(Class<T> type, TypeHandler<? super T> handler) {
         coreTypeHandlers.add(type);
     }
 
+    /**
+     * @return The factory providing the reflect implementation used by this library
+     */
+    public ReflectFactory getReflectFactory() {
+        return reflectFactory;
+    }
+
     public ImmutableSet<Class<?>> getCoreTypes() {
         return ImmutableSet.copyOf(coreTypeHandlers);
     }
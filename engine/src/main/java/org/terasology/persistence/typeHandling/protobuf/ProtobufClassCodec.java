@@ -0,0 +1,81 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.typeHandling.protobuf;
+
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import org.terasology.protobuf.EntityData;
+import org.terasology.reflection.metadata.FieldMetadata;
+
+/**
+ * The generated protobuf codec for a single type, along with the fields it covers.
+ * Fields that are not covered must be serialized through their type handlers.
+ */
+public final class ProtobufClassCodec {
+
+    /**
+     * A codec covering no fields, for types no class could be generated for.
+     */
+    public static final ProtobufClassCodec NONE = new ProtobufClassCodec(null, new TObjectIntHashMap<>());
+
+    private static final int NO_FIELD = -1;
+
+    private final ProtobufFieldCodec codec;
+    private final TObjectIntMap<FieldMetadata<?, ?>> fieldIndices;
+
+    ProtobufClassCodec(ProtobufFieldCodec codec, TObjectIntMap<FieldMetadata<?, ?>> fieldIndices) {
+        this.codec = codec;
+        this.fieldIndices = fieldIndices;
+    }
+
+    /**
+     * @param field A field of the type
+     * @return Whether the field is read and written by the generated codec
+     */
+    public boolean covers(FieldMetadata<?, ?> field) {
+        return codec != null && fieldIndices.containsKey(field);
+    }
+
+    /**
+     * @return The number of fields covered by the generated codec
+     */
+    public int getCoveredFieldCount() {
+        return fieldIndices.size();
+    }
+
+    /**
+     * @param field  A field covered by this codec
+     * @param target The object to read the field from
+     * @return The serialized value of the field, or null if it is null
+     */
+    public EntityData.Value serialize(FieldMetadata<?, ?> field, Object target) {
+        return codec.serialize(target, fieldIndices.get(field));
+    }
+
+    /**
+     * @param target The object to write the field onto
+     * @param field  A field of the type
+     * @param value  The serialized value
+     * @return Whether the value was applied. If not, it should be deserialized through the field's type handler instead.
+     */
+    public boolean deserializeOnto(Object target, FieldMetadata<?, ?> field, EntityData.Value value) {
+        if (codec == null) {
+            return false;
+        }
+        int index = fieldIndices.containsKey(field) ? fieldIndices.get(field) : NO_FIELD;
+        return index != NO_FIELD && codec.deserializeOnto(target, index, value);
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.typeHandling.protobuf;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Primitives;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import org.terasology.persistence.typeHandling.Serializer;
+import org.terasology.persistence.typeHandling.TypeHandler;
+import org.terasology.persistence.typeHandling.TypeSerializationLibrary;
+import org.terasology.persistence.typeHandling.coreTypes.BooleanTypeHandler;
+import org.terasology.persistence.typeHandling.coreTypes.DoubleTypeHandler;
+import org.terasology.persistence.typeHandling.coreTypes.FloatTypeHandler;
+import org.terasology.persistence.typeHandling.coreTypes.IntTypeHandler;
+import org.terasology.persistence.typeHandling.coreTypes.LongTypeHandler;
+import org.terasology.persistence.typeHandling.coreTypes.StringTypeHandler;
+import org.terasology.protobuf.EntityData;
+import org.terasology.reflection.metadata.ClassMetadata;
+import org.terasology.reflection.metadata.FieldMetadata;
+import org.terasology.reflection.reflect.ByteCodeReflectFactory;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates, per class, a {@link ProtobufFieldCodec} that reads and writes fields of simple types directly to and from
+ * {@link EntityData.Value}. This avoids creating a {@link ProtobufPersistedData} and going through the type handler for
+ * each of those fields, which otherwise dominates the cost of serializing components on save and network ticks.
+ * <br><br>
+ * A field is covered when it is a non-private, non-final field of type float, int, long, boolean, double (or their boxed
+ * types) or String, without a getter or setter, that is handled by the matching core type handler. Everything else,
+ * including values the generated code does not recognise when deserializing, goes through the type handlers as before,
+ * so results are identical either way.
+ */
+public class ProtobufCodecLibrary {
+
+    private static final String CLASS_SUFFIX = "_ProtobufCodec";
+    private static final String VALUE_CLASS = EntityData.Value.class.getName();
+
+    private static final Map<Class<?>, FieldKind> FIELD_KINDS = ImmutableMap.<Class<?>, FieldKind>builder()
+            .put(Float.TYPE, new FieldKind("Float", FloatTypeHandler.class, true))
+            .put(Float.class, new FieldKind("Float", FloatTypeHandler.class, true))
+            .put(Integer.TYPE, new FieldKind("Integer", IntTypeHandler.class, true))
+            .put(Integer.class, new FieldKind("Integer", IntTypeHandler.class, true))
+            // Reading longs is left to the type handler, which narrows them through int
+            .put(Long.TYPE, new FieldKind("Long", LongTypeHandler.class, false))
+            .put(Long.class, new FieldKind("Long", LongTypeHandler.class, false))
+            .put(Boolean.TYPE, new FieldKind("Boolean", BooleanTypeHandler.class, true))
+            .put(Boolean.class, new FieldKind("Boolean", BooleanTypeHandler.class, true))
+            .put(Double.TYPE, new FieldKind("Double", DoubleTypeHandler.class, true))
+            .put(Double.class, new FieldKind("Double", DoubleTypeHandler.class, true))
+            .put(String.class, new FieldKind("String", StringTypeHandler.class, true))
+            .build();
+
+    private final ByteCodeReflectFactory reflectFactory;
+    private final TypeSerializationLibrary typeSerializationLibrary;
+    private final Map<ClassMetadata<?, ?>, ProtobufClassCodec> codecs = Maps.newConcurrentMap();
+
+    public ProtobufCodecLibrary(ByteCodeReflectFactory reflectFactory, TypeSerializationLibrary typeSerializationLibrary) {
+        this.reflectFactory = reflectFactory;
+        this.typeSerializationLibrary = typeSerializationLibrary;
+    }
+
+    /**
+     * @param type The ClassMetadata for the type of interest
+     * @return The codec for the type. This is {@link ProtobufClassCodec#NONE} if no field of the type can be covered.
+     */
+    public ProtobufClassCodec getCodecFor(ClassMetadata<?, ?> type) {
+        return codecs.computeIfAbsent(type, this::createCodec);
+    }
+
+    private ProtobufClassCodec createCodec(ClassMetadata<?, ?> type) {
+        Class<?> owner = type.getType();
+        if (Modifier.isPrivate(owner.getModifiers()) || owner.isAnonymousClass() || owner.isLocalClass()) {
+            return ProtobufClassCodec.NONE;
+        }
+
+        // The generated class covers every field that could be covered, ordered by name, so that it is the same class
+        // for every library; which of those fields are actually used depends on the type handlers of this library.
+        List<FieldMetadata<?, ?>> candidates = Lists.newArrayList();
+        for (FieldMetadata<?, ?> field : type.getFields()) {
+            if (isCandidate(owner, field)) {
+                candidates.add(field);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return ProtobufClassCodec.NONE;
+        }
+        candidates.sort(Comparator.comparing(FieldMetadata::getName));
+
+        Serializer serializer = typeSerializationLibrary.getSerializerFor(type);
+        TObjectIntMap<FieldMetadata<?, ?>> fieldIndices = new TObjectIntHashMap<>();
+        for (int i = 0; i < candidates.size(); ++i) {
+            FieldMetadata<?, ?> field = candidates.get(i);
+            TypeHandler<?> handler = serializer.getHandlerFor(field);
+            if (handler != null && handler.getClass() == FIELD_KINDS.get(field.getType()).handlerType) {
+                fieldIndices.put(field, i);
+            }
+        }
+        if (fieldIndices.isEmpty()) {
+            return ProtobufClassCodec.NONE;
+        }
+
+        List<String> methods = ImmutableList.of(createSerializeSource(owner, candidates), createDeserializeSource(owner, candidates));
+        ProtobufFieldCodec codec = reflectFactory.createImplementation(owner, CLASS_SUFFIX, ProtobufFieldCodec.class, methods);
+        if (codec == null) {
+            return ProtobufClassCodec.NONE;
+        }
+        return new ProtobufClassCodec(codec, fieldIndices);
+    }
+
+    private static boolean isCandidate(Class<?> owner, FieldMetadata<?, ?> field) {
+        Field javaField = field.getField();
+        return javaField.getType() == field.getType()
+                && FIELD_KINDS.containsKey(field.getType())
+                && ByteCodeReflectFactory.isDirectlyAccessible(owner, javaField);
+    }
+
+    private static String createSerializeSource(Class<?> owner, List<FieldMetadata<?, ?>> fields) {
+        StringBuilder source = new StringBuilder();
+        source.append("public ").append(VALUE_CLASS).append(" serialize(Object target, int field) {");
+        source.append(owner.getName()).append(" t = (").append(owner.getName()).append(") target;");
+        for (int i = 0; i < fields.size(); ++i) {
+            FieldMetadata<?, ?> field = fields.get(i);
+            FieldKind kind = FIELD_KINDS.get(field.getType());
+            String access = "t." + field.getField().getName();
+            source.append("if (field == ").append(i).append(") {");
+            if (!field.getType().isPrimitive()) {
+                source.append("if (").append(access).append(" == null) { return null; }");
+                if (field.getType() != String.class) {
+                    access += "." + Primitives.unwrap(field.getType()).getName() + "Value()";
+                }
+            }
+            source.append("return ").append(VALUE_CLASS).append(".newBuilder().add").append(kind.protoName).append("(").append(access).append(").build();");
+            source.append("}");
+        }
+        source.append("return null;}");
+        return source.toString();
+    }
+
+    private static String createDeserializeSource(Class<?> owner, List<FieldMetadata<?, ?>> fields) {
+        StringBuilder source = new StringBuilder();
+        source.append("public boolean deserializeOnto(Object target, int field, ").append(VALUE_CLASS).append(" value) {");
+        source.append(owner.getName()).append(" t = (").append(owner.getName()).append(") target;");
+        for (int i = 0; i < fields.size(); ++i) {
+            FieldMetadata<?, ?> field = fields.get(i);
+            FieldKind kind = FIELD_KINDS.get(field.getType());
+            if (!kind.readable) {
+                continue;
+            }
+            String read = "value.get" + kind.protoName + "(0)";
+            if (!field.getType().isPrimitive() && field.getType() != String.class) {
+                read = field.getType().getName() + ".valueOf(" + read + ")";
+            }
+            source.append("if (field == ").append(i).append(" && value.get").append(kind.protoName).append("Count() == 1) {");
+            source.append("t.").append(field.getField().getName()).append(" = ").append(read).append(";");
+            source.append("return true;}");
+        }
+        source.append("return false;}");
+        return source.toString();
+    }
+
+    private static final class FieldKind {
+        private final String protoName;
+        private final Class<? extends TypeHandler> handlerType;
+        private final boolean readable;
+
+        private FieldKind(String protoName, Class<? extends TypeHandler> handlerType, boolean readable) {
+            this.protoName = protoName;
+            this.handlerType = handlerType;
+            this.readable = readable;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.persistence.typeHandling.protobuf;
+
+import org.terasology.protobuf.EntityData;
+
+/**
+ * Implemented by classes generated by {@link ProtobufCodecLibrary}, which read and write the supported fields of a
+ * single type straight to and from {@link EntityData.Value}, bypassing the {@link org.terasology.persistence.typeHandling.PersistedData} tree.
+ * <br><br>
+ * Fields are identified by the index the library assigned them when generating the class.
+ */
+public interface ProtobufFieldCodec {
+
+    /**
+     * @param target The object to read the field from
+     * @param field  The index of the field
+     * @return The serialized value of the field, or null if the field is null
+     */
+    EntityData.Value serialize(Object target, int field);
+
+    /**
+     * @param target The object to write the field onto
+     * @param field  The index of the field
+     * @param value  The serialized value
+     * @return Whether the value was applied. If not, it should be deserialized through the field's type handler instead.
+     */
+    boolean deserializeOnto(Object target, int field, EntityData.Value value);
+}
@@ -50,6 +50,22 @@ public interface Physics {
      */
     HitResult rayTrace(Vector3f from, Vector3f direction, float distance, Set<EntityRef> excludedEntities, CollisionGroup... collisionGroups);
 
+    /**
+     * Executes a rayTrace that finds blocks by walking the block grid instead of asking the physics engine.
+     * Blocks are tested against the bounds of their collision shape, so this is meant for picking blocks,
+     * where it is a lot cheaper than {@link #rayTrace(Vector3f, Vector3f, float, CollisionGroup...)}.
+     * Collision groups other than {@link StandardCollisionGroup#WORLD} are still traced by the physics engine,
+     * and the nearer hit is returned.
+     *
+     * @param from            Place to start tracing
+     * @param direction       Directing in which to trace
+     * @param distance        maximum distance to trace before giving up
+     * @param collisionGroups the collision groups to collide with. Blocks are only hit if
+     *                        {@link StandardCollisionGroup#WORLD} is among them.
+     * @return A HitResult object that contains the info about the ray trace.
+     */
+    HitResult voxelRayTrace(Vector3f from, Vector3f direction, float distance, CollisionGroup... collisionGroups);
+
     /**
      * Scans the given area for physics objects of the given groups and returns
      * a list of the entities of the physics objects in the given area.
@@ -50,12 +50,14 @@
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import gnu.trove.iterator.TFloatIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.logic.characters.CharacterMovementComponent;
 import org.terasology.logic.location.LocationComponent;
+import org.terasology.logic.location.SpatialIndex;
 import org.terasology.math.AABB;
 import org.terasology.math.VecMath;
 import org.terasology.math.geom.Vector3i;
@@ -71,6 +73,7 @@
 import org.terasology.physics.engine.PhysicsSystem;
 import org.terasology.physics.engine.PhysicsWorldWrapper;
 import org.terasology.physics.engine.RigidBody;
+import org.terasology.physics.engine.VoxelRayTracer;
 import org.terasology.physics.shapes.BoxShapeComponent;
 import org.terasology.physics.shapes.CapsuleShapeComponent;
 import org.terasology.physics.shapes.CylinderShapeComponent;
@@ -92,9 +95,29 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Physics engine implementation using TeraBullet (a customised version of JBullet)
+ * <br><br>
+ * When created asynchronous, each simulation step runs on a dedicated physics thread between {@link #beginStep()} and the
+ * next {@link #update(float)}. Transforms computed by the step are buffered in the motion states and written to the
+ * entities once it has finished. The step moves the rigid bodies and updates the broadphase and the contacts, so only
+ * the calls that read or change those wait for it to finish:
+ * <ul>
+ * <li>{@link #update(float)} and {@link #dispose()}</li>
+ * <li>{@link #rayTrace} and {@link #scanArea}, and {@link #voxelRayTrace} when tracing other groups than the world</li>
+ * <li>adding, updating and removing rigid bodies, triggers and character colliders, and {@link #awakenArea}</li>
+ * <li>changing the state of a rigid body, and sweeping or moving a character collider</li>
+ * </ul>
+ * Looking up bodies and colliders, reading the location of a character collider, reading the state of a rigid body
+ * (answered from a snapshot taken when the step began), collecting collision pairs and tracing the world's blocks do
+ * not wait.
+ * <br><br>
+ * Only the game thread starts and awaits steps. Other threads may sweep character colliders while no step is running.
  */
 public class BulletPhysics implements PhysicsEngine {
 
@@ -107,14 +130,39 @@ public class BulletPhysics implements PhysicsEngine {
     private final BroadphaseInterface broadphase;
     private final DiscreteDynamicsWorld discreteDynamicsWorld;
     private final BlockEntityRegistry blockEntityRegistry;
+    private final SpatialIndex spatialIndex;
     private final PhysicsWorldWrapper wrapper;
     private final PhysicsLiquidWrapper liquidWrapper;
+    private final VoxelRayTracer voxelRayTracer;
     private Map<EntityRef, BulletRigidBody> entityRigidBodies = Maps.newHashMap();
     private Map<EntityRef, BulletCharacterMoverCollider> entityColliders = Maps.newHashMap();
     private Map<EntityRef, PairCachingGhostObject> entityTriggers = Maps.newHashMap();
     private List<PhysicsSystem.CollisionPair> collisions = new ArrayList<>();
 
+    /**
+     * Sweeps of character colliders may be requested from several movement threads at once; bullet does not promise that
+     * its collision queries are safe to run concurrently, so they take turns.
+     */
+    private final Object sweepLock = new Object();
+
+    private final ExecutorService stepExecutor;
+    private volatile Future<Integer> runningStep;
+    private float requestedStepDelta = -1;
+
     public BulletPhysics(WorldProvider world) {
+        this(world, false);
+    }
+
+    /**
+     * @param world        The world to collide with
+     * @param asynchronous Whether to run the simulation steps on a dedicated thread
+     */
+    public BulletPhysics(WorldProvider world, boolean asynchronous) {
+        if (asynchronous) {
+            stepExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("Physics").setDaemon(true).build());
+        } else {
+            stepExecutor = null;
+        }
         broadphase = new DbvtBroadphase();
         broadphase.getOverlappingPairCache().setInternalGhostPairCallback(new GhostPairCallback());
         CollisionConfiguration defaultCollisionConfiguration = new DefaultCollisionConfiguration();
@@ -123,8 +171,10 @@ public BulletPhysics(WorldProvider world) {
         discreteDynamicsWorld = new DiscreteDynamicsWorld(dispatcher, broadphase, sequentialImpulseConstraintSolver, defaultCollisionConfiguration);
         discreteDynamicsWorld.setGravity(new Vector3f(0f, -15f, 0f));
         blockEntityRegistry = CoreRegistry.get(BlockEntityRegistry.class);
+        spatialIndex = CoreRegistry.get(SpatialIndex.class);
 
         wrapper = new PhysicsWorldWrapper(world);
+        voxelRayTracer = new VoxelRayTracer(world);
         VoxelWorldShape worldShape = new VoxelWorldShape(wrapper);
 
         liquidWrapper = new PhysicsLiquidWrapper(world);
@@ -157,6 +207,10 @@ public List<PhysicsSystem.CollisionPair> getCollisionPairs() {
 
     @Override
     public void dispose() {
+        awaitStep();
+        if (stepExecutor != null) {
+            stepExecutor.shutdown();
+        }
         discreteDynamicsWorld.destroy();
         wrapper.dispose();
         liquidWrapper.dispose();
@@ -183,6 +237,7 @@ public List<EntityRef> scanArea(AABB area, CollisionGroup... collisionFilter) {
 
     @Override
     public List<EntityRef> scanArea(AABB area, Iterable<CollisionGroup> collisionFilter) {
+        awaitStep();
         // TODO: Add the aabbTest method from newer versions of bullet to TeraBullet, use that instead
         BoxShape shape = new BoxShape(VecMath.to(area.getExtents()));
         GhostObject scanObject = createCollider(VecMath.to(area.getCenter()), shape, CollisionFilterGroups.SENSOR_TRIGGER,
@@ -209,6 +264,7 @@ public HitResult rayTrace(org.terasology.math.geom.Vector3f from1, org.terasolog
     @Override
     public HitResult rayTrace(org.terasology.math.geom.Vector3f from1, org.terasology.math.geom.Vector3f direction, float distance, Set<EntityRef> excludedEntities,
             CollisionGroup... collisionGroups) {
+        awaitStep();
         Vector3f to = new Vector3f(VecMath.to(direction));
         Vector3f from = VecMath.to(from1);
         to.scale(distance);
@@ -256,28 +312,75 @@ public HitResult rayTrace(org.terasology.math.geom.Vector3f from1, org.terasolog
         }
     }
 
+    @Override
+    public HitResult voxelRayTrace(org.terasology.math.geom.Vector3f from, org.terasology.math.geom.Vector3f direction, float distance,
+                                   CollisionGroup... collisionGroups) {
+        boolean traceBlocks = false;
+        List<CollisionGroup> otherGroups = Lists.newArrayListWithCapacity(collisionGroups.length);
+        for (CollisionGroup group : collisionGroups) {
+            if (group == StandardCollisionGroup.WORLD) {
+                traceBlocks = true;
+            } else {
+                otherGroups.add(group);
+            }
+        }
+
+        HitResult blockHit = traceBlocks ? voxelRayTracer.trace(from, direction, distance) : new HitResult();
+        if (!otherGroups.isEmpty()) {
+            float otherDistance = distance;
+            if (blockHit.isHit()) {
+                org.terasology.math.geom.Vector3f toHit = new org.terasology.math.geom.Vector3f(blockHit.getHitPoint());
+                toHit.sub(from);
+                otherDistance = toHit.length();
+            }
+            HitResult otherHit = rayTrace(from, direction, otherDistance, otherGroups.toArray(new CollisionGroup[otherGroups.size()]));
+            if (otherHit.isHit()) {
+                return otherHit;
+            }
+        }
+        if (blockHit.isHit()) {
+            Vector3i blockPos = blockHit.getBlockPosition();
+            return new HitResult(blockEntityRegistry.getEntityAt(blockPos), blockHit.getHitPoint(), blockHit.getHitNormal(), blockPos);
+        }
+        return blockHit;
+    }
+
     @Override
     public void update(float delta) {
+        awaitStep();
         processQueuedBodies();
         applyPendingImpulsesAndForces();
-        try {
-            PerformanceMonitor.startActivity("Step Simulation");
-            if (discreteDynamicsWorld.stepSimulation(delta, 8) != 0) {
-                for (BulletCharacterMoverCollider collider : entityColliders.values()) {
-                    collider.pending = false;
-                }
+        if (stepExecutor != null) {
+            requestedStepDelta = delta;
+            return;
+        }
+        PerformanceMonitor.startActivity("Step Simulation");
+        int subSteps = step(delta);
+        PerformanceMonitor.endActivity();
+        finishStep(subSteps);
+    }
+
+    @Override
+    public void beginStep() {
+        if (stepExecutor == null || requestedStepDelta < 0 || runningStep != null) {
+            return;
+        }
+        for (BulletRigidBody body : entityRigidBodies.values()) {
+            body.takeSnapshot();
+            if (body.rb.isKinematicObject() && body.rb.getMotionState() instanceof EntityMotionState) {
+                ((EntityMotionState) body.rb.getMotionState()).captureEntityTransform();
             }
-            PerformanceMonitor.endActivity();
-        } catch (Exception e) {
-            logger.error("Error running simulation step.", e);
         }
-        collisions.addAll(getNewCollisionPairs());
+        final float delta = requestedStepDelta;
+        requestedStepDelta = -1;
+        runningStep = stepExecutor.submit(() -> step(delta));
     }
 
     @Override
     public boolean removeRigidBody(EntityRef entity) {
         BulletRigidBody rigidBody = entityRigidBodies.remove(entity);
         if (rigidBody != null) {
+            awaitStep();
             removeRigidBody(rigidBody);
             // wake up this entities neighbors
             float[] radius = new float[1];
@@ -302,6 +405,7 @@ public boolean updateRigidBody(EntityRef entity) {
                     + " warning instead. Entity: {}", entity);
             return false;
         } else if (rigidBody != null) {
+            awaitStep();
             float scale = location.getWorldScale();
             if (Math.abs(rigidBody.rb.getCollisionShape().getLocalScaling(new Vector3f()).x - scale) > BulletGlobals.SIMD_EPSILON
                     || rigidBody.collidesWith != combineGroups(rb.collidesWith)) {
@@ -339,6 +443,7 @@ public boolean hasRigidBody(EntityRef entity) {
     public RigidBody getRigidBody(EntityRef entity) {
         RigidBody rb = entityRigidBodies.get(entity);
         if (rb == null) {
+            awaitStep();
             rb = newRigidBody(entity);
         }
         return rb;
@@ -348,6 +453,7 @@ public RigidBody getRigidBody(EntityRef entity) {
     public boolean removeTrigger(EntityRef entity) {
         GhostObject ghost = entityTriggers.remove(entity);
         if (ghost != null) {
+            awaitStep();
             removeCollider(ghost);
             return true;
         } else {
@@ -365,6 +471,7 @@ public boolean updateTrigger(EntityRef entity) {
             logger.warn("Trying to update or create trigger of entity that has no LocationComponent?! Entity: {}", entity);
             return false;
         }
+        awaitStep();
         if (triggerObj != null) {
             float scale = location.getWorldScale();
             if (Math.abs(triggerObj.getCollisionShape().getLocalScaling(new Vector3f()).x - scale) > BulletGlobals.SIMD_EPSILON) {
@@ -395,6 +502,7 @@ public boolean removeCharacterCollider(EntityRef entity) {
                     + "no CharacterCollider in the physics engine. Entity: {}", entity);
             return false;
         } else {
+            awaitStep();
             removeCollider(toRemove.collider);
             return true;
         }
@@ -404,6 +512,7 @@ public boolean removeCharacterCollider(EntityRef entity) {
     public CharacterCollider getCharacterCollider(EntityRef entity) {
         CharacterCollider cc = entityColliders.get(entity);
         if (cc == null) {
+            awaitStep();
             cc = createCharacterCollider(entity);
         }
         return cc;
@@ -424,8 +533,14 @@ public Iterator<EntityRef> physicsEntitiesIterator() {
         return entityRigidBodies.keySet().iterator();
     }
 
+    @Override
+    public void invalidateChunk(Vector3i chunkPos) {
+        wrapper.invalidateChunk(chunkPos);
+    }
+
     @Override
     public void awakenArea(org.terasology.math.geom.Vector3f pos, float radius) {
+        awaitStep();
         Vector3f min = new Vector3f(VecMath.to(pos));
         min.sub(new Vector3f(0.6f, 0.6f, 0.6f));
         Vector3f max = new Vector3f(VecMath.to(pos));
@@ -440,6 +555,66 @@ public float getEpsilon() {
 
     //*******************Private helper methods**************************\\
 
+    /**
+     * Runs a single simulation step. Called on the physics thread when stepping asynchronously.
+     *
+     * @return The number of fixed sub steps simulated
+     */
+    private int step(float delta) {
+        try {
+            return discreteDynamicsWorld.stepSimulation(delta, 8);
+        } catch (Exception e) {
+            logger.error("Error running simulation step.", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Publishes the results of a simulation step: marks the character colliders as simulated, collects the new
+     * collision pairs and writes buffered transforms to the entities.
+     */
+    private void finishStep(int subSteps) {
+        if (subSteps != 0) {
+            for (BulletCharacterMoverCollider collider : entityColliders.values()) {
+                collider.pending = false;
+            }
+        }
+        collisions.addAll(getNewCollisionPairs());
+        if (stepExecutor != null) {
+            for (BulletRigidBody body : entityRigidBodies.values()) {
+                if (body.rb.getMotionState() instanceof EntityMotionState) {
+                    ((EntityMotionState) body.rb.getMotionState()).publishTransform();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits for a running asynchronous step to finish and publishes its results. This is the sync point between the
+     * physics thread and the game thread; afterwards the bullet world may be used freely until the next step begins.
+     * Must be called on the game thread, unless no step can be running.
+     */
+    @Override
+    public void awaitStep() {
+        if (runningStep == null) {
+            return;
+        }
+        Future<Integer> step = runningStep;
+        runningStep = null;
+        int subSteps = 0;
+        PerformanceMonitor.startActivity("Wait for Physics Step");
+        try {
+            subSteps = step.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while waiting for the physics step");
+        } catch (ExecutionException e) {
+            logger.error("Error running simulation step.", e.getCause());
+        }
+        PerformanceMonitor.endActivity();
+        finishStep(subSteps);
+    }
+
     /**
      * Creates a new trigger.
      *
@@ -514,7 +689,7 @@ private RigidBody newRigidBody(EntityRef entity) {
             Vector3f fallInertia = new Vector3f();
             shape.calculateLocalInertia(rigidBody.mass, fallInertia);
 
-            RigidBodyConstructionInfo info = new RigidBodyConstructionInfo(rigidBody.mass, new EntityMotionState(entity), shape, fallInertia);
+            RigidBodyConstructionInfo info = new RigidBodyConstructionInfo(rigidBody.mass, new EntityMotionState(entity, stepExecutor != null, spatialIndex), shape, fallInertia);
             BulletRigidBody collider = new BulletRigidBody(info);
             collider.rb.setUserPointer(entity);
             collider.rb.setAngularFactor(VecMath.to(rigidBody.angularFactor));
@@ -684,6 +859,7 @@ private void updateKinematicSettings(RigidBodyComponent rigidBody, BulletRigidBo
     }
 
     private PairCachingGhostObject createCollider(Vector3f pos, ConvexShape shape, short groups, short filters, int collisionFlags) {
+        awaitStep();
         Transform startTransform = new Transform(new Matrix4f(new Quat4f(0, 0, 0, 1), pos, 1.0f));
         PairCachingGhostObject result = new PairCachingGhostObject();
         result.setWorldTransform(startTransform);
@@ -768,7 +944,7 @@ public RigidBodyRequest(BulletRigidBody body, short groups, short filter) {
         }
     }
 
-    private static class BulletRigidBody implements RigidBody {
+    private final class BulletRigidBody implements RigidBody {
 
         public final com.bulletphysics.dynamics.RigidBody rb;
         public short collidesWith;
@@ -776,10 +952,25 @@ private static class BulletRigidBody implements RigidBody {
         private final Vector3f pendingImpulse = new Vector3f();
         private final Vector3f pendingForce = new Vector3f();
 
+        private final Transform snapshotTransform = new Transform();
+        private final Vector3f snapshotLinearVelocity = new Vector3f();
+        private final Vector3f snapshotAngularVelocity = new Vector3f();
+        private boolean snapshotActive;
+
         BulletRigidBody(RigidBodyConstructionInfo info) {
             rb = new com.bulletphysics.dynamics.RigidBody(info);
         }
 
+        /**
+         * Copies the state of the body, to be read while an asynchronous step is changing it.
+         */
+        void takeSnapshot() {
+            rb.getWorldTransform(snapshotTransform);
+            rb.getLinearVelocity(snapshotLinearVelocity);
+            rb.getAngularVelocity(snapshotAngularVelocity);
+            snapshotActive = rb.isActive();
+        }
+
         @Override
         public void applyImpulse(org.terasology.math.geom.Vector3f impulse) {
             pendingImpulse.add(VecMath.to(impulse));
@@ -792,13 +983,18 @@ public void applyForce(org.terasology.math.geom.Vector3f force) {
 
         @Override
         public void translate(org.terasology.math.geom.Vector3f translation) {
+            awaitStep();
             rb.translate(VecMath.to(translation));
         }
 
         @Override
         public org.terasology.math.geom.Quat4f getOrientation(org.terasology.math.geom.Quat4f out) {
             Quat4f vm = VecMath.to(out);
-            rb.getOrientation(vm);
+            if (runningStep != null) {
+                snapshotTransform.getRotation(vm);
+            } else {
+                rb.getOrientation(vm);
+            }
             out.set(vm.x, vm.y, vm.z, vm.w);
             return out;
         }
@@ -806,7 +1002,11 @@ public org.terasology.math.geom.Quat4f getOrientation(org.terasology.math.geom.Q
         @Override
         public org.terasology.math.geom.Vector3f getLocation(org.terasology.math.geom.Vector3f out) {
             Vector3f vm = VecMath.to(out);
-            rb.getCenterOfMassPosition(vm);
+            if (runningStep != null) {
+                vm.set(snapshotTransform.origin);
+            } else {
+                rb.getCenterOfMassPosition(vm);
+            }
             out.set(vm.x, vm.y, vm.z);
             return out;
         }
@@ -814,7 +1014,11 @@ public org.terasology.math.geom.Vector3f getLocation(org.terasology.math.geom.Ve
         @Override
         public org.terasology.math.geom.Vector3f getLinearVelocity(org.terasology.math.geom.Vector3f out) {
             Vector3f vm = VecMath.to(out);
-            rb.getLinearVelocity(vm);
+            if (runningStep != null) {
+                vm.set(snapshotLinearVelocity);
+            } else {
+                rb.getLinearVelocity(vm);
+            }
             out.set(vm.x, vm.y, vm.z);
             return out;
         }
@@ -822,23 +1026,30 @@ public org.terasology.math.geom.Vector3f getLinearVelocity(org.terasology.math.g
         @Override
         public org.terasology.math.geom.Vector3f getAngularVelocity(org.terasology.math.geom.Vector3f out) {
             Vector3f vm = VecMath.to(out);
-            rb.getAngularVelocity(vm);
+            if (runningStep != null) {
+                vm.set(snapshotAngularVelocity);
+            } else {
+                rb.getAngularVelocity(vm);
+            }
             out.set(vm.x, vm.y, vm.z);
             return out;
         }
 
         @Override
         public void setLinearVelocity(org.terasology.math.geom.Vector3f value) {
+            awaitStep();
             rb.setLinearVelocity(VecMath.to(value));
         }
 
         @Override
         public void setAngularVelocity(org.terasology.math.geom.Vector3f value) {
+            awaitStep();
             rb.setAngularVelocity(VecMath.to(value));
         }
 
         @Override
         public void setOrientation(org.terasology.math.geom.Quat4f orientation) {
+            awaitStep();
             rb.getWorldTransform(pooledTransform);
             pooledTransform.setRotation(VecMath.to(orientation));
             rb.proceedToTransform(pooledTransform);
@@ -846,6 +1057,7 @@ public void setOrientation(org.terasology.math.geom.Quat4f orientation) {
 
         @Override
         public void setLocation(org.terasology.math.geom.Vector3f location) {
+            awaitStep();
             rb.getWorldTransform(pooledTransform);
             pooledTransform.origin.set(VecMath.to(location));
             rb.proceedToTransform(pooledTransform);
@@ -853,12 +1065,14 @@ public void setLocation(org.terasology.math.geom.Vector3f location) {
 
         @Override
         public void setVelocity(org.terasology.math.geom.Vector3f linear, org.terasology.math.geom.Vector3f angular) {
+            awaitStep();
             rb.setLinearVelocity(VecMath.to(linear));
             rb.setAngularVelocity(VecMath.to(angular));
         }
 
         @Override
         public void setTransform(org.terasology.math.geom.Vector3f location, org.terasology.math.geom.Quat4f orientation) {
+            awaitStep();
             rb.getWorldTransform(pooledTransform);
             pooledTransform.origin.set(VecMath.to(location));
             pooledTransform.setRotation(VecMath.to(orientation));
@@ -867,6 +1081,9 @@ public void setTransform(org.terasology.math.geom.Vector3f location, org.terasol
 
         @Override
         public boolean isActive() {
+            if (runningStep != null) {
+                return snapshotActive;
+            }
             return rb.isActive();
         }
     }
@@ -901,12 +1118,14 @@ public boolean isPending() {
 
         @Override
         public org.terasology.math.geom.Vector3f getLocation() {
+            // the step reads, but never moves, character colliders
             collider.getWorldTransform(temp);
             return new org.terasology.math.geom.Vector3f(temp.origin.x, temp.origin.y, temp.origin.z);
         }
 
         @Override
         public void setLocation(org.terasology.math.geom.Vector3f loc) {
+            awaitStep();
             collider.getWorldTransform(temp);
             temp.origin.set(VecMath.to(loc));
             collider.setWorldTransform(temp);
@@ -914,12 +1133,15 @@ public void setLocation(org.terasology.math.geom.Vector3f loc) {
 
         @Override
         public BulletSweepCallback sweep(org.terasology.math.geom.Vector3f startPos, org.terasology.math.geom.Vector3f endPos, float allowedPenetration, float slopeFactor) {
+            awaitStep();
             Transform startTransform = new Transform(new Matrix4f(new Quat4f(0, 0, 0, 1), VecMath.to(startPos), 1.0f));
             Transform endTransform = new Transform(new Matrix4f(new Quat4f(0, 0, 0, 1), VecMath.to(endPos), 1.0f));
             BulletSweepCallback callback = new BulletSweepCallback(collider, new org.terasology.math.geom.Vector3f(0, 1, 0), slopeFactor);
             callback.collisionFilterGroup = collider.getBroadphaseHandle().collisionFilterGroup;
             callback.collisionFilterMask = collider.getBroadphaseHandle().collisionFilterMask;
-            collider.convexSweepTest((ConvexShape) (collider.getCollisionShape()), startTransform, endTransform, callback, allowedPenetration);
+            synchronized (sweepLock) {
+                collider.convexSweepTest((ConvexShape) (collider.getCollisionShape()), startTransform, endTransform, callback, allowedPenetration);
+            }
             return callback;
         }
     }
@@ -20,6 +20,7 @@
 import com.bulletphysics.linearmath.Transform;
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.logic.location.LocationComponent;
+import org.terasology.logic.location.SpatialIndex;
 import org.terasology.math.VecMath;
 
 /**
@@ -31,6 +32,12 @@
 public class EntityMotionState extends MotionState {
     private EntityRef entity;
 
+    private final boolean buffered;
+    private final SpatialIndex spatialIndex;
+    private final Transform buffer = new Transform();
+    private boolean entityTransformCaptured;
+    private boolean bufferChanged;
+
     /**
      * Only the BulletPhysics class is expected to create instances.
      *
@@ -38,11 +45,63 @@ public class EntityMotionState extends MotionState {
      *               LocationComponent of.
      */
     EntityMotionState(EntityRef entity) {
+        this(entity, false, null);
+    }
+
+    /**
+     * @param entity   The entity to relate this motion state to and set the LocationComponent of.
+     * @param buffered Whether bullet runs on another thread than the entity system. Buffered motion states never
+     *                 touch the entity while bullet uses them; the transform is exchanged through
+     *                 {@link #captureEntityTransform()} and {@link #publishTransform()} instead.
+     * @param spatialIndex The index to tell when the entity is moved, or null
+     */
+    EntityMotionState(EntityRef entity, boolean buffered, SpatialIndex spatialIndex) {
         this.entity = entity;
+        this.buffered = buffered;
+        this.spatialIndex = spatialIndex;
     }
 
     @Override
     public Transform getWorldTransform(Transform transform) {
+        if (buffered && entityTransformCaptured) {
+            transform.set(buffer);
+            return transform;
+        }
+        return readEntityTransform(transform);
+    }
+
+    @Override
+    public void setWorldTransform(Transform transform) {
+        if (buffered) {
+            buffer.set(transform);
+            bufferChanged = true;
+        } else {
+            writeEntityTransform(transform);
+        }
+    }
+
+    /**
+     * Copies the transform of the entity into the buffer, for kinematic bodies that bullet reads on every step.
+     * Must be called on the game thread while no step is running.
+     */
+    void captureEntityTransform() {
+        readEntityTransform(buffer);
+        entityTransformCaptured = true;
+        bufferChanged = false;
+    }
+
+    /**
+     * Writes the transform bullet has set since the last call to the entity.
+     * Must be called on the game thread while no step is running.
+     */
+    void publishTransform() {
+        if (bufferChanged) {
+            bufferChanged = false;
+            writeEntityTransform(buffer);
+        }
+    }
+
+    private Transform readEntityTransform(Transform transform) {
         LocationComponent loc = entity.getComponent(LocationComponent.class);
         if (loc != null) {
             // NOTE: JBullet ignores scale anyway
@@ -51,12 +110,15 @@ public Transform getWorldTransform(Transform transform) {
         return transform;
     }
 
-    @Override
-    public void setWorldTransform(Transform transform) {
+    private void writeEntityTransform(Transform transform) {
         LocationComponent loc = entity.getComponent(LocationComponent.class);
         if (loc != null) {
             loc.setWorldPosition(VecMath.from(transform.origin));
             loc.setWorldRotation(VecMath.from(transform.getRotation(new javax.vecmath.Quat4f())));
+            // the location is not saved, so the index has to be told
+            if (spatialIndex != null) {
+                spatialIndex.markMoved(entity);
+            }
         }
     }
 
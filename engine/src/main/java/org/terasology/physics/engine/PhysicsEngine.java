@@ -18,6 +18,7 @@
 
 import org.terasology.entitySystem.entity.EntityRef;
 import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
 import org.terasology.physics.CollisionGroup;
 import org.terasology.physics.Physics;
 
@@ -41,6 +42,13 @@ public interface PhysicsEngine extends Physics {
      */
     void awakenArea(Vector3f pos, float radius);
 
+    /**
+     * Discards any collision data the engine has cached for the given chunk. Called when a chunk is loaded or unloaded.
+     *
+     * @param chunkPos The position of the chunk, in chunk coordinates.
+     */
+    void invalidateChunk(Vector3i chunkPos);
+
     /**
      * Combines the flags of the given collision groups into a single flag.
      *
@@ -205,11 +213,26 @@ public interface PhysicsEngine extends Physics {
      * Advances the physics engine with the given amount of time in seconds. As
      * long as this time does not exceed 8/60 seconds, the game speed will be
      * constant.
+     * <br><br>
+     * An engine that steps asynchronously instead finishes the step started by the last {@link #beginStep()}, and
+     * only simulates the given time once {@link #beginStep()} is called again.
      *
      * @param delta amount of time to advance the engine in seconds.
      */
     void update(float delta);
 
+    /**
+     * Starts the simulation step requested by the last {@link #update(float)} on the physics thread, if the engine
+     * steps asynchronously. Engines that step synchronously have already done so in update, and ignore this.
+     */
+    void beginStep();
+
+    /**
+     * Waits for a step started by {@link #beginStep()} to finish. Afterwards the engine does not change until it is
+     * modified or stepped again, so character colliders may be swept from several threads meanwhile.
+     */
+    void awaitStep();
+
     /**
      * Updates the shape and settings of the rigidBody belonging to the given
      * entity. If the given entity had no rigidBody in the physics engine, it
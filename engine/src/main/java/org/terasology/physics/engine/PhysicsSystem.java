@@ -48,7 +48,10 @@
 import org.terasology.physics.events.ImpactEvent;
 import org.terasology.registry.In;
 import org.terasology.world.OnChangedBlock;
+import org.terasology.world.WorldComponent;
 import org.terasology.world.block.BlockComponent;
+import org.terasology.world.chunks.event.BeforeChunkUnload;
+import org.terasology.world.chunks.event.OnChunkLoaded;
 
 import java.util.Iterator;
 import java.util.List;
@@ -138,6 +141,16 @@ public void onBlockAltered(OnChangedBlock event, EntityRef entity) {
         physics.awakenArea(event.getBlockPosition().toVector3f(), 0.6f);
     }
 
+    @ReceiveEvent(components = WorldComponent.class)
+    public void onChunkLoaded(OnChunkLoaded event, EntityRef entity) {
+        physics.invalidateChunk(event.getChunkPos());
+    }
+
+    @ReceiveEvent(components = WorldComponent.class)
+    public void onChunkUnloaded(BeforeChunkUnload event, EntityRef entity) {
+        physics.invalidateChunk(event.getChunkPos());
+    }
+
     @ReceiveEvent()
     public void onItemImpact(ImpactEvent event, EntityRef entity) {
         RigidBody rigidBody = physics.getRigidBody(entity);
@@ -192,6 +205,8 @@ public void update(float delta) {
                 pair.b.send(new CollideEvent(pair.a));
             }
         }
+
+        physics.beginStep();
     }
 
     private void sendSyncMessages() {
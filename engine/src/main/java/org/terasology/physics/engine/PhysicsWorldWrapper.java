@@ -19,48 +19,229 @@
 import com.bulletphysics.collision.shapes.CollisionShape;
 import com.bulletphysics.collision.shapes.voxel.VoxelInfo;
 import com.bulletphysics.collision.shapes.voxel.VoxelPhysicsWorld;
+import com.google.common.collect.Maps;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import org.terasology.math.ChunkMath;
 import org.terasology.math.VecMath;
-import org.terasology.math.geom.Vector3f;
 import org.terasology.math.geom.Vector3i;
+import org.terasology.world.WorldChangeListener;
 import org.terasology.world.WorldProvider;
+import org.terasology.world.biomes.Biome;
 import org.terasology.world.block.Block;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * This class links Terasology's voxel world with the physics engine, providing it with the collision information for each block location.
+ * <br><br>
+ * The broadphase asks for every block around every moving body each step, so the answers are cached per chunk: two bits per
+ * block record whether the block has been looked up and whether it has a collision shape at all. Blocks without a shape are
+ * answered without touching the world, and the collision data of the other blocks is shared between all blocks of a type.
+ * Only loaded chunks are cached. The cache of a chunk is dropped when it is (re)loaded or unloaded, and single entries
+ * are updated when a block changes.
+ * <br><br>
+ * The physics engine may query the wrapper from its own thread. Changes are therefore only queued by the notifying
+ * thread and applied by the querying one, before its next lookup. Lookups themselves are synchronized, as character
+ * sweeps may be run from several threads at once.
  *
  */
-public class PhysicsWorldWrapper implements VoxelPhysicsWorld {
+public class PhysicsWorldWrapper implements VoxelPhysicsWorld, WorldChangeListener {
+
+    private static final int BITS_PER_CHUNK = ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z;
+
+    private static final BlockCollisionInfo EMPTY = new BlockCollisionInfo();
 
     private WorldProvider world;
 
+    private final TLongObjectMap<ChunkCollisionFlags> chunkFlags = new TLongObjectHashMap<>();
+    private final Map<Block, BlockCollisionInfo> blockInfo = Maps.newHashMap();
+    private final Queue<PendingChange> pendingChanges = new ConcurrentLinkedQueue<>();
+
+    private long lastChunkKey;
+    private ChunkCollisionFlags lastChunkFlags;
+
     public PhysicsWorldWrapper(WorldProvider world) {
         this.world = world;
+        world.registerListener(this);
     }
 
     @Override
-    public VoxelInfo getCollisionShapeAt(int x, int y, int z) {
+    public synchronized VoxelInfo getCollisionShapeAt(int x, int y, int z) {
+        if (!pendingChanges.isEmpty()) {
+            applyPendingChanges();
+        }
+        ChunkCollisionFlags flags = getChunkFlags(x, y, z);
+        int index = blockIndex(x, y, z);
+        if (flags != null && flags.isKnown(index) && !flags.hasShape(index)) {
+            return EMPTY;
+        }
+
         Block block = world.getBlock(x, y, z);
-        return new TeraVoxelInfo(block, block.isTargetable(), !block.isPenetrable(), new Vector3i(x, y, z));
+        BlockCollisionInfo info = getBlockInfo(block);
+        if (flags != null) {
+            flags.set(index, info != EMPTY);
+        }
+        if (info == EMPTY) {
+            return EMPTY;
+        }
+        return new PositionedVoxelInfo(info, x, y, z);
     }
 
-    public void dispose() {
+    @Override
+    public void onBlockChanged(Vector3i pos, Block newBlock, Block originalBlock) {
+        pendingChanges.add(new PendingChange(new Vector3i(pos), newBlock));
+    }
+
+    @Override
+    public void onBiomeChanged(Vector3i pos, Biome newBiome, Biome originalBiome) {
+    }
+
+    /**
+     * Drops the cached collision flags of a chunk. Must be called whenever a chunk is loaded or unloaded, as the blocks
+     * of a chunk change without block change notifications in both cases.
+     *
+     * @param chunkPos The position of the chunk, in chunk coordinates
+     */
+    public void invalidateChunk(Vector3i chunkPos) {
+        pendingChanges.add(new PendingChange(new Vector3i(chunkPos), null));
+    }
+
+    public synchronized void dispose() {
+        world.unregisterListener(this);
         world = null;
+        chunkFlags.clear();
+        blockInfo.clear();
+        pendingChanges.clear();
+        lastChunkFlags = null;
     }
 
-    private static class TeraVoxelInfo implements VoxelInfo {
+    private void applyPendingChanges() {
+        PendingChange change;
+        while ((change = pendingChanges.poll()) != null) {
+            Vector3i pos = change.position;
+            if (change.block == null) {
+                long key = chunkKey(pos.x, pos.y, pos.z);
+                chunkFlags.remove(key);
+                if (lastChunkFlags != null && lastChunkKey == key) {
+                    lastChunkFlags = null;
+                }
+            } else {
+                long key = chunkKey(ChunkMath.calcChunkPosX(pos.x), ChunkMath.calcChunkPosY(pos.y), ChunkMath.calcChunkPosZ(pos.z));
+                ChunkCollisionFlags flags = chunkFlags.get(key);
+                if (flags != null) {
+                    flags.set(blockIndex(pos.x, pos.y, pos.z), getBlockInfo(change.block) != EMPTY);
+                }
+            }
+        }
+    }
 
-        private boolean colliding;
-        private boolean blocking;
-        private CollisionShape shape;
-        private Vector3i position;
-        private Vector3f offset;
+    /**
+     * @return The cached flags of the chunk containing the block, or null if the chunk is not loaded. The blocks of
+     * chunks that are not loaded are not cached, as nothing would drop the flags of a chunk that is never loaded.
+     */
+    private ChunkCollisionFlags getChunkFlags(int x, int y, int z) {
+        long key = chunkKey(ChunkMath.calcChunkPosX(x), ChunkMath.calcChunkPosY(y), ChunkMath.calcChunkPosZ(z));
+        if (lastChunkFlags != null && lastChunkKey == key) {
+            return lastChunkFlags;
+        }
+        ChunkCollisionFlags flags = chunkFlags.get(key);
+        if (flags == null) {
+            if (!world.isBlockRelevant(x, y, z)) {
+                return null;
+            }
+            flags = new ChunkCollisionFlags();
+            chunkFlags.put(key, flags);
+        }
+        lastChunkKey = key;
+        lastChunkFlags = flags;
+        return flags;
+    }
 
-        public TeraVoxelInfo(Block block, boolean colliding, boolean blocking, Vector3i position) {
-            this.shape = block.getCollisionShape();
-            this.offset = block.getCollisionOffset();
-            this.colliding = shape != null && colliding;
-            this.blocking = shape != null && blocking;
+    private BlockCollisionInfo getBlockInfo(Block block) {
+        if (block.getCollisionShape() == null) {
+            return EMPTY;
+        }
+        BlockCollisionInfo info = blockInfo.get(block);
+        if (info == null) {
+            info = new BlockCollisionInfo(block);
+            blockInfo.put(block, info);
+        }
+        return info;
+    }
+
+    private static long chunkKey(int chunkX, int chunkY, int chunkZ) {
+        return ((chunkX & 0x1FFFFFL) << 42) | ((chunkY & 0x1FFFFFL) << 21) | (chunkZ & 0x1FFFFFL);
+    }
+
+    private static int blockIndex(int x, int y, int z) {
+        return (ChunkMath.calcBlockPosY(y) * ChunkConstants.SIZE_Z + ChunkMath.calcBlockPosZ(z)) * ChunkConstants.SIZE_X + ChunkMath.calcBlockPosX(x);
+    }
+
+    /**
+     * A changed block, or a chunk to forget if there is no block.
+     */
+    private static final class PendingChange {
+        private final Vector3i position;
+        private final Block block;
+
+        PendingChange(Vector3i position, Block block) {
             this.position = position;
+            this.block = block;
+        }
+    }
+
+    /**
+     * Two bit sets over the blocks of a chunk: whether a block has been looked up, and if so whether it has a collision shape.
+     */
+    private static final class ChunkCollisionFlags {
+        private final long[] known = new long[BITS_PER_CHUNK / Long.SIZE];
+        private final long[] shaped = new long[BITS_PER_CHUNK / Long.SIZE];
+
+        boolean isKnown(int index) {
+            return (known[index >>> 6] & (1L << index)) != 0;
+        }
+
+        boolean hasShape(int index) {
+            return (shaped[index >>> 6] & (1L << index)) != 0;
+        }
+
+        void set(int index, boolean hasShape) {
+            known[index >>> 6] |= 1L << index;
+            if (hasShape) {
+                shaped[index >>> 6] |= 1L << index;
+            } else {
+                shaped[index >>> 6] &= ~(1L << index);
+            }
+        }
+    }
+
+    /**
+     * The collision data shared by all blocks of one type. The instance without a block is returned directly for blocks
+     * that have no collision shape; nothing can collide with those, so they need no position.
+     */
+    private static class BlockCollisionInfo implements VoxelInfo {
+
+        private final boolean colliding;
+        private final boolean blocking;
+        private final CollisionShape shape;
+        private final javax.vecmath.Vector3f offset;
+
+        BlockCollisionInfo() {
+            this.colliding = false;
+            this.blocking = false;
+            this.shape = null;
+            this.offset = new javax.vecmath.Vector3f();
+        }
+
+        BlockCollisionInfo(Block block) {
+            this.shape = block.getCollisionShape();
+            this.offset = VecMath.to(block.getCollisionOffset());
+            this.colliding = shape != null && block.isTargetable();
+            this.blocking = shape != null && !block.isPenetrable();
         }
 
         @Override
@@ -70,7 +251,7 @@ public boolean isColliding() {
 
         @Override
         public Object getUserData() {
-            return position;
+            return null;
         }
 
         @Override
@@ -80,7 +261,7 @@ public CollisionShape getCollisionShape() {
 
         @Override
         public javax.vecmath.Vector3f getCollisionOffset() {
-            return VecMath.to(offset);
+            return new javax.vecmath.Vector3f(offset);
         }
 
         @Override
@@ -88,4 +269,48 @@ public boolean isBlocking() {
             return blocking;
         }
     }
+
+    /**
+     * A block with a collision shape at a specific position. The position is handed out as user data so that ray casts
+     * can tell which block they hit.
+     */
+    private static final class PositionedVoxelInfo implements VoxelInfo {
+
+        private final BlockCollisionInfo info;
+        private final int x;
+        private final int y;
+        private final int z;
+
+        PositionedVoxelInfo(BlockCollisionInfo info, int x, int y, int z) {
+            this.info = info;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        @Override
+        public boolean isColliding() {
+            return info.colliding;
+        }
+
+        @Override
+        public Object getUserData() {
+            return new Vector3i(x, y, z);
+        }
+
+        @Override
+        public CollisionShape getCollisionShape() {
+            return info.shape;
+        }
+
+        @Override
+        public javax.vecmath.Vector3f getCollisionOffset() {
+            return new javax.vecmath.Vector3f(info.offset);
+        }
+
+        @Override
+        public boolean isBlocking() {
+            return info.blocking;
+        }
+    }
 }
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.physics.engine;
+
+import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.math.AABB;
+import org.terasology.math.TeraMath;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.physics.HitResult;
+import org.terasology.world.WorldProvider;
+import org.terasology.world.block.Block;
+
+/**
+ * Traces rays through the block grid of a world, without going through the physics engine.
+ * <br><br>
+ * The ray visits the blocks it passes one after the other (Amanatides and Woo's grid traversal), and is tested against
+ * the collision bounds of every targetable block with a collision shape. Only the first few blocks along the ray are
+ * ever looked at, which makes this much cheaper than a bullet ray test for picking blocks.
+ * <br><br>
+ * The returned hit results are world hits without an entity; it is up to the caller to look up the block entity.
+ */
+public class VoxelRayTracer {
+
+    private static final int AXIS_X = 0;
+    private static final int AXIS_Y = 1;
+    private static final int AXIS_Z = 2;
+
+    private final WorldProvider world;
+
+    public VoxelRayTracer(WorldProvider world) {
+        this.world = world;
+    }
+
+    /**
+     * @param from      The start of the ray. A block containing it cannot be hit.
+     * @param direction The direction of the ray, need not be normalized
+     * @param distance  The length of the ray
+     * @return The first block hit, or a result without a hit
+     */
+    public HitResult trace(Vector3f from, Vector3f direction, float distance) {
+        float length = direction.length();
+        if (length == 0) {
+            return new HitResult();
+        }
+        float dirX = direction.x / length;
+        float dirY = direction.y / length;
+        float dirZ = direction.z / length;
+
+        // Blocks are centred on integer coordinates, so the grid cell of a point is found after shifting by half a block
+        int x = TeraMath.floorToInt(from.x + 0.5f);
+        int y = TeraMath.floorToInt(from.y + 0.5f);
+        int z = TeraMath.floorToInt(from.z + 0.5f);
+        int stepX = (int) Math.signum(dirX);
+        int stepY = (int) Math.signum(dirY);
+        int stepZ = (int) Math.signum(dirZ);
+        float deltaX = Math.abs(1f / dirX);
+        float deltaY = Math.abs(1f / dirY);
+        float deltaZ = Math.abs(1f / dirZ);
+        float maxX = distanceToBoundary(from.x + 0.5f, x, stepX, deltaX);
+        float maxY = distanceToBoundary(from.y + 0.5f, y, stepY, deltaY);
+        float maxZ = distanceToBoundary(from.z + 0.5f, z, stepZ, deltaZ);
+
+        float best = Float.POSITIVE_INFINITY;
+        int bestAxis = AXIS_X;
+        Vector3i bestBlock = null;
+        int[] hitAxis = new int[1];
+        float cellEntry = 0;
+        while (cellEntry <= distance && cellEntry <= best) {
+            Block block = world.getBlock(x, y, z);
+            if (block.getCollisionShape() != null && block.isTargetable()) {
+                Vector3i blockPos = new Vector3i(x, y, z);
+                float t = intersect(block.getBounds(blockPos), from, dirX, dirY, dirZ, hitAxis);
+                if (t >= 0 && t <= distance && t < best) {
+                    best = t;
+                    bestAxis = hitAxis[0];
+                    bestBlock = blockPos;
+                }
+            }
+
+            if (maxX < maxY && maxX < maxZ) {
+                x += stepX;
+                cellEntry = maxX;
+                maxX += deltaX;
+            } else if (maxY < maxZ) {
+                y += stepY;
+                cellEntry = maxY;
+                maxY += deltaY;
+            } else {
+                z += stepZ;
+                cellEntry = maxZ;
+                maxZ += deltaZ;
+            }
+        }
+
+        if (bestBlock == null) {
+            return new HitResult();
+        }
+        Vector3f hitPoint = new Vector3f(from.x + dirX * best, from.y + dirY * best, from.z + dirZ * best);
+        Vector3f hitNormal = new Vector3f();
+        switch (bestAxis) {
+            case AXIS_X:
+                hitNormal.x = -Math.signum(dirX);
+                break;
+            case AXIS_Y:
+                hitNormal.y = -Math.signum(dirY);
+                break;
+            default:
+                hitNormal.z = -Math.signum(dirZ);
+                break;
+        }
+        return new HitResult(EntityRef.NULL, hitPoint, hitNormal, bestBlock);
+    }
+
+    private static float distanceToBoundary(float gridPos, int cell, int step, float delta) {
+        if (step > 0) {
+            return (cell + 1 - gridPos) * delta;
+        } else if (step < 0) {
+            return (gridPos - cell) * delta;
+        }
+        return Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Slab test of a ray against a box.
+     *
+     * @param hitAxis Receives the axis of the face the ray enters through
+     * @return The distance along the ray at which it enters the box, or -1 if it misses the box or starts inside it
+     */
+    private static float intersect(AABB box, Vector3f from, float dirX, float dirY, float dirZ, int[] hitAxis) {
+        float enter = Float.NEGATIVE_INFINITY;
+        float exit = Float.POSITIVE_INFINITY;
+
+        if (dirX != 0) {
+            float t1 = (box.minX() - from.x) / dirX;
+            float t2 = (box.maxX() - from.x) / dirX;
+            enter = Math.min(t1, t2);
+            exit = Math.max(t1, t2);
+            hitAxis[0] = AXIS_X;
+        } else if (from.x < box.minX() || from.x > box.maxX()) {
+            return -1;
+        }
+
+        if (dirY != 0) {
+            float t1 = (box.minY() - from.y) / dirY;
+            float t2 = (box.maxY() - from.y) / dirY;
+            float near = Math.min(t1, t2);
+            if (near > enter) {
+                enter = near;
+                hitAxis[0] = AXIS_Y;
+            }
+            exit = Math.min(exit, Math.max(t1, t2));
+        } else if (from.y < box.minY() || from.y > box.maxY()) {
+            return -1;
+        }
+
+        if (dirZ != 0) {
+            float t1 = (box.minZ() - from.z) / dirZ;
+            float t2 = (box.maxZ() - from.z) / dirZ;
+            float near = Math.min(t1, t2);
+            if (near > enter) {
+                enter = near;
+                hitAxis[0] = AXIS_Z;
+            }
+            exit = Math.min(exit, Math.max(t1, t2));
+        } else if (from.z < box.minZ() || from.z > box.maxZ()) {
+            return -1;
+        }
+
+        if (enter > exit || enter < 0) {
+            return -1;
+        }
+        return enter;
+    }
+}
@@ -157,6 +157,14 @@ public CopyStrategy<?> getStrategy(Type genericType) {
         }
     }
 
+    /**
+     * @param strategy A copy strategy
+     * @return Whether the strategy returns values unaltered, as is the case for primitives, immutables and unknown types
+     */
+    public static boolean isReturnedAsIs(CopyStrategy<?> strategy) {
+        return strategy instanceof ReturnAsIsStrategy;
+    }
+
     /**
      * @return a copy of the this library that uses the specified stategy for the specified type.
      */
@@ -19,6 +19,7 @@
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
@@ -28,6 +29,7 @@
 import org.terasology.engine.SimpleUri;
 import org.terasology.reflection.copy.CopyStrategy;
 import org.terasology.reflection.copy.CopyStrategyLibrary;
+import org.terasology.reflection.reflect.FieldCopier;
 import org.terasology.reflection.reflect.InaccessibleFieldException;
 import org.terasology.reflection.reflect.ObjectConstructor;
 import org.terasology.reflection.reflect.ReflectFactory;
@@ -36,6 +38,7 @@
 import java.lang.reflect.Modifier;
 import java.security.Permission;
 import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -58,6 +61,8 @@
     private final ObjectConstructor<T> constructor;
     private Map<String, FIELD> fields = Maps.newHashMap();
     private TIntObjectMap<FIELD> fieldsById = new TIntObjectHashMap<>();
+    private FieldCopier<T> copier;
+    private List<FIELD> fieldsNotCopiedByCopier;
 
     /**
      * Creates a class metatdata
@@ -83,6 +88,9 @@ public ClassMetadata(SimpleUri uri, Class<T> type, ReflectFactory factory, CopyS
         }
 
         addFields(copyStrategyLibrary, factory, includedFieldPredicate);
+        if (constructor != null) {
+            createCopier(factory);
+        }
     }
 
     public final SimpleUri getUri() {
@@ -114,6 +122,30 @@ private void addFields(CopyStrategyLibrary copyStrategyLibrary, ReflectFactory f
         }
     }
 
+    /**
+     * Obtains a copier from the reflect factory for the fields of this class, if it provides one. Fields it does not
+     * cover are copied through their accessors.
+     *
+     * @param factory The reflection provider
+     */
+    private void createCopier(ReflectFactory factory) {
+        List<Field> javaFields = Lists.newArrayListWithCapacity(fields.size());
+        List<CopyStrategy<?>> strategies = Lists.newArrayListWithCapacity(fields.size());
+        for (FIELD field : fields.values()) {
+            javaFields.add(field.getField());
+            strategies.add(field.getCopyStrategy());
+        }
+        copier = factory.createFieldCopier(clazz, javaFields, strategies);
+        if (copier != null) {
+            fieldsNotCopiedByCopier = Lists.newArrayList();
+            for (FIELD field : fields.values()) {
+                if (!copier.covers(field.getField())) {
+                    fieldsNotCopiedByCopier.add(field);
+                }
+            }
+        }
+    }
+
     /**
      * Creates the FieldMetadata describing a field
      *
@@ -173,8 +205,15 @@ public T newInstance() {
     public T copy(T object) {
         T result = constructor.construct();
         if (result != null) {
-            for (FIELD field : fields.values()) {
-                field.setValue(result, field.getCopyOfValue(object));
+            if (copier != null) {
+                copier.copyFields(object, result);
+                for (FIELD field : fieldsNotCopiedByCopier) {
+                    field.setValue(result, field.getCopyOfValue(object));
+                }
+            } else {
+                for (FIELD field : fields.values()) {
+                    field.setValue(result, field.getCopyOfValue(object));
+                }
             }
         }
         return result;
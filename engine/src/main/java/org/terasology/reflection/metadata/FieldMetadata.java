@@ -104,6 +104,13 @@ public Field getField() {
         return field;
     }
 
+    /**
+     * @return The strategy used to copy the value of this field
+     */
+    public CopyStrategy<U> getCopyStrategy() {
+        return copyStrategy;
+    }
+
     /**
      * @return The type of the field
      */
@@ -17,6 +17,8 @@
 
 import com.esotericsoftware.reflectasm.FieldAccess;
 import com.esotericsoftware.reflectasm.MethodAccess;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import javassist.CannotCompileException;
 import javassist.ClassPool;
 import javassist.CtClass;
@@ -25,12 +27,17 @@
 import javassist.NotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.reflection.copy.CopyStrategy;
+import org.terasology.reflection.copy.CopyStrategyLibrary;
 import org.terasology.utilities.ReflectionUtil;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 /**
  */
@@ -98,10 +105,138 @@ public <T, U> FieldAccessor<T, U> createFieldAccessor(Class<T> ownerType, Field
         }
     }
 
+    @Override
+    public <T> FieldCopier<T> createFieldCopier(Class<T> ownerType, List<Field> fields, List<CopyStrategy<?>> strategies) {
+        if (Modifier.isPrivate(ownerType.getModifiers()) || ownerType.isAnonymousClass() || ownerType.isLocalClass()) {
+            return null;
+        }
+        List<Field> coveredFields = Lists.newArrayList();
+        List<CopyStrategy> coveredStrategies = Lists.newArrayList();
+        StringBuilder source = new StringBuilder();
+        source.append("public void copyFields(Object from, Object to, ").append(CopyStrategy.class.getName()).append("[] strategies) {");
+        source.append(ownerType.getName()).append(" f = (").append(ownerType.getName()).append(") from;");
+        source.append(ownerType.getName()).append(" t = (").append(ownerType.getName()).append(") to;");
+        for (int i = 0; i < fields.size(); ++i) {
+            Field field = fields.get(i);
+            CopyStrategy<?> strategy = strategies.get(i);
+            if (!isDirectlyAccessible(ownerType, field) || field.getType().isArray()) {
+                continue;
+            }
+            if (field.getType().isPrimitive() || CopyStrategyLibrary.isReturnedAsIs(strategy)) {
+                source.append("t.").append(field.getName()).append(" = f.").append(field.getName()).append(";");
+            } else {
+                source.append("t.").append(field.getName()).append(" = (").append(field.getType().getName()).append(") strategies[")
+                        .append(coveredStrategies.size()).append("].copy(f.").append(field.getName()).append(");");
+                coveredStrategies.add(strategy);
+            }
+            coveredFields.add(field);
+        }
+        source.append("}");
+        if (coveredFields.isEmpty()) {
+            return null;
+        }
+
+        // The generated class depends on which strategies are shallow, so a copy of the library with different
+        // strategies must not reuse it
+        String suffix = "_ReflectCopier" + Integer.toHexString(source.toString().hashCode());
+        GeneratedFieldCopier copier = createImplementation(ownerType, suffix, GeneratedFieldCopier.class, Collections.singletonList(source.toString()));
+        if (copier == null) {
+            return null;
+        }
+        return new ByteCodeFieldCopier<>(copier, coveredFields, coveredStrategies.toArray(new CopyStrategy[coveredStrategies.size()]));
+    }
+
+    /**
+     * @param ownerType The type the field is accessed through
+     * @param field     A field of the type
+     * @return Whether generated code placed next to ownerType can read and write the field directly, with the same
+     * effect as going through a FieldAccessor for it (that is, the field has no getter or setter)
+     */
+    public static boolean isDirectlyAccessible(Class<?> ownerType, Field field) {
+        int modifiers = field.getModifiers();
+        if (Modifier.isPrivate(modifiers) || Modifier.isFinal(modifiers) || Modifier.isStatic(modifiers)) {
+            return false;
+        }
+        if (!Modifier.isPublic(modifiers) && !getPackageName(field.getDeclaringClass()).equals(getPackageName(ownerType))) {
+            return false;
+        }
+        return ReflectionUtil.findGetter(field) == null && ReflectionUtil.findSetter(field) == null;
+    }
+
+    private static String getPackageName(Class<?> type) {
+        int lastDot = type.getName().lastIndexOf('.');
+        return (lastDot == -1) ? "" : type.getName().substring(0, lastDot);
+    }
+
+    /**
+     * Generates a class implementing the given interface, placed next to the given type so that the method bodies can
+     * access its non-private members directly. The class is named after the type with the given suffix, and is reused
+     * if it has already been generated in the type's class loader.
+     * <br><br>
+     * Method sources use Javassist syntax: no generics or autoboxing, and nested classes are referred to by binary name.
+     *
+     * @param type          The type the generated class works with
+     * @param suffix        Appended to the name of type to name the generated class
+     * @param interfaceType The interface the generated class implements
+     * @param methodSources The source of each method of the generated class
+     * @return An instance of the generated class, or null if it could not be generated
+     */
+    public <T> T createImplementation(Class<?> type, String suffix, Class<T> interfaceType, List<String> methodSources) {
+        String className = type.getName() + suffix;
+        try {
+            return interfaceType.cast(type.getClassLoader().loadClass(className).getConstructor().newInstance());
+        } catch (ClassNotFoundException ignored) {
+            try {
+                CtClass generatedClass = pool.makeClass(className);
+                generatedClass.setInterfaces(new CtClass[]{pool.get(interfaceType.getName())});
+                for (String methodSource : methodSources) {
+                    generatedClass.addMethod(CtNewMethod.make(methodSource, generatedClass));
+                }
+                return interfaceType.cast(generatedClass.toClass(type.getClassLoader(), type.getProtectionDomain()).getConstructor().newInstance());
+            } catch (NotFoundException | CannotCompileException | InstantiationException | IllegalAccessException
+                    | InvocationTargetException | NoSuchMethodException e) {
+                logger.warn("Failed to generate {} for '{}'", interfaceType.getSimpleName(), type, e);
+                return null;
+            }
+        } catch (InvocationTargetException | InstantiationException | IllegalAccessException | NoSuchMethodException e) {
+            logger.warn("Failed to instantiate {} for '{}'", interfaceType.getSimpleName(), type, e);
+            return null;
+        }
+    }
+
     public void setClassPool(ClassPool classPool) {
         pool = classPool;
     }
 
+    /**
+     * Implemented by generated field copiers. Public so that generated classes in other packages can implement it.
+     */
+    public interface GeneratedFieldCopier {
+        void copyFields(Object from, Object to, CopyStrategy[] strategies);
+    }
+
+    private static class ByteCodeFieldCopier<T> implements FieldCopier<T> {
+        private final GeneratedFieldCopier copier;
+        private final Set<Field> coveredFields;
+        private final CopyStrategy[] strategies;
+
+        ByteCodeFieldCopier(GeneratedFieldCopier copier, List<Field> coveredFields, CopyStrategy[] strategies) {
+            this.copier = copier;
+            this.coveredFields = ImmutableSet.copyOf(coveredFields);
+            this.strategies = strategies;
+        }
+
+        @Override
+        public boolean covers(Field field) {
+            return coveredFields.contains(field);
+        }
+
+        @Override
+        public void copyFields(T from, T to) {
+            copier.copyFields(from, to, strategies);
+        }
+    }
+
     private static class ReflectASMFieldAccessor<T, U> implements FieldAccessor<T, U> {
 
         private static final int NO_METHOD = -1;
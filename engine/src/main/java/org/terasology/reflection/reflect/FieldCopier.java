@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.reflection.reflect;
+
+import java.lang.reflect.Field;
+
+/**
+ * Copies a set of fields from one instance of a type to another in one go, rather than through a FieldAccessor per field.
+ *
+ * @param <T> The type whose fields are copied
+ */
+public interface FieldCopier<T> {
+
+    /**
+     * @param field A field of the type
+     * @return Whether the field is copied by this copier
+     */
+    boolean covers(Field field);
+
+    /**
+     * Copies each covered field of from onto to, using the field's copy strategy where a shallow copy is not safe.
+     *
+     * @param from The object to copy from
+     * @param to   The object to copy onto
+     */
+    void copyFields(T from, T to);
+}
@@ -15,7 +15,10 @@
  */
 package org.terasology.reflection.reflect;
 
+import org.terasology.reflection.copy.CopyStrategy;
+
 import java.lang.reflect.Field;
+import java.util.List;
 
 /**
  * A factory providing reflection abilities, such as object construction and field access.
@@ -28,4 +31,14 @@ public interface ReflectFactory {
     <T> FieldAccessor<T, ?> createFieldAccessor(Class<T> ownerType, Field field) throws InaccessibleFieldException;
 
     <T, U> FieldAccessor<T, U> createFieldAccessor(Class<T> ownerType, Field field, Class<U> fieldType) throws InaccessibleFieldException;
+
+    /**
+     * @param ownerType  The type whose fields are to be copied
+     * @param fields     The fields to copy
+     * @param strategies The copy strategy of each field
+     * @return A copier for some or all of the fields, or null if they are all to be copied through their accessors
+     */
+    default <T> FieldCopier<T> createFieldCopier(Class<T> ownerType, List<Field> fields, List<CopyStrategy<?>> strategies) {
+        return null;
+    }
 }
@@ -32,6 +32,7 @@
 import org.terasology.rendering.assets.shader.Shader;
 import org.terasology.rendering.assets.texture.Texture;
 import org.terasology.rendering.opengl.GLSLMaterial;
+import org.terasology.rendering.opengl.ShaderProgramCache;
 import org.terasology.rendering.shader.ShaderParameters;
 import org.terasology.rendering.shader.ShaderParametersBlock;
 import org.terasology.rendering.shader.ShaderParametersChunk;
@@ -53,6 +54,7 @@
 
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkState;
 
@@ -106,6 +108,7 @@ public ShaderManagerLwjgl() {
 
     @Override
     public void initShaders() {
+        long startTime = System.nanoTime();
         defaultShaderProgram = prepareAndStoreShaderProgramInstance("default", new ShaderParametersDefault());
         defaultTexturedShaderProgram = prepareAndStoreShaderProgramInstance("defaultTextured", new ShaderParametersDefault());
 
@@ -131,6 +134,14 @@ public void initShaders() {
         prepareAndStoreShaderProgramInstance("lightGeometryPass", new ShaderParametersLightGeometryPass());
         prepareAndStoreShaderProgramInstance("simple", new ShaderParametersDefault());
         prepareAndStoreShaderProgramInstance("ssaoBlur", new ShaderParametersDefault());
+
+        ShaderProgramCache programCache = CoreRegistry.get(ShaderProgramCache.class);
+        if (programCache != null) {
+            logger.info("Prepared shaders in {} ms, {} programs loaded from the cache and {} stored",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), programCache.getLoadedCount(), programCache.getStoredCount());
+        } else {
+            logger.info("Prepared shaders in {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        }
     }
 
     @Override
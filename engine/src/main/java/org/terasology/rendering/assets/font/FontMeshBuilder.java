@@ -15,22 +15,35 @@
  */
 package org.terasology.rendering.assets.font;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import gnu.trove.list.TFloatList;
+import gnu.trove.list.TIntList;
 import org.terasology.math.geom.Vector3f;
 import org.terasology.rendering.FontColor;
 import org.terasology.rendering.FontUnderline;
 import org.terasology.rendering.assets.material.Material;
 import org.terasology.rendering.assets.mesh.Mesh;
 import org.terasology.rendering.assets.mesh.MeshBuilder;
+import org.terasology.rendering.assets.mesh.MeshData;
 import org.terasology.rendering.nui.Color;
 import org.terasology.rendering.nui.HorizontalAlign;
+import org.terasology.utilities.Assets;
 
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
+ * Creates the meshes that render text.
+ * <br><br>
+ * Text is laid out line by line. Optionally the laid out lines are kept in a least recently used cache, so that when
+ * a text changes only the lines that changed are laid out again. A line is reused if it has the same text, font and
+ * horizontal position, and starts with the same colour and underline state, since colour and underline codes carry
+ * over from one line to the next.
  */
 public class FontMeshBuilder {
 
@@ -40,15 +53,75 @@ public class FontMeshBuilder {
     private static final int UNKNOWN = -1;
 
     private final Material underlineMaterial;
+    private final Map<LineKey, LineRun> cachedLines;
+
+    private long lineCacheHits;
+    private long lineCacheMisses;
 
     public FontMeshBuilder(Material underlineMaterial) {
+        this(underlineMaterial, 0);
+    }
+
+    /**
+     * @param underlineMaterial The material of underlines
+     * @param maxCachedLines    The number of laid out lines to keep, 0 to lay out every line of every text
+     */
+    public FontMeshBuilder(Material underlineMaterial, int maxCachedLines) {
         this.underlineMaterial = underlineMaterial;
+        if (maxCachedLines > 0) {
+            this.cachedLines = new LinkedHashMap<LineKey, LineRun>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<LineKey, LineRun> eldest) {
+                    return size() > maxCachedLines;
+                }
+            };
+        } else {
+            this.cachedLines = null;
+        }
     }
 
     public Map<Material, Mesh> createTextMesh(Font font, List<String> lines, int width, HorizontalAlign alignment, Color baseColor, Color shadowColor, boolean underline) {
+        Map<Material, Mesh> result = Maps.newLinkedHashMap();
+        for (Map.Entry<Material, MeshData> entry : createTextMeshData(font, lines, width, alignment, baseColor, shadowColor, underline).entrySet()) {
+            result.put(entry.getKey(), Assets.generateAsset(entry.getValue(), Mesh.class));
+        }
+        return result;
+    }
+
+    /**
+     * Lays out the text without creating the meshes, so that it does not need a graphics context.
+     *
+     * @return The mesh data for each material used by the text, in the order the materials are first used
+     */
+    public Map<Material, MeshData> createTextMeshData(Font font, List<String> lines, int width, HorizontalAlign alignment, Color baseColor, Color shadowColor,
+                                                      boolean underline) {
         return new Builder(font, lines, width, alignment, baseColor, shadowColor, underline).invoke();
     }
 
+    /**
+     * @return The number of lines that were reused from the line cache
+     */
+    public long getLineCacheHits() {
+        return lineCacheHits;
+    }
+
+    /**
+     * @return The number of lines that had to be laid out
+     */
+    public long getLineCacheMisses() {
+        return lineCacheMisses;
+    }
+
+    public int getCachedLineCount() {
+        return (cachedLines != null) ? cachedLines.size() : 0;
+    }
+
+    public void clearLineCache() {
+        if (cachedLines != null) {
+            cachedLines.clear();
+        }
+    }
+
     private class Builder {
         private Font font;
         private List<String> lines;
@@ -57,10 +130,10 @@ private class Builder {
         private Color shadowColor;
         private boolean baseUnderline;
 
+        private Map<Material, MeshData> result = Maps.newLinkedHashMap();
         private Map<Material, MeshBuilder> meshBuilders = Maps.newLinkedHashMap();
 
         private int x;
-        private int y;
         private boolean currentUnderline;
         private int underlineStart = UNKNOWN;
         private int underlineEnd = UNKNOWN;
@@ -78,19 +151,66 @@ public Builder(Font font, List<String> lines, int width, HorizontalAlign alignme
             this.currentColor = baseColor;
         }
 
-        public Map<Material, Mesh> invoke() {
-
-            processLines();
+        public Map<Material, MeshData> invoke() {
+            int y = 0;
+            for (String line : lines) {
+                int w = font.getWidth(line);
+                x = alignment.getOffset(w, width);
 
-            return generateResult();
+                LineRun run;
+                if (cachedLines == null) {
+                    run = processLine(line);
+                } else {
+                    LineKey key = new LineKey(font, line, x, currentColor, previousColors, currentUnderline, shadowColor, baseUnderline);
+                    run = cachedLines.get(key);
+                    if (run == null) {
+                        lineCacheMisses++;
+                        run = processLine(line);
+                        cachedLines.put(key, run);
+                    } else {
+                        lineCacheHits++;
+                        currentColor = run.endColor;
+                        previousColors = new ArrayDeque<>(run.endPreviousColors);
+                        currentUnderline = run.endUnderline;
+                    }
+                }
+                run.appendTo(result, y);
+                y += font.getLineHeight();
+            }
+            return result;
         }
 
-        private Map<Material, Mesh> generateResult() {
-            Map<Material, Mesh> result = Maps.newLinkedHashMap();
+        /**
+         * Lays out a single line at a vertical position of 0, continuing from the current colour and underline state.
+         */
+        private LineRun processLine(String line) {
+            meshBuilders.clear();
+            for (char c : line.toCharArray()) {
+                FontCharacter character = font.getCharacterData(c);
+                if (character != null && character.getPage() != null) {
+                    MeshBuilder builder = getBuilderFor(character.getPageMat());
+
+                    if (shadowColor.a() != 0) {
+                        addCharacter(builder, character, shadowColor, SHADOW_HORIZONTAL_OFFSET, SHADOW_VERTICAL_OFFSET, SHADOW_DEPTH);
+                    }
+                    addCharacter(builder, character, currentColor, 0, 0, 0);
+                    updateUnderline(c, character);
+
+                    x += character.getxAdvance();
+                } else if (FontColor.isValid(c)) {
+                    applyUnderline();
+                    processColorCode(c);
+                } else if (FontUnderline.isValid(c)) {
+                    processUnderlineCode(c);
+                }
+            }
+            applyUnderline();
+
+            Map<Material, MeshData> lineData = Maps.newLinkedHashMap();
             for (Map.Entry<Material, MeshBuilder> entry : meshBuilders.entrySet()) {
-                result.put(entry.getKey(), entry.getValue().build());
+                lineData.put(entry.getKey(), entry.getValue().getMeshData());
             }
-            return result;
+            return new LineRun(lineData, currentColor, Lists.newArrayList(previousColors), currentUnderline);
         }
 
         private MeshBuilder getBuilderFor(Material material) {
@@ -102,35 +222,6 @@ private MeshBuilder getBuilderFor(Material material) {
             return builder;
         }
 
-        private void processLines() {
-            for (String line : lines) {
-                int w = font.getWidth(line);
-                x = alignment.getOffset(w, width);
-
-                for (char c : line.toCharArray()) {
-                    FontCharacter character = font.getCharacterData(c);
-                    if (character != null && character.getPage() != null) {
-                        MeshBuilder builder = getBuilderFor(character.getPageMat());
-
-                        if (shadowColor.a() != 0) {
-                            addCharacter(builder, character, shadowColor, SHADOW_HORIZONTAL_OFFSET, SHADOW_VERTICAL_OFFSET, SHADOW_DEPTH);
-                        }
-                        addCharacter(builder, character, currentColor, 0, 0, 0);
-                        updateUnderline(c, character);
-
-                        x += character.getxAdvance();
-                    } else if (FontColor.isValid(c)) {
-                        applyUnderline();
-                        processColorCode(c);
-                    } else if (FontUnderline.isValid(c)) {
-                        processUnderlineCode(c);
-                    }
-                }
-                applyUnderline();
-                y += font.getLineHeight();
-            }
-        }
-
         private void processUnderlineCode(char c) {
             if (!baseUnderline) {
                 if (c == FontUnderline.getStart() && !currentUnderline) {
@@ -159,9 +250,9 @@ private void applyUnderline() {
                 MeshBuilder builder = getBuilderFor(underlineMaterial);
                 if (shadowColor.a() != 0) {
                     addUnderline(builder, underlineStart + SHADOW_HORIZONTAL_OFFSET, underlineEnd + SHADOW_HORIZONTAL_OFFSET,
-                            y + font.getBaseHeight() + SHADOW_VERTICAL_OFFSET + font.getUnderlineOffset(), font.getUnderlineThickness(), shadowColor, SHADOW_DEPTH);
+                            font.getBaseHeight() + SHADOW_VERTICAL_OFFSET + font.getUnderlineOffset(), font.getUnderlineThickness(), shadowColor, SHADOW_DEPTH);
                 }
-                addUnderline(builder, underlineStart, underlineEnd, y + font.getBaseHeight() + font.getUnderlineOffset(), font.getUnderlineThickness(), currentColor, 0);
+                addUnderline(builder, underlineStart, underlineEnd, font.getBaseHeight() + font.getUnderlineOffset(), font.getUnderlineThickness(), currentColor, 0);
             }
             underlineStart = UNKNOWN;
             underlineEnd = UNKNOWN;
@@ -192,7 +283,7 @@ private void addUnderline(MeshBuilder builder, int xStart, int xEnd, int underli
         }
 
         private void addCharacter(MeshBuilder builder, FontCharacter character, Color color, float xOffset, float yOffset, float depth) {
-            float top = y + character.getyOffset() + yOffset;
+            float top = character.getyOffset() + yOffset;
             float bottom = top + character.getHeight() + yOffset;
             float left = x + character.getxOffset() + xOffset;
             float right = left + character.getWidth() + xOffset;
@@ -213,4 +304,92 @@ private void addCharacter(MeshBuilder builder, FontCharacter character, Color co
             builder.addTexCoord(texLeft, texBottom);
         }
     }
+
+    /**
+     * A line laid out at a vertical position of 0, together with the colour and underline state it ends with.
+     */
+    private static final class LineRun {
+        private final Map<Material, MeshData> meshData;
+        private final Color endColor;
+        private final List<Color> endPreviousColors;
+        private final boolean endUnderline;
+
+        LineRun(Map<Material, MeshData> meshData, Color endColor, List<Color> endPreviousColors, boolean endUnderline) {
+            this.meshData = meshData;
+            this.endColor = endColor;
+            this.endPreviousColors = endPreviousColors;
+            this.endUnderline = endUnderline;
+        }
+
+        void appendTo(Map<Material, MeshData> target, int y) {
+            for (Map.Entry<Material, MeshData> entry : meshData.entrySet()) {
+                MeshData source = entry.getValue();
+                MeshData data = target.get(entry.getKey());
+                if (data == null) {
+                    data = new MeshData();
+                    target.put(entry.getKey(), data);
+                }
+                int firstVertex = data.getVertices().size() / 3;
+
+                TFloatList vertices = source.getVertices();
+                for (int i = 0; i < vertices.size(); i += 3) {
+                    data.getVertices().add(vertices.get(i));
+                    data.getVertices().add(vertices.get(i + 1) + y);
+                    data.getVertices().add(vertices.get(i + 2));
+                }
+                TIntList indices = source.getIndices();
+                for (int i = 0; i < indices.size(); i++) {
+                    data.getIndices().add(indices.get(i) + firstVertex);
+                }
+                data.getColors().addAll(source.getColors());
+                data.getTexCoord0().addAll(source.getTexCoord0());
+            }
+        }
+    }
+
+    /**
+     * Everything that affects the layout of a line.
+     */
+    private static final class LineKey {
+        private final Font font;
+        private final String line;
+        private final int x;
+        private final Color startColor;
+        private final List<Color> startPreviousColors;
+        private final boolean startUnderline;
+        private final Color shadowColor;
+        private final boolean baseUnderline;
+
+        LineKey(Font font, String line, int x, Color startColor, Deque<Color> startPreviousColors, boolean startUnderline,
+                Color shadowColor, boolean baseUnderline) {
+            this.font = font;
+            this.line = line;
+            this.x = x;
+            this.startColor = startColor;
+            this.startPreviousColors = Lists.newArrayList(startPreviousColors);
+            this.startUnderline = startUnderline;
+            this.shadowColor = shadowColor;
+            this.baseUnderline = baseUnderline;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj instanceof LineKey) {
+                LineKey other = (LineKey) obj;
+                return x == other.x && startUnderline == other.startUnderline && baseUnderline == other.baseUnderline
+                        && Objects.equals(line, other.line) && Objects.equals(font, other.font)
+                        && Objects.equals(startColor, other.startColor) && Objects.equals(shadowColor, other.shadowColor)
+                        && Objects.equals(startPreviousColors, other.startPreviousColors);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(font, line, x, startColor, startPreviousColors, startUnderline, shadowColor, baseUnderline);
+        }
+    }
 }
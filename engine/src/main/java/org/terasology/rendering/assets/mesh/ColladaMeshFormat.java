@@ -15,6 +15,7 @@
  */
 package org.terasology.rendering.assets.mesh;
 
+import com.google.common.io.ByteStreams;
 import gnu.trove.list.TFloatList;
 import gnu.trove.list.TIntList;
 import org.slf4j.Logger;
@@ -23,18 +24,24 @@
 import org.terasology.assets.format.AbstractAssetFileFormat;
 import org.terasology.assets.format.AssetDataFile;
 import org.terasology.assets.module.annotations.RegisterAssetFileFormat;
+import org.terasology.rendering.collada.ColladaCache;
 import org.terasology.rendering.collada.ColladaLoader;
 import org.terasology.rendering.collada.ColladaParseException;
 
-import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Importer for Collada data exchange model files.  Supports mesh data
  * <p>
  * The development of this loader was greatly influenced by
  * http://www.wazim.com/Collada_Tutorial_1.htm
+ * <p>
+ * Decoded meshes are kept in a {@link ColladaCache}, so a file that was decoded before, on an earlier start or ahead of
+ * time while loading a game, is read from the cache rather than parsed.
  *
  */
 
@@ -43,20 +50,74 @@ public class ColladaMeshFormat extends AbstractAssetFileFormat<MeshData> {
 
     private static final Logger logger = LoggerFactory.getLogger(ColladaMeshFormat.class);
 
+    private final ColladaCache cache;
+
     public ColladaMeshFormat() {
+        this(ColladaCache.createDefault());
+    }
+
+    /**
+     * @param cache The cache to keep decoded meshes in, or null to always decode
+     */
+    public ColladaMeshFormat(ColladaCache cache) {
         super("dae");
+        this.cache = cache;
     }
 
     @Override
     public MeshData load(ResourceUrn urn, List<AssetDataFile> inputs) throws IOException {
         logger.info("Loading mesh for " + urn);
 
+        byte[] source;
+        try (InputStream stream = inputs.get(0).openStream()) {
+            source = ByteStreams.toByteArray(stream);
+        }
+        return load(urn.toString(), source);
+    }
+
+    /**
+     * @param name   The name of the mesh, for error messages
+     * @param source The content of the Collada file
+     * @return The mesh, from the cache if the same content was decoded before
+     * @throws IOException If the content is not a valid Collada mesh
+     */
+    public MeshData load(String name, byte[] source) throws IOException {
+        if (cache == null) {
+            return decode(name, source);
+        }
+        String key = cache.computeKey(source);
+        Optional<MeshData> cached = cache.loadMesh(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        MeshData data = decode(name, source);
+        cache.storeMesh(key, data);
+        return data;
+    }
+
+    /**
+     * Decodes the mesh into the cache unless it is cached already, so that loading it later only reads the decoded data.
+     *
+     * @param name   The name of the mesh, for error messages
+     * @param source The content of the Collada file
+     * @throws IOException If the content is not a valid Collada mesh
+     */
+    public void prepare(String name, byte[] source) throws IOException {
+        if (cache != null) {
+            String key = cache.computeKey(source);
+            if (!cache.hasMesh(key)) {
+                cache.storeMesh(key, decode(name, source));
+            }
+        }
+    }
+
+    private MeshData decode(String name, byte[] source) throws IOException {
         ColladaLoader loader = new ColladaLoader();
 
-        try (BufferedInputStream stream = inputs.get(0).openStream()) {
+        try (InputStream stream = new ByteArrayInputStream(source)) {
             loader.parseMeshData(stream);
         } catch (ColladaParseException e) {
-            throw new IOException("Error loading collada mesh for " + urn, e);
+            throw new IOException("Error loading collada mesh for " + name, e);
         }
 
         MeshData data = new MeshData();
@@ -148,6 +148,27 @@ public AABB getStaticAABB() {
         return staticAABB;
     }
 
+    /**
+     * @return The weights of all vertices, in the order given by {@link #getVertexStartWeights()}
+     */
+    public List<BoneWeight> getWeights() {
+        return weights;
+    }
+
+    /**
+     * @return The index of the first weight of each vertex
+     */
+    public TIntList getVertexStartWeights() {
+        return vertexStartWeights;
+    }
+
+    /**
+     * @return The number of weights of each vertex
+     */
+    public TIntList getVertexWeightCounts() {
+        return vertexWeightCounts;
+    }
+
     private void calculateNormals() {
         // TODO: Better algorithm (take into account triangle size and angles
         List<Vector3f> vertices = getBindPoseVertexPositions();
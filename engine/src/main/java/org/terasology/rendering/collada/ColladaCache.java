@@ -0,0 +1,420 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.collada;
+
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hashing;
+import gnu.trove.list.TFloatList;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.engine.paths.PathManager;
+import org.terasology.math.AABB;
+import org.terasology.math.geom.Quat4f;
+import org.terasology.math.geom.Vector2f;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.rendering.assets.mesh.MeshData;
+import org.terasology.rendering.assets.skeletalmesh.Bone;
+import org.terasology.rendering.assets.skeletalmesh.BoneWeight;
+import org.terasology.rendering.assets.skeletalmesh.SkeletalMeshData;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps meshes and skeletal meshes decoded from Collada files on disk in a compact binary format, so that a later load
+ * of the same file can read the decoded data instead of parsing the XML again.
+ * <br><br>
+ * Decoded data is stored under a hash of the content of the Collada file and the format version, which has to be
+ * increased whenever the binary format or the decoding by {@link ColladaLoader} changes. The most recently used
+ * {@value #MAX_CACHED_MESHES} meshes are kept by {@link #trim()}. Safe to use from several threads at once.
+ */
+public class ColladaCache {
+    private static final Logger logger = LoggerFactory.getLogger(ColladaCache.class);
+
+    private static final int MAGIC = 0x4d455348;
+    private static final int FORMAT_VERSION = 1;
+    private static final int MAX_CACHED_MESHES = 1024;
+    private static final String DIRECTORY_NAME = "meshes";
+    private static final String MESH_EXTENSION = ".mesh";
+    private static final String SKELETAL_MESH_EXTENSION = ".skeletalmesh";
+
+    private final Path directory;
+
+    private final AtomicInteger loadedCount = new AtomicInteger();
+    private final AtomicInteger storedCount = new AtomicInteger();
+
+    /**
+     * @param directory The directory to keep the decoded meshes in, created when the first mesh is stored
+     */
+    public ColladaCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return The cache in the cache directory of the home path, or null if the home path has not been set up
+     */
+    public static ColladaCache createDefault() {
+        Path cachePath = PathManager.getInstance().getCachePath();
+        return (cachePath != null) ? new ColladaCache(cachePath.resolve(DIRECTORY_NAME)) : null;
+    }
+
+    /**
+     * @param source The content of a Collada file
+     * @return The key to load and store the meshes decoded from this content under
+     */
+    public String computeKey(byte[] source) {
+        return Hashing.sha256().newHasher().putInt(FORMAT_VERSION).putBytes(source).hash().toString();
+    }
+
+    public boolean hasMesh(String key) {
+        return Files.isRegularFile(directory.resolve(key + MESH_EXTENSION));
+    }
+
+    public boolean hasSkeletalMesh(String key) {
+        return Files.isRegularFile(directory.resolve(key + SKELETAL_MESH_EXTENSION));
+    }
+
+    /**
+     * @return The mesh stored under the key, or empty if there is none or it could not be read
+     */
+    public Optional<MeshData> loadMesh(String key) {
+        Optional<ByteBuffer> buffer = read(key + MESH_EXTENSION);
+        if (!buffer.isPresent()) {
+            return Optional.empty();
+        }
+        try {
+            ByteBuffer in = buffer.get();
+            MeshData data = new MeshData();
+            readFloats(in, data.getVertices());
+            readFloats(in, data.getTexCoord0());
+            readFloats(in, data.getTexCoord1());
+            readFloats(in, data.getNormals());
+            readFloats(in, data.getColors());
+            readInts(in, data.getIndices());
+            loadedCount.incrementAndGet();
+            return Optional.of(data);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            logger.warn("Ignoring truncated cached mesh {}", key, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return The skeletal mesh stored under the key, or empty if there is none or it could not be read
+     */
+    public Optional<SkeletalMeshData> loadSkeletalMesh(String key) {
+        Optional<ByteBuffer> buffer = read(key + SKELETAL_MESH_EXTENSION);
+        if (!buffer.isPresent()) {
+            return Optional.empty();
+        }
+        try {
+            ByteBuffer in = buffer.get();
+            int boneCount = readCount(in, 10 * Integer.BYTES);
+            List<Bone> bones = Lists.newArrayListWithCapacity(boneCount);
+            TIntObjectMap<Bone> bonesByIndex = new TIntObjectHashMap<>();
+            TIntList parentIndices = new TIntArrayList(boneCount);
+            for (int i = 0; i < boneCount; i++) {
+                int index = in.getInt();
+                byte[] name = new byte[readCount(in, 1)];
+                in.get(name);
+                parentIndices.add(in.getInt());
+                Vector3f position = readVector3f(in);
+                Quat4f rotation = new Quat4f(in.getFloat(), in.getFloat(), in.getFloat(), in.getFloat());
+                Bone bone = new Bone(index, new String(name, StandardCharsets.UTF_8), position, rotation);
+                bones.add(bone);
+                bonesByIndex.put(index, bone);
+            }
+            for (int i = 0; i < boneCount; i++) {
+                Bone parent = bonesByIndex.get(parentIndices.get(i));
+                if (parent != null) {
+                    parent.addChild(bones.get(i));
+                }
+            }
+
+            int weightCount = readCount(in, 5 * Integer.BYTES);
+            List<BoneWeight> weights = Lists.newArrayListWithCapacity(weightCount);
+            for (int i = 0; i < weightCount; i++) {
+                Vector3f position = readVector3f(in);
+                float bias = in.getFloat();
+                weights.add(new BoneWeight(position, bias, in.getInt()));
+            }
+
+            int uvCount = readCount(in, 2 * Float.BYTES);
+            List<Vector2f> uvs = Lists.newArrayListWithCapacity(uvCount);
+            for (int i = 0; i < uvCount; i++) {
+                uvs.add(new Vector2f(in.getFloat(), in.getFloat()));
+            }
+
+            TIntList vertexStartWeights = new TIntArrayList();
+            TIntList vertexWeightCounts = new TIntArrayList();
+            TIntList indices = new TIntArrayList();
+            readInts(in, vertexStartWeights);
+            readInts(in, vertexWeightCounts);
+            readInts(in, indices);
+            AABB staticAabb = AABB.createMinMax(readVector3f(in), readVector3f(in));
+
+            SkeletalMeshData data = new SkeletalMeshData(bones, weights, uvs, vertexStartWeights, vertexWeightCounts, indices, staticAabb);
+            loadedCount.incrementAndGet();
+            return Optional.of(data);
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            logger.warn("Ignoring truncated cached skeletal mesh {}", key, e);
+            return Optional.empty();
+        }
+    }
+
+    public void storeMesh(String key, MeshData data) {
+        int size = 4 * (data.getVertices().size() + data.getTexCoord0().size() + data.getTexCoord1().size()
+                + data.getNormals().size() + data.getColors().size() + data.getIndices().size() + 6);
+        ByteBuffer out = allocate(size);
+        writeFloats(out, data.getVertices());
+        writeFloats(out, data.getTexCoord0());
+        writeFloats(out, data.getTexCoord1());
+        writeFloats(out, data.getNormals());
+        writeFloats(out, data.getColors());
+        writeInts(out, data.getIndices());
+        write(key + MESH_EXTENSION, out);
+    }
+
+    public void storeSkeletalMesh(String key, SkeletalMeshData data) {
+        List<byte[]> names = Lists.newArrayList();
+        int size = 4;
+        for (Bone bone : data.getBones()) {
+            byte[] name = bone.getName().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            size += 4 * 10 + name.length;
+        }
+        size += 4 + 4 * 5 * data.getWeights().size();
+        size += 4 + 4 * 2 * data.getUVs().size();
+        size += 4 * (3 + data.getVertexStartWeights().size() + data.getVertexWeightCounts().size() + data.getIndices().size());
+        size += 4 * 6;
+
+        ByteBuffer out = allocate(size);
+        out.putInt(names.size());
+        int boneIndex = 0;
+        for (Bone bone : data.getBones()) {
+            byte[] name = names.get(boneIndex++);
+            out.putInt(bone.getIndex());
+            out.putInt(name.length);
+            out.put(name);
+            out.putInt(bone.getParentIndex());
+            writeVector3f(out, bone.getObjectPosition());
+            Quat4f rotation = bone.getObjectRotation();
+            out.putFloat(rotation.x).putFloat(rotation.y).putFloat(rotation.z).putFloat(rotation.w);
+        }
+        out.putInt(data.getWeights().size());
+        for (BoneWeight weight : data.getWeights()) {
+            writeVector3f(out, weight.getPosition());
+            out.putFloat(weight.getBias());
+            out.putInt(weight.getBoneIndex());
+        }
+        out.putInt(data.getUVs().size());
+        for (Vector2f uv : data.getUVs()) {
+            out.putFloat(uv.x).putFloat(uv.y);
+        }
+        writeInts(out, data.getVertexStartWeights());
+        writeInts(out, data.getVertexWeightCounts());
+        writeInts(out, data.getIndices());
+        writeVector3f(out, data.getStaticAABB().getMin());
+        writeVector3f(out, data.getStaticAABB().getMax());
+        write(key + SKELETAL_MESH_EXTENSION, out);
+    }
+
+    /**
+     * Removes the least recently used meshes beyond {@value #MAX_CACHED_MESHES}.
+     */
+    public void trim() {
+        List<Path> files = Lists.newArrayList();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*{" + MESH_EXTENSION + "," + SKELETAL_MESH_EXTENSION + "}")) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            // Nothing cached yet
+            return;
+        }
+        if (files.size() <= MAX_CACHED_MESHES) {
+            return;
+        }
+        files.sort(Collections.reverseOrder(Comparator.comparing(ColladaCache::lastModified)));
+        for (Path file : files.subList(MAX_CACHED_MESHES, files.size())) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.debug("Failed to remove old cached mesh {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * @return How many meshes and skeletal meshes were loaded from this cache since it was created
+     */
+    public int getLoadedCount() {
+        return loadedCount.get();
+    }
+
+    /**
+     * @return How many meshes and skeletal meshes were stored in this cache since it was created
+     */
+    public int getStoredCount() {
+        return storedCount.get();
+    }
+
+    /**
+     * Reads the whole file into a heap buffer rather than mapping it, as a mapped file stays open until the buffer is
+     * garbage collected, which keeps it from being replaced or trimmed on Windows.
+     */
+    private Optional<ByteBuffer> read(String fileName) {
+        Path file = directory.resolve(fileName);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                logger.warn("Ignoring cached mesh {} of {} bytes", file, size);
+                return Optional.empty();
+            }
+            buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full or the file ends
+            }
+            buffer.flip();
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                logger.warn("Ignoring cached mesh {} with a different format", file);
+                return Optional.empty();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read cached mesh {}", file, e);
+            return Optional.empty();
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.debug("Failed to mark cached mesh {} as used", file, e);
+        }
+        return Optional.of(buffer);
+    }
+
+    /**
+     * Writes to a temporary file that then replaces the file for the key, so that an interrupted write or another thread
+     * storing the same mesh never leaves a partial file behind. Failures are logged, as the mesh can always be decoded
+     * again.
+     */
+    private void write(String fileName, ByteBuffer data) {
+        Path file = directory.resolve(fileName);
+        Path temporaryFile = null;
+        try {
+            Files.createDirectories(directory);
+            temporaryFile = Files.createTempFile(directory, fileName, ".tmp");
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                data.flip();
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            storedCount.incrementAndGet();
+        } catch (IOException e) {
+            logger.warn("Failed to cache mesh {}", file, e);
+            if (temporaryFile != null) {
+                try {
+                    Files.deleteIfExists(temporaryFile);
+                } catch (IOException ignored) {
+                    // Harmless, as it does not end with the extension of cached meshes
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer allocate(int dataSize) {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES + dataSize).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(FORMAT_VERSION);
+        return buffer;
+    }
+
+    private static void readFloats(ByteBuffer in, TFloatList target) {
+        float[] values = new float[readCount(in, Float.BYTES)];
+        in.asFloatBuffer().get(values);
+        in.position(in.position() + Float.BYTES * values.length);
+        target.add(values);
+    }
+
+    private static void readInts(ByteBuffer in, TIntList target) {
+        int[] values = new int[readCount(in, Integer.BYTES)];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + Integer.BYTES * values.length);
+        target.add(values);
+    }
+
+    /**
+     * Reads the number of elements that follow, checking that they fit in the rest of the file, so that a damaged file
+     * fails the load rather than allocating an arbitrary amount of memory.
+     */
+    private static int readCount(ByteBuffer in, int elementSize) {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / elementSize) {
+            throw new BufferUnderflowException();
+        }
+        return count;
+    }
+
+    private static void writeFloats(ByteBuffer out, TFloatList values) {
+        out.putInt(values.size());
+        out.asFloatBuffer().put(values.toArray());
+        out.position(out.position() + Float.BYTES * values.size());
+    }
+
+    private static void writeInts(ByteBuffer out, TIntList values) {
+        out.putInt(values.size());
+        out.asIntBuffer().put(values.toArray());
+        out.position(out.position() + Integer.BYTES * values.size());
+    }
+
+    private static Vector3f readVector3f(ByteBuffer in) {
+        return new Vector3f(in.getFloat(), in.getFloat(), in.getFloat());
+    }
+
+    private static void writeVector3f(ByteBuffer out, Vector3f vector) {
+        out.putFloat(vector.x).putFloat(vector.y).putFloat(vector.z);
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
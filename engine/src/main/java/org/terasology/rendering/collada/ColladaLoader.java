@@ -237,10 +237,10 @@ protected void parseSkeletalMeshData(Element rootElement) throws ColladaParseExc
             }
             Element vertexWeightsVCountData = vertexWeightsVCountDataSet.first();
             String vertexWeightsVCountString = vertexWeightsVCountData.text();
-            String[] vertexWeightsVCountStrings = getItemsInString(vertexWeightsVCountString);
-            if (vertexWeightsVCountStrings.length != vertexWeightsCount) {
+            int[] vertexWeightsVCounts = parseInts(vertexWeightsVCountString);
+            if (vertexWeightsVCounts.length != vertexWeightsCount) {
                 throw new ColladaParseException("Expected " + vertexWeightsCount + " but was "
-                        + vertexWeightsVCountStrings.length + " for controller id=" + controller.id() + " name=" + controller.name());
+                        + vertexWeightsVCounts.length + " for controller id=" + controller.id() + " name=" + controller.name());
             }
 
             ElementSet vertexWeightsVDataSet = vertexWeights.find("v");
@@ -250,7 +250,7 @@ protected void parseSkeletalMeshData(Element rootElement) throws ColladaParseExc
             }
             Element vertexWeightsVData = vertexWeightsVDataSet.first();
             String vertexWeightsVDataString = vertexWeightsVData.text();
-            String[] vertexWeightsVStrings = getItemsInString(vertexWeightsVDataString);
+            int[] vertexWeightsV = parseInts(vertexWeightsVDataString);
             //            if (vertexWeightsVStrings.length != (vertexWeightsCount * vertexWeightsInputList.size())) {
             //                throw new ColladaParseException("Expected " + vertexWeightsCount + " * input count of "
             //                                                + vertexWeightsInputList.size() + " but was "
@@ -272,15 +272,13 @@ protected void parseSkeletalMeshData(Element rootElement) throws ColladaParseExc
                 md5Weight.position = vertexPosition;
                 md5WeightList.add(md5Weight);
 
-                String vCountString = vertexWeightsVCountStrings[vertexWeightsIndex];
-                int vCount = Integer.parseInt(vCountString);
+                int vCount = vertexWeightsVCounts[vertexWeightsIndex];
                 for (int vCountIndex = 0; vCountIndex < vCount; vCountIndex++) {
                     for (Input vertexWeightsInput : vertexWeightsInputList) {
                         // vCount varies each time
                         ++vertexWeightsVDataIndex;
 
-                        String indexString = vertexWeightsVStrings[vertexWeightsVDataIndex];
-                        int index = Integer.parseInt(indexString);
+                        int index = vertexWeightsV[vertexWeightsVDataIndex];
                         if (-1 == index) {
                             throw new ColladaParseException("We do not support indexing into the bind shape yet");
                         }
@@ -581,13 +579,7 @@ protected void parseMeshData(Element rootElement) throws ColladaParseException {
                     }
                     Element vCountElement = vCountSet.first();
 
-                    TIntList vcountList = new TIntArrayList();
-                    String[] vCountStrings = getItemsInString(vCountElement.text());
-                    for (String string : vCountStrings) {
-
-                        int vCount = Integer.parseInt(string);
-                        vcountList.add(vCount);
-                    }
+                    TIntList vcountList = new TIntArrayList(parseInts(vCountElement.text()));
 
                     vertCount = parseFaces(rootElement, vcountList, vertices, texCoord0,
                             normals, indices, colors,
@@ -731,7 +723,7 @@ private int parseFaces(Element rootElement, TIntList vcountList, TFloatList vert
         }
         Element faceData = faceDataSet.first();
         String faceDataString = faceData.text();
-        String[] facesStrings = getItemsInString(faceDataString);
+        int[] faceIndices = parseInts(faceDataString);
 
         // TODO: for now, assume the offsets will always perfectly match the sorted-by-offset list indexes
         Collections.sort(faceInputs, (i1, i2) -> i1.offset - i2.offset);
@@ -752,8 +744,7 @@ private int parseFaces(Element rootElement, TIntList vcountList, TFloatList vert
             for (int vertexIndex = 0; vertexIndex < vCount; vertexIndex++) {
                 for (Input faceInput : faceInputs) {
                     ++facesDataIndex;
-                    String indexString = facesStrings[facesDataIndex];
-                    int index = Integer.parseInt(indexString);
+                    int index = faceIndices[facesDataIndex];
 
                     if ("VERTEX".equals(faceInput.semantic)) {
                         int vertexStride = faceInput.vertexPositionSource.stride;
@@ -928,16 +919,12 @@ private Source parseSource(Element sourceElement) throws ColladaParseException {
         if (("float".equalsIgnoreCase(source.parameterTypes[0]))
                 || ("float4x4".equalsIgnoreCase(source.parameterTypes[0]))) {
             source.floatValues = new float[arraySize];
-            String[] floatStrings = getItemsInString(objectArrayDataString);
-            if (floatStrings.length != arraySize) {
-                throw new ColladaParseException("Expected float array size " + arraySize + " but was " + floatStrings.length + " for sourceElement id=" + sourceElement.id()
+            int floatCount = parseFloats(objectArrayDataString, source.floatValues);
+            if (floatCount != arraySize) {
+                throw new ColladaParseException("Expected float array size " + arraySize + " but was " + floatCount + " for sourceElement id=" + sourceElement.id()
                         + " name="
                         + sourceElement.name());
             }
-            for (int i = 0; i < floatStrings.length; i++) {
-                String floatString = floatStrings[i];
-                source.floatValues[i] = Float.parseFloat(floatString);
-            }
         } else if ("name".equalsIgnoreCase(source.parameterTypes[0])) {
             source.nameValues = new String[arraySize];
             String[] nameStrings = getItemsInString(objectArrayDataString);
@@ -955,16 +942,83 @@ private Source parseSource(Element sourceElement) throws ColladaParseException {
         return source;
     }
 
-    private String[] getItemsInString(String dataString) {
-        String string = dataString.replaceAll("\n", " ");
-        string = string.replaceAll("\t", " ");
-        string = string.replaceAll("\r", " ");
-        while (string.contains("  ")) {
-            string = string.replaceAll("  ", " ");
+    /**
+     * Splits a list on runs of whitespace in a single pass. The float and index lists of a detailed mesh hold hundreds of
+     * thousands of items, so the numeric lists are parsed by {@link #parseFloats(String, float[])} and
+     * {@link #parseInts(String)} instead, without a string per item.
+     */
+    static String[] getItemsInString(String dataString) {
+        List<String> items = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= dataString.length(); i++) {
+            if (i == dataString.length() || Character.isWhitespace(dataString.charAt(i))) {
+                if (start >= 0) {
+                    items.add(dataString.substring(start, i));
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        return items.toArray(new String[items.size()]);
+    }
+
+    /**
+     * @param dataString A whitespace separated list of floats
+     * @param values     The array to parse into, items beyond its length are counted but not parsed
+     * @return The number of items in the list
+     */
+    static int parseFloats(String dataString, float[] values) {
+        int count = 0;
+        int start = -1;
+        for (int i = 0; i <= dataString.length(); i++) {
+            if (i == dataString.length() || Character.isWhitespace(dataString.charAt(i))) {
+                if (start >= 0) {
+                    if (count < values.length) {
+                        values[count] = Float.parseFloat(dataString.substring(start, i));
+                    }
+                    count++;
+                    start = -1;
+                }
+            } else if (start < 0) {
+                start = i;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param dataString A whitespace separated list of integers
+     * @return The integers, parsed without a string per item
+     */
+    static int[] parseInts(String dataString) {
+        TIntList values = new TIntArrayList();
+        boolean inItem = false;
+        boolean negative = false;
+        int value = 0;
+        for (int i = 0; i <= dataString.length(); i++) {
+            char c = (i < dataString.length()) ? dataString.charAt(i) : ' ';
+            if (Character.isWhitespace(c)) {
+                if (inItem) {
+                    values.add(negative ? -value : value);
+                    inItem = false;
+                }
+            } else if (!inItem && (c == '-' || c == '+')) {
+                inItem = true;
+                negative = c == '-';
+                value = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (!inItem) {
+                    inItem = true;
+                    negative = false;
+                    value = 0;
+                }
+                value = value * 10 + (c - '0');
+            } else {
+                throw new NumberFormatException("Invalid integer in list at offset " + i + ": '" + c + "'");
+            }
         }
-        string = string.trim();
-        String[] floatStrings = string.split(" ");
-        return floatStrings;
+        return values.toArray();
     }
 
     private class Input {
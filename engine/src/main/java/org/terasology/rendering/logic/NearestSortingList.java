@@ -16,25 +16,35 @@
 package org.terasology.rendering.logic;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.entitySystem.entity.EntityRef;
-import org.terasology.logic.location.DistanceComparator;
 import org.terasology.logic.location.LocationComponent;
+import org.terasology.math.geom.Vector3f;
 import org.terasology.rendering.cameras.Camera;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * This data structure takes Entities with a location in the world and sorts
- * them based on their distance to an other entity.
+ * them based on their distance to a camera.
  * <br><br>
- * The sorting is done in a background thread.
+ * The sorting is done in a background thread. Whenever the entities are read
+ * and the sort period has passed, their distances to the camera are captured
+ * and handed to the sorting thread. As the entities rarely move far between
+ * two sorting runs, the previous order is nearly sorted and an insertion sort
+ * finishes in close to linear time. The sorted order is published as an
+ * immutable snapshot, which is picked up by the next read without locking.
  * <br><br>
  * When retrieving Entities from this container, no guarantees are given on the
  * sorting of the entities. This class only tries to keep the elements sorted,
@@ -42,22 +52,43 @@
  * <br><br>
  * It it therefor use full for graphics purposes, to keep track of the nearest
  * entities to draw.
+ * <br><br>
+ * Apart from the sorting, which never touches the entities, this container is
+ * not thread safe and should only be used from the main thread.
  *
  */
 public class NearestSortingList implements Iterable<EntityRef> {
     private static final Logger logger = LoggerFactory.getLogger(NearestSortingList.class);
 
-    private List<EntityRef> entities = Lists.newLinkedList();
-    private final List<Command> commands = Lists.newArrayList();
+    /**
+     * The insertion sort gives up in favour of a full sort once it has moved
+     * entities this many times per entity, e.g. after the camera teleported.
+     */
+    private static final int MAX_SHIFTS_PER_ENTITY = 8;
+
+    private static final EntityRef[] EMPTY = new EntityRef[0];
+
+    private final Set<EntityRef> members = Sets.newHashSet();
 
-    private Timer timer;
-    private SortTask sortingTask;
-    private Thread sortingThread;
+    /**
+     * Entities added since the last capture, newest last. They come before
+     * the sorted entities, as they are not part of the sorted snapshot yet.
+     */
+    private final List<EntityRef> recent = Lists.newArrayList();
+    private final Set<EntityRef> recentSet = Sets.newHashSet();
 
     /**
-     * True while the background sorting process is active.
+     * The latest sorted snapshot. It may still hold entities that have been
+     * removed since, which are skipped when reading.
      */
-    private boolean sorting;
+    private EntityRef[] sorted = EMPTY;
+
+    private final AtomicReference<EntityRef[]> completedSort = new AtomicReference<>();
+    private ExecutorService sortingExecutor;
+    private Camera originCamera;
+    private boolean sortInProgress;
+    private long nextSortTime;
+    private final Vector3f position = new Vector3f();
 
     /**
      * The delay in ms to wait between each sorting run.
@@ -78,18 +109,18 @@ public long getSortPeriod() {
      * @return the amount of elements in this list.
      */
     public int size() {
-        return entities.size();
+        return members.size();
     }
 
     /**
      * @return true if there are no elements in this container.
      */
     public boolean isEmpty() {
-        return entities.isEmpty();
+        return members.isEmpty();
     }
 
     public boolean contains(EntityRef e) {
-        return entities.contains(e);
+        return members.contains(e);
     }
 
     /**
@@ -98,74 +129,65 @@ public boolean contains(EntityRef e) {
      * been made, this new entity is returned whenever entities are requested
      * from this container.
      *
-     * @param e The entity to add. Must have a LocationComponent or an
-     *          IlligalArgumentException is thrown.
+     * @param e The entity to add. Should have a LocationComponent, entities
+     *          without one are sorted to the end.
      */
-    public synchronized void add(EntityRef e) {
+    public void add(EntityRef e) {
         if (e.getComponent(LocationComponent.class) == null) {
             logger.warn("Adding entity without LocationComponent to container that sorts on location. Entity: {}", e);
         }
         //new entities are inserted to make sure that new entities are drawn first.
         //Since it is likely the players wants to see new entities over existing ones
         //And it is likely new entities spawn near the player.
-        entities.add(0, e);
-        if (sorting) {
-            commands.add(new AddCommand(e));
+        if (members.add(e)) {
+            recent.add(e);
+            recentSet.add(e);
         }
     }
 
     /**
      * Remove an entity from this container.
      *
-     * @param e the entity to remove. Must have a LocationComponent or an
-     *          IllegalArgumentException is thrown. If the entity does not have a
-     *          LocationComponent it cannot reside in this container.
+     * @param e the entity to remove.
      */
-    public synchronized void remove(EntityRef e) {
-        entities.remove(e);
-        if (sorting) {
-            commands.add(new RemoveCommand(e));
+    public void remove(EntityRef e) {
+        if (members.remove(e) && recentSet.remove(e)) {
+            recent.remove(e);
         }
     }
 
     /**
      * Removes all elements from this container.
      */
-    public synchronized void clear() {
-        entities.clear();
-        if (sorting) {
-            //There is no need to execute all additions and removals if the list
-            //will be cleared, so we can safely clearn the pending commands.
-            commands.clear();
-            commands.add(new ClearCommand());
-        }
+    public void clear() {
+        members.clear();
+        recent.clear();
+        recentSet.clear();
+        sorted = EMPTY;
     }
 
     /**
-     * Warning: this method is memory intensive, as the list is copied. The
-     * copying is required to ensure thread safety. Returns a normal iterator
-     * over all Entities in this collection. While this class attempts to keep
-     * the elements sorted based on the distance to the player. This is not
-     * guaranteed. The sorting tries to put closer objects on a lower index,
-     * hence they will returned first by this iterator.
+     * Returns an iterator over a copy of the entities in this collection.
+     * While this class attempts to keep the elements sorted based on the
+     * distance to the player, this is not guaranteed. The sorting tries to put
+     * closer objects on a lower index, hence they will returned first by this
+     * iterator.
      *
      * @return An Iterator over all Entities in this collection.
      */
     @Override
     public Iterator<EntityRef> iterator() {
-        return cloneEntities().iterator();
+        return getEntities().iterator();
     }
 
     /**
-     * Warning: this method is memory intensive, as the list is copied. The
-     * copying is required to ensure thread safety. Similar to iterator(), but
-     * this version returns a ListIterator, which has some additional
-     * functionality.
+     * Similar to iterator(), but this version returns a ListIterator, which
+     * has some additional functionality.
      *
      * @return A ListIterator over all Entities in this collection.
      */
     public ListIterator<EntityRef> listIterator() {
-        return cloneEntities().listIterator();
+        return getEntities().listIterator();
     }
 
     /**
@@ -176,7 +198,9 @@ public ListIterator<EntityRef> listIterator() {
      * @return a list with all entities in this container.
      */
     public List<EntityRef> getEntities() {
-        return cloneEntities();
+        EntityRef[] output = new EntityRef[size()];
+        int count = getNearest(output);
+        return Lists.newArrayList(Arrays.asList(output).subList(0, count));
     }
 
     /**
@@ -185,20 +209,16 @@ public List<EntityRef> getEntities() {
      * entities are expected, but not guaranteed to be at a lower index.
      * <br><br>
      * This is the most memory friendly way to obtain elements from this
-     * container.
+     * container, as it only visits as many entities as requested.
      *
      * @param output The array to fill with entities from this container.
      * @return The amount of entities that were put into the array. If there are
      * less entities in this container than the size of output, this
      * number will be this.size(). Otherwise it will be output.length
      */
-    public synchronized int getNearest(EntityRef[] output) {
-        int size = Math.min(size(), output.length);
-        Iterator<EntityRef> iter = entities.iterator();
-        for (int x = 0; x < size; x++) {
-            output[x] = iter.next();
-        }
-        return size;
+    public int getNearest(EntityRef[] output) {
+        refresh();
+        return collect(output);
     }
 
     /**
@@ -220,31 +240,31 @@ public EntityRef[] getNearest(int count) {
      * Calling this method starts the background sorting. If never called, the
      * elements in this container are never sorted!
      *
-     * @param origin The entity to sort around. When using the getNearest
-     *               methods, this container has tried to put entities nearer to the entity
+     * @param origin The camera to sort around. When using the getNearest
+     *               methods, this container has tried to put entities nearer to the camera
      *               given here at a lower index.
      */
-    public synchronized void initialise(Camera origin) {
+    public void initialise(Camera origin) {
         initialise(origin, 50, 0);
     }
 
     /**
-     * Initializes the background sorting without starting the sorting
-     * yet. This can later be done with the continueSorting() method.
+     * Sets the camera to sort around without starting the background sorting,
+     * so the entities are only sorted by {@link #sortNow()}.
      *
-     * @param origin The entity to sort around. When using the getNearest
-     *               methods, this container has tried to put entities nearer to the entity
+     * @param origin The camera to sort around. When using the getNearest
+     *               methods, this container has tried to put entities nearer to the camera
      *               given here at a lower index.
      */
-    public synchronized void initialiseAndPause(Camera origin) {
-        if (sortingTask != null || timer != null) {
+    public void initialiseAndPause(Camera origin) {
+        if (isInitialised()) {
             logger.error("Mis-usages of initialise detected! Initialising again"
                     + " before stopping the sorting process. Sorting is "
                     + "stopped now, but it should be done by the user of "
                     + "this class.");
             stop();
         }
-        sortingTask = new SortTask(origin);
+        originCamera = origin;
     }
 
     /**
@@ -253,206 +273,182 @@ public synchronized void initialiseAndPause(Camera origin) {
      *
      * @param origin
      * @param period       The minimum time between sorts.
-     * @param initialDelay delay before the first sorting run. The frequency of
-     *                     sorting runs can be set with the setSortDelayMS(long) method.
+     * @param initialDelay delay before the first sorting run.
      */
-    public synchronized void initialise(Camera origin, long period, long initialDelay) {
-        if (sortingTask != null || timer != null) {
-            logger.error("Mis-usages of initialise detected! Initialising again"
-                    + " before stopping the sorting process. Sorting is "
-                    + "stopped now, but it should be done by the user of "
-                    + "this class.");
-            stop();
-        }
+    public void initialise(Camera origin, long period, long initialDelay) {
+        initialiseAndPause(origin);
         sortPeriod = period;
-        timer = new Timer();
-        sortingTask = new SortTask(origin);
-        timer.scheduleAtFixedRate(sortingTask, initialDelay, sortPeriod);
+        nextSortTime = System.currentTimeMillis() + initialDelay;
+        sortingExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("Nearest-Sorting-%d").setDaemon(true).build());
     }
 
     /**
-     * @return true if this container has been initialised, false otherwise. Initialised containers have started sorting.
+     * @return true if this container has been initialised, false otherwise.
      */
     public boolean isInitialised() {
-        return sortingTask != null;
+        return originCamera != null;
     }
 
     /**
-     * Stops the background sorting without deleting clearing this container.
+     * Stops the background sorting without clearing this container.
      * This is required for proper clean-up.
      * <br><br>
-     * Note that if a sorting process is running while this method is called,
-     * the sorting process finishes sorting this method will wait for it to
-     * finish. Afterwards the sorting is not scheduled again until the
-     * initialize method is called again.
-     * <br><br>
-     * Note that calling stop() and clear() can be done in any order and the
-     * specified behaviour will be exactly the same. If there is a difference it
-     * is an insignificant performance loss or win if.
+     * If a sorting run is in progress, this method waits for it to finish.
+     * Afterwards the sorting is not scheduled again until the initialize
+     * method is called again.
      */
-    public synchronized void stop() {
-        if (timer != null) {
-            //stopping a paused instance
-            timer.cancel();
-            timer.purge();
-            timer = null;
-        }
-        if (sortingThread != null) {
+    public void stop() {
+        if (sortingExecutor != null) {
+            sortingExecutor.shutdown();
             try {
-                sortingThread.join();
+                sortingExecutor.awaitTermination(1, TimeUnit.SECONDS);
             } catch (InterruptedException ex) {
-                logger.error("Joining of sorting thread was interrupted!");
+                logger.error("Waiting for the sorting thread was interrupted!");
+                Thread.currentThread().interrupt();
             }
+            sortingExecutor = null;
         }
-        sortingThread = null;
-        sortingTask = null;
+        completedSort.set(null);
+        sortInProgress = false;
+        originCamera = null;
     }
 
     /**
-     * Although it has the exact same function as getEntries(), it reads easier
-     * inside this class when the word 'clone' is used, rather than 'get'.
-     *
-     * @return A copy of the entities in this container.
-     */
-    private synchronized List<EntityRef> cloneEntities() {
-        return Lists.newLinkedList(entities);
-    }
-
-    /**
-     * These two actions needed to happen atomically and the easier method was
-     * to put them in a synchronized method.
-     *
-     * @return cloneEntities()
+     * Sorts the entities on the calling thread, instead of waiting for the
+     * background sorting. Requires the container to be initialised.
      */
-    private synchronized List<EntityRef> cloneAndSetSorting() {
-        sorting = true;
-        return cloneEntities();
+    public void sortNow() {
+        SortRun run = capture();
+        sorted = run.sort();
     }
 
     /**
-     * Updates the sorted list with all changes made while sorting before
-     * swapping the lists.
-     *
-     * @param newEntities the newly sorted list with entities. All changes will
-     *                    be applied to this list before the entities of this
-     *                    collection are set to this list.
+     * Picks up a finished sorting run and starts the next one when it is due.
      */
-    private synchronized void processQueueAndSetEntities(List<EntityRef> newEntities) {
-        //Note that the commands are executed in the order they are added to the list.
-        for (Command c : commands) {
-            c.executeOn(newEntities);
+    private void refresh() {
+        EntityRef[] completed = completedSort.getAndSet(null);
+        if (completed != null) {
+            sorted = completed;
+            sortInProgress = false;
+        }
+        if (sortingExecutor != null && !sortInProgress && System.currentTimeMillis() >= nextSortTime) {
+            nextSortTime = System.currentTimeMillis() + sortPeriod;
+            SortRun run = capture();
+            sortInProgress = true;
+            sortingExecutor.execute(() -> {
+                try {
+                    completedSort.set(run.sort());
+                } catch (RuntimeException ex) {
+                    // the failure of the sorter should not crash the game, the captured order stays as it is
+                    logger.error("Uncaught exception in sorting thread", ex);
+                    completedSort.set(run.entities);
+                }
+            });
         }
-        commands.clear();
-        entities = newEntities;
-        sorting = false;
-    }
-
-    /**
-     * Clear the command queue in a synchronized way. Used when the sorting
-     * fails.
-     */
-    private synchronized void clearQueue() {
-        commands.clear();
     }
 
     /**
-     * The commands are used to store addition, removal and clear operations
-     * when the background process is sorting the entities.
+     * Moves the recently added entities into the current order, drops removed
+     * ones, and takes the distances of the entities to the camera.
      */
-    private interface Command {
-        void executeOn(List<EntityRef> entities);
-    }
-
-    private static class AddCommand implements Command {
-        private EntityRef toAdd;
-
-        public AddCommand(EntityRef toAdd) {
-            this.toAdd = toAdd;
+    private SortRun capture() {
+        EntityRef[] order = new EntityRef[size()];
+        int count = collect(order);
+        if (count < order.length) {
+            order = Arrays.copyOf(order, count);
         }
-
-        @Override
-        public void executeOn(List<EntityRef> entities) {
-            entities.add(0, toAdd);
+        recent.clear();
+        recentSet.clear();
+        sorted = order;
+
+        Vector3f origin = originCamera.getPosition();
+        float[] distances = new float[order.length];
+        for (int i = 0; i < order.length; i++) {
+            LocationComponent location = order[i].getComponent(LocationComponent.class);
+            if (location == null) {
+                distances[i] = Float.MAX_VALUE;
+            } else {
+                location.getWorldPosition(position);
+                position.sub(origin);
+                float distance = position.lengthSquared();
+                distances[i] = Float.isNaN(distance) ? Float.MAX_VALUE : distance;
+            }
         }
+        // the snapshot being read must not change, so the run sorts a copy of it
+        return new SortRun(order.clone(), distances);
     }
 
-    private static class RemoveCommand implements Command {
-        private EntityRef toRem;
-
-        public RemoveCommand(EntityRef toRemove) {
-            toRem = toRemove;
+    private int collect(EntityRef[] output) {
+        int count = 0;
+        for (int i = recent.size() - 1; i >= 0 && count < output.length; i--) {
+            output[count++] = recent.get(i);
         }
-
-        @Override
-        public void executeOn(List<EntityRef> entities) {
-            entities.remove(toRem);
-        }
-    }
-
-    private static class ClearCommand implements Command {
-        @Override
-        public void executeOn(List<EntityRef> entities) {
-            entities.clear();
+        for (int i = 0; i < sorted.length && count < output.length; i++) {
+            EntityRef entity = sorted[i];
+            if (members.contains(entity) && !recentSet.contains(entity)) {
+                output[count++] = entity;
+            }
         }
+        return count;
     }
 
     /**
-     * The TimerTask that does the sorting work.
+     * The entities of one sorting run with their captured squared distances.
+     * Only accesses its own arrays, so it can run on any thread.
      */
-    private class SortTask extends TimerTask {
-        private DistanceComparator comparator = new DistanceComparator();
-        private Camera originCamera;
+    private static final class SortRun {
+        private final EntityRef[] entities;
+        private final float[] distances;
 
-        /**
-         * @param origin The entities of a NearestSortingCollection will be
-         *               sorted based on their distance to this entity.
-         */
-        public SortTask(Camera origin) {
-            originCamera = origin;
+        private SortRun(EntityRef[] entities, float[] distances) {
+            this.entities = entities;
+            this.distances = distances;
         }
 
-        @Override
-        public void run() {
-            sortingThread = Thread.currentThread();
-            try {
-                sort();
-            } catch (Exception ex) {
-                /**
-                 * We don't want the failure of the sorter to cause the entire
-                 * game to crash. Instead we shall output an error to the logger
-                 * and continue.
-                 */
-                logger.error("Uncaught exception in sorting thread: " + ex.toString());
+        private EntityRef[] sort() {
+            if (!insertionSort()) {
+                fullSort();
             }
+            return entities;
         }
 
         /**
-         * Sorts the entities of this container. Can be executed concurrently
-         * with the other operations on this container.
+         * @return false if it gave up because the order was far from sorted
          */
-        private void sort() {
-            comparator.setOrigin(originCamera.getPosition());
-            if (!commands.isEmpty()) {
-                logger.warn("The commands list was not emptied properly!");
-                commands.clear();
+        private boolean insertionSort() {
+            long shiftBudget = (long) MAX_SHIFTS_PER_ENTITY * entities.length;
+            for (int i = 1; i < entities.length; i++) {
+                float distance = distances[i];
+                EntityRef entity = entities[i];
+                int j = i - 1;
+                while (j >= 0 && distances[j] > distance) {
+                    distances[j + 1] = distances[j];
+                    entities[j + 1] = entities[j];
+                    j--;
+                }
+                distances[j + 1] = distance;
+                entities[j + 1] = entity;
+                shiftBudget -= i - 1 - j;
+                if (shiftBudget < 0) {
+                    return false;
+                }
             }
+            return true;
+        }
 
-            /**
-             * Note that while cloneAndSetSorting() and
-             * processQueueAndSetEntities() are synchronized, this method itself
-             * and the sorting are not. This means that the actual sorting can
-             * be done concurrently with any other operations.
-             */
-            List<EntityRef> newEnts = cloneAndSetSorting();
-
-            try {
-                Collections.sort(newEnts, comparator);
-            } catch (IllegalArgumentException ex) {
-                logger.warn("Entities destroyed during sorting process. Sorting is skipped this round.");
-                clearQueue();
-                return;
+        private void fullSort() {
+            // non-negative floats order like their bits, so distance and index pack into one sortable long
+            long[] keys = new long[entities.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = ((long) Float.floatToIntBits(distances[i]) << 32) | i;
+            }
+            Arrays.sort(keys);
+            EntityRef[] unsorted = entities.clone();
+            for (int i = 0; i < keys.length; i++) {
+                int index = (int) keys[i];
+                entities[i] = unsorted[index];
+                distances[i] = Float.intBitsToFloat((int) (keys[i] >>> 32));
             }
-            processQueueAndSetEntities(newEnts);
         }
     }
 }
@@ -27,6 +27,7 @@
 import org.terasology.config.Config;
 import org.terasology.entitySystem.entity.EntityManager;
 import org.terasology.entitySystem.entity.EntityRef;
+import org.terasology.entitySystem.entity.lifecycleEvents.BeforeDeactivateComponent;
 import org.terasology.entitySystem.entity.lifecycleEvents.OnActivatedComponent;
 import org.terasology.entitySystem.event.ReceiveEvent;
 import org.terasology.entitySystem.systems.BaseComponentSystem;
@@ -52,6 +53,7 @@
 import org.terasology.rendering.world.WorldRenderer;
 
 import java.nio.FloatBuffer;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -83,8 +85,21 @@ public class SkeletonRenderer extends BaseComponentSystem implements RenderSyste
 
     private Random random = new Random();
 
+    private NearestSortingList skeletonSorter = new NearestSortingList();
+
+    @Override
+    public void initialise() {
+        skeletonSorter.initialise(worldRenderer.getActiveCamera());
+    }
+
+    @Override
+    public void shutdown() {
+        skeletonSorter.stop();
+    }
+
     @ReceiveEvent(components = {SkeletalMeshComponent.class, LocationComponent.class})
     public void newSkeleton(OnActivatedComponent event, EntityRef entity) {
+        skeletonSorter.add(entity);
         SkeletalMeshComponent skeleton = entity.getComponent(SkeletalMeshComponent.class);
         if (skeleton.mesh == null) {
             return;
@@ -109,6 +124,11 @@ public void newSkeleton(OnActivatedComponent event, EntityRef entity) {
         }
     }
 
+    @ReceiveEvent(components = {SkeletalMeshComponent.class, LocationComponent.class})
+    public void destroySkeleton(BeforeDeactivateComponent event, EntityRef entity) {
+        skeletonSorter.remove(entity);
+    }
+
     @Override
     public void update(float delta) {
         for (EntityRef entity : entityManager.getEntitiesWith(SkeletalMeshComponent.class, LocationComponent.class)) {
@@ -220,7 +240,13 @@ public void renderOpaque() {
         FloatBuffer tempMatrixBuffer44 = BufferUtils.createFloatBuffer(16);
         FloatBuffer tempMatrixBuffer33 = BufferUtils.createFloatBuffer(12);
 
-        for (EntityRef entity : entityManager.getEntitiesWith(SkeletalMeshComponent.class, LocationComponent.class)) {
+        Iterable<EntityRef> skeletons;
+        if (config.getRendering().isRenderNearest()) {
+            skeletons = Arrays.asList(skeletonSorter.getNearest(config.getRendering().getMeshLimit()));
+        } else {
+            skeletons = entityManager.getEntitiesWith(SkeletalMeshComponent.class, LocationComponent.class);
+        }
+        for (EntityRef entity : skeletons) {
 
             SkeletalMeshComponent skeletalMesh = entity.getComponent(SkeletalMeshComponent.class);
             if (skeletalMesh.mesh == null || skeletalMesh.material == null || skeletalMesh.boneEntities == null || !skeletalMesh.material.isRenderable()) {
@@ -15,6 +15,7 @@
  */
 package org.terasology.rendering.md5;
 
+import com.google.common.io.ByteStreams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.assets.ResourceUrn;
@@ -22,18 +23,24 @@
 import org.terasology.assets.format.AssetDataFile;
 import org.terasology.assets.module.annotations.RegisterAssetFileFormat;
 import org.terasology.rendering.assets.skeletalmesh.SkeletalMeshData;
+import org.terasology.rendering.collada.ColladaCache;
 import org.terasology.rendering.collada.ColladaLoader;
 import org.terasology.rendering.collada.ColladaParseException;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Importer for Collada data exchange model files.  Supports skeletal mesh data
  * <p>
  * The development of this loader was greatly influenced by
  * http://www.wazim.com/Collada_Tutorial_1.htm
+ * <p>
+ * Decoded skeletal meshes are kept in a {@link ColladaCache}, like the meshes of
+ * {@link org.terasology.rendering.assets.mesh.ColladaMeshFormat}.
  *
  */
 @RegisterAssetFileFormat
@@ -41,20 +48,74 @@ public class ColladaSkeletalMeshLoader extends AbstractAssetFileFormat<SkeletalM
 
     private static final Logger logger = LoggerFactory.getLogger(ColladaSkeletalMeshLoader.class);
 
+    private final ColladaCache cache;
+
     public ColladaSkeletalMeshLoader() {
+        this(ColladaCache.createDefault());
+    }
+
+    /**
+     * @param cache The cache to keep decoded skeletal meshes in, or null to always decode
+     */
+    public ColladaSkeletalMeshLoader(ColladaCache cache) {
         super("dae");
+        this.cache = cache;
     }
 
     @Override
     public SkeletalMeshData load(ResourceUrn urn, List<AssetDataFile> inputs) throws IOException {
         logger.info("Loading skeletal mesh for " + urn);
 
-
+        byte[] source;
         try (InputStream stream = inputs.get(0).openStream()) {
+            source = ByteStreams.toByteArray(stream);
+        }
+        return load(urn.toString(), source);
+    }
+
+    /**
+     * @param name   The name of the skeletal mesh, for error messages
+     * @param source The content of the Collada file
+     * @return The skeletal mesh, from the cache if the same content was decoded before
+     * @throws IOException If the content is not a valid Collada skeletal mesh
+     */
+    public SkeletalMeshData load(String name, byte[] source) throws IOException {
+        if (cache == null) {
+            return decode(name, source);
+        }
+        String key = cache.computeKey(source);
+        Optional<SkeletalMeshData> cached = cache.loadSkeletalMesh(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        SkeletalMeshData data = decode(name, source);
+        cache.storeSkeletalMesh(key, data);
+        return data;
+    }
+
+    /**
+     * Decodes the skeletal mesh into the cache unless it is cached already, so that loading it later only reads the
+     * decoded data.
+     *
+     * @param name   The name of the skeletal mesh, for error messages
+     * @param source The content of the Collada file
+     * @throws IOException If the content is not a valid Collada skeletal mesh
+     */
+    public void prepare(String name, byte[] source) throws IOException {
+        if (cache != null) {
+            String key = cache.computeKey(source);
+            if (!cache.hasSkeletalMesh(key)) {
+                cache.storeSkeletalMesh(key, decode(name, source));
+            }
+        }
+    }
+
+    private SkeletalMeshData decode(String name, byte[] source) throws IOException {
+        try (InputStream stream = new ByteArrayInputStream(source)) {
             ColladaLoader loader = new ColladaLoader();
             return loader.parseSkeletalMeshData(stream);
         } catch (ColladaParseException e) {
-            throw new IOException("Unable to load skeletal mesh for " + urn, e);
+            throw new IOException("Unable to load skeletal mesh for " + name, e);
         }
     }
 }
@@ -31,6 +31,14 @@ public CoreLayout(String id) {
         super(id);
     }
 
+    /**
+     * Discards the sizes the canvas has kept for layouts. Call this when a setting that affects the size of this layout
+     * changes.
+     */
+    protected void invalidateLayout() {
+        LayoutRevision.invalidate();
+    }
+
     @Override
     public void onMouseButtonEvent(MouseButtonEvent event) {
     }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.nui;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A counter that is increased whenever something that may change the size of widgets changes, such as the value of a
+ * binding, the settings of a layout or a skin.
+ * <br><br>
+ * The canvas keeps the sizes it calculated for layouts between frames, and discards them when the revision changes.
+ * Widgets that change their size in a way the canvas cannot see should call {@link #invalidate()}.
+ */
+public final class LayoutRevision {
+
+    private static final AtomicLong REVISION = new AtomicLong();
+
+    private LayoutRevision() {
+    }
+
+    /**
+     * @return The current revision
+     */
+    public static long get() {
+        return REVISION.get();
+    }
+
+    /**
+     * Discards every layout size calculated so far.
+     */
+    public static void invalidate() {
+        REVISION.incrementAndGet();
+    }
+}
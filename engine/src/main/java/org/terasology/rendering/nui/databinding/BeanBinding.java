@@ -17,6 +17,7 @@
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.terasology.rendering.nui.LayoutRevision;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -62,6 +63,7 @@ public void set(T value) {
         if (bean.get() != null) {
             try {
                 setter.invoke(bean.get(), value);
+                LayoutRevision.invalidate();
             } catch (IllegalArgumentException | IllegalAccessException | InvocationTargetException e) {
                 logger.error("Failed to set value through setter", e);
             }
@@ -15,6 +15,10 @@
  */
 package org.terasology.rendering.nui.databinding;
 
+import org.terasology.rendering.nui.LayoutRevision;
+
+import java.util.Objects;
+
 /**
  */
 public class DefaultBinding<T> implements Binding<T> {
@@ -35,6 +39,9 @@ public T get() {
 
     @Override
     public void set(T v) {
+        if (!Objects.equals(value, v)) {
+            LayoutRevision.invalidate();
+        }
         this.value = v;
     }
 }
@@ -119,6 +119,8 @@ public class CanvasImpl implements CanvasControl {
 
     private CanvasRenderer renderer;
 
+    private final LayoutCache layoutCache = new LayoutCache();
+
     public CanvasImpl(NUIManager nuiManager, Context context, CanvasRenderer renderer) {
         this.renderer = renderer;
         this.nuiManager = nuiManager;
@@ -132,6 +134,7 @@ public CanvasImpl(NUIManager nuiManager, Context context, CanvasRenderer rendere
     @Override
     public void preRender() {
         interactionRegions.clear();
+        layoutCache.beginFrame();
         Vector2i size = renderer.getTargetSize();
         state = new CanvasState(null, Rect2i.createFromMinAndSize(0, 0, size.x, size.y));
         renderer.preRender();
@@ -343,10 +346,20 @@ public Vector2i calculateRestrictedSize(UIWidget widget, Vector2i sizeRestrictio
         UISkin skin = (widget.getSkin() != null) ? widget.getSkin() : state.skin;
         UIStyle elementStyle = skin.getStyleFor(family, widget.getClass(), UIWidget.BASE_PART, widget.getMode());
         Rect2i region = applyStyleToSize(Rect2i.createFromMinAndSize(Vector2i.zero(), sizeRestrictions), elementStyle);
+        LayoutCache.Entry cached = findLayout(widget, skin, family, elementStyle, sizeRestrictions, false, region);
+        if (cached != null) {
+            return layoutCache.use(cached);
+        }
+
+        Vector2i result = null;
+        layoutCache.beginCalculation();
         try (SubRegion ignored = subRegionForWidget(widget, region, false)) {
             Vector2i preferredSize = widget.getPreferredContentSize(this, elementStyle.getMargin().shrink(sizeRestrictions));
             preferredSize = elementStyle.getMargin().grow(preferredSize);
-            return applyStyleToSize(preferredSize, elementStyle);
+            result = applyStyleToSize(preferredSize, elementStyle);
+            return result;
+        } finally {
+            layoutCache.endCalculation(widget, skin, family, elementStyle, sizeRestrictions, false, result);
         }
     }
 
@@ -357,12 +370,45 @@ public Vector2i calculateMaximumSize(UIWidget widget) {
         }
 
         String family = (widget.getFamily() != null) ? widget.getFamily() : state.family;
+        UISkin skin = (widget.getSkin() != null) ? widget.getSkin() : state.skin;
         UIStyle elementStyle = state.skin.getStyleFor(family, widget.getClass(), UIWidget.BASE_PART, widget.getMode());
-        try (SubRegion ignored = subRegionForWidget(widget, getRegion(), false)) {
-            return applyStyleToSize(elementStyle.getMargin().grow(widget.getMaxContentSize(this)), elementStyle);
+        Rect2i region = getRegion();
+        LayoutCache.Entry cached = findLayout(widget, skin, family, elementStyle, region.size(), true, region);
+        if (cached != null) {
+            return layoutCache.use(cached);
+        }
+
+        Vector2i result = null;
+        layoutCache.beginCalculation();
+        try (SubRegion ignored = subRegionForWidget(widget, region, false)) {
+            result = applyStyleToSize(elementStyle.getMargin().grow(widget.getMaxContentSize(this)), elementStyle);
+            return result;
+        } finally {
+            layoutCache.endCalculation(widget, skin, family, elementStyle, region.size(), true, result);
+        }
+    }
+
+    /**
+     * @return The size kept by the layout cache for these arguments, if it is still valid
+     */
+    private LayoutCache.Entry findLayout(UIWidget widget, UISkin skin, String family, UIStyle style, Vector2i restriction,
+                                         boolean maximum, Rect2i region) {
+        LayoutCache.Entry cached = layoutCache.find(widget, skin, family, style, restriction, maximum);
+        if (cached == null || layoutCache.isCurrent(cached)) {
+            return cached;
+        }
+        try (SubRegion ignored = subRegionForWidget(widget, region, false)) {
+            return layoutCache.revalidate(cached, this) ? cached : null;
         }
     }
 
+    /**
+     * @return The cache of the sizes calculated for widgets
+     */
+    public LayoutCache getLayoutCache() {
+        return layoutCache;
+    }
+
     @Override
     public void drawWidget(UIWidget widget) {
         drawWidget(widget, getRegion());
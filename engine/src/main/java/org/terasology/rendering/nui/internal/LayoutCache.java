@@ -0,0 +1,377 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.nui.internal;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.terasology.math.geom.Vector2i;
+import org.terasology.rendering.nui.Canvas;
+import org.terasology.rendering.nui.LayoutRevision;
+import org.terasology.rendering.nui.UILayout;
+import org.terasology.rendering.nui.UIWidget;
+import org.terasology.rendering.nui.skin.UISkin;
+import org.terasology.rendering.nui.skin.UIStyle;
+
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Remembers the sizes the canvas calculated for widgets, keyed on the widget, its style and the available size.
+ * <br><br>
+ * Within a frame every size is calculated only once, no matter how often layouts ask for it. Sizes of layouts are also
+ * kept between frames: a kept size is reused if the {@link LayoutRevision} did not change, the layout still has the
+ * same children with the same visibility, and every size the layout asked the canvas for while calculating it is still
+ * the same. Widgets that are not layouts, such as labels with bound text, are calculated again every frame, so those
+ * checks see their changes. Layouts that do not ask the canvas for the size of each visible child are never kept.
+ * <br><br>
+ * Sizes calculated for {@link Canvas#calculateMaximumSize(UIWidget)} are kept apart from preferred sizes, with the
+ * size of the region they were calculated in as the restriction.
+ */
+public final class LayoutCache {
+
+    private static final int MAX_ENTRIES_PER_WIDGET = 8;
+    private static final int EVICT_AFTER_FRAMES = 120;
+    private static final int EVICT_INTERVAL_FRAMES = 60;
+
+    private final Map<UIWidget, List<Entry>> entries = Maps.newIdentityHashMap();
+    private final Deque<Set<Dependency>> calculations = new ArrayDeque<>();
+    private final Set<Dependency> ignoredDependencies = new IgnoredDependencies();
+
+    private boolean enabled = true;
+    private long frame;
+
+    private int frameHits;
+    private int frameRetainedHits;
+    private int frameMisses;
+
+    /**
+     * Starts a new frame. Sizes of widgets that are not layouts are calculated again from now on.
+     */
+    public void beginFrame() {
+        frame++;
+        frameHits = 0;
+        frameRetainedHits = 0;
+        frameMisses = 0;
+        calculations.clear();
+        if (frame % EVICT_INTERVAL_FRAMES == 0) {
+            Iterator<List<Entry>> widgetEntries = entries.values().iterator();
+            while (widgetEntries.hasNext()) {
+                List<Entry> list = widgetEntries.next();
+                list.removeIf(entry -> frame - entry.frame > EVICT_AFTER_FRAMES);
+                if (list.isEmpty()) {
+                    widgetEntries.remove();
+                }
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param enabled Whether sizes are kept at all. Disabling the cache drops everything kept so far.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        clear();
+    }
+
+    public void clear() {
+        entries.clear();
+        calculations.clear();
+    }
+
+    /**
+     * @param maximum Whether the maximum size rather than the preferred size is looked for
+     * @return The kept entry for these arguments, which still needs {@link #revalidate} unless it is current, or null
+     */
+    Entry find(UIWidget widget, UISkin skin, String family, UIStyle style, Vector2i restriction, boolean maximum) {
+        if (!enabled) {
+            return null;
+        }
+        List<Entry> list = entries.get(widget);
+        if (list == null) {
+            return null;
+        }
+        for (Iterator<Entry> iterator = list.iterator(); iterator.hasNext(); ) {
+            Entry entry = iterator.next();
+            if (entry.matches(skin, family, style, restriction, maximum)) {
+                if (entry.revision == LayoutRevision.get() && (isCurrent(entry) || entry.canBeRetained(widget))) {
+                    return entry;
+                }
+                iterator.remove();
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Whether the entry was calculated or validated during this frame
+     */
+    boolean isCurrent(Entry entry) {
+        return entry.frame == frame;
+    }
+
+    /**
+     * Asks the canvas again for every size the entry depends on. The canvas must be set up for the widget of the
+     * entry, as it was when the entry was calculated.
+     *
+     * @return Whether all of them are unchanged, in which case the entry is current again
+     */
+    boolean revalidate(Entry entry, Canvas canvas) {
+        calculations.push(ignoredDependencies);
+        try {
+            for (Dependency dependency : entry.dependencies) {
+                Vector2i size = dependency.maximum
+                        ? canvas.calculateMaximumSize(dependency.widget)
+                        : canvas.calculateRestrictedSize(dependency.widget, dependency.restriction);
+                if (!size.equals(dependency.size)) {
+                    remove(entry);
+                    return false;
+                }
+            }
+        } finally {
+            calculations.pop();
+        }
+        entry.frame = frame;
+        frameRetainedHits++;
+        return true;
+    }
+
+    /**
+     * @return A copy of the size of the entry, which is recorded as a dependency of the calculation in progress
+     */
+    Vector2i use(Entry entry) {
+        frameHits++;
+        recordDependency(entry.widget, entry.restriction, entry.maximum, entry.size);
+        return new Vector2i(entry.size);
+    }
+
+    /**
+     * Starts calculating a size, to be followed by {@link #endCalculation} once it is done, even if it failed.
+     */
+    void beginCalculation() {
+        calculations.push(Sets.newLinkedHashSet());
+    }
+
+    /**
+     * @param size The calculated size, or null if the calculation failed
+     */
+    void endCalculation(UIWidget widget, UISkin skin, String family, UIStyle style, Vector2i restriction, boolean maximum,
+                        Vector2i size) {
+        Set<Dependency> dependencies = calculations.pop();
+        if (size == null || !enabled) {
+            return;
+        }
+        frameMisses++;
+        Entry entry = new Entry(widget, skin, family, style, new Vector2i(restriction), maximum, new Vector2i(size), frame,
+                LayoutRevision.get());
+        if (widget instanceof UILayout) {
+            entry.retainChildren(dependencies);
+        }
+
+        List<Entry> list = entries.get(widget);
+        if (list == null) {
+            list = Lists.newArrayListWithCapacity(2);
+            entries.put(widget, list);
+        } else if (list.size() >= MAX_ENTRIES_PER_WIDGET) {
+            list.remove(0);
+        }
+        list.add(entry);
+        recordDependency(widget, entry.restriction, maximum, entry.size);
+    }
+
+    /**
+     * @return The sizes reused during this frame, including the kept sizes of layouts
+     */
+    public int getFrameHits() {
+        return frameHits;
+    }
+
+    /**
+     * @return The sizes of layouts that were kept from an earlier frame and reused during this frame
+     */
+    public int getFrameRetainedHits() {
+        return frameRetainedHits;
+    }
+
+    /**
+     * @return The sizes calculated during this frame
+     */
+    public int getFrameMisses() {
+        return frameMisses;
+    }
+
+    public int getWidgetCount() {
+        return entries.size();
+    }
+
+    private void recordDependency(UIWidget widget, Vector2i restriction, boolean maximum, Vector2i size) {
+        Set<Dependency> dependencies = calculations.peek();
+        if (dependencies != null) {
+            dependencies.add(new Dependency(widget, restriction, maximum, size));
+        }
+    }
+
+    private void remove(Entry entry) {
+        List<Entry> list = entries.get(entry.widget);
+        if (list != null) {
+            list.remove(entry);
+        }
+    }
+
+    static final class Entry {
+        private final UIWidget widget;
+        private final UISkin skin;
+        private final String family;
+        private final UIStyle style;
+        private final Vector2i restriction;
+        private final boolean maximum;
+        private final Vector2i size;
+        private final long revision;
+        private long frame;
+
+        private List<Dependency> dependencies;
+        private List<UIWidget> children;
+        private List<Boolean> childVisibility;
+
+        Entry(UIWidget widget, UISkin skin, String family, UIStyle style, Vector2i restriction, boolean maximum,
+              Vector2i size, long frame, long revision) {
+            this.widget = widget;
+            this.skin = skin;
+            this.family = family;
+            this.style = style;
+            this.restriction = restriction;
+            this.maximum = maximum;
+            this.size = size;
+            this.frame = frame;
+            this.revision = revision;
+        }
+
+        boolean matches(UISkin otherSkin, String otherFamily, UIStyle otherStyle, Vector2i otherRestriction,
+                        boolean otherMaximum) {
+            return skin == otherSkin && style == otherStyle && maximum == otherMaximum
+                    && Objects.equals(family, otherFamily) && restriction.equals(otherRestriction);
+        }
+
+        /**
+         * Keeps the entry between frames if every visible child of the layout is among its dependencies.
+         */
+        void retainChildren(Set<Dependency> calculated) {
+            Set<UIWidget> dependencyWidgets = Sets.newIdentityHashSet();
+            for (Dependency dependency : calculated) {
+                dependencyWidgets.add(dependency.widget);
+            }
+            List<UIWidget> childList = Lists.newArrayList();
+            List<Boolean> visibilityList = Lists.newArrayList();
+            for (UIWidget child : widget) {
+                if (child == null) {
+                    continue;
+                }
+                boolean visible = child.isVisible();
+                if (visible && !dependencyWidgets.contains(child)) {
+                    return;
+                }
+                childList.add(child);
+                visibilityList.add(visible);
+            }
+            dependencies = Lists.newArrayList(calculated);
+            children = childList;
+            childVisibility = visibilityList;
+        }
+
+        boolean canBeRetained(UIWidget current) {
+            if (dependencies == null) {
+                return false;
+            }
+            int index = 0;
+            for (UIWidget child : current) {
+                if (child == null) {
+                    continue;
+                }
+                if (index >= children.size() || children.get(index) != child
+                        || childVisibility.get(index) != child.isVisible()) {
+                    return false;
+                }
+                index++;
+            }
+            return index == children.size();
+        }
+    }
+
+    private static final class Dependency {
+        private final UIWidget widget;
+        private final Vector2i restriction;
+        private final boolean maximum;
+        private final Vector2i size;
+
+        Dependency(UIWidget widget, Vector2i restriction, boolean maximum, Vector2i size) {
+            this.widget = widget;
+            this.restriction = restriction;
+            this.maximum = maximum;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj instanceof Dependency) {
+                Dependency other = (Dependency) obj;
+                return widget == other.widget && maximum == other.maximum && restriction.equals(other.restriction)
+                        && size.equals(other.size);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(widget), restriction, maximum, size);
+        }
+    }
+
+    /**
+     * Placed on top of the calculations while an entry is revalidated, so that the sizes asked for do not become
+     * dependencies of the calculation in progress.
+     */
+    private static final class IgnoredDependencies extends AbstractSet<Dependency> {
+        @Override
+        public boolean add(Dependency dependency) {
+            return false;
+        }
+
+        @Override
+        public Iterator<Dependency> iterator() {
+            return Collections.emptyIterator();
+        }
+
+        @Override
+        public int size() {
+            return 0;
+        }
+    }
+}
@@ -54,6 +54,7 @@
 
 import java.nio.FloatBuffer;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -84,6 +85,14 @@ public class LwjglCanvasRenderer implements CanvasRenderer {
 
     private static final String CROPPING_BOUNDARIES_PARAM = "croppingBoundaries";
     private static final Rect2f FULL_REGION = Rect2f.createFromMinAndSize(0, 0, 1, 1);
+    /**
+     * The number of text meshes kept, the least recently drawn ones are disposed first
+     */
+    private static final int MAX_CACHED_TEXTS = 512;
+    /**
+     * The number of laid out lines kept, so that only the lines that changed are laid out again when a text changes
+     */
+    private static final int MAX_CACHED_LINES = 2048;
     private Matrix4f modelView;
     private FloatBuffer matrixBuffer = BufferUtils.createFloatBuffer(16);
     private Mesh billboard;
@@ -93,8 +102,18 @@ public class LwjglCanvasRenderer implements CanvasRenderer {
     private final FontMeshBuilder fontMeshBuilder;
 
     // Text mesh caching
-    private Map<TextCacheKey, Map<Material, Mesh>> cachedText = Maps.newLinkedHashMap();
-    private Set<TextCacheKey> usedText = Sets.newHashSet();
+    private Map<TextCacheKey, CachedText> cachedText = new LinkedHashMap<TextCacheKey, CachedText>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TextCacheKey, CachedText> eldest) {
+            if (size() > MAX_CACHED_TEXTS) {
+                eldest.getValue().dispose();
+                return true;
+            }
+            return false;
+        }
+    };
+    private long textCacheHits;
+    private long textCacheMisses;
 
     // Texutre mesh caching
     private Map<TextureCacheKey, Mesh> cachedTextures = Maps.newLinkedHashMap();
@@ -110,7 +129,7 @@ public LwjglCanvasRenderer(Context context) {
         // TODO use context to get assets instead of static methods
         this.textureMat = Assets.getMaterial("engine:UITexture").get();
         this.billboard = Assets.getMesh("engine:UIBillboard").get();
-        this.fontMeshBuilder = new FontMeshBuilder(context.get(AssetManager.class).getAsset("engine:UIUnderline", Material.class).get());
+        this.fontMeshBuilder = new FontMeshBuilder(context.get(AssetManager.class).getAsset("engine:UIUnderline", Material.class).get(), MAX_CACHED_LINES);
         // failure to load these can be due to failing shaders or missing resources
     }
 
@@ -143,16 +162,6 @@ public void preRender() {
 
     @Override
     public void postRender() {
-        Iterator<Map.Entry<TextCacheKey, Map<Material, Mesh>>> textIterator = cachedText.entrySet().iterator();
-        while (textIterator.hasNext()) {
-            Map.Entry<TextCacheKey, Map<Material, Mesh>> entry = textIterator.next();
-            if (!usedText.contains(entry.getKey())) {
-                entry.getValue().values().forEach(Mesh::dispose);
-                textIterator.remove();
-            }
-        }
-        usedText.clear();
-
         Iterator<Map.Entry<TextureCacheKey, Mesh>> textureIterator = cachedTextures.entrySet().iterator();
         while (textureIterator.hasNext()) {
             Map.Entry<TextureCacheKey, Mesh> entry = textureIterator.next();
@@ -331,26 +340,25 @@ public void drawTexture(TextureRegion texture, Color color, ScaleMode mode, Rect
     public void drawText(String text, Font font, HorizontalAlign hAlign, VerticalAlign vAlign, Rect2i absoluteRegion,
                          Color color, Color shadowColor, float alpha, boolean underlined) {
         TextCacheKey key = new TextCacheKey(text, font, absoluteRegion.width(), hAlign, color, shadowColor, underlined);
-        usedText.add(key);
-        Map<Material, Mesh> fontMesh = cachedText.get(key);
-        List<String> lines = TextLineBuilder.getLines(font, text, absoluteRegion.width());
-        if (fontMesh != null) {
-            for (Mesh mesh : fontMesh.values()) {
-                if (mesh.isDisposed()) {
-                    fontMesh = null;
-                    break;
-                }
-            }
+        CachedText textMesh = cachedText.get(key);
+        if (textMesh != null && textMesh.isDisposed()) {
+            cachedText.remove(key);
+            textMesh = null;
         }
-        if (fontMesh == null) {
-            fontMesh = fontMeshBuilder.createTextMesh(font, lines, absoluteRegion.width(), hAlign, color, shadowColor, underlined);
-            cachedText.put(key, fontMesh);
+        if (textMesh == null) {
+            textCacheMisses++;
+            List<String> lines = TextLineBuilder.getLines(font, text, absoluteRegion.width());
+            textMesh = new CachedText(fontMeshBuilder.createTextMesh(font, lines, absoluteRegion.width(), hAlign, color, shadowColor, underlined),
+                    lines.size());
+            cachedText.put(key, textMesh);
+        } else {
+            textCacheHits++;
         }
 
         Vector2i offset = new Vector2i(absoluteRegion.minX(), absoluteRegion.minY());
-        offset.y += vAlign.getOffset(lines.size() * font.getLineHeight(), absoluteRegion.height());
+        offset.y += vAlign.getOffset(textMesh.lineCount * font.getLineHeight(), absoluteRegion.height());
 
-        fontMesh.entrySet().stream().filter(entry -> entry.getKey().isRenderable()).forEach(entry -> {
+        textMesh.meshes.entrySet().stream().filter(entry -> entry.getKey().isRenderable()).forEach(entry -> {
             entry.getKey().bindTextures();
             entry.getKey().setFloat4(CROPPING_BOUNDARIES_PARAM, requestedCropRegion.minX(), requestedCropRegion.maxX(),
                     requestedCropRegion.minY(), requestedCropRegion.maxY());
@@ -509,6 +517,55 @@ private void addTiles(MeshBuilder builder, Rect2i drawRegion, Rect2f subDrawRegi
         }
     }
 
+    /**
+     * @return The number of texts drawn with a cached mesh
+     */
+    public long getTextCacheHits() {
+        return textCacheHits;
+    }
+
+    /**
+     * @return The number of texts whose mesh had to be created
+     */
+    public long getTextCacheMisses() {
+        return textCacheMisses;
+    }
+
+    /**
+     * @return The number of lines of changed texts that were reused rather than laid out again
+     */
+    public long getLineCacheHits() {
+        return fontMeshBuilder.getLineCacheHits();
+    }
+
+    /**
+     * @return The number of lines that had to be laid out
+     */
+    public long getLineCacheMisses() {
+        return fontMeshBuilder.getLineCacheMisses();
+    }
+
+    /**
+     * The meshes of a text, one per material, and the number of lines they cover.
+     */
+    private static final class CachedText {
+        private final Map<Material, Mesh> meshes;
+        private final int lineCount;
+
+        CachedText(Map<Material, Mesh> meshes, int lineCount) {
+            this.meshes = meshes;
+            this.lineCount = lineCount;
+        }
+
+        boolean isDisposed() {
+            return meshes.values().stream().anyMatch(Mesh::isDisposed);
+        }
+
+        void dispose() {
+            meshes.values().forEach(Mesh::dispose);
+        }
+    }
+
     /**
      * A key that identifies an entry in the text cache. It contains the elements that affect the generation of mesh for text rendering.
      */
@@ -17,10 +17,16 @@
 package org.terasology.rendering.nui.layers.ingame.metrics;
 
 import org.terasology.engine.Time;
+import org.terasology.monitoring.RollingHistogram;
+import org.terasology.network.NetMessageSection;
+import org.terasology.network.NetMetricSource;
 import org.terasology.network.NetworkMode;
 import org.terasology.network.NetworkSystem;
 import org.terasology.registry.CoreRegistry;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 /**
  */
 final class NetworkStatsMode extends MetricsMode {
@@ -28,6 +34,8 @@ final class NetworkStatsMode extends MetricsMode {
     private Time time;
     private NetworkSystem networkSystem;
     private String lastMetric;
+    private Map<NetMessageSection, Long> lastInBytes = new EnumMap<>(NetMessageSection.class);
+    private Map<NetMessageSection, Long> lastOutBytes = new EnumMap<>(NetMessageSection.class);
 
 
     public NetworkStatsMode() {
@@ -51,6 +59,8 @@ public String getMetrics() {
             builder.append(String.format("In Bytes: %d%n", networkSystem.getIncomingBytesDelta()));
             builder.append(String.format("Out Msg: %d%n", networkSystem.getOutgoingMessagesDelta()));
             builder.append(String.format("Out Bytes: %d%n", networkSystem.getOutgoingBytesDelta()));
+            appendSections(builder);
+            appendConnections(builder);
             if (lastTime != 0) {
                 // ignore the first update as it will not have useful data
                 lastMetric = builder.toString();
@@ -61,6 +71,38 @@ public String getMetrics() {
         return lastMetric;
     }
 
+    private void appendSections(StringBuilder builder) {
+        Map<String, NetMetricSource> connections = networkSystem.getConnectionMetrics();
+        builder.append(String.format("Section bytes (in / out):%n"));
+        for (NetMessageSection section : NetMessageSection.values()) {
+            long inBytes = 0;
+            long outBytes = 0;
+            for (NetMetricSource source : connections.values()) {
+                inBytes += source.getReceivedBytes(section);
+                outBytes += source.getSentBytes(section);
+            }
+            Long previousIn = lastInBytes.put(section, inBytes);
+            Long previousOut = lastOutBytes.put(section, outBytes);
+            // totals shrink when a connection goes away, in which case the delta is meaningless for this update
+            long inDelta = Math.max(0, inBytes - (previousIn != null ? previousIn : 0));
+            long outDelta = Math.max(0, outBytes - (previousOut != null ? previousOut : 0));
+            if (inDelta > 0 || outDelta > 0) {
+                builder.append(String.format("  %s: %d / %d%n", section.getDisplayName(), inDelta, outDelta));
+            }
+        }
+    }
+
+    private void appendConnections(StringBuilder builder) {
+        for (Map.Entry<String, NetMetricSource> connection : networkSystem.getConnectionMetrics().entrySet()) {
+            RollingHistogram roundTrip = connection.getValue().getRoundTripTimes();
+            builder.append(String.format("%s: ", connection.getKey()));
+            if (roundTrip.getSampleCount() > 0) {
+                builder.append(String.format("RTT %dms (p95 %dms), ", roundTrip.getLast(), roundTrip.getPercentile(95)));
+            }
+            builder.append(String.format("queued %d%n", connection.getValue().getSendQueueDepth()));
+        }
+    }
+
     @Override
     public boolean isAvailable() {
         return networkSystem.getMode() != NetworkMode.NONE;
@@ -83,6 +83,7 @@ public void setColumns(int columns) {
         for (int i = 0; i < columnWidths.length; ++i) {
             columnWidths[i] = equalWidth;
         }
+        invalidateLayout();
     }
 
     public void setColumnWidths(float... widths) {
@@ -109,6 +110,7 @@ public void setColumnWidths(float... widths) {
                 columnWidths[columnIndex++] = widthPerColumn;
             }
         }
+        invalidateLayout();
     }
 
     @Override
@@ -326,6 +328,7 @@ public int getHorizontalSpacing() {
 
     public void setHorizontalSpacing(int horizontalSpacing) {
         this.horizontalSpacing = horizontalSpacing;
+        invalidateLayout();
     }
 
     public int getVerticalSpacing() {
@@ -334,6 +337,7 @@ public int getVerticalSpacing() {
 
     public void setVerticalSpacing(int verticalSpacing) {
         this.verticalSpacing = verticalSpacing;
+        invalidateLayout();
     }
 
     public boolean isAutoSizeColumns() {
@@ -350,10 +354,12 @@ public boolean isFillVerticalSpace() {
      */
     public void setFillVerticalSpace(boolean fillVerticalSpace) {
         this.fillVerticalSpace = fillVerticalSpace;
+        invalidateLayout();
     }
 
     public void setAutoSizeColumns(boolean autoSizeColumns) {
         this.autoSizeColumns = autoSizeColumns;
+        invalidateLayout();
     }
 
     private Iterator<List<UIWidget>> getRowIterator() {
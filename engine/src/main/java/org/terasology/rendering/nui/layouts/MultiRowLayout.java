@@ -79,6 +79,7 @@ public void setRows(int rows) {
         for (int i = 0; i < rowHeights.length; ++i) {
             rowHeights[i] = equalHeight;
         }
+        invalidateLayout();
     }
 
     public void setRowHeights(float ... heights) {
@@ -105,6 +106,7 @@ public void setRowHeights(float ... heights) {
                 rowHeights[rowIndex++] = heightPerRow;
             }
         }
+        invalidateLayout();
     }
 
     @Override
@@ -306,6 +308,7 @@ public int getHorizontalSpacing() {
 
     public void setHorizontalSpacing(int horizontalSpacing) {
         this.horizontalSpacing = horizontalSpacing;
+        invalidateLayout();
     }
 
     public int getVerticalSpacing() {
@@ -314,6 +317,7 @@ public int getVerticalSpacing() {
 
     public void setVerticalSpacing(int verticalSpacing) {
         this.verticalSpacing = verticalSpacing;
+        invalidateLayout();
     }
 
     public boolean isAutoSizeRows() {
@@ -322,6 +326,7 @@ public boolean isAutoSizeRows() {
 
     public void setAutoSizeRows(boolean autoSizeRows) {
         this.autoSizeRows = autoSizeRows;
+        invalidateLayout();
     }
 
     private Iterator<List<UIWidget>> getColumnIterator() {
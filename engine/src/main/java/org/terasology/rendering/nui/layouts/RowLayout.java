@@ -169,6 +169,7 @@ public RowLayout setColumnRatios(float... ratios) {
         for (int i = 0; i < ratios.length; ++i) {
             hints.put(contents.get(i), new RowLayoutHint(ratios[i]));
         }
+        invalidateLayout();
         return this;
     }
 
@@ -178,6 +179,7 @@ public int getHorizontalSpacing() {
 
     public RowLayout setHorizontalSpacing(int spacing) {
         this.horizontalSpacing = spacing;
+        invalidateLayout();
         return this;
     }
 }
@@ -85,6 +85,7 @@ public MigLayout(String id) {
     public void setLc(LC lc) {
         this.lc = lc;
         dirty = true;
+        invalidateLayout();
     }
 
     public void setLayoutConstraints(String constraint) {
@@ -95,6 +96,7 @@ public void setLayoutConstraints(String constraint) {
     public void setCC(AC columnConstraint) {
         this.cc = columnConstraint;
         dirty = true;
+        invalidateLayout();
     }
 
     public void setColConstraints(String constraint) {
@@ -109,6 +111,7 @@ public void setDebug(boolean debug) {
     public void setRc(AC rc) {
         this.rc = rc;
         dirty = true;
+        invalidateLayout();
     }
 
     public void setRowConstraints(String constraint) {
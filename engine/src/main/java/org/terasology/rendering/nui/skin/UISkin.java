@@ -19,6 +19,7 @@
 import org.terasology.assets.AssetType;
 import org.terasology.assets.ResourceUrn;
 import org.terasology.assets.format.AssetDataFile;
+import org.terasology.rendering.nui.LayoutRevision;
 import org.terasology.rendering.nui.UIWidget;
 
 /**
@@ -38,6 +39,7 @@ public UISkin(ResourceUrn urn, AssetType<?, UISkinData> assetType, UISkinData da
     protected void doReload(UISkinData data) {
         this.skinData = data;
         this.source = data.getSource();
+        LayoutRevision.invalidate();
     }
 
     public UIStyle getDefaultStyle() {
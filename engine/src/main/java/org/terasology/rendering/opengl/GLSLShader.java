@@ -15,13 +15,13 @@
  */
 package org.terasology.rendering.opengl;
 
-import com.google.common.base.Charsets;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
-import com.google.common.io.CharStreams;
 import gnu.trove.iterator.TIntIntIterator;
 import gnu.trove.map.TIntIntMap;
+import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
 import org.lwjgl.opengl.ARBShaderObjects;
 import org.lwjgl.opengl.GL20;
 import org.slf4j.Logger;
@@ -29,8 +29,6 @@
 import org.terasology.assets.AssetType;
 import org.terasology.assets.ResourceUrn;
 import org.terasology.config.Config;
-import org.terasology.config.RenderingConfig;
-import org.terasology.config.RenderingDebugConfig;
 import org.terasology.engine.GameThread;
 import org.terasology.engine.TerasologyConstants;
 import org.terasology.engine.paths.PathManager;
@@ -39,15 +37,10 @@
 import org.terasology.rendering.assets.shader.ShaderData;
 import org.terasology.rendering.assets.shader.ShaderParameterMetadata;
 import org.terasology.rendering.assets.shader.ShaderProgramFeature;
-import org.terasology.rendering.primitives.ChunkVertexFlag;
-import org.terasology.rendering.shader.ShaderParametersSSAO;
-import org.terasology.rendering.world.WorldRenderer;
 import org.terasology.world.block.tiles.WorldAtlas;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collections;
@@ -66,32 +59,16 @@ public class GLSLShader extends Shader {
 
     private static final Logger logger = LoggerFactory.getLogger(GLSLShader.class);
 
-    private static String includedFunctionsVertex = "";
-    private static String includedFunctionsFragment = "";
-    private static String includedDefines = "";
-    private static String includedUniforms = "";
-
-    static {
-        try (
-                InputStream vertStream = GLSLShader.class.getClassLoader().getResourceAsStream("org/terasology/include/globalFunctionsVertIncl.glsl");
-                InputStream fragStream = GLSLShader.class.getClassLoader().getResourceAsStream("org/terasology/include/globalFunctionsFragIncl.glsl");
-                InputStream uniformsStream = GLSLShader.class.getClassLoader().getResourceAsStream("org/terasology/include/globalUniformsIncl.glsl");
-                InputStream definesStream = GLSLShader.class.getClassLoader().getResourceAsStream("org/terasology/include/globalDefinesIncl.glsl")
-        ) {
-            includedFunctionsVertex = CharStreams.toString(new InputStreamReader(vertStream, Charsets.UTF_8));
-            includedFunctionsFragment = CharStreams.toString(new InputStreamReader(fragStream, Charsets.UTF_8));
-            includedDefines = CharStreams.toString(new InputStreamReader(definesStream, Charsets.UTF_8));
-            includedUniforms = CharStreams.toString(new InputStreamReader(uniformsStream, Charsets.UTF_8));
-        } catch (IOException e) {
-            logger.error("Failed to load Include shader resources");
-        }
-    }
-
     private EnumSet<ShaderProgramFeature> availableFeatures = Sets.newEnumSet(Collections.<ShaderProgramFeature>emptyList(), ShaderProgramFeature.class);
 
     private ShaderData shaderProgramBase;
+    private ShaderPreprocessor preprocessor;
     private Map<String, ShaderParameterMetadata> parameters = Maps.newHashMap();
 
+    private TIntObjectMap<Set<ShaderProgramFeature>> permutations = new TIntObjectHashMap<>();
+    private TIntObjectMap<String> fragmentSources = new TIntObjectHashMap<>();
+    private TIntObjectMap<String> vertexSources = new TIntObjectHashMap<>();
+
     private Config config = CoreRegistry.get(Config.class);
 
     private DisposalAction disposalAction;
@@ -107,13 +84,38 @@ public Set<ShaderProgramFeature> getAvailableFeatures() {
         return availableFeatures;
     }
 
+    /**
+     * Links the program of a permutation. The program is loaded from the {@link ShaderProgramCache} if there is one
+     * with a binary for the sources of the permutation; otherwise the shaders of the permutation are compiled, if they
+     * were not already, and linked.
+     */
     public int linkShaderProgram(int featureHash) {
-        int shaderProgram = GL20.glCreateProgram();
+        String fragmentSource = fragmentSources.get(featureHash);
+        String vertexSource = vertexSources.get(featureHash);
+        ShaderProgramCache programCache = CoreRegistry.get(ShaderProgramCache.class);
+        if (programCache != null) {
+            int cachedProgram = programCache.loadProgram(vertexSource, fragmentSource);
+            if (cachedProgram != 0) {
+                GL20.glValidateProgram(cachedProgram);
+                return cachedProgram;
+            }
+        }
 
-        GL20.glAttachShader(shaderProgram, disposalAction.fragmentPrograms.get(featureHash));
-        GL20.glAttachShader(shaderProgram, disposalAction.vertexPrograms.get(featureHash));
+        int fragmentShader = getCompiledShader(GL20.GL_FRAGMENT_SHADER, featureHash);
+        int vertexShader = getCompiledShader(GL20.GL_VERTEX_SHADER, featureHash);
+
+        int shaderProgram = GL20.glCreateProgram();
+        if (programCache != null) {
+            programCache.prepareProgram(shaderProgram);
+        }
+        GL20.glAttachShader(shaderProgram, fragmentShader);
+        GL20.glAttachShader(shaderProgram, vertexShader);
         GL20.glLinkProgram(shaderProgram);
         GL20.glValidateProgram(shaderProgram);
+
+        if (programCache != null) {
+            programCache.storeProgram(shaderProgram, vertexSource, fragmentSource);
+        }
         return shaderProgram;
     }
 
@@ -133,102 +135,6 @@ public Iterable<ShaderParameterMetadata> listParameters() {
         return parameters.values();
     }
 
-    private StringBuilder createShaderBuilder() {
-        String preProcessorPreamble = "#version 120\n";
-
-        // TODO: Implement a system for this - this has gotten way out of hand.
-        WorldAtlas worldAtlas = CoreRegistry.get(WorldAtlas.class);
-        if (worldAtlas != null) {
-            preProcessorPreamble += "#define TEXTURE_OFFSET " + worldAtlas.getRelativeTileSize() + "\n";
-        } else {
-            preProcessorPreamble += "#define TEXTURE_OFFSET 0.06125\n";
-        }
-        RenderingConfig renderConfig = config.getRendering();
-
-        preProcessorPreamble += "#define BLOCK_LIGHT_POW " + WorldRenderer.BLOCK_LIGHT_POW + "\n";
-        preProcessorPreamble += "#define BLOCK_LIGHT_SUN_POW " + WorldRenderer.BLOCK_LIGHT_SUN_POW + "\n";
-        preProcessorPreamble += "#define BLOCK_INTENSITY_FACTOR " + WorldRenderer.BLOCK_INTENSITY_FACTOR + "\n";
-        preProcessorPreamble += "#define SHADOW_MAP_RESOLUTION " + (float) renderConfig.getShadowMapResolution() + "\n";
-        preProcessorPreamble += "#define SSAO_KERNEL_ELEMENTS " + ShaderParametersSSAO.SSAO_KERNEL_ELEMENTS + "\n";
-        preProcessorPreamble += "#define SSAO_NOISE_SIZE " + ShaderParametersSSAO.SSAO_NOISE_SIZE + "\n";
-        // TODO: This shouldn't be hardcoded
-        preProcessorPreamble += "#define TEXTURE_OFFSET_EFFECTS " + 0.0625f + "\n";
-
-        StringBuilder builder = new StringBuilder().append(preProcessorPreamble);
-        if (renderConfig.isVolumetricFog()) {
-            builder.append("#define VOLUMETRIC_FOG");
-        }
-
-        if (renderConfig.isAnimateGrass()) {
-            builder.append("#define ANIMATED_GRASS \n");
-        }
-        if (renderConfig.isAnimateWater()) {
-            builder.append("#define ANIMATED_WATER \n");
-        }
-        if (renderConfig.getBlurIntensity() == 0) {
-            builder.append("#define NO_BLUR \n");
-        }
-        if (renderConfig.isFlickeringLight()) {
-            builder.append("#define FLICKERING_LIGHT \n");
-        }
-        if (renderConfig.isVignette()) {
-            builder.append("#define VIGNETTE \n");
-        }
-        if (renderConfig.isBloom()) {
-            builder.append("#define BLOOM \n");
-        }
-        if (renderConfig.isMotionBlur()) {
-            builder.append("#define MOTION_BLUR \n");
-        }
-        if (renderConfig.isSsao()) {
-            builder.append("#define SSAO \n");
-        }
-        if (renderConfig.isFilmGrain()) {
-            builder.append("#define FILM_GRAIN \n");
-        }
-        if (renderConfig.isOutline()) {
-            builder.append("#define OUTLINE \n");
-        }
-        if (renderConfig.isLightShafts()) {
-            builder.append("#define LIGHT_SHAFTS \n");
-        }
-        if (renderConfig.isDynamicShadows()) {
-            builder.append("#define DYNAMIC_SHADOWS \n");
-        }
-        if (renderConfig.isNormalMapping()) {
-            builder.append("#define NORMAL_MAPPING \n");
-        }
-        if (renderConfig.isParallaxMapping()) {
-            builder.append("#define PARALLAX_MAPPING \n");
-        }
-        if (renderConfig.isDynamicShadowsPcfFiltering()) {
-            builder.append("#define DYNAMIC_SHADOWS_PCF \n");
-        }
-        if (renderConfig.isCloudShadows()) {
-            builder.append("#define CLOUD_SHADOWS \n");
-        }
-        if (renderConfig.isLocalReflections()) {
-            builder.append("#define LOCAL_REFLECTIONS \n");
-        }
-        if (renderConfig.isInscattering()) {
-            builder.append("#define INSCATTERING \n");
-        }
-        // TODO A 3D wizard should take a look at this. Configurable for the moment to make better comparisons possible.
-        if (renderConfig.isClampLighting()) {
-            builder.append("#define CLAMP_LIGHTING \n");
-        }
-
-        for (RenderingDebugConfig.DebugRenderingStage stage : RenderingDebugConfig.DebugRenderingStage.values()) {
-            builder.append("#define ").append(stage.getDefineName()).append(" int(").append(stage.getIndex()).append(") \n");
-        }
-
-        for (ChunkVertexFlag vertexFlag : ChunkVertexFlag.values()) {
-            builder.append("#define ").append(vertexFlag.getDefineName()).append(" int(").append(vertexFlag.getValue()).append(") \n");
-        }
-
-        return builder;
-    }
-
     private void updateAvailableFeatures() {
         availableFeatures.clear();
 
@@ -247,56 +153,42 @@ private void updateAvailableFeatures() {
     }
 
     /**
-     * Compiles all combination of available features and stores them in two maps for
-     * lookup based on a unique hash of features.
+     * Assembles the sources of all combinations of available features and stores them for lookup based on a unique
+     * hash of features. Shaders compiled from sources that changed are deleted; shaders are only compiled once a
+     * program needs them.
      */
     private void registerAllShaderPermutations() {
+        String preamble = ShaderPreprocessor.createPreamble(config.getRendering(), CoreRegistry.get(WorldAtlas.class));
         Set<Set<ShaderProgramFeature>> allPermutations = Sets.powerSet(availableFeatures);
+        int assembledBefore = preprocessor.getAssembledCount();
 
         for (Set<ShaderProgramFeature> permutation : allPermutations) {
-            int fragShaderId = compileShader(GL20.GL_FRAGMENT_SHADER, permutation);
-            int vertShaderId = compileShader(GL20.GL_VERTEX_SHADER, permutation);
-
-            if (compileSuccess(fragShaderId) && compileSuccess(vertShaderId)) {
-                int featureHash = ShaderProgramFeature.getBitset(permutation);
-                disposalAction.fragmentPrograms.put(featureHash, fragShaderId);
-                disposalAction.vertexPrograms.put(featureHash, vertShaderId);
-            } else {
-                throw new RuntimeException(String.format("Shader '%s' failed to compile for features '%s'.\n\n"
-                                + "Vertex Shader Info: \n%s\n"
-                                + "Fragment Shader Info: \n%s",
-                        getUrn(), permutation,
-                        getLogInfo(vertShaderId), getLogInfo(fragShaderId)));
-            }
+            int featureHash = ShaderProgramFeature.getBitset(permutation);
+            permutations.put(featureHash, permutation);
+            updateSource(GL20.GL_FRAGMENT_SHADER, permutation, preprocessor.getSource(GL20.GL_FRAGMENT_SHADER, preamble, permutation));
+            updateSource(GL20.GL_VERTEX_SHADER, permutation, preprocessor.getSource(GL20.GL_VERTEX_SHADER, preamble, permutation));
         }
 
-        logger.debug("Compiled {} permutations for {}.", allPermutations.size(), getUrn());
+        logger.debug("Prepared {} permutations for {}, assembling {} sources.", allPermutations.size(), getUrn(),
+                preprocessor.getAssembledCount() - assembledBefore);
     }
 
-    private String assembleShader(int type, Set<ShaderProgramFeature> features) {
-        StringBuilder shader = createShaderBuilder();
-
-        // Add the activated features for this shader
-        for (ShaderProgramFeature feature : features) {
-            shader.append("#define ").append(feature.name()).append("\n");
+    private void updateSource(int type, Set<ShaderProgramFeature> features, String source) {
+        int featureHash = ShaderProgramFeature.getBitset(features);
+        TIntObjectMap<String> sources = (type == GL20.GL_FRAGMENT_SHADER) ? fragmentSources : vertexSources;
+        if (source.equals(sources.get(featureHash))) {
+            return;
         }
+        sources.put(featureHash, source);
 
-        shader.append("\n");
-
-        shader.append(includedDefines);
-        shader.append(includedUniforms);
-
-        if (type == GL20.GL_FRAGMENT_SHADER) {
-            shader.append(includedFunctionsFragment);
-            shader.append("\n");
-            shader.append(shaderProgramBase.getFragmentProgram());
-        } else {
-            shader.append(includedFunctionsVertex);
-            shader.append("\n");
-            shader.append(shaderProgramBase.getVertexProgram());
+        TIntIntMap shaders = (type == GL20.GL_FRAGMENT_SHADER) ? disposalAction.fragmentPrograms : disposalAction.vertexPrograms;
+        if (shaders.containsKey(featureHash)) {
+            GL20.glDeleteShader(shaders.remove(featureHash));
         }
 
-        return shader.toString();
+        if (config.getRendering().isDumpShaders()) {
+            dumpCode(type, features, source);
+        }
     }
 
     private void dumpCode(int type, Set<ShaderProgramFeature> features, String sourceCode) {
@@ -321,18 +213,25 @@ private void dumpCode(int type, Set<ShaderProgramFeature> features, String sourc
         }
     }
 
-    private int compileShader(int type, Set<ShaderProgramFeature> features) {
-        int shaderId = GL20.glCreateShader(type);
-
-        String shader = assembleShader(type, features);
-
-        if (config.getRendering().isDumpShaders()) {
-            dumpCode(type, features, shader);
+    private int getCompiledShader(int type, int featureHash) {
+        TIntIntMap shaders = (type == GL20.GL_FRAGMENT_SHADER) ? disposalAction.fragmentPrograms : disposalAction.vertexPrograms;
+        if (shaders.containsKey(featureHash)) {
+            return shaders.get(featureHash);
         }
 
-        GL20.glShaderSource(shaderId, shader);
+        int shaderId = GL20.glCreateShader(type);
+        GL20.glShaderSource(shaderId, (type == GL20.GL_FRAGMENT_SHADER) ? fragmentSources.get(featureHash) : vertexSources.get(featureHash));
         GL20.glCompileShader(shaderId);
 
+        if (!compileSuccess(shaderId)) {
+            String logInfo = getLogInfo(shaderId);
+            GL20.glDeleteShader(shaderId);
+            throw new RuntimeException(String.format("Shader '%s' failed to compile for features '%s'.\n\n"
+                            + "%s Shader Info: \n%s",
+                    getUrn(), permutations.get(featureHash),
+                    (type == GL20.GL_FRAGMENT_SHADER) ? "Fragment" : "Vertex", logInfo));
+        }
+        shaders.put(featureHash, shaderId);
         return shaderId;
     }
 
@@ -368,6 +267,10 @@ protected void doReload(ShaderData data) {
 
                 disposalAction.disposeData();
                 shaderProgramBase = data;
+                preprocessor = new ShaderPreprocessor(data);
+                permutations.clear();
+                fragmentSources.clear();
+                vertexSources.clear();
                 parameters.clear();
                 for (ShaderParameterMetadata metadata : shaderProgramBase.getParameterMetadata()) {
                     parameters.put(metadata.getName(), metadata);
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.opengl;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.CharStreams;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import org.lwjgl.opengl.GL20;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.config.RenderingConfig;
+import org.terasology.config.RenderingDebugConfig;
+import org.terasology.rendering.assets.shader.ShaderData;
+import org.terasology.rendering.assets.shader.ShaderProgramFeature;
+import org.terasology.rendering.primitives.ChunkVertexFlag;
+import org.terasology.rendering.shader.ShaderParametersSSAO;
+import org.terasology.rendering.world.WorldRenderer;
+import org.terasology.world.block.tiles.WorldAtlas;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Set;
+
+/**
+ * Assembles the source the GPU compiles for each permutation of a shader: a preamble of defines taken from the
+ * rendering config, the defines of the features of the permutation, the global includes and the program itself.
+ * <br><br>
+ * Assembled sources are kept per shader type and feature set for as long as the preamble stays the same, so a config
+ * change that does not change the preamble assembles nothing again, and the same source instance is returned for an
+ * unchanged permutation. Nothing in here needs a graphics context.
+ */
+public final class ShaderPreprocessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShaderPreprocessor.class);
+
+    private static String includedFunctionsVertex = "";
+    private static String includedFunctionsFragment = "";
+    private static String includedDefines = "";
+    private static String includedUniforms = "";
+
+    static {
+        try (
+                InputStream vertStream = ShaderPreprocessor.class.getClassLoader().getResourceAsStream("org/terasology/include/globalFunctionsVertIncl.glsl");
+                InputStream fragStream = ShaderPreprocessor.class.getClassLoader().getResourceAsStream("org/terasology/include/globalFunctionsFragIncl.glsl");
+                InputStream uniformsStream = ShaderPreprocessor.class.getClassLoader().getResourceAsStream("org/terasology/include/globalUniformsIncl.glsl");
+                InputStream definesStream = ShaderPreprocessor.class.getClassLoader().getResourceAsStream("org/terasology/include/globalDefinesIncl.glsl")
+        ) {
+            includedFunctionsVertex = CharStreams.toString(new InputStreamReader(vertStream, Charsets.UTF_8));
+            includedFunctionsFragment = CharStreams.toString(new InputStreamReader(fragStream, Charsets.UTF_8));
+            includedDefines = CharStreams.toString(new InputStreamReader(definesStream, Charsets.UTF_8));
+            includedUniforms = CharStreams.toString(new InputStreamReader(uniformsStream, Charsets.UTF_8));
+        } catch (IOException e) {
+            logger.error("Failed to load Include shader resources");
+        }
+    }
+
+    private final ShaderData program;
+    private final TIntObjectMap<String> vertexSources = new TIntObjectHashMap<>();
+    private final TIntObjectMap<String> fragmentSources = new TIntObjectHashMap<>();
+    private String preamble;
+
+    private int assembledCount;
+
+    /**
+     * @param program The vertex and fragment program of the shader
+     */
+    public ShaderPreprocessor(ShaderData program) {
+        this.program = program;
+    }
+
+    /**
+     * @param renderConfig The config the defines are taken from
+     * @param worldAtlas   The atlas to take the relative tile size from, or null if there is none yet
+     * @return The defines that start the source of every permutation of every shader
+     */
+    public static String createPreamble(RenderingConfig renderConfig, WorldAtlas worldAtlas) {
+        String preProcessorPreamble = "#version 120\n";
+
+        // TODO: Implement a system for this - this has gotten way out of hand.
+        if (worldAtlas != null) {
+            preProcessorPreamble += "#define TEXTURE_OFFSET " + worldAtlas.getRelativeTileSize() + "\n";
+        } else {
+            preProcessorPreamble += "#define TEXTURE_OFFSET 0.06125\n";
+        }
+
+        preProcessorPreamble += "#define BLOCK_LIGHT_POW " + WorldRenderer.BLOCK_LIGHT_POW + "\n";
+        preProcessorPreamble += "#define BLOCK_LIGHT_SUN_POW " + WorldRenderer.BLOCK_LIGHT_SUN_POW + "\n";
+        preProcessorPreamble += "#define BLOCK_INTENSITY_FACTOR " + WorldRenderer.BLOCK_INTENSITY_FACTOR + "\n";
+        preProcessorPreamble += "#define SHADOW_MAP_RESOLUTION " + (float) renderConfig.getShadowMapResolution() + "\n";
+        preProcessorPreamble += "#define SSAO_KERNEL_ELEMENTS " + ShaderParametersSSAO.SSAO_KERNEL_ELEMENTS + "\n";
+        preProcessorPreamble += "#define SSAO_NOISE_SIZE " + ShaderParametersSSAO.SSAO_NOISE_SIZE + "\n";
+        // TODO: This shouldn't be hardcoded
+        preProcessorPreamble += "#define TEXTURE_OFFSET_EFFECTS " + 0.0625f + "\n";
+
+        StringBuilder builder = new StringBuilder().append(preProcessorPreamble);
+        if (renderConfig.isVolumetricFog()) {
+            builder.append("#define VOLUMETRIC_FOG");
+        }
+
+        if (renderConfig.isAnimateGrass()) {
+            builder.append("#define ANIMATED_GRASS \n");
+        }
+        if (renderConfig.isAnimateWater()) {
+            builder.append("#define ANIMATED_WATER \n");
+        }
+        if (renderConfig.getBlurIntensity() == 0) {
+            builder.append("#define NO_BLUR \n");
+        }
+        if (renderConfig.isFlickeringLight()) {
+            builder.append("#define FLICKERING_LIGHT \n");
+        }
+        if (renderConfig.isVignette()) {
+            builder.append("#define VIGNETTE \n");
+        }
+        if (renderConfig.isBloom()) {
+            builder.append("#define BLOOM \n");
+        }
+        if (renderConfig.isMotionBlur()) {
+            builder.append("#define MOTION_BLUR \n");
+        }
+        if (renderConfig.isSsao()) {
+            builder.append("#define SSAO \n");
+        }
+        if (renderConfig.isFilmGrain()) {
+            builder.append("#define FILM_GRAIN \n");
+        }
+        if (renderConfig.isOutline()) {
+            builder.append("#define OUTLINE \n");
+        }
+        if (renderConfig.isLightShafts()) {
+            builder.append("#define LIGHT_SHAFTS \n");
+        }
+        if (renderConfig.isDynamicShadows()) {
+            builder.append("#define DYNAMIC_SHADOWS \n");
+        }
+        if (renderConfig.isNormalMapping()) {
+            builder.append("#define NORMAL_MAPPING \n");
+        }
+        if (renderConfig.isParallaxMapping()) {
+            builder.append("#define PARALLAX_MAPPING \n");
+        }
+        if (renderConfig.isDynamicShadowsPcfFiltering()) {
+            builder.append("#define DYNAMIC_SHADOWS_PCF \n");
+        }
+        if (renderConfig.isCloudShadows()) {
+            builder.append("#define CLOUD_SHADOWS \n");
+        }
+        if (renderConfig.isLocalReflections()) {
+            builder.append("#define LOCAL_REFLECTIONS \n");
+        }
+        if (renderConfig.isInscattering()) {
+            builder.append("#define INSCATTERING \n");
+        }
+        // TODO A 3D wizard should take a look at this. Configurable for the moment to make better comparisons possible.
+        if (renderConfig.isClampLighting()) {
+            builder.append("#define CLAMP_LIGHTING \n");
+        }
+
+        for (RenderingDebugConfig.DebugRenderingStage stage : RenderingDebugConfig.DebugRenderingStage.values()) {
+            builder.append("#define ").append(stage.getDefineName()).append(" int(").append(stage.getIndex()).append(") \n");
+        }
+
+        for (ChunkVertexFlag vertexFlag : ChunkVertexFlag.values()) {
+            builder.append("#define ").append(vertexFlag.getDefineName()).append(" int(").append(vertexFlag.getValue()).append(") \n");
+        }
+
+        return builder.toString();
+    }
+
+    /**
+     * @param type             GL20.GL_VERTEX_SHADER or GL20.GL_FRAGMENT_SHADER
+     * @param currentPreamble  The preamble from {@link #createPreamble(RenderingConfig, WorldAtlas)}
+     * @param features         The features of the permutation
+     * @return The complete source of the permutation
+     */
+    public String getSource(int type, String currentPreamble, Set<ShaderProgramFeature> features) {
+        if (!currentPreamble.equals(preamble)) {
+            preamble = currentPreamble;
+            vertexSources.clear();
+            fragmentSources.clear();
+        }
+
+        TIntObjectMap<String> sources = (type == GL20.GL_FRAGMENT_SHADER) ? fragmentSources : vertexSources;
+        int featureHash = ShaderProgramFeature.getBitset(features);
+        String source = sources.get(featureHash);
+        if (source == null) {
+            source = assemble(type, features);
+            sources.put(featureHash, source);
+            assembledCount++;
+        }
+        return source;
+    }
+
+    /**
+     * @return How many sources were assembled rather than taken from those assembled before
+     */
+    public int getAssembledCount() {
+        return assembledCount;
+    }
+
+    private String assemble(int type, Set<ShaderProgramFeature> features) {
+        StringBuilder shader = new StringBuilder(preamble);
+
+        // Add the activated features for this shader
+        for (ShaderProgramFeature feature : features) {
+            shader.append("#define ").append(feature.name()).append("\n");
+        }
+
+        shader.append("\n");
+
+        shader.append(includedDefines);
+        shader.append(includedUniforms);
+
+        if (type == GL20.GL_FRAGMENT_SHADER) {
+            shader.append(includedFunctionsFragment);
+            shader.append("\n");
+            shader.append(program.getFragmentProgram());
+        } else {
+            shader.append(includedFunctionsVertex);
+            shader.append("\n");
+            shader.append(program.getVertexProgram());
+        }
+
+        return shader.toString();
+    }
+}
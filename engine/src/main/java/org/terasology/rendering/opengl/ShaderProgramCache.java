@@ -0,0 +1,294 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.opengl;
+
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.ARBGetProgramBinary;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GLContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps linked shader programs on disk as driver specific binaries, so that a later start can load a program instead of
+ * compiling and linking its shaders again.
+ * <br><br>
+ * Binaries are stored under a hash of the vertex and fragment source and the vendor, renderer and version strings of
+ * the driver, so a driver update or a changed source never loads a stale binary. A driver may still reject a binary it
+ * wrote, in which case the program is compiled and linked as usual and the binary is replaced. Only available if the
+ * driver supports ARB_get_program_binary with at least one binary format.
+ */
+public class ShaderProgramCache {
+    private static final Logger logger = LoggerFactory.getLogger(ShaderProgramCache.class);
+
+    private static final int MAGIC = 0x53504231;
+    // magic, format and length
+    private static final int HEADER_SIZE = 12;
+    private static final int MAX_CACHED_PROGRAMS = 1024;
+    private static final String EXTENSION = ".bin";
+
+    private final Path directory;
+    private final String driver;
+
+    private int loadedCount;
+    private int storedCount;
+
+    /**
+     * @param directory The directory to keep the binaries in, created when the first binary is stored
+     * @param driver    Identifies the driver the binaries are compatible with, see {@link #getDriverString()}
+     */
+    public ShaderProgramCache(Path directory, String driver) {
+        this.directory = directory;
+        this.driver = driver;
+    }
+
+    /**
+     * Needs a current graphics context.
+     */
+    public static boolean isSupported() {
+        return GLContext.getCapabilities().GL_ARB_get_program_binary
+                && GL11.glGetInteger(ARBGetProgramBinary.GL_NUM_PROGRAM_BINARY_FORMATS) > 0;
+    }
+
+    /**
+     * Needs a current graphics context.
+     */
+    public static String getDriverString() {
+        return GL11.glGetString(GL11.GL_VENDOR) + "|" + GL11.glGetString(GL11.GL_RENDERER) + "|" + GL11.glGetString(GL11.GL_VERSION);
+    }
+
+    /**
+     * Creates a program from the binary stored for these sources.
+     *
+     * @return The linked program, or 0 if there is no usable binary
+     */
+    public int loadProgram(String vertexSource, String fragmentSource) {
+        String key = computeKey(vertexSource, fragmentSource);
+        Optional<ProgramBinary> binary = read(key);
+        if (!binary.isPresent()) {
+            return 0;
+        }
+
+        int program = GL20.glCreateProgram();
+        ARBGetProgramBinary.glProgramBinary(program, binary.get().getFormat(), binary.get().getData());
+        if (GL20.glGetProgrami(program, GL20.GL_LINK_STATUS) == 0) {
+            logger.debug("Driver rejected the cached shader program {}", key);
+            GL20.glDeleteProgram(program);
+            delete(key);
+            return 0;
+        }
+        loadedCount++;
+        return program;
+    }
+
+    /**
+     * Asks the driver to keep the binary of a program around, to be called before the program is linked.
+     */
+    public void prepareProgram(int program) {
+        ARBGetProgramBinary.glProgramParameteri(program, ARBGetProgramBinary.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL11.GL_TRUE);
+    }
+
+    /**
+     * Stores the binary of a program linked from these sources, if it was linked successfully.
+     */
+    public void storeProgram(int program, String vertexSource, String fragmentSource) {
+        if (GL20.glGetProgrami(program, GL20.GL_LINK_STATUS) == 0) {
+            return;
+        }
+        int length = GL20.glGetProgrami(program, ARBGetProgramBinary.GL_PROGRAM_BINARY_LENGTH);
+        if (length <= 0) {
+            return;
+        }
+        IntBuffer lengthBuffer = BufferUtils.createIntBuffer(1);
+        IntBuffer formatBuffer = BufferUtils.createIntBuffer(1);
+        ByteBuffer data = BufferUtils.createByteBuffer(length);
+        ARBGetProgramBinary.glGetProgramBinary(program, lengthBuffer, formatBuffer, data);
+        data.limit(lengthBuffer.get(0));
+        write(computeKey(vertexSource, fragmentSource), new ProgramBinary(formatBuffer.get(0), data));
+        storedCount++;
+    }
+
+    /**
+     * Removes the least recently used binaries beyond {@value #MAX_CACHED_PROGRAMS}.
+     */
+    public void trim() {
+        List<Path> files = Lists.newArrayList();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            // Nothing cached yet
+            return;
+        }
+        if (files.size() <= MAX_CACHED_PROGRAMS) {
+            return;
+        }
+        files.sort(Collections.reverseOrder(Comparator.comparing(ShaderProgramCache::lastModified)));
+        for (Path file : files.subList(MAX_CACHED_PROGRAMS, files.size())) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.debug("Failed to remove old cached shader program {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * @return How many programs were loaded from binaries since this cache was created
+     */
+    public int getLoadedCount() {
+        return loadedCount;
+    }
+
+    /**
+     * @return How many binaries were stored since this cache was created
+     */
+    public int getStoredCount() {
+        return storedCount;
+    }
+
+    String computeKey(String vertexSource, String fragmentSource) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putString(driver, StandardCharsets.UTF_8).putByte((byte) 0);
+        hasher.putString(vertexSource, StandardCharsets.UTF_8).putByte((byte) 0);
+        hasher.putString(fragmentSource, StandardCharsets.UTF_8);
+        return hasher.hash().toString();
+    }
+
+    Optional<ProgramBinary> read(String key) {
+        Path file = directory.resolve(key + EXTENSION);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        int format;
+        byte[] bytes = null;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            if (in.readInt() != MAGIC) {
+                return Optional.empty();
+            }
+            format = in.readInt();
+            int length = in.readInt();
+            if (length >= 0 && length == Files.size(file) - HEADER_SIZE) {
+                bytes = new byte[length];
+                in.readFully(bytes);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read cached shader program {}", file, e);
+            return Optional.empty();
+        }
+        if (bytes == null) {
+            logger.warn("Discarding cached shader program {}, as its length does not match the file", file);
+            delete(key);
+            return Optional.empty();
+        }
+
+        ByteBuffer data = ByteBuffer.allocateDirect(bytes.length);
+        data.put(bytes);
+        data.flip();
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.debug("Failed to mark cached shader program {} as used", file, e);
+        }
+        return Optional.of(new ProgramBinary(format, data));
+    }
+
+    void write(String key, ProgramBinary binary) {
+        Path file = directory.resolve(key + EXTENSION);
+        Path temporaryFile = null;
+        try {
+            Files.createDirectories(directory);
+            temporaryFile = Files.createTempFile(directory, key, ".tmp");
+            try (OutputStream stream = Files.newOutputStream(temporaryFile);
+                 DataOutputStream out = new DataOutputStream(stream)) {
+                ByteBuffer data = binary.getData().duplicate();
+                byte[] bytes = new byte[data.remaining()];
+                data.get(bytes);
+                out.writeInt(MAGIC);
+                out.writeInt(binary.getFormat());
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to cache shader program {}", file, e);
+            if (temporaryFile != null) {
+                try {
+                    Files.deleteIfExists(temporaryFile);
+                } catch (IOException ignored) {
+                    // Harmless, as it does not end with the extension of cached programs
+                }
+            }
+        }
+    }
+
+    private void delete(String key) {
+        try {
+            Files.deleteIfExists(directory.resolve(key + EXTENSION));
+        } catch (IOException e) {
+            logger.debug("Failed to remove rejected shader program {}", key, e);
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * The binary of a linked program and the driver specific format it is in.
+     */
+    static final class ProgramBinary {
+        private final int format;
+        private final ByteBuffer data;
+
+        ProgramBinary(int format, ByteBuffer data) {
+            this.format = format;
+            this.data = data;
+        }
+
+        int getFormat() {
+            return format;
+        }
+
+        ByteBuffer getData() {
+            return data;
+        }
+    }
+}
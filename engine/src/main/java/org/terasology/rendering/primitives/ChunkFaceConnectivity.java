@@ -0,0 +1,211 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.terasology.math.Side;
+import org.terasology.world.ChunkView;
+import org.terasology.world.block.Block;
+import org.terasology.world.chunks.ChunkConstants;
+
+import java.util.Arrays;
+
+/**
+ * Calculates which faces of a chunk can see each other through the chunk.
+ * <br><br>
+ * The result is a 6x6 bit matrix packed into a long: bit {@code from * 6 + to} (using {@link Side#ordinal()})
+ * is set if a flood fill over the non-occluding blocks of the chunk touches both faces. The matrix is symmetric.
+ * It is a conservative answer: connected faces are not necessarily visible from each other, but unconnected
+ * faces never are.
+ */
+public final class ChunkFaceConnectivity {
+
+    /**
+     * Every face sees every other face, used for chunks that have not been analysed yet.
+     */
+    public static final long ALL = (1L << 36) - 1;
+    public static final long NONE = 0L;
+
+    private static final Side[] SIDES = Side.values();
+    private static final int VOLUME = ChunkConstants.SIZE_X * ChunkConstants.SIZE_Y * ChunkConstants.SIZE_Z;
+    private static final int STRIDE_Z = ChunkConstants.SIZE_X;
+    private static final int STRIDE_Y = ChunkConstants.SIZE_X * ChunkConstants.SIZE_Z;
+
+    // Meshing runs on several threads, so each one keeps its own flood fill buffers
+    private static final ThreadLocal<FloodFill> FLOOD_FILL = ThreadLocal.withInitial(FloodFill::new);
+
+    private ChunkFaceConnectivity() {
+    }
+
+    /**
+     * @param view A view centered on the chunk to analyse, using chunk relative coordinates
+     * @return The face connectivity matrix of the chunk
+     */
+    public static long calculate(ChunkView view) {
+        FloodFill floodFill = FLOOD_FILL.get();
+        boolean[] open = floodFill.open;
+        int openCount = 0;
+        for (int y = 0; y < ChunkConstants.SIZE_Y; y++) {
+            for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+                    boolean isOpen = !isOccluding(view.getBlock(x, y, z));
+                    open[x + z * STRIDE_Z + y * STRIDE_Y] = isOpen;
+                    if (isOpen) {
+                        openCount++;
+                    }
+                }
+            }
+        }
+        if (openCount == 0) {
+            return NONE;
+        } else if (openCount == VOLUME) {
+            return ALL;
+        }
+        return floodFill.run();
+    }
+
+    /**
+     * @return Whether something entering the chunk through the face {@code from} may leave it through {@code to}
+     */
+    public static boolean isConnected(long connectivity, Side from, Side to) {
+        return isConnected(connectivity, from.ordinal(), to.ordinal());
+    }
+
+    public static boolean isConnected(long connectivity, int from, int to) {
+        return (connectivity & (1L << (from * 6 + to))) != 0;
+    }
+
+    /**
+     * A block occludes if nothing can be seen through it: it is rendered, opaque and fills all of its sides.
+     */
+    public static boolean isOccluding(Block block) {
+        if (block == null || block.getMeshGenerator() == null || block.isTranslucent()) {
+            return false;
+        }
+        for (Side side : SIDES) {
+            if (!block.isFullSide(side)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int facesOf(int x, int y, int z) {
+        int faces = 0;
+        if (x == 0) {
+            faces |= 1 << Side.LEFT.ordinal();
+        } else if (x == ChunkConstants.SIZE_X - 1) {
+            faces |= 1 << Side.RIGHT.ordinal();
+        }
+        if (y == 0) {
+            faces |= 1 << Side.BOTTOM.ordinal();
+        } else if (y == ChunkConstants.SIZE_Y - 1) {
+            faces |= 1 << Side.TOP.ordinal();
+        }
+        if (z == 0) {
+            faces |= 1 << Side.FRONT.ordinal();
+        } else if (z == ChunkConstants.SIZE_Z - 1) {
+            faces |= 1 << Side.BACK.ordinal();
+        }
+        return faces;
+    }
+
+    private static long connect(int faces) {
+        long result = 0;
+        for (int from = 0; from < 6; from++) {
+            if ((faces & (1 << from)) != 0) {
+                for (int to = 0; to < 6; to++) {
+                    if ((faces & (1 << to)) != 0) {
+                        result |= 1L << (from * 6 + to);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static final class FloodFill {
+        private final boolean[] open = new boolean[VOLUME];
+        private final boolean[] visited = new boolean[VOLUME];
+        private final int[] queue = new int[VOLUME];
+
+        /**
+         * Flood fills from every open block on the border of the chunk; blocks that are only reachable from the
+         * inside cannot connect two faces and are skipped.
+         */
+        long run() {
+            Arrays.fill(visited, false);
+            long result = NONE;
+            for (int y = 0; y < ChunkConstants.SIZE_Y; y++) {
+                for (int z = 0; z < ChunkConstants.SIZE_Z; z++) {
+                    for (int x = 0; x < ChunkConstants.SIZE_X; x++) {
+                        int index = x + z * STRIDE_Z + y * STRIDE_Y;
+                        if (open[index] && !visited[index] && facesOf(x, y, z) != 0) {
+                            result |= connect(fill(index));
+                            if (result == ALL) {
+                                return ALL;
+                            }
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+
+        private int fill(int start) {
+            int head = 0;
+            int tail = 0;
+            int faces = 0;
+            queue[tail++] = start;
+            visited[start] = true;
+            while (head < tail) {
+                int index = queue[head++];
+                int x = index % STRIDE_Z;
+                int z = (index / STRIDE_Z) % ChunkConstants.SIZE_Z;
+                int y = index / STRIDE_Y;
+                faces |= facesOf(x, y, z);
+
+                if (x > 0) {
+                    tail = visit(index - 1, tail);
+                }
+                if (x < ChunkConstants.SIZE_X - 1) {
+                    tail = visit(index + 1, tail);
+                }
+                if (z > 0) {
+                    tail = visit(index - STRIDE_Z, tail);
+                }
+                if (z < ChunkConstants.SIZE_Z - 1) {
+                    tail = visit(index + STRIDE_Z, tail);
+                }
+                if (y > 0) {
+                    tail = visit(index - STRIDE_Y, tail);
+                }
+                if (y < ChunkConstants.SIZE_Y - 1) {
+                    tail = visit(index + STRIDE_Y, tail);
+                }
+            }
+            return faces;
+        }
+
+        private int visit(int index, int tail) {
+            if (open[index] && !visited[index]) {
+                visited[index] = true;
+                queue[tail] = index;
+                return tail + 1;
+            }
+            return tail;
+        }
+    }
+}
@@ -111,10 +111,26 @@ public enum RenderPhase {
     private int timeToGenerateBlockVertices;
     private int timeToGenerateOptimizedBuffers;
 
+    /* OCCLUSION */
+    private long faceConnectivity = ChunkFaceConnectivity.ALL;
+
+    /* LEVEL OF DETAIL */
+    private int lodScale = 1;
+
     private GLBufferPool bufferPool;
+    private StagingBufferPool stagingPool;
 
     public ChunkMesh(GLBufferPool bufferPool) {
+        this(bufferPool, null);
+    }
+
+    /**
+     * @param stagingPool The pool the final vertex and index buffers are returned to once uploaded or disposed, or
+     *                    null if they are not pooled
+     */
+    public ChunkMesh(GLBufferPool bufferPool, StagingBufferPool stagingPool) {
         this.bufferPool = bufferPool;
+        this.stagingPool = stagingPool;
         for (RenderType type : RenderType.values()) {
             vertexElements.put(type, new VertexElements());
         }
@@ -146,6 +162,7 @@ public boolean generateVBOs() {
                 }
 
                 // Free unused space on the heap
+                releaseStagingBuffers();
                 vertexElements = null;
                 // Calculate the final amount of triangles
                 triangleCount = (vertexCount[0] + vertexCount[1] + vertexCount[2] + vertexCount[3]) / 3;
@@ -177,6 +194,42 @@ private void generateVBO(RenderType type) {
 
     }
 
+    /**
+     * @return The bytes of vertex and index data waiting to be uploaded, 0 once the VBOs are generated
+     */
+    public int getStagingBytes() {
+        lock.lock();
+        try {
+            if (vertexElements == null) {
+                return 0;
+            }
+            int ints = 0;
+            for (VertexElements elements : vertexElements.values()) {
+                if (elements.finalVertices != null) {
+                    ints += elements.finalVertices.limit();
+                }
+                if (elements.finalIndices != null) {
+                    ints += elements.finalIndices.limit();
+                }
+            }
+            return 4 * ints;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseStagingBuffers() {
+        if (stagingPool == null || vertexElements == null) {
+            return;
+        }
+        for (VertexElements elements : vertexElements.values()) {
+            stagingPool.release(elements.finalVertices);
+            stagingPool.release(elements.finalIndices);
+            elements.finalVertices = null;
+            elements.finalIndices = null;
+        }
+    }
+
     private void renderVbo(int id) {
         if (lock.tryLock()) {
             try {
@@ -259,6 +312,7 @@ public void dispose() {
                 }
 
                 disposed = true;
+                releaseStagingBuffers();
                 vertexElements = null;
             }
         } finally {
@@ -304,6 +358,28 @@ public int getTimeToGenerateOptimizedBuffers() {
         return timeToGenerateOptimizedBuffers;
     }
 
+    /**
+     * @return Which faces of the chunk can see each other, see {@link ChunkFaceConnectivity}
+     */
+    public long getFaceConnectivity() {
+        return faceConnectivity;
+    }
+
+    public void setFaceConnectivity(long faceConnectivity) {
+        this.faceConnectivity = faceConnectivity;
+    }
+
+    /**
+     * @return The number of blocks merged along each axis in this mesh, 1 for a full detail mesh
+     */
+    public int getLodScale() {
+        return lodScale;
+    }
+
+    public void setLodScale(int lodScale) {
+        this.lodScale = lodScale;
+    }
+
     /**
      * Data structure for storing vertex data. Abused like a "struct" in C/C++. Just sad.
      */
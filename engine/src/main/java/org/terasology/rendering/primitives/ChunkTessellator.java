@@ -15,19 +15,26 @@
  */
 package org.terasology.rendering.primitives;
 
+import com.google.common.base.Preconditions;
 import com.google.common.base.Stopwatch;
 import gnu.trove.iterator.TIntIterator;
 import org.lwjgl.BufferUtils;
 import org.terasology.engine.subsystem.lwjgl.GLBufferPool;
 import org.terasology.math.Direction;
+import org.terasology.math.Side;
 import org.terasology.math.TeraMath;
 import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.math.geom.Vector4f;
 import org.terasology.monitoring.PerformanceMonitor;
 import org.terasology.rendering.RenderMath;
 import org.terasology.world.ChunkView;
 import org.terasology.world.block.Block;
+import org.terasology.world.block.BlockPart;
+import org.terasology.world.block.shapes.BlockMeshPart;
 import org.terasology.world.chunks.ChunkConstants;
 
+import java.nio.IntBuffer;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -36,17 +43,32 @@
  */
 public final class ChunkTessellator {
 
+    /**
+     * The coarsest level of detail, as the number of blocks merged along each axis.
+     */
+    public static final int MAX_LOD_SCALE = 8;
+
     private static int statVertexArrayUpdateCount;
 
     private GLBufferPool bufferPool;
+    private StagingBufferPool stagingPool;
 
     public ChunkTessellator(GLBufferPool bufferPool) {
+        this(bufferPool, null);
+    }
+
+    /**
+     * @param stagingPool The pool the vertex and index data of generated meshes is staged in until uploaded, or null
+     *                    to allocate a new buffer for each mesh
+     */
+    public ChunkTessellator(GLBufferPool bufferPool, StagingBufferPool stagingPool) {
         this.bufferPool = bufferPool;
+        this.stagingPool = stagingPool;
     }
 
     public ChunkMesh generateMesh(ChunkView chunkView, int meshHeight, int verticalOffset) {
         PerformanceMonitor.startActivity("GenerateMesh");
-        ChunkMesh mesh = new ChunkMesh(bufferPool);
+        ChunkMesh mesh = new ChunkMesh(bufferPool, stagingPool);
 
         final Stopwatch watch = Stopwatch.createStarted();
 
@@ -68,19 +90,154 @@ public ChunkMesh generateMesh(ChunkView chunkView, int meshHeight, int verticalO
         generateOptimizedBuffers(chunkView, mesh);
         watch.stop();
         mesh.setTimeToGenerateOptimizedBuffers((int) watch.elapsed(TimeUnit.MILLISECONDS));
+
+        if (verticalOffset == 0 && meshHeight == ChunkConstants.SIZE_Y) {
+            PerformanceMonitor.startActivity("FaceConnectivity");
+            mesh.setFaceConnectivity(ChunkFaceConnectivity.calculate(chunkView));
+            PerformanceMonitor.endActivity();
+        }
+        statVertexArrayUpdateCount++;
+
+        PerformanceMonitor.endActivity();
+        return mesh;
+    }
+
+    /**
+     * Generates a coarse mesh for distant chunks, in which every scale x scale x scale cell of blocks is drawn as a
+     * single box. A cell is filled if at least half of its blocks are, and takes the appearance of its highest filled
+     * block, so that terrain keeps the colour of its surface. Plants and other billboards are left out.
+     *
+     * @param scale The number of blocks merged along each axis, a power of two from 2 to 8
+     */
+    public ChunkMesh generateLodMesh(ChunkView chunkView, int scale) {
+        Preconditions.checkArgument(scale >= 2 && scale <= MAX_LOD_SCALE && Integer.bitCount(scale) == 1, "Invalid level of detail scale %s", scale);
+        PerformanceMonitor.startActivity("GenerateLodMesh");
+        ChunkMesh mesh = new ChunkMesh(bufferPool, stagingPool);
+        mesh.setLodScale(scale);
+
+        final Stopwatch watch = Stopwatch.createStarted();
+
+        // The cells of the chunk plus one ring of cells of the neighbouring chunks, to hide faces between chunks
+        int cellsX = ChunkConstants.SIZE_X / scale + 2;
+        int cellsY = ChunkConstants.SIZE_Y / scale + 2;
+        int cellsZ = ChunkConstants.SIZE_Z / scale + 2;
+        Block[] cells = new Block[cellsX * cellsY * cellsZ];
+        for (int cy = 0; cy < cellsY; cy++) {
+            for (int cz = 0; cz < cellsZ; cz++) {
+                for (int cx = 0; cx < cellsX; cx++) {
+                    cells[cx + cellsX * (cz + cellsZ * cy)] = sampleLodCell(chunkView, (cx - 1) * scale, (cy - 1) * scale, (cz - 1) * scale, scale);
+                }
+            }
+        }
+
+        for (int cy = 1; cy < cellsY - 1; cy++) {
+            for (int cz = 1; cz < cellsZ - 1; cz++) {
+                for (int cx = 1; cx < cellsX - 1; cx++) {
+                    Block block = cells[cx + cellsX * (cz + cellsZ * cy)];
+                    if (block == null) {
+                        continue;
+                    }
+                    for (Side side : Side.values()) {
+                        Vector3i offset = side.getVector3i();
+                        Block adjacent = cells[(cx + offset.x) + cellsX * ((cz + offset.z) + cellsZ * (cy + offset.y))];
+                        if (isLodFaceVisible(block, adjacent)) {
+                            appendLodFace(chunkView, mesh, block, side, (cx - 1) * scale, (cy - 1) * scale, (cz - 1) * scale, scale);
+                        }
+                    }
+                }
+            }
+        }
+        watch.stop();
+        mesh.setTimeToGenerateBlockVertices((int) watch.elapsed(TimeUnit.MILLISECONDS));
+
+        watch.reset().start();
+        generateOptimizedBuffers(chunkView, mesh);
+        watch.stop();
+        mesh.setTimeToGenerateOptimizedBuffers((int) watch.elapsed(TimeUnit.MILLISECONDS));
+
+        PerformanceMonitor.startActivity("FaceConnectivity");
+        mesh.setFaceConnectivity(ChunkFaceConnectivity.calculate(chunkView));
+        PerformanceMonitor.endActivity();
         statVertexArrayUpdateCount++;
 
         PerformanceMonitor.endActivity();
         return mesh;
     }
 
+    private static Block sampleLodCell(ChunkView chunkView, int minX, int minY, int minZ, int scale) {
+        Block surface = null;
+        int filled = 0;
+        for (int y = minY + scale - 1; y >= minY; y--) {
+            for (int z = minZ; z < minZ + scale; z++) {
+                for (int x = minX; x < minX + scale; x++) {
+                    Block block = chunkView.getBlock(x, y, z);
+                    if (block != null && block.getMeshGenerator() != null && !block.isDoubleSided()) {
+                        filled++;
+                        if (surface == null) {
+                            surface = block;
+                        }
+                    }
+                }
+            }
+        }
+        return 2 * filled >= scale * scale * scale ? surface : null;
+    }
+
+    private static boolean isLodFaceVisible(Block block, Block adjacent) {
+        if (adjacent == null) {
+            return true;
+        }
+        if (block.isLiquid() && adjacent.isLiquid()) {
+            return false;
+        }
+        return adjacent.isTranslucent() && !block.isTranslucent();
+    }
+
+    private static void appendLodFace(ChunkView chunkView, ChunkMesh mesh, Block block, Side side, int minX, int minY, int minZ, int scale) {
+        BlockPart part = BlockPart.fromSide(side);
+        BlockMeshPart meshPart = block.getPrimaryAppearance().getPart(part);
+        if (meshPart == null) {
+            return;
+        }
+
+        ChunkMesh.RenderType renderType = ChunkMesh.RenderType.TRANSLUCENT;
+        if (!block.isTranslucent()) {
+            renderType = ChunkMesh.RenderType.OPAQUE;
+        }
+        if (block.isWater() || block.isIce()) {
+            renderType = ChunkMesh.RenderType.WATER_AND_ICE;
+        }
+
+        ChunkVertexFlag vertexFlag = ChunkVertexFlag.NORMAL;
+        if (block.isWater()) {
+            vertexFlag = ChunkVertexFlag.WATER_SURFACE;
+        } else if (block.isLava()) {
+            vertexFlag = ChunkVertexFlag.LAVA;
+        } else if (block.isGrass() && side.isHorizontal()) {
+            vertexFlag = ChunkVertexFlag.COLOR_MASK;
+        }
+
+        Vector4f colorOffset = block.calcColorOffsetFor(part, chunkView.getBiome(minX, minY + scale - 1, minZ));
+        ChunkMesh.VertexElements elements = mesh.getVertexElements(renderType);
+        int firstVertex = elements.vertices.size();
+        meshPart.appendTo(mesh, 0, 0, 0, colorOffset, renderType, vertexFlag);
+
+        // Block parts span -0.5 to 0.5 around a block's position, so stretch them over the whole cell
+        float halfCell = (scale - 1) * 0.5f;
+        for (int i = firstVertex; i < elements.vertices.size(); i += 3) {
+            elements.vertices.set(i, elements.vertices.get(i) * scale + minX + halfCell);
+            elements.vertices.set(i + 1, elements.vertices.get(i + 1) * scale + minY + halfCell);
+            elements.vertices.set(i + 2, elements.vertices.get(i + 2) * scale + minZ + halfCell);
+        }
+    }
+
     private void generateOptimizedBuffers(ChunkView chunkView, ChunkMesh mesh) {
         PerformanceMonitor.startActivity("OptimizeBuffers");
 
         for (ChunkMesh.RenderType type : ChunkMesh.RenderType.values()) {
             ChunkMesh.VertexElements elements = mesh.getVertexElements(type);
             // Vertices double to account for light info
-            elements.finalVertices = BufferUtils.createIntBuffer(
+            elements.finalVertices = createBuffer(
                     elements.vertices.size() + /* POSITION */
                             elements.tex.size() + /* TEX0 (UV0 and flags) */
                             elements.tex.size() + /* TEX1 (lighting data) */
@@ -133,7 +290,7 @@ private void generateOptimizedBuffers(ChunkView chunkView, ChunkMesh mesh) {
                 elements.finalVertices.put(Float.floatToIntBits(normal.z));
             }
 
-            elements.finalIndices = BufferUtils.createIntBuffer(elements.indices.size());
+            elements.finalIndices = createBuffer(elements.indices.size());
             TIntIterator indexIterator = elements.indices.iterator();
             while (indexIterator.hasNext()) {
                 elements.finalIndices.put(indexIterator.next());
@@ -145,6 +302,13 @@ private void generateOptimizedBuffers(ChunkView chunkView, ChunkMesh mesh) {
         PerformanceMonitor.endActivity();
     }
 
+    private IntBuffer createBuffer(int ints) {
+        if (stagingPool != null) {
+            return stagingPool.acquire(ints);
+        }
+        return BufferUtils.createIntBuffer(ints);
+    }
+
     private void calcLightingValuesForVertexPos(ChunkView chunkView, Vector3f vertexPos, float[] output, Vector3f normal) {
         PerformanceMonitor.startActivity("calcLighting");
         float[] lights = new float[8];
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.primitives;
+
+import org.lwjgl.BufferUtils;
+
+import java.nio.IntBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A pool of direct int buffers in which chunk meshes are staged between tessellation and upload to the GPU.
+ * <br><br>
+ * Buffers come in slabs of power of two sizes, from {@value #MIN_SLAB_INTS} ints up to {@value #MAX_SLAB_INTS} ints,
+ * so that the buffer released by one mesh can be handed to the next remesh of a similar size instead of allocating a
+ * new direct buffer each time. Larger requests are allocated exactly and never pooled. Released buffers are kept up
+ * to a total of maxRetainedBytes, further ones are left to the garbage collector.
+ * <br><br>
+ * Buffers are acquired on the chunk update threads and released on the rendering thread, so all methods are
+ * synchronized.
+ */
+public class StagingBufferPool {
+
+    public static final int MIN_SLAB_INTS = 1 << 10;
+    public static final int MAX_SLAB_INTS = 1 << 22;
+
+    private static final int MIN_SLAB_SHIFT = Integer.numberOfTrailingZeros(MIN_SLAB_INTS);
+    private static final int SLAB_CLASSES = Integer.numberOfTrailingZeros(MAX_SLAB_INTS) - MIN_SLAB_SHIFT + 1;
+
+    private final long maxRetainedBytes;
+    private final Deque<IntBuffer>[] freeSlabs;
+
+    private long retainedBytes;
+    private int allocations;
+    private int reuses;
+
+    @SuppressWarnings("unchecked")
+    public StagingBufferPool(long maxRetainedBytes) {
+        this.maxRetainedBytes = maxRetainedBytes;
+        freeSlabs = new Deque[SLAB_CLASSES];
+        for (int i = 0; i < SLAB_CLASSES; i++) {
+            freeSlabs[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * @param ints The number of ints the buffer must be able to hold
+     * @return A cleared buffer with a limit of exactly ints, possibly with a larger capacity
+     */
+    public synchronized IntBuffer acquire(int ints) {
+        int slabClass = slabClassOf(ints);
+        IntBuffer buffer;
+        if (slabClass < 0) {
+            allocations++;
+            buffer = BufferUtils.createIntBuffer(ints);
+        } else {
+            buffer = freeSlabs[slabClass].pollLast();
+            if (buffer == null) {
+                allocations++;
+                buffer = BufferUtils.createIntBuffer(slabSize(slabClass));
+            } else {
+                reuses++;
+                retainedBytes -= 4L * buffer.capacity();
+                buffer.clear();
+            }
+        }
+        buffer.limit(ints);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. The buffer must not be used by the caller afterwards.
+     *
+     * @param buffer A buffer from {@link #acquire(int)}, null is ignored
+     */
+    public synchronized void release(IntBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+        int capacity = buffer.capacity();
+        int slabClass = slabClassOf(capacity);
+        if (slabClass < 0 || slabSize(slabClass) != capacity || retainedBytes + 4L * capacity > maxRetainedBytes) {
+            return;
+        }
+        buffer.clear();
+        freeSlabs[slabClass].addLast(buffer);
+        retainedBytes += 4L * capacity;
+    }
+
+    /**
+     * Drops every pooled buffer, for example when the world is unloaded.
+     */
+    public synchronized void clear() {
+        for (Deque<IntBuffer> slabs : freeSlabs) {
+            slabs.clear();
+        }
+        retainedBytes = 0;
+    }
+
+    /**
+     * @return The bytes held by released buffers waiting to be reused
+     */
+    public synchronized long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    /**
+     * @return The number of direct buffers that had to be allocated
+     */
+    public synchronized int getAllocations() {
+        return allocations;
+    }
+
+    /**
+     * @return The number of requests served with a released buffer
+     */
+    public synchronized int getReuses() {
+        return reuses;
+    }
+
+    private static int slabClassOf(int ints) {
+        if (ints > MAX_SLAB_INTS) {
+            return -1;
+        }
+        int shift = 32 - Integer.numberOfLeadingZeros(Math.max(ints, MIN_SLAB_INTS) - 1);
+        return shift - MIN_SLAB_SHIFT;
+    }
+
+    private static int slabSize(int slabClass) {
+        return 1 << (slabClass + MIN_SLAB_SHIFT);
+    }
+}
@@ -36,21 +36,37 @@
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides the mechanism for updating and generating chunk meshes.
  *
  */
 public final class ChunkMeshUpdateManager {
-    private static final int NUM_TASK_THREADS = 8;
+
+    /**
+     * By default, a chunk that already has a mesh is not remeshed again within this time of its last remesh starting, so
+     * that a burst of block changes ends up in a single remesh.
+     */
+    private static final long DEFAULT_COALESCE_MILLIS = 50;
+
+    /**
+     * How many chunks past the boundary between two levels of detail a chunk has to be before its level changes, so
+     * that chunks on the boundary are not remeshed back and forth as the camera moves across a chunk border.
+     */
+    private static final int LOD_HYSTERESIS = 1;
 
     private static final Logger logger = LoggerFactory.getLogger(ChunkMeshUpdateManager.class);
 
     /* CHUNK UPDATES */
     private final Set<RenderableChunk> chunksProcessing = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Set<RenderableChunk> chunksCancelled = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Map<RenderableChunk, Long> lastRemeshStarts = new ConcurrentHashMap<>();
+    private final Map<Vector3i, Integer> lodScales = new ConcurrentHashMap<>();
 
     private final BlockingDeque<RenderableChunk> chunksComplete = Queues.newLinkedBlockingDeque();
 
@@ -58,6 +74,7 @@ public final class ChunkMeshUpdateManager {
 
     private final ChunkTessellator tessellator;
     private final WorldProvider worldProvider;
+    private final long coalesceNanos;
     /**
      * This variable is volatile, so that it's value is visible to worker thread that calculates the best task to
      * process
@@ -65,30 +82,59 @@ public final class ChunkMeshUpdateManager {
     private volatile float cameraChunkPosX;
     private volatile float cameraChunkPosY;
     private volatile float cameraChunkPosZ;
+    private volatile int lodDistance;
 
-    public ChunkMeshUpdateManager(ChunkTessellator tessellator, WorldProvider worldProvider) {
+    /**
+     * @param threads The number of threads tessellating chunks
+     */
+    public ChunkMeshUpdateManager(ChunkTessellator tessellator, WorldProvider worldProvider, int threads) {
+        this(tessellator, worldProvider, threads, DEFAULT_COALESCE_MILLIS);
+    }
+
+    /**
+     * @param threads        The number of threads tessellating chunks
+     * @param coalesceMillis The time after the start of its last remesh within which a chunk with a mesh is not
+     *                       remeshed again
+     */
+    public ChunkMeshUpdateManager(ChunkTessellator tessellator, WorldProvider worldProvider, int threads, long coalesceMillis) {
         this.tessellator = tessellator;
         this.worldProvider = worldProvider;
+        this.coalesceNanos = TimeUnit.MILLISECONDS.toNanos(coalesceMillis);
 
-        chunkUpdater = TaskMaster.createDynamicPriorityTaskMaster("Chunk-Updater", NUM_TASK_THREADS, new ChunkUpdaterComparator());
+        chunkUpdater = TaskMaster.createDynamicPriorityTaskMaster("Chunk-Updater", threads, new ChunkUpdaterComparator());
     }
 
     /**
-     * Updates the given chunk using a new thread from the thread pool. If the maximum amount of chunk updates
-     * is reached, the chunk update is ignored. Chunk updates can be forced though.
+     * Queues the given chunk for remeshing on one of the update threads, nearest chunks first. Requests for a chunk
+     * that is already queued are merged into the queued one, and a chunk with a mesh is only remeshed again once
+     * the coalescing time passed since its last remesh started; it stays dirty until then.
      *
      * @param chunk The chunk to update
-     * @return True if a chunk update was executed
+     * @return True if a chunk update was queued
      */
-    // TODO: Review this system
     public boolean queueChunkUpdate(RenderableChunk chunk) {
-
-        if (!chunksProcessing.contains(chunk)) {
-            executeChunkUpdate(chunk);
-            return true;
+        if (chunksProcessing.contains(chunk)) {
+            // Wanted again after all
+            chunksCancelled.remove(chunk);
+            return false;
+        }
+        Long lastStart = lastRemeshStarts.get(chunk);
+        if (lastStart != null && chunk.hasMesh() && System.nanoTime() - lastStart < coalesceNanos) {
+            return false;
         }
+        executeChunkUpdate(chunk);
+        return true;
+    }
 
-        return false;
+    /**
+     * Drops the queued remesh of a chunk that left the renderable region, if it did not start yet.
+     */
+    public void cancelChunkUpdate(RenderableChunk chunk) {
+        lastRemeshStarts.remove(chunk);
+        lodScales.remove(chunk.getPosition());
+        if (chunksProcessing.contains(chunk)) {
+            chunksCancelled.add(chunk);
+        }
     }
 
     /**
@@ -103,10 +149,66 @@ public void setCameraPosition(Vector3f cameraPosition) {
         cameraChunkPosZ = chunkPos.z;
     }
 
+    /**
+     * @param lodDistance The distance in chunks beyond which chunks are meshed at a lower level of detail, 0 or less
+     *                    for full detail everywhere
+     */
+    public void setLodDistance(int lodDistance) {
+        this.lodDistance = lodDistance;
+    }
+
+    /**
+     * The scale last returned for each chunk is kept until the chunk is dropped through {@link #cancelChunkUpdate}.
+     *
+     * @return The number of blocks a mesh of the given chunk should merge along each axis, given the last camera position
+     */
+    public int getLodScale(Vector3i chunkPos) {
+        int currentLodDistance = lodDistance;
+        if (currentLodDistance <= 0) {
+            return 1;
+        }
+        int distance = (int) Math.max(Math.abs(chunkPos.x - cameraChunkPosX),
+                Math.max(Math.abs(chunkPos.y - cameraChunkPosY), Math.abs(chunkPos.z - cameraChunkPosZ)));
+        Integer lastScale = lodScales.get(chunkPos);
+        int scale = getLodScale(distance, currentLodDistance, lastScale != null ? lastScale : 0);
+        if (lastScale == null || lastScale != scale) {
+            lodScales.put(new Vector3i(chunkPos), scale);
+        }
+        return scale;
+    }
+
+    /**
+     * Like {@link #getLodScale(int, int)}, but keeps the last scale of the chunk until the distance is
+     * {@link #LOD_HYSTERESIS} chunks past the boundary where the scale changes.
+     *
+     * @param lastScale The scale the chunk had so far, or 0 if it has none yet
+     */
+    static int getLodScale(int chunkDistance, int lodDistance, int lastScale) {
+        int scale = getLodScale(chunkDistance, lodDistance);
+        if (lastScale <= 0 || scale == lastScale) {
+            return scale;
+        }
+        int distanceInsideMargin = (scale > lastScale) ? chunkDistance - LOD_HYSTERESIS : chunkDistance + LOD_HYSTERESIS;
+        return (getLodScale(distanceInsideMargin, lodDistance) == lastScale) ? lastScale : scale;
+    }
+
+    /**
+     * Detail halves with every further lodDistance chunks: full detail up to lodDistance, then 2, 4 and at most
+     * {@link ChunkTessellator#MAX_LOD_SCALE} blocks per cell.
+     */
+    static int getLodScale(int chunkDistance, int lodDistance) {
+        if (lodDistance <= 0 || chunkDistance <= lodDistance) {
+            return 1;
+        }
+        int tier = Math.min((chunkDistance - 1) / lodDistance, Integer.numberOfTrailingZeros(ChunkTessellator.MAX_LOD_SCALE));
+        return 1 << tier;
+    }
+
     public List<RenderableChunk> availableChunksForUpdate() {
         List<RenderableChunk> result = Lists.newArrayListWithExpectedSize(chunksComplete.size());
         chunksComplete.drainTo(result);
         chunksProcessing.removeAll(result);
+        chunksCancelled.removeAll(result);
         return result;
     }
 
@@ -137,6 +239,8 @@ private static class ChunkUpdateTask implements ChunkTask {
         private WorldProvider worldProvider;
         private ChunkMeshUpdateManager chunkMeshUpdateManager;
 
+        private final long queuedAt = System.nanoTime();
+
         public ChunkUpdateTask(RenderableChunk chunk, ChunkTessellator tessellator, WorldProvider worldProvider, ChunkMeshUpdateManager chunkMeshUpdateManager) {
             this.chunkMeshUpdateManager = chunkMeshUpdateManager;
             this.c = chunk;
@@ -161,6 +265,17 @@ public boolean isTerminateSignal() {
 
         @Override
         public void run() {
+            if (chunkMeshUpdateManager.chunksCancelled.remove(c)) {
+                chunkMeshUpdateManager.chunksProcessing.remove(c);
+                ChunkMonitor.recordRemeshCancelled();
+                c = null;
+                tessellator = null;
+                worldProvider = null;
+                return;
+            }
+            long startedAt = System.nanoTime();
+            chunkMeshUpdateManager.lastRemeshStarts.put(c, startedAt);
+
             ChunkMesh newMesh;
             ChunkView chunkView = worldProvider.getLocalView(c.getPosition());
             if (chunkView != null) {
@@ -170,10 +285,17 @@ public void run() {
                  */
                 c.setDirty(false);
                 if (chunkView.isValidView()) {
-                    newMesh = tessellator.generateMesh(chunkView, ChunkConstants.SIZE_Y, 0);
+                    int lodScale = chunkMeshUpdateManager.getLodScale(c.getPosition());
+                    if (lodScale > 1) {
+                        newMesh = tessellator.generateLodMesh(chunkView, lodScale);
+                    } else {
+                        newMesh = tessellator.generateMesh(chunkView, ChunkConstants.SIZE_Y, 0);
+                    }
 
                     c.setPendingMesh(newMesh);
                     ChunkMonitor.fireChunkTessellated(c.getPosition(), newMesh);
+                    ChunkMonitor.recordRemesh(TimeUnit.NANOSECONDS.toMicros(startedAt - queuedAt),
+                            TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt));
                 }
 
             }
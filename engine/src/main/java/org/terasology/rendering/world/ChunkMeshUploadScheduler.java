@@ -0,0 +1,123 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.RenderableChunk;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Holds the chunks whose pending meshes are waiting to be uploaded to the GPU and hands them out a few per frame.
+ * <br><br>
+ * Each frame the chunks closest to the camera go first, and uploading stops once the staged bytes of the meshes
+ * handed out would exceed the byte budget. At least one mesh is handed out per frame, so that a mesh larger than the
+ * budget does not hold up all the others.
+ */
+public class ChunkMeshUploadScheduler {
+
+    private final Set<RenderableChunk> waiting = Sets.newLinkedHashSet();
+    private final List<RenderableChunk> ordered = Lists.newArrayList();
+
+    private int statUploadedChunks;
+    private int statUploadedBytes;
+
+    /**
+     * Adds chunks with a pending mesh. Chunks that are already waiting keep their place.
+     */
+    public void addAll(Collection<RenderableChunk> chunks) {
+        waiting.addAll(chunks);
+    }
+
+    /**
+     * Hands the pending meshes of the waiting chunks to the uploader, nearest to the camera first, until the budget
+     * is used up. Chunks that lost their pending mesh in the meantime are dropped.
+     *
+     * @param cameraPosition The position of the camera in world coordinates
+     * @param byteBudget     The staged bytes to hand out this frame, 0 or less to hand out every mesh
+     * @param uploader       Uploads the pending mesh of the given chunk
+     * @return The number of chunks handed to the uploader
+     */
+    public int upload(Vector3f cameraPosition, int byteBudget, Consumer<RenderableChunk> uploader) {
+        statUploadedChunks = 0;
+        statUploadedBytes = 0;
+        if (waiting.isEmpty()) {
+            return 0;
+        }
+
+        ordered.clear();
+        ordered.addAll(waiting);
+        ordered.sort(Comparator.comparingDouble(chunk -> squaredDistance(chunk, cameraPosition)));
+
+        for (RenderableChunk chunk : ordered) {
+            if (!chunk.hasPendingMesh()) {
+                waiting.remove(chunk);
+                continue;
+            }
+            int bytes = chunk.getPendingMesh().getStagingBytes();
+            if (byteBudget > 0 && statUploadedChunks > 0 && statUploadedBytes + bytes > byteBudget) {
+                break;
+            }
+            waiting.remove(chunk);
+            uploader.accept(chunk);
+            statUploadedChunks++;
+            statUploadedBytes += bytes;
+        }
+        ordered.clear();
+        return statUploadedChunks;
+    }
+
+    /**
+     * Forgets every waiting chunk, without touching their pending meshes.
+     */
+    public void clear() {
+        waiting.clear();
+    }
+
+    public int getWaitingCount() {
+        return waiting.size();
+    }
+
+    /**
+     * @return The chunks handed out by the last call to {@link #upload}
+     */
+    public int getUploadedChunks() {
+        return statUploadedChunks;
+    }
+
+    /**
+     * @return The staged bytes handed out by the last call to {@link #upload}
+     */
+    public int getUploadedBytes() {
+        return statUploadedBytes;
+    }
+
+    private static float squaredDistance(RenderableChunk chunk, Vector3f cameraPosition) {
+        Vector3i position = chunk.getPosition();
+        float x = (position.x + 0.5f) * ChunkConstants.SIZE_X - cameraPosition.x;
+        float y = (position.y + 0.5f) * ChunkConstants.SIZE_Y - cameraPosition.y;
+        float z = (position.z + 0.5f) * ChunkConstants.SIZE_Z - cameraPosition.z;
+        return x * x + y * y + z * z;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import org.terasology.math.Region3i;
+import org.terasology.math.Side;
+import org.terasology.math.geom.BaseVector3i;
+import org.terasology.rendering.primitives.ChunkFaceConnectivity;
+
+import java.util.Arrays;
+
+/**
+ * Finds the chunks that can possibly be seen from the chunk the camera is in.
+ * <br><br>
+ * Starting at the camera chunk, the chunk grid is walked breadth first. A chunk entered through one face may only be
+ * left through the faces that its {@link ChunkFaceConnectivity} connects to it, and a walk never turns back towards
+ * the camera: once it has stepped in a direction it may not step in the opposite one. Chunks the walk does not reach
+ * are hidden behind solid terrain. Chunks without connectivity information are assumed to be fully open.
+ * <br><br>
+ * The buffers are reused between frames, so an instance must only be used from one thread.
+ */
+public class ChunkOcclusionCuller {
+
+    private static final Side[] SIDES = Side.values();
+    private static final int FACES = SIDES.length;
+    private static final int[] OPPOSITE = new int[FACES];
+    private static final int[] STEP_X = new int[FACES];
+    private static final int[] STEP_Y = new int[FACES];
+    private static final int[] STEP_Z = new int[FACES];
+
+    static {
+        for (Side side : SIDES) {
+            OPPOSITE[side.ordinal()] = side.reverse().ordinal();
+            STEP_X[side.ordinal()] = side.getVector3i().x;
+            STEP_Y[side.ordinal()] = side.getVector3i().y;
+            STEP_Z[side.ordinal()] = side.getVector3i().z;
+        }
+    }
+
+    private Region3i region = Region3i.EMPTY;
+    private int volume;
+
+    private long[] connectivity = new long[0];
+    private boolean[] visible = new boolean[0];
+    private byte[] enteredFaces = new byte[0];
+    private byte[] usedDirections = new byte[0];
+    private int[] queue = new int[0];
+
+    private int visibleCount;
+
+    /**
+     * Prepares the culler for a new walk over the given region of chunk positions, forgetting all connectivity.
+     */
+    public void reset(Region3i chunkRegion) {
+        region = chunkRegion;
+        volume = chunkRegion.isEmpty() ? 0 : chunkRegion.sizeX() * chunkRegion.sizeY() * chunkRegion.sizeZ();
+        if (connectivity.length < volume) {
+            connectivity = new long[volume];
+            visible = new boolean[volume];
+            enteredFaces = new byte[volume];
+            usedDirections = new byte[volume * FACES];
+            queue = new int[volume * FACES];
+        }
+        Arrays.fill(connectivity, 0, volume, ChunkFaceConnectivity.ALL);
+        visibleCount = 0;
+    }
+
+    public void setConnectivity(BaseVector3i chunkPos, long faceConnectivity) {
+        if (region.encompasses(chunkPos)) {
+            connectivity[index(chunkPos.getX(), chunkPos.getY(), chunkPos.getZ())] = faceConnectivity;
+        }
+    }
+
+    /**
+     * Walks the region from the camera chunk. If the camera is outside the region everything is considered visible.
+     */
+    public void cull(BaseVector3i cameraChunkPos) {
+        Arrays.fill(visible, 0, volume, false);
+        Arrays.fill(enteredFaces, 0, volume, (byte) 0);
+        visibleCount = 0;
+
+        if (!region.encompasses(cameraChunkPos)) {
+            Arrays.fill(visible, 0, volume, true);
+            visibleCount = volume;
+            return;
+        }
+
+        int cameraX = cameraChunkPos.getX() - region.minX();
+        int cameraY = cameraChunkPos.getY() - region.minY();
+        int cameraZ = cameraChunkPos.getZ() - region.minZ();
+        int cameraCell = (cameraY * region.sizeZ() + cameraZ) * region.sizeX() + cameraX;
+        visible[cameraCell] = true;
+        visibleCount = 1;
+
+        // The camera can look out of its own chunk in every direction, whatever the chunk's connectivity
+        int tail = 0;
+        for (int direction = 0; direction < FACES; direction++) {
+            tail = step(cameraX, cameraY, cameraZ, direction, 1 << direction, tail);
+        }
+
+        int head = 0;
+        while (head < tail) {
+            int state = queue[head++];
+            int cell = state / FACES;
+            int enteredFace = state % FACES;
+            int used = usedDirections[state];
+            long cellConnectivity = connectivity[cell];
+
+            int x = cell % region.sizeX();
+            int z = (cell / region.sizeX()) % region.sizeZ();
+            int y = cell / (region.sizeX() * region.sizeZ());
+            for (int direction = 0; direction < FACES; direction++) {
+                if ((used & (1 << OPPOSITE[direction])) == 0
+                        && ChunkFaceConnectivity.isConnected(cellConnectivity, enteredFace, direction)) {
+                    tail = step(x, y, z, direction, used | (1 << direction), tail);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Whether the last walk reached the given chunk. Chunks outside of the region are never culled.
+     */
+    public boolean isVisible(BaseVector3i chunkPos) {
+        return !region.encompasses(chunkPos) || visible[index(chunkPos.getX(), chunkPos.getY(), chunkPos.getZ())];
+    }
+
+    /**
+     * @return The number of chunk positions in the region reached by the last walk
+     */
+    public int getVisibleCount() {
+        return visibleCount;
+    }
+
+    /**
+     * @return The number of chunk positions in the region
+     */
+    public int getRegionVolume() {
+        return volume;
+    }
+
+    public Region3i getRegion() {
+        return region;
+    }
+
+    private int step(int x, int y, int z, int direction, int used, int tail) {
+        int nextX = x + STEP_X[direction];
+        int nextY = y + STEP_Y[direction];
+        int nextZ = z + STEP_Z[direction];
+        if (nextX < 0 || nextY < 0 || nextZ < 0 || nextX >= region.sizeX() || nextY >= region.sizeY() || nextZ >= region.sizeZ()) {
+            return tail;
+        }
+        int cell = (nextY * region.sizeZ() + nextZ) * region.sizeX() + nextX;
+        int enteredFace = OPPOSITE[direction];
+        if ((enteredFaces[cell] & (1 << enteredFace)) != 0) {
+            return tail;
+        }
+        enteredFaces[cell] |= 1 << enteredFace;
+        if (!visible[cell]) {
+            visible[cell] = true;
+            visibleCount++;
+        }
+        int state = cell * FACES + enteredFace;
+        usedDirections[state] = (byte) used;
+        queue[tail] = state;
+        return tail + 1;
+    }
+
+    private int index(int x, int y, int z) {
+        return ((y - region.minY()) * region.sizeZ() + (z - region.minZ())) * region.sizeX() + (x - region.minX());
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.rendering.world;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.math.geom.Vector3f;
+import org.terasology.math.geom.Vector3i;
+import org.terasology.world.chunks.ChunkConstants;
+import org.terasology.world.chunks.RenderableChunk;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Keeps the chunks around the camera in front to back order and works out, per chunk, which render queues it
+ * belongs in.
+ * <br><br>
+ * Ordering is incremental: the list is insertion sorted starting from last frame's order, which is nearly sorted
+ * unless the camera jumped, and only when the camera moved at least a block since the last sort.
+ * <br><br>
+ * Classifying is split into contiguous ranges of the sorted list, each worked on by one thread. A chunk is therefore
+ * only ever touched by a single thread per frame, and reading the flags back range by range keeps the front to back
+ * order without sorting the queues again.
+ */
+public class ChunkQueueBuilder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkQueueBuilder.class);
+
+    /**
+     * Below this many chunks per thread handing work over costs more than it saves.
+     */
+    private static final int MIN_CHUNKS_PER_TASK = 512;
+
+    /**
+     * The insertion sort gives up and sorts from scratch once it shifted this many elements per chunk on average.
+     */
+    private static final int SHIFT_BUDGET_PER_CHUNK = 8;
+
+    private static final float RESORT_DISTANCE_SQUARED = 1.0f;
+
+    private final int threads;
+    private final ExecutorService workers;
+
+    private final Vector3f lastSortPosition = new Vector3f(Float.NaN, Float.NaN, Float.NaN);
+    private boolean orderInvalid = true;
+
+    private float[] distances = new float[0];
+    private long[] sortKeys = new long[0];
+    private RenderableChunk[] sortBuffer = new RenderableChunk[0];
+    private int[] flags = new int[0];
+
+    private int statFullSorts;
+    private int statShifts;
+
+    /**
+     * @param threads The number of threads to classify chunks with, 0 or 1 classifies on the calling thread
+     */
+    public ChunkQueueBuilder(int threads) {
+        this.threads = Math.max(1, threads);
+        if (threads > 1) {
+            workers = Executors.newFixedThreadPool(threads - 1,
+                    new ThreadFactoryBuilder().setNameFormat("Chunk-Queue-%d").setDaemon(true).build());
+        } else {
+            workers = null;
+        }
+    }
+
+    /**
+     * Forces the next call to {@link #sortFrontToBack(List, Vector3f)} to sort, e.g. because chunks were added.
+     */
+    public void invalidateOrder() {
+        orderInvalid = true;
+    }
+
+    /**
+     * Brings the chunks into front to back order relative to the camera.
+     *
+     * @return Whether the order was updated
+     */
+    public boolean sortFrontToBack(List<RenderableChunk> chunks, Vector3f cameraPosition) {
+        if (!orderInvalid) {
+            float dx = cameraPosition.x - lastSortPosition.x;
+            float dy = cameraPosition.y - lastSortPosition.y;
+            float dz = cameraPosition.z - lastSortPosition.z;
+            if (dx * dx + dy * dy + dz * dz < RESORT_DISTANCE_SQUARED) {
+                return false;
+            }
+        }
+        lastSortPosition.set(cameraPosition);
+        orderInvalid = false;
+
+        int count = chunks.size();
+        if (distances.length < count) {
+            distances = new float[count];
+        }
+        for (int i = 0; i < count; i++) {
+            distances[i] = squaredDistanceToCamera(chunks.get(i), cameraPosition);
+        }
+
+        statShifts = 0;
+        int shiftBudget = SHIFT_BUDGET_PER_CHUNK * count;
+        for (int i = 1; i < count; i++) {
+            float distance = distances[i];
+            if (distances[i - 1] <= distance) {
+                continue;
+            }
+            RenderableChunk chunk = chunks.get(i);
+            int j = i - 1;
+            while (j >= 0 && distances[j] > distance) {
+                distances[j + 1] = distances[j];
+                chunks.set(j + 1, chunks.get(j));
+                j--;
+                statShifts++;
+            }
+            distances[j + 1] = distance;
+            chunks.set(j + 1, chunk);
+            if (statShifts > shiftBudget) {
+                sortFully(chunks);
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Packs each distance and index into a long, so the sort runs over primitives and the comparison is exact.
+     * Squared distances are never negative, so their float bits order the same way as the floats.
+     */
+    private void sortFully(List<RenderableChunk> chunks) {
+        statFullSorts++;
+        int count = chunks.size();
+        if (sortKeys.length < count) {
+            sortKeys = new long[count];
+            sortBuffer = new RenderableChunk[count];
+        }
+        for (int i = 0; i < count; i++) {
+            sortKeys[i] = ((long) Float.floatToIntBits(distances[i]) << 32) | i;
+            sortBuffer[i] = chunks.get(i);
+        }
+        Arrays.sort(sortKeys, 0, count);
+        for (int i = 0; i < count; i++) {
+            int index = (int) sortKeys[i];
+            chunks.set(i, sortBuffer[index]);
+            distances[i] = Float.intBitsToFloat((int) (sortKeys[i] >>> 32));
+        }
+        Arrays.fill(sortBuffer, 0, count, null);
+    }
+
+    /**
+     * Classifies every chunk of the list, in parallel if it is long enough. Afterwards {@link #getFlags(int)} returns
+     * the result for each index of the list.
+     * <br><br>
+     * The classifier is called from several threads at once and must only read shared state.
+     */
+    public void classify(List<RenderableChunk> chunks, ChunkClassifier classifier) {
+        int count = chunks.size();
+        if (flags.length < count) {
+            flags = new int[count];
+        }
+
+        int tasks = Math.min(threads, (count + MIN_CHUNKS_PER_TASK - 1) / MIN_CHUNKS_PER_TASK);
+        if (workers == null || tasks <= 1) {
+            classifyRange(chunks, classifier, 0, count);
+            return;
+        }
+
+        int rangeSize = (count + tasks - 1) / tasks;
+        List<Future<?>> results = Lists.newArrayListWithCapacity(tasks - 1);
+        for (int start = rangeSize; start < count; start += rangeSize) {
+            final int rangeStart = start;
+            final int rangeEnd = Math.min(start + rangeSize, count);
+            results.add(workers.submit(() -> classifyRange(chunks, classifier, rangeStart, rangeEnd)));
+        }
+        // The calling thread would only wait otherwise, so it takes the nearest range itself
+        classifyRange(chunks, classifier, 0, Math.min(rangeSize, count));
+
+        try {
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while classifying chunks, finishing on the rendering thread");
+            classifyRange(chunks, classifier, 0, count);
+        } catch (ExecutionException e) {
+            logger.error("Failed to classify chunks, finishing on the rendering thread", e.getCause());
+            classifyRange(chunks, classifier, 0, count);
+        }
+    }
+
+    private void classifyRange(List<RenderableChunk> chunks, ChunkClassifier classifier, int start, int end) {
+        for (int i = start; i < end; i++) {
+            flags[i] = classifier.classify(chunks.get(i), i);
+        }
+    }
+
+    /**
+     * @return The flags the classifier returned for the chunk at the given index of the last classified list
+     */
+    public int getFlags(int index) {
+        return flags[index];
+    }
+
+    /**
+     * @return How many times the order had to be rebuilt from scratch since this builder was created
+     */
+    public int getFullSortCount() {
+        return statFullSorts;
+    }
+
+    /**
+     * @return How many elements the last incremental sort moved
+     */
+    public int getLastShiftCount() {
+        return statShifts;
+    }
+
+    public void shutdown() {
+        if (workers != null) {
+            workers.shutdown();
+        }
+    }
+
+    static float squaredDistanceToCamera(RenderableChunk chunk, Vector3f cameraPosition) {
+        Vector3i position = chunk.getPosition();
+        float x = (position.x + 0.5f) * ChunkConstants.SIZE_X - cameraPosition.x;
+        float y = (position.y + 0.5f) * ChunkConstants.SIZE_Y - cameraPosition.y;
+        float z = (position.z + 0.5f) * ChunkConstants.SIZE_Z - cameraPosition.z;
+        return x * x + y * y + z * z;
+    }
+
+    /**
+     * Decides which render queues a chunk goes into, encoded as bit flags of the implementor's choosing.
+     */
+    @FunctionalInterface
+    public interface ChunkClassifier {
+        int classify(RenderableChunk chunk, int index);
+    }
+}
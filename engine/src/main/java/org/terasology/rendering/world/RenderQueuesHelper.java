@@ -17,20 +17,24 @@
 
 import org.terasology.world.chunks.RenderableChunk;
 
-import java.util.PriorityQueue;
+import java.util.Deque;
 
+/**
+ * The chunks to render in each pass of a frame, filled by the {@link RenderableWorld} and drained by the renderer.
+ * Opaque queues are in front to back order, the alpha blend queue in back to front order.
+ */
 public class RenderQueuesHelper {
-    public final PriorityQueue<RenderableChunk> chunksOpaque;
-    public final PriorityQueue<RenderableChunk> chunksOpaqueShadow;
-    public final PriorityQueue<RenderableChunk> chunksOpaqueReflection;
-    public final PriorityQueue<RenderableChunk> chunksAlphaReject;
-    public final PriorityQueue<RenderableChunk> chunksAlphaBlend;
+    public final Deque<RenderableChunk> chunksOpaque;
+    public final Deque<RenderableChunk> chunksOpaqueShadow;
+    public final Deque<RenderableChunk> chunksOpaqueReflection;
+    public final Deque<RenderableChunk> chunksAlphaReject;
+    public final Deque<RenderableChunk> chunksAlphaBlend;
 
-    RenderQueuesHelper(PriorityQueue<RenderableChunk> chunksOpaque,
-                       PriorityQueue<RenderableChunk> chunksOpaqueShadow,
-                       PriorityQueue<RenderableChunk> chunksOpaqueReflection,
-                       PriorityQueue<RenderableChunk> chunksAlphaReject,
-                       PriorityQueue<RenderableChunk> chunksAlphaBlend) {
+    RenderQueuesHelper(Deque<RenderableChunk> chunksOpaque,
+                       Deque<RenderableChunk> chunksOpaqueShadow,
+                       Deque<RenderableChunk> chunksOpaqueReflection,
+                       Deque<RenderableChunk> chunksAlphaReject,
+                       Deque<RenderableChunk> chunksAlphaBlend) {
 
         this.chunksOpaque = chunksOpaque;
         this.chunksOpaqueShadow = chunksOpaqueShadow;
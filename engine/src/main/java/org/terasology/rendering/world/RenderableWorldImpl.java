@@ -15,22 +15,24 @@
  */
 package org.terasology.rendering.world;
 
-import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.terasology.config.Config;
 import org.terasology.config.RenderingConfig;
 import org.terasology.engine.subsystem.lwjgl.GLBufferPool;
+import org.terasology.math.ChunkMath;
 import org.terasology.math.Region3i;
 import org.terasology.math.TeraMath;
 import org.terasology.math.geom.Vector3f;
 import org.terasology.math.geom.Vector3i;
 import org.terasology.monitoring.PerformanceMonitor;
+import org.terasology.monitoring.chunk.ChunkMonitor;
 import org.terasology.registry.CoreRegistry;
 import org.terasology.rendering.cameras.Camera;
 import org.terasology.rendering.primitives.ChunkMesh;
 import org.terasology.rendering.primitives.ChunkTessellator;
+import org.terasology.rendering.primitives.StagingBufferPool;
 import org.terasology.rendering.world.viewDistance.ViewDistance;
 import org.terasology.world.ChunkView;
 import org.terasology.world.WorldProvider;
@@ -38,18 +40,31 @@
 import org.terasology.world.chunks.ChunkProvider;
 import org.terasology.world.chunks.RenderableChunk;
 
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.ArrayDeque;
 import java.util.Iterator;
 import java.util.List;
-import java.util.PriorityQueue;
 
 public class RenderableWorldImpl implements RenderableWorld {
 
     private static final int MAX_ANIMATED_CHUNKS = 64;
     private static final int MAX_BILLBOARD_CHUNKS = 64;
     private static final int MAX_LOADABLE_CHUNKS = ViewDistance.MEGA.getChunkDistance().x * ViewDistance.MEGA.getChunkDistance().y * ViewDistance.MEGA.getChunkDistance().z;
-    private static final Vector3f CHUNK_CENTER_OFFSET = new Vector3f(0.5f, 0.5f, 0.5f);
+
+    private static final int FLAG_VALID = 1;
+    private static final int FLAG_SHADOW = 1 << 1;
+    private static final int FLAG_IN_FRUSTUM = 1 << 2;
+    private static final int FLAG_OCCLUDED = 1 << 3;
+    private static final int FLAG_REFLECTION = 1 << 4;
+    private static final int FLAG_OPAQUE = 1 << 5;
+    private static final int FLAG_REFRACTIVE = 1 << 6;
+    private static final int FLAG_ALPHA_REJECT = 1 << 7;
+    private static final int FLAG_NEEDS_MESH = 1 << 8;
+    private static final int FLAG_LOD = 1 << 9;
+
+    /**
+     * Staging buffers kept around for reuse by later remeshes, in bytes.
+     */
+    private static final long MAX_RETAINED_STAGING_BYTES = 64L * 1024 * 1024;
 
     private static final Logger logger = LoggerFactory.getLogger(RenderableWorldImpl.class);
 
@@ -60,10 +75,14 @@ public class RenderableWorldImpl implements RenderableWorld {
 
     private ChunkTessellator chunkTessellator;
     private final ChunkMeshUpdateManager chunkMeshUpdateManager;
+    private final StagingBufferPool stagingPool = new StagingBufferPool(MAX_RETAINED_STAGING_BYTES);
+    private final ChunkMeshUploadScheduler uploadScheduler = new ChunkMeshUploadScheduler();
     private final List<RenderableChunk> chunksInProximityOfCamera = Lists.newArrayListWithCapacity(MAX_LOADABLE_CHUNKS);
     private Region3i renderableRegion = Region3i.EMPTY;
     private ViewDistance currentViewDistance;
     private RenderQueuesHelper renderQueues;
+    private final ChunkOcclusionCuller occlusionCuller = new ChunkOcclusionCuller();
+    private final ChunkQueueBuilder queueBuilder;
 
     private Camera playerCamera;
     private Camera shadowMapCamera;
@@ -74,6 +93,8 @@ public class RenderableWorldImpl implements RenderableWorld {
     private int statDirtyChunks;
     private int statVisibleChunks;
     private int statIgnoredPhases;
+    private int statOccludedChunks;
+    private int statLodChunks;
 
 
     public RenderableWorldImpl(WorldProvider worldProvider,
@@ -83,23 +104,24 @@ public RenderableWorldImpl(WorldProvider worldProvider,
 
         this.worldProvider = worldProvider;
         this.chunkProvider = chunkProvider;
-        chunkTessellator = new ChunkTessellator(bufferPool);
-        chunkMeshUpdateManager = new ChunkMeshUpdateManager(chunkTessellator, worldProvider);
+        chunkTessellator = new ChunkTessellator(bufferPool, stagingPool);
+        chunkMeshUpdateManager = new ChunkMeshUpdateManager(chunkTessellator, worldProvider, config.getSystem().getChunkMeshThreads());
 
         this.playerCamera = playerCamera;
 
-        renderQueues = new RenderQueuesHelper(new PriorityQueue<>(MAX_LOADABLE_CHUNKS, new ChunkFrontToBackComparator()),
-                new PriorityQueue<>(MAX_LOADABLE_CHUNKS, new ChunkFrontToBackComparator()),
-                new PriorityQueue<>(MAX_LOADABLE_CHUNKS, new ChunkFrontToBackComparator()),
-                new PriorityQueue<>(MAX_LOADABLE_CHUNKS, new ChunkFrontToBackComparator()),
-                new PriorityQueue<>(MAX_LOADABLE_CHUNKS, new ChunkBackToFrontComparator()));
+        queueBuilder = new ChunkQueueBuilder(config.getSystem().getChunkQueueThreads());
+        renderQueues = new RenderQueuesHelper(new ArrayDeque<>(MAX_LOADABLE_CHUNKS),
+                new ArrayDeque<>(MAX_LOADABLE_CHUNKS),
+                new ArrayDeque<>(MAX_LOADABLE_CHUNKS),
+                new ArrayDeque<>(MAX_LOADABLE_CHUNKS),
+                new ArrayDeque<>(MAX_LOADABLE_CHUNKS));
     }
 
     @Override
     public void onChunkLoaded(Vector3i chunkCoordinates) {
         if (renderableRegion.encompasses(chunkCoordinates)) {
             chunksInProximityOfCamera.add(chunkProvider.getChunk(chunkCoordinates));
-            Collections.sort(chunksInProximityOfCamera, new ChunkFrontToBackComparator());
+            queueBuilder.invalidateOrder();
         }
     }
 
@@ -111,6 +133,7 @@ public void onChunkUnloaded(Vector3i chunkCoordinates) {
             while (iterator.hasNext()) {
                 chunk = iterator.next();
                 if (chunk.getPosition().equals(chunkCoordinates)) {
+                    chunkMeshUpdateManager.cancelChunkUpdate(chunk);
                     chunk.disposeMesh();
                     iterator.remove();
                     break;
@@ -173,6 +196,8 @@ public void update() {
         chunkProvider.beginUpdate();
         PerformanceMonitor.endActivity();
 
+        chunkMeshUpdateManager.setLodDistance(renderingConfig.getChunkLodDistance());
+
         PerformanceMonitor.startActivity("Update Close Chunks");
         updateChunksInProximity(calculateRenderableRegion(renderingConfig.getViewDistance()));
         PerformanceMonitor.endActivity();
@@ -197,6 +222,7 @@ public boolean updateChunksInProximity(Region3i newRenderableRegion) {
                 while (nearbyChunks.hasNext()) {
                     chunk = nearbyChunks.next();
                     if (chunk.getPosition().equals(chunkPosition)) {
+                        chunkMeshUpdateManager.cancelChunkUpdate(chunk);
                         chunk.disposeMesh();
                         nearbyChunks.remove();
                         break;
@@ -216,7 +242,7 @@ public boolean updateChunksInProximity(Region3i newRenderableRegion) {
             }
 
             if (chunksHaveBeenAdded) {
-                Collections.sort(chunksInProximityOfCamera, new ChunkFrontToBackComparator());
+                queueBuilder.invalidateOrder();
             }
             renderableRegion = newRenderableRegion;
             return true;
@@ -258,27 +284,24 @@ private Vector3i calcCameraCoordinatesInChunkUnits() {
     @Override
     public void generateVBOs() {
         PerformanceMonitor.startActivity("Building Mesh VBOs");
-        ChunkMesh pendingMesh;
         chunkMeshUpdateManager.setCameraPosition(playerCamera.getPosition());
-        for (RenderableChunk chunk : chunkMeshUpdateManager.availableChunksForUpdate()) {
-
-            if (chunk.hasPendingMesh() && chunksInProximityOfCamera.contains(chunk)) {
-                pendingMesh = chunk.getPendingMesh();
-                pendingMesh.generateVBOs();
-                if (chunk.hasMesh()) {
-                    chunk.getMesh().dispose();
-                }
-                chunk.setMesh(pendingMesh);
-                chunk.setPendingMesh(null);
+        uploadScheduler.addAll(chunkMeshUpdateManager.availableChunksForUpdate());
+        uploadScheduler.upload(playerCamera.getPosition(), renderingConfig.getChunkUploadBudget() * 1024, this::uploadPendingMesh);
+        PerformanceMonitor.endActivity();
+    }
 
-            } else {
-                if (chunk.hasPendingMesh()) {
-                    chunk.getPendingMesh().dispose();
-                    chunk.setPendingMesh(null);
-                }
+    private void uploadPendingMesh(RenderableChunk chunk) {
+        ChunkMesh pendingMesh = chunk.getPendingMesh();
+        chunk.setPendingMesh(null);
+        if (chunksInProximityOfCamera.contains(chunk)) {
+            pendingMesh.generateVBOs();
+            if (chunk.hasMesh()) {
+                chunk.getMesh().dispose();
             }
+            chunk.setMesh(pendingMesh);
+        } else {
+            pendingMesh.dispose();
         }
-        PerformanceMonitor.endActivity();
     }
 
     /**
@@ -290,75 +313,139 @@ public int queueVisibleChunks(boolean isFirstRenderingStageForCurrentFrame) {
         statDirtyChunks = 0;
         statVisibleChunks = 0;
         statIgnoredPhases = 0;
+        statOccludedChunks = 0;
+        statLodChunks = 0;
 
+        PerformanceMonitor.startActivity("Sorting Chunks");
+        queueBuilder.sortFrontToBack(chunksInProximityOfCamera, playerCamera.getPosition());
+        PerformanceMonitor.endActivity();
+
+        PerformanceMonitor.startActivity("Occlusion Culling");
+        occlusionCuller.reset(renderableRegion);
+        for (RenderableChunk nearbyChunk : chunksInProximityOfCamera) {
+            if (nearbyChunk.hasMesh()) {
+                occlusionCuller.setConnectivity(nearbyChunk.getPosition(), nearbyChunk.getMesh().getFaceConnectivity());
+            }
+        }
+        occlusionCuller.cull(ChunkMath.calcChunkPos(playerCamera.getPosition()));
+        PerformanceMonitor.endActivity();
+
+        PerformanceMonitor.startActivity("Classifying Chunks");
+        boolean includeShadows = renderingConfig.isDynamicShadows() && isFirstRenderingStageForCurrentFrame;
+        queueBuilder.classify(chunksInProximityOfCamera, (chunk, index) -> classifyChunk(chunk, index, includeShadows));
+        PerformanceMonitor.endActivity();
+
+        // The chunks are in front to back order, so adding them in turn keeps the queues sorted
         int processedChunks = 0;
-        int chunkCounter = 0;
-        ChunkMesh mesh;
         RenderableChunk chunk;
-        boolean isDynamicShadows = renderingConfig.isDynamicShadows();
-        Iterator<RenderableChunk> nearbyChunks = chunksInProximityOfCamera.iterator();
-        while (nearbyChunks.hasNext()) {
-            chunk = nearbyChunks.next();
-
-            if (isChunkValidForRender(chunk)) {
-                mesh = chunk.getMesh();
-
-                if (isDynamicShadows && isFirstRenderingStageForCurrentFrame && chunkCounter < maxChunksForShadows && isChunkVisibleFromMainLight(chunk)) {
-                    if (triangleCount(mesh, ChunkMesh.RenderPhase.OPAQUE) > 0) {
-                        renderQueues.chunksOpaqueShadow.add(chunk);
-                    } else {
-                        statIgnoredPhases++;
-                    }
-                }
-
-                if (isChunkVisible(chunk)) {
-                    if (triangleCount(mesh, ChunkMesh.RenderPhase.OPAQUE) > 0) {
-                        renderQueues.chunksOpaque.add(chunk);
-                    } else {
-                        statIgnoredPhases++;
-                    }
+        int flags;
+        for (int chunkCounter = 0; chunkCounter < chunksInProximityOfCamera.size(); chunkCounter++) {
+            flags = queueBuilder.getFlags(chunkCounter);
+            if ((flags & FLAG_VALID) == 0) {
+                continue;
+            }
+            chunk = chunksInProximityOfCamera.get(chunkCounter);
 
-                    if (triangleCount(mesh, ChunkMesh.RenderPhase.REFRACTIVE) > 0) {
-                        renderQueues.chunksAlphaBlend.add(chunk);
-                    } else {
-                        statIgnoredPhases++;
-                    }
+            if ((flags & FLAG_SHADOW) != 0) {
+                if ((flags & FLAG_OPAQUE) != 0) {
+                    renderQueues.chunksOpaqueShadow.add(chunk);
+                } else {
+                    statIgnoredPhases++;
+                }
+            }
 
-                    if (triangleCount(mesh, ChunkMesh.RenderPhase.ALPHA_REJECT) > 0 && chunkCounter < MAX_BILLBOARD_CHUNKS) {
-                        renderQueues.chunksAlphaReject.add(chunk);
-                    } else {
-                        statIgnoredPhases++;
-                    }
+            // Occlusion only holds for the player's point of view, shadows and reflections are seen from elsewhere
+            if ((flags & FLAG_OCCLUDED) != 0) {
+                statOccludedChunks++;
+            } else if ((flags & FLAG_IN_FRUSTUM) != 0) {
+                if ((flags & FLAG_OPAQUE) != 0) {
+                    renderQueues.chunksOpaque.add(chunk);
+                } else {
+                    statIgnoredPhases++;
+                }
 
-                    statVisibleChunks++;
+                if ((flags & FLAG_REFRACTIVE) != 0) {
+                    renderQueues.chunksAlphaBlend.addFirst(chunk);
+                } else {
+                    statIgnoredPhases++;
+                }
 
-                    if (statVisibleChunks < MAX_ANIMATED_CHUNKS) {
-                        chunk.setAnimated(true);
-                    } else {
-                        chunk.setAnimated(false);
-                    }
+                if ((flags & FLAG_ALPHA_REJECT) != 0 && chunkCounter < MAX_BILLBOARD_CHUNKS) {
+                    renderQueues.chunksAlphaReject.add(chunk);
+                } else {
+                    statIgnoredPhases++;
                 }
 
-                if (isChunkVisibleReflection(chunk)) {
-                    renderQueues.chunksOpaqueReflection.add(chunk);
+                statVisibleChunks++;
+                if ((flags & FLAG_LOD) != 0) {
+                    statLodChunks++;
                 }
 
-                // Process all chunks in the area, not only the visible ones
-                if (isFirstRenderingStageForCurrentFrame) {
-                    if ((chunk.isDirty() || !chunk.hasMesh())) {
-                        statDirtyChunks++;
-                        chunkMeshUpdateManager.queueChunkUpdate(chunk);
-                        processedChunks++;
-                    }
+                if (statVisibleChunks < MAX_ANIMATED_CHUNKS) {
+                    chunk.setAnimated(true);
+                } else {
+                    chunk.setAnimated(false);
                 }
             }
-            chunkCounter++;
+
+            if ((flags & FLAG_REFLECTION) != 0) {
+                renderQueues.chunksOpaqueReflection.add(chunk);
+            }
+
+            // Process all chunks in the area, not only the visible ones
+            if (isFirstRenderingStageForCurrentFrame && (flags & FLAG_NEEDS_MESH) != 0) {
+                statDirtyChunks++;
+                chunkMeshUpdateManager.queueChunkUpdate(chunk);
+                processedChunks++;
+            }
         }
 
         PerformanceMonitor.endActivity();
         return processedChunks;
     }
 
+    /**
+     * Runs on the chunk queue threads, so it must only read state that is left alone while chunks are queued.
+     */
+    private int classifyChunk(RenderableChunk chunk, int chunkCounter, boolean includeShadows) {
+        if (!isChunkValidForRender(chunk)) {
+            return 0;
+        }
+        int flags = FLAG_VALID;
+        ChunkMesh mesh = chunk.getMesh();
+        if (triangleCount(mesh, ChunkMesh.RenderPhase.OPAQUE) > 0) {
+            flags |= FLAG_OPAQUE;
+        }
+        if (triangleCount(mesh, ChunkMesh.RenderPhase.REFRACTIVE) > 0) {
+            flags |= FLAG_REFRACTIVE;
+        }
+        if (triangleCount(mesh, ChunkMesh.RenderPhase.ALPHA_REJECT) > 0) {
+            flags |= FLAG_ALPHA_REJECT;
+        }
+        if (includeShadows && chunkCounter < maxChunksForShadows && isChunkVisibleFromMainLight(chunk)) {
+            flags |= FLAG_SHADOW;
+        }
+        if (isChunkVisible(chunk)) {
+            flags |= FLAG_IN_FRUSTUM;
+            if (!occlusionCuller.isVisible(chunk.getPosition())) {
+                flags |= FLAG_OCCLUDED;
+            }
+        }
+        if (isChunkVisibleReflection(chunk)) {
+            flags |= FLAG_REFLECTION;
+        }
+        if (mesh != null && mesh.getLodScale() > 1) {
+            flags |= FLAG_LOD;
+        }
+        // A chunk waiting for its mesh upload is remeshed after the upload, if still needed
+        if (!chunk.hasPendingMesh()) {
+            if (chunk.isDirty() || mesh == null || mesh.getLodScale() != chunkMeshUpdateManager.getLodScale(chunk.getPosition())) {
+                flags |= FLAG_NEEDS_MESH;
+            }
+        }
+        return flags;
+    }
+
     private int triangleCount(ChunkMesh mesh, ChunkMesh.RenderPhase renderPhase) {
         if (mesh != null) {
             return mesh.triangleCount(renderPhase);
@@ -370,6 +457,9 @@ private int triangleCount(ChunkMesh mesh, ChunkMesh.RenderPhase renderPhase) {
     @Override
     public void dispose() {
         chunkMeshUpdateManager.shutdown();
+        queueBuilder.shutdown();
+        uploadScheduler.clear();
+        stagingPool.clear();
     }
 
     public boolean isChunkValidForRender(RenderableChunk chunk) {
@@ -419,65 +509,47 @@ public String getMetrics() {
         builder.append("Visible Chunks: ");
         builder.append(statVisibleChunks);
         builder.append("\n");
+        builder.append("Level of Detail Chunks: ");
+        builder.append(statLodChunks);
+        builder.append("\n");
+        builder.append("Occluded Chunks: ");
+        builder.append(statOccludedChunks);
+        builder.append("\n");
+        builder.append("Reachable Chunks: ");
+        builder.append(occlusionCuller.getVisibleCount());
+        builder.append(" / ");
+        builder.append(occlusionCuller.getRegionVolume());
+        builder.append("\n");
+        builder.append("Remesh Latency (us): ");
+        builder.append(ChunkMonitor.getRemeshLatencies());
+        builder.append("\n");
+        builder.append("Remesh Queue Time (us): ");
+        builder.append(ChunkMonitor.getRemeshQueueTimes());
+        builder.append("\n");
+        builder.append("Remesh Tessellation (us): ");
+        builder.append(ChunkMonitor.getRemeshTessellationTimes());
+        builder.append(" (cancelled: ");
+        builder.append(ChunkMonitor.getRemeshesCancelled());
+        builder.append(")\n");
+        builder.append("Mesh Uploads: ");
+        builder.append(uploadScheduler.getUploadedChunks());
+        builder.append(" (");
+        builder.append(uploadScheduler.getUploadedBytes() / 1024);
+        builder.append(" KB, waiting: ");
+        builder.append(uploadScheduler.getWaitingCount());
+        builder.append(")\n");
+        builder.append("Staging Buffers: ");
+        builder.append(stagingPool.getRetainedBytes() / 1024);
+        builder.append(" KB pooled (allocated: ");
+        builder.append(stagingPool.getAllocations());
+        builder.append(", reused: ");
+        builder.append(stagingPool.getReuses());
+        builder.append(")\n");
+        builder.append("Chunk Sort Shifts: ");
+        builder.append(queueBuilder.getLastShiftCount());
+        builder.append(" (full sorts: ");
+        builder.append(queueBuilder.getFullSortCount());
+        builder.append(")\n");
         return builder.toString();
     }
-
-    private static float squaredDistanceToCamera(RenderableChunk chunk, Vector3f cameraPosition) {
-        // For performance reasons, to avoid instantiating too many vectors in a frequently called method,
-        // comments are in use instead of appropriately named vectors.
-        Vector3f result = chunk.getPosition().toVector3f(); // chunk position in chunk coordinates
-        result.add(CHUNK_CENTER_OFFSET);                    // chunk center in chunk coordinates
-
-        result.x *= ChunkConstants.SIZE_X;    // chunk center in world coordinates
-        result.y *= ChunkConstants.SIZE_Y;
-        result.z *= ChunkConstants.SIZE_Z;
-
-        result.sub(cameraPosition); // camera to chunk vector
-
-        return result.lengthSquared();
-    }
-
-    // TODO: find the right place to check if the activeCamera has changed,
-    // TODO: so that the comparators can hold an up-to-date reference to it
-    // TODO: and avoid having to find it on a per-comparison basis.
-    private static class ChunkFrontToBackComparator implements Comparator<RenderableChunk> {
-
-        @Override
-        public int compare(RenderableChunk chunk1, RenderableChunk chunk2) {
-            Preconditions.checkNotNull(chunk1);
-            Preconditions.checkNotNull(chunk2);
-            Vector3f cameraPosition = CoreRegistry.get(WorldRenderer.class).getActiveCamera().getPosition();
-            double distance1 = squaredDistanceToCamera(chunk1, cameraPosition);
-            double distance2 = squaredDistanceToCamera(chunk2, cameraPosition);
-
-            if (distance1 == distance2) {
-                return 0;
-            } else if (distance1 > distance2) {
-                return 1;
-            } else {
-                return -1;
-            }
-        }
-    }
-
-    private static class ChunkBackToFrontComparator implements Comparator<RenderableChunk> {
-
-        @Override
-        public int compare(RenderableChunk chunk1, RenderableChunk chunk2) {
-            Preconditions.checkNotNull(chunk1);
-            Preconditions.checkNotNull(chunk2);
-            Vector3f cameraPosition = CoreRegistry.get(WorldRenderer.class).getActiveCamera().getPosition();
-            double distance1 = squaredDistanceToCamera(chunk1, cameraPosition);
-            double distance2 = squaredDistanceToCamera(chunk2, cameraPosition);
-
-            if (distance1 == distance2) {
-                return 0;
-            } else if (distance2 > distance1) {
-                return 1;
-            } else {
-                return -1;
-            }
-        }
-    }
-
 }
@@ -24,7 +24,7 @@
 import org.terasology.rendering.world.viewDistance.ViewDistance;
 import org.terasology.world.chunks.RenderableChunk;
 
-import java.util.PriorityQueue;
+import java.util.Queue;
 
 /**
  * Implementations of this class are responsible for rendering the whole 3D world,
@@ -52,7 +52,7 @@ public interface WorldRenderer {
 
     boolean isFirstRenderingStageForCurrentFrame();
 
-    void renderChunks(PriorityQueue<RenderableChunk> chunks, ChunkMesh.RenderPhase phase, Camera camera, WorldRendererImpl.ChunkRenderMode mode);
+    void renderChunks(Queue<RenderableChunk> chunks, ChunkMesh.RenderPhase phase, Camera camera, WorldRendererImpl.ChunkRenderMode mode);
     /**
      * This method is triggered when a chunk has been loaded.
      *
@@ -85,7 +85,7 @@
 import org.terasology.world.chunks.RenderableChunk;
 
 import java.util.List;
-import java.util.PriorityQueue;
+import java.util.Queue;
 
 import static org.lwjgl.opengl.GL11.GL_COLOR_BUFFER_BIT;
 import static org.lwjgl.opengl.GL11.GL_DEPTH_BUFFER_BIT;
@@ -514,7 +514,7 @@ public boolean isFirstRenderingStageForCurrentFrame() {
 
     // TODO: review - break this method and move it into the individual nodes using it?
     @Override
-    public void renderChunks(PriorityQueue<RenderableChunk> chunks, ChunkMesh.RenderPhase phase, Camera camera, ChunkRenderMode mode) {
+    public void renderChunks(Queue<RenderableChunk> chunks, ChunkMesh.RenderPhase phase, Camera camera, ChunkRenderMode mode) {
         final Vector3f cameraPosition = camera.getPosition();
         if (mode == ChunkRenderMode.DEFAULT || mode == ChunkRenderMode.REFLECTION) {
             if (phase == ChunkMesh.RenderPhase.REFRACTIVE) {
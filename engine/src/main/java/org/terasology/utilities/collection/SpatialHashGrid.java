@@ -0,0 +1,349 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.utilities.collection;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Stores values at points in 3D space, in a sparse grid of cubic cells addressed through a hash map. Adding, moving and
+ * removing a value take constant time, and queries only look at the cells that overlap the queried volume.
+ * <br><br>
+ * Unlike {@link org.terasology.utilities.tree.SpaceTree}, which maps positions to values, this maps values to positions:
+ * any number of values may share a position, and a value is moved by putting it again.
+ *
+ * @param <T> The type of the values, which are identified by their equals and hashCode
+ */
+public final class SpatialHashGrid<T> {
+
+    private static final int COORD_BITS = 21;
+    private static final long COORD_MASK = (1L << COORD_BITS) - 1;
+
+    private final float cellSize;
+    private final TLongObjectMap<List<Entry<T>>> cells = new TLongObjectHashMap<>();
+    private final Map<T, Entry<T>> entries = Maps.newHashMap();
+
+    // the cells that have ever been occupied lie within these bounds, which bound the search of getNearest
+    private int minCellX = Integer.MAX_VALUE;
+    private int minCellY = Integer.MAX_VALUE;
+    private int minCellZ = Integer.MAX_VALUE;
+    private int maxCellX = Integer.MIN_VALUE;
+    private int maxCellY = Integer.MIN_VALUE;
+    private int maxCellZ = Integer.MIN_VALUE;
+
+    /**
+     * @param cellSize the edge length of a cell. Works best around the typical query radius.
+     */
+    public SpatialHashGrid(float cellSize) {
+        Preconditions.checkArgument(cellSize > 0, "cellSize must be greater than zero");
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Adds a value at the given position, or moves it there if it is already in the grid.
+     */
+    public void put(T value, float x, float y, float z) {
+        Preconditions.checkNotNull(value);
+        Entry<T> entry = entries.get(value);
+        long cellKey = cellKey(cellCoord(x), cellCoord(y), cellCoord(z));
+        if (entry == null) {
+            entry = new Entry<>(value);
+            entries.put(value, entry);
+        } else if (entry.cellKey != cellKey) {
+            removeFromCell(entry);
+        } else {
+            entry.set(x, y, z);
+            return;
+        }
+        entry.set(x, y, z);
+        addToCell(entry, cellKey);
+    }
+
+    /**
+     * @return Whether the value was in the grid
+     */
+    public boolean remove(T value) {
+        Entry<T> entry = entries.remove(value);
+        if (entry != null) {
+            removeFromCell(entry);
+            return true;
+        }
+        return false;
+    }
+
+    public boolean contains(T value) {
+        return entries.containsKey(value);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+        cells.clear();
+        minCellX = minCellY = minCellZ = Integer.MAX_VALUE;
+        maxCellX = maxCellY = maxCellZ = Integer.MIN_VALUE;
+    }
+
+    /**
+     * @return The values within the given distance of a point, in no particular order
+     */
+    public List<T> getInRadius(float x, float y, float z, float radius, Predicate<? super T> filter) {
+        List<T> result = Lists.newArrayList();
+        float radiusSquared = radius * radius;
+        visitCells(x - radius, y - radius, z - radius, x + radius, y + radius, z + radius, cell -> {
+            for (Entry<T> entry : cell) {
+                if (entry.distanceSquared(x, y, z) <= radiusSquared && filter.test(entry.value)) {
+                    result.add(entry.value);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return The values within the given box, bounds included, in no particular order
+     */
+    public List<T> getInBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, Predicate<? super T> filter) {
+        List<T> result = Lists.newArrayList();
+        visitCells(minX, minY, minZ, maxX, maxY, maxZ, cell -> {
+            for (Entry<T> entry : cell) {
+                if (entry.x >= minX && entry.x <= maxX && entry.y >= minY && entry.y <= maxY && entry.z >= minZ && entry.z <= maxZ
+                        && filter.test(entry.value)) {
+                    result.add(entry.value);
+                }
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Searches the cells in growing shells around the point, until no unvisited cell can hold a nearer value.
+     *
+     * @param count       the maximum number of values to return
+     * @param maxDistance values further away are ignored
+     * @return Up to count values nearest to the point, nearest first
+     */
+    public List<T> getNearest(float x, float y, float z, int count, float maxDistance, Predicate<? super T> filter) {
+        if (count <= 0 || entries.isEmpty()) {
+            return Collections.emptyList();
+        }
+        float maxDistanceSquared = maxDistance * maxDistance;
+        PriorityQueue<Candidate<T>> nearest = new PriorityQueue<>(count + 1, Comparator.comparingDouble((Candidate<T> c) -> c.distanceSquared).reversed());
+        int centerX = cellCoord(x);
+        int centerY = cellCoord(y);
+        int centerZ = cellCoord(z);
+        int maxRing = Math.max(Math.max(ringToCover(centerX, minCellX, maxCellX), ringToCover(centerY, minCellY, maxCellY)),
+                ringToCover(centerZ, minCellZ, maxCellZ));
+        for (int ring = 0; ring <= maxRing; ring++) {
+            long shellCells = ring == 0 ? 1 : cube(2L * ring + 1) - cube(2L * ring - 1);
+            if (shellCells > cells.size()) {
+                // the shells have grown larger than the occupied part of the grid, so scan everything instead
+                nearest.clear();
+                for (Entry<T> entry : entries.values()) {
+                    offer(nearest, entry, x, y, z, count, maxDistanceSquared, filter);
+                }
+                break;
+            }
+            visitShell(centerX, centerY, centerZ, ring, cell -> {
+                for (Entry<T> entry : cell) {
+                    offer(nearest, entry, x, y, z, count, maxDistanceSquared, filter);
+                }
+            });
+            // the cells of the next shell are at least this far away
+            float shellDistance = ring * cellSize;
+            if (shellDistance > maxDistance || nearest.size() == count && nearest.peek().distanceSquared <= shellDistance * shellDistance) {
+                break;
+            }
+        }
+        // the queue yields the furthest candidate first
+        List<T> result = Lists.newArrayListWithCapacity(nearest.size());
+        while (!nearest.isEmpty()) {
+            result.add(nearest.poll().value);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private void offer(PriorityQueue<Candidate<T>> nearest, Entry<T> entry, float x, float y, float z, int count,
+                       float maxDistanceSquared, Predicate<? super T> filter) {
+        float distanceSquared = entry.distanceSquared(x, y, z);
+        if (distanceSquared > maxDistanceSquared || nearest.size() == count && distanceSquared >= nearest.peek().distanceSquared) {
+            return;
+        }
+        if (filter.test(entry.value)) {
+            nearest.add(new Candidate<>(entry.value, distanceSquared));
+            if (nearest.size() > count) {
+                nearest.poll();
+            }
+        }
+    }
+
+    private void visitCells(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, CellVisitor<T> visitor) {
+        int fromX = Math.max(cellCoord(minX), minCellX);
+        int fromY = Math.max(cellCoord(minY), minCellY);
+        int fromZ = Math.max(cellCoord(minZ), minCellZ);
+        int toX = Math.min(cellCoord(maxX), maxCellX);
+        int toY = Math.min(cellCoord(maxY), maxCellY);
+        int toZ = Math.min(cellCoord(maxZ), maxCellZ);
+        if (fromX > toX || fromY > toY || fromZ > toZ) {
+            return;
+        }
+        long volume = (long) (toX - fromX + 1) * (toY - fromY + 1) * (toZ - fromZ + 1);
+        if (volume > cells.size()) {
+            // fewer cells are occupied than the box covers, so check the occupied ones instead
+            cells.forEachValue(cell -> {
+                visitor.visit(cell);
+                return true;
+            });
+            return;
+        }
+        for (int cx = fromX; cx <= toX; cx++) {
+            for (int cy = fromY; cy <= toY; cy++) {
+                for (int cz = fromZ; cz <= toZ; cz++) {
+                    visitCell(cx, cy, cz, visitor);
+                }
+            }
+        }
+    }
+
+    private void visitShell(int centerX, int centerY, int centerZ, int ring, CellVisitor<T> visitor) {
+        if (ring == 0) {
+            visitCell(centerX, centerY, centerZ, visitor);
+            return;
+        }
+        for (int dx = -ring; dx <= ring; dx++) {
+            for (int dy = -ring; dy <= ring; dy++) {
+                if (Math.abs(dx) == ring || Math.abs(dy) == ring) {
+                    for (int dz = -ring; dz <= ring; dz++) {
+                        visitCell(centerX + dx, centerY + dy, centerZ + dz, visitor);
+                    }
+                } else {
+                    visitCell(centerX + dx, centerY + dy, centerZ - ring, visitor);
+                    visitCell(centerX + dx, centerY + dy, centerZ + ring, visitor);
+                }
+            }
+        }
+    }
+
+    private void visitCell(int cx, int cy, int cz, CellVisitor<T> visitor) {
+        List<Entry<T>> cell = cells.get(cellKey(cx, cy, cz));
+        if (cell != null) {
+            visitor.visit(cell);
+        }
+    }
+
+    private void addToCell(Entry<T> entry, long cellKey) {
+        List<Entry<T>> cell = cells.get(cellKey);
+        if (cell == null) {
+            cell = Lists.newArrayList();
+            cells.put(cellKey, cell);
+            int cx = cellCoord(entry.x);
+            int cy = cellCoord(entry.y);
+            int cz = cellCoord(entry.z);
+            minCellX = Math.min(minCellX, cx);
+            minCellY = Math.min(minCellY, cy);
+            minCellZ = Math.min(minCellZ, cz);
+            maxCellX = Math.max(maxCellX, cx);
+            maxCellY = Math.max(maxCellY, cy);
+            maxCellZ = Math.max(maxCellZ, cz);
+        }
+        entry.cellKey = cellKey;
+        entry.indexInCell = cell.size();
+        cell.add(entry);
+    }
+
+    private void removeFromCell(Entry<T> entry) {
+        List<Entry<T>> cell = cells.get(entry.cellKey);
+        // swap the last entry of the cell into the gap, so removal does not shift the rest
+        Entry<T> last = cell.remove(cell.size() - 1);
+        if (last != entry) {
+            cell.set(entry.indexInCell, last);
+            last.indexInCell = entry.indexInCell;
+        }
+        if (cell.isEmpty()) {
+            cells.remove(entry.cellKey);
+        }
+    }
+
+    private int cellCoord(float value) {
+        return (int) Math.floor(value / cellSize);
+    }
+
+    private static long cellKey(int cx, int cy, int cz) {
+        return ((cx & COORD_MASK) << (2 * COORD_BITS)) | ((cy & COORD_MASK) << COORD_BITS) | (cz & COORD_MASK);
+    }
+
+    private static int ringToCover(int center, int min, int max) {
+        return Math.max(Math.abs(center - min), Math.abs(max - center));
+    }
+
+    private static long cube(long value) {
+        return value * value * value;
+    }
+
+    @FunctionalInterface
+    private interface CellVisitor<T> {
+        void visit(List<Entry<T>> cell);
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+        private float x;
+        private float y;
+        private float z;
+        private long cellKey;
+        private int indexInCell;
+
+        private Entry(T value) {
+            this.value = value;
+        }
+
+        private void set(float newX, float newY, float newZ) {
+            this.x = newX;
+            this.y = newY;
+            this.z = newZ;
+        }
+
+        private float distanceSquared(float px, float py, float pz) {
+            float dx = x - px;
+            float dy = y - py;
+            float dz = z - pz;
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+
+    private static final class Candidate<T> {
+        private final T value;
+        private final float distanceSquared;
+
+        private Candidate(T value, float distanceSquared) {
+            this.value = value;
+            this.distanceSquared = distanceSquared;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.terasology.utilities.collection;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A hierarchical timing wheel that schedules each of its keys for a single point in time, in whole milliseconds.
+ * Scheduling, rescheduling and cancelling a key take constant time, independent of the number of scheduled keys.
+ * <br><br>
+ * The wheel consists of {@value #LEVELS} levels of {@value #SLOTS} slots each. A slot of the lowest level holds the keys
+ * due at a single millisecond; each slot of a higher level spans all slots of the level below. When time reaches the
+ * slot of a higher level, its keys are distributed into the lower levels. Keys too far in the future for the highest
+ * level wait in its last slot and are redistributed until they fit. Keys scheduled for a time that has already been
+ * advanced over wait in a separate overdue slot that the next advance empties first. An occupancy mask per level lets
+ * {@link #advance(long)} skip empty slots, so advancing costs time proportional to the due keys, not to the time passed.
+ *
+ * @param <T> The type of the keys
+ */
+public final class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 6;
+    /**
+     * The level of the single slot that holds keys scheduled for a time that has already been advanced over.
+     */
+    private static final int OVERDUE = LEVELS;
+
+    private final Entry<T>[][] slots;
+    private final long[] occupied = new long[LEVELS + 1];
+    private final Map<T, Entry<T>> entries = Maps.newHashMap();
+
+    /**
+     * The first millisecond that has not been advanced over yet.
+     */
+    private long currentTime;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel() {
+        slots = (Entry<T>[][]) new Entry[LEVELS + 1][SLOTS];
+    }
+
+    /**
+     * Schedules a key, replacing its previous time if it was already scheduled. A time that has already been advanced
+     * over makes the key due at the next advance.
+     *
+     * @param key  The key to schedule
+     * @param time The time at which the key becomes due
+     */
+    public void schedule(T key, long time) {
+        Preconditions.checkNotNull(key);
+        Entry<T> entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry<>(key);
+            entries.put(key, entry);
+        } else {
+            unlink(entry);
+        }
+        entry.time = time;
+        insert(entry);
+    }
+
+    /**
+     * @param key The key to cancel
+     * @return Whether the key was scheduled
+     */
+    public boolean cancel(T key) {
+        Entry<T> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        unlink(entry);
+        return true;
+    }
+
+    public boolean isScheduled(T key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * @param key A key
+     * @return The time the key is scheduled for, or Long.MAX_VALUE if it is not scheduled
+     */
+    public long getScheduledTime(T key) {
+        Entry<T> entry = entries.get(key);
+        return (entry != null) ? entry.time : Long.MAX_VALUE;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Advances the wheel up to and including the given time, and removes all keys that became due.
+     *
+     * @param time The current time
+     * @return The due keys, in the order of their times
+     */
+    public List<T> advance(long time) {
+        List<T> due = Lists.newArrayList();
+        List<Entry<T>> overdue = Lists.newArrayList();
+        for (Entry<T> entry = detach(OVERDUE, 0); entry != null; entry = entry.next) {
+            overdue.add(entry);
+        }
+        overdue.sort((a, b) -> Long.compare(a.time, b.time));
+        for (Entry<T> entry : overdue) {
+            due.add(entry.key);
+            entries.remove(entry.key);
+        }
+
+        while (currentTime <= time) {
+            long next = findNextEvent();
+            if (next > time) {
+                moveTo(time + 1);
+                break;
+            }
+            moveTo(next);
+            int slot = (int) currentTime & SLOT_MASK;
+            Entry<T> entry = detach(0, slot);
+            while (entry != null) {
+                due.add(entry.key);
+                entries.remove(entry.key);
+                entry = entry.next;
+            }
+            moveTo(currentTime + 1);
+        }
+        return due;
+    }
+
+    /**
+     * @return The next time at which keys become due or have to be moved to a lower level, or Long.MAX_VALUE if nothing
+     * is scheduled.
+     */
+    private long findNextEvent() {
+        long next = Long.MAX_VALUE;
+        if (occupied[0] != 0) {
+            int slot = (int) currentTime & SLOT_MASK;
+            int distance = Long.numberOfTrailingZeros(Long.rotateRight(occupied[0], slot));
+            next = currentTime + distance;
+        }
+        for (int level = 1; level < LEVELS; level++) {
+            if (occupied[level] != 0) {
+                int shift = SLOT_BITS * level;
+                long levelTime = currentTime >>> shift;
+                int slot = (int) levelTime & SLOT_MASK;
+                int distance = Long.numberOfTrailingZeros(Long.rotateRight(occupied[level], slot + 1)) + 1;
+                next = Math.min(next, (levelTime + distance) << shift);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Sets the current time and moves the keys of the higher level slots that start at it down to the lower levels, from
+     * the highest level down so that keys can move more than one level. This has to happen whenever the current time
+     * changes, as {@link #findNextEvent()} only looks at the higher level slots after the current one.
+     */
+    private void moveTo(long time) {
+        currentTime = time;
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((currentTime & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                cascade(level, (int) (currentTime >>> (SLOT_BITS * level)) & SLOT_MASK);
+            }
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        Entry<T> entry = detach(level, slot);
+        while (entry != null) {
+            Entry<T> next = entry.next;
+            insert(entry);
+            entry = next;
+        }
+    }
+
+    private void insert(Entry<T> entry) {
+        long delta = entry.time - currentTime;
+        int level = (delta < SLOTS) ? 0 : (63 - Long.numberOfLeadingZeros(delta)) / SLOT_BITS;
+        int slot;
+        if (delta < 0) {
+            level = OVERDUE;
+            slot = 0;
+        } else if (level < LEVELS) {
+            slot = (int) (entry.time >>> (SLOT_BITS * level)) & SLOT_MASK;
+        } else {
+            level = LEVELS - 1;
+            slot = (int) ((currentTime >>> (SLOT_BITS * level)) + SLOT_MASK) & SLOT_MASK;
+        }
+        entry.level = level;
+        entry.slot = slot;
+        entry.prev = null;
+        entry.next = slots[level][slot];
+        if (entry.next != null) {
+            entry.next.prev = entry;
+        }
+        slots[level][slot] = entry;
+        occupied[level] |= 1L << slot;
+    }
+
+    private void unlink(Entry<T> entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            slots[entry.level][entry.slot] = entry.next;
+            if (entry.next == null) {
+                occupied[entry.level] &= ~(1L << entry.slot);
+            }
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    /**
+     * Empties a slot.
+     *
+     * @return The first entry of the slot, the others are linked through {@link Entry#next}
+     */
+    private Entry<T> detach(int level, int slot) {
+        Entry<T> first = slots[level][slot];
+        slots[level][slot] = null;
+        occupied[level] &= ~(1L << slot);
+        return first;
+    }
+
+    private static final class Entry<T> {
+        private final T key;
+        private long time;
+        private int level;
+        private int slot;
+        private Entry<T> prev;
+        private Entry<T> next;
+
+        Entry(T key) {
+            this.key = key;
+        }
+    }
+}
@@ -19,6 +19,7 @@
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import gnu.trove.iterator.TObjectShortIterator;
@@ -39,6 +40,7 @@
 import org.terasology.world.block.shapes.BlockShape;
 import org.terasology.world.block.tiles.WorldAtlas;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -56,6 +58,7 @@ public class BlockManagerImpl extends BlockManager {
     // we set them to the last id (don't want to use 0 as they would override air)
     private static final short UNKNOWN_ID = (short) 65535;
     private static final int MAX_ID = 65534;
+    private static final int ID_COUNT = 65536;
     private static final ResourceUrn CUBE_SHAPE_URN = new ResourceUrn("engine:cube");
 
     private AssetManager assetManager;
@@ -97,6 +100,7 @@ public void initialise(List<String> registeredBlockFamilies,
         }
         registeredBlockInfo.set(new RegisteredState());
 
+        List<BlockFamily> families = Lists.newArrayListWithCapacity(registeredBlockFamilies.size());
         for (String rawFamilyUri : registeredBlockFamilies) {
             try {
                 BlockUri familyUri = new BlockUri(rawFamilyUri);
@@ -115,12 +119,14 @@ public void initialise(List<String> registeredBlockFamilies,
                             }
                         }
                     }
-                    registerFamily(family.get());
+                    families.add(family.get());
                 }
             } catch (BlockUriParseException e) {
                 logger.error("Failed to parse block family, skipping", e);
             }
         }
+        // registered in one go, so the block lookup table is only copied once
+        registerFamilies(families);
     }
 
     public void dispose() {
@@ -173,20 +179,28 @@ public void receiveFamilyRegistration(BlockUri familyUri, Map<String, Integer> r
     @VisibleForTesting
     protected void registerFamily(BlockFamily family) {
         Preconditions.checkNotNull(family);
-        logger.info("Registered {}", family);
+        registerFamilies(Collections.singletonList(family));
+    }
+
+    private void registerFamilies(Collection<BlockFamily> families) {
         lock.lock();
         try {
             RegisteredState newState = new RegisteredState(registeredBlockInfo.get());
-            newState.registeredFamilyByUri.put(family.getURI(), family);
-            for (Block block : family.getBlocks()) {
-                registerBlock(block, newState);
+            for (BlockFamily family : families) {
+                logger.info("Registered {}", family);
+                newState.registeredFamilyByUri.put(family.getURI(), family);
+                for (Block block : family.getBlocks()) {
+                    registerBlock(block, newState);
+                }
             }
             registeredBlockInfo.set(newState);
         } finally {
             lock.unlock();
         }
-        for (BlockRegistrationListener listener : listeners) {
-            listener.onBlockFamilyRegistered(family);
+        for (BlockFamily family : families) {
+            for (BlockRegistrationListener listener : listeners) {
+                listener.onBlockFamilyRegistered(family);
+            }
         }
     }
 
@@ -194,6 +208,7 @@ private void registerBlock(Block block, RegisteredState newState) {
         if (block.getId() != UNKNOWN_ID) {
             logger.info("Registered Block {} with id {}", block, block.getId());
             newState.blocksById.put(block.getId(), block);
+            newState.blockTable[block.getId() & 0xFFFF] = block;
             newState.idByUri.put(block.getURI(), block.getId());
         } else {
             logger.info("Failed to register block {} - no id", block, block.getId());
@@ -314,7 +329,7 @@ public Block getBlock(BlockUri uri) {
 
     @Override
     public Block getBlock(short id) {
-        Block result = registeredBlockInfo.get().blocksById.get(id);
+        Block result = registeredBlockInfo.get().blockTable[id & 0xFFFF];
         if (result == null) {
             return getAirBlock();
         }
@@ -349,11 +364,18 @@ private static class RegisteredState {
         private final TShortObjectMap<Block> blocksById;
         private final TObjectShortMap<BlockUri> idByUri;
 
+        /**
+         * Blocks indexed by their unsigned id, so reading the block of a voxel is a single array access.
+         * Like the rest of the state it is never modified once published, registration copies it instead.
+         */
+        private final Block[] blockTable;
+
         RegisteredState() {
             this.registeredFamilyByUri = Maps.newHashMap();
             this.blocksByUri = Maps.newHashMap();
             this.blocksById = new TShortObjectHashMap<>();
             this.idByUri = new TObjectShortHashMap<>();
+            this.blockTable = new Block[ID_COUNT];
         }
 
         RegisteredState(RegisteredState oldState) {
@@ -361,6 +383,7 @@ private static class RegisteredState {
             this.blocksByUri = Maps.newHashMap(oldState.blocksByUri);
             this.blocksById = new TShortObjectHashMap<>(oldState.blocksById);
             this.idByUri = new TObjectShortHashMap<>(oldState.idByUri);
+            this.blockTable = Arrays.copyOf(oldState.blockTable, ID_COUNT);
         }
     }
 
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2016 MovingBlocks
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.terasology.world.block.tiles;
+
+import com.google.common.collect.Lists;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.terasology.module.Module;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps built block tile atlases on disk, so that a later start with the same tiles can read the atlas and its mipmaps
+ * from a file instead of building them again.
+ * <br><br>
+ * Atlases are stored under a key hashed from the pixels of every tile, the maximum atlas size and the id and version of
+ * every module in the environment. The most recently used {@value #MAX_CACHED_ATLASES} atlases are kept.
+ */
+public class TileAtlasCache {
+    private static final Logger logger = LoggerFactory.getLogger(TileAtlasCache.class);
+
+    private static final int MAGIC = 0x54494c45;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 5 * Integer.BYTES;
+    private static final int MAX_CACHED_ATLASES = 4;
+    private static final String EXTENSION = ".atlas";
+
+    private final Path directory;
+    private final String moduleFingerprint;
+
+    /**
+     * @param directory The directory to keep the atlases in, created when the first atlas is stored
+     * @param modules   The modules the tiles were loaded from
+     */
+    public TileAtlasCache(Path directory, Iterable<Module> modules) {
+        this(directory, fingerprint(modules));
+    }
+
+    TileAtlasCache(Path directory, String moduleFingerprint) {
+        this.directory = directory;
+        this.moduleFingerprint = moduleFingerprint;
+    }
+
+    /**
+     * @param maxAtlasSize The maximum size of the atlas, which decides the tile size together with the tiles
+     * @param layers       The tiles of each layer of the atlas, in atlas order, with null for tiles a layer lacks
+     * @return The key to load and store the atlas built from these tiles under
+     */
+    public String computeKey(int maxAtlasSize, List<List<BlockTile>> layers) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        hasher.putInt(FORMAT_VERSION).putInt(maxAtlasSize).putString(moduleFingerprint, StandardCharsets.UTF_8);
+        for (List<BlockTile> layer : layers) {
+            hasher.putInt(layer.size());
+            for (BlockTile tile : layer) {
+                if (tile == null) {
+                    hasher.putInt(0);
+                    continue;
+                }
+                BufferedImage image = tile.getImage();
+                int width = image.getWidth();
+                int height = image.getHeight();
+                hasher.putInt(width).putInt(height);
+                for (int pixel : image.getRGB(0, 0, width, height, null, 0, width)) {
+                    hasher.putInt(pixel);
+                }
+            }
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * @param key        The key the atlas was stored under
+     * @param atlasSize  The expected size of the first mipmap of the atlas
+     * @param numMipMaps The expected number of mipmaps, each half the size of the one before
+     * @param layerCount The expected number of layers
+     * @return The RGBA data of each mipmap of each layer, read into direct buffers, or empty if the atlas is not cached
+     * or the cached file does not match the expected sizes
+     */
+    public Optional<ByteBuffer[][]> load(String key, int atlasSize, int numMipMaps, int layerCount) {
+        Path file = directory.resolve(key + EXTENSION);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        ByteBuffer[][] layers = new ByteBuffer[layerCount][numMipMaps];
+        // the file is read rather than mapped, as a mapped file stays open until the buffer is garbage collected,
+        // which keeps it from being replaced or evicted on Windows
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (!read(channel, header) || header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION
+                    || header.getInt() != atlasSize || header.getInt() != numMipMaps || header.getInt() != layerCount) {
+                logger.warn("Ignoring cached block tile atlas {} with a different format", file);
+                return Optional.empty();
+            }
+            for (int layer = 0; layer < layerCount; layer++) {
+                for (int level = 0; level < numMipMaps; level++) {
+                    int size = atlasSize >> level;
+                    ByteBuffer data = ByteBuffer.allocateDirect(4 * size * size);
+                    if (!read(channel, data)) {
+                        logger.warn("Ignoring truncated cached block tile atlas {}", file);
+                        return Optional.empty();
+                    }
+                    layers[layer][level] = data;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read cached block tile atlas {}", file, e);
+            return Optional.empty();
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.debug("Failed to mark cached block tile atlas {} as used", file, e);
+        }
+        return Optional.of(layers);
+    }
+
+    /**
+     * Writes the atlas to a temporary file that then replaces the file for the key, so that an interrupted write never
+     * leaves a partial atlas behind. Failures are logged, as the atlas can always be built again.
+     *
+     * @param key       The key to store the atlas under
+     * @param atlasSize The size of the first mipmap of the atlas
+     * @param layers    The RGBA data of each mipmap of each layer
+     */
+    public void store(String key, int atlasSize, ByteBuffer[][] layers) {
+        Path file = directory.resolve(key + EXTENSION);
+        Path temporaryFile = null;
+        try {
+            Files.createDirectories(directory);
+            temporaryFile = Files.createTempFile(directory, key, ".tmp");
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(atlasSize).putInt(layers[0].length).putInt(layers.length);
+                header.flip();
+                write(channel, header);
+                for (ByteBuffer[] layer : layers) {
+                    for (ByteBuffer level : layer) {
+                        ByteBuffer data = level.duplicate();
+                        data.rewind();
+                        write(channel, data);
+                    }
+                }
+            }
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Failed to cache block tile atlas {}", file, e);
+            if (temporaryFile != null) {
+                try {
+                    Files.deleteIfExists(temporaryFile);
+                } catch (IOException ignored) {
+                    // Left for the next eviction to find
+                }
+            }
+            return;
+        }
+        evict(file);
+    }
+
+    private void evict(Path keep) {
+        List<Path> files = Lists.newArrayList();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            logger.warn("Failed to list cached block tile atlases", e);
+            return;
+        }
+        files.remove(keep);
+        files.sort(Collections.reverseOrder(Comparator.comparing(TileAtlasCache::lastModified)));
+        for (Path file : files.subList(Math.min(files.size(), MAX_CACHED_ATLASES - 1), files.size())) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.debug("Failed to remove old cached block tile atlas {}", file, e);
+            }
+        }
+    }
+
+    private static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * Fills the buffer from the channel and flips it for reading.
+     *
+     * @return Whether the buffer was filled before the end of the file
+     */
+    private static boolean read(FileChannel channel, ByteBuffer data) throws IOException {
+        while (data.hasRemaining() && channel.read(data) >= 0) {
+            // keep reading until the buffer is full or the file ends
+        }
+        data.flip();
+        return data.limit() == data.capacity();
+    }
+
+    private static void write(FileChannel channel, ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    private static String fingerprint(Iterable<Module> modules) {
+        List<String> ids = Lists.newArrayList();
+        for (Module module : modules) {
+            ids.add(module.getId() + ":" + module.getVersion());
+        }
+        Collections.sort(ids);
+        return String.join(";", ids);
+    }
+}
@@ -19,7 +19,7 @@
 import com.google.common.collect.Maps;
 import com.google.common.collect.Queues;
 import com.google.common.math.IntMath;
-import de.matthiasmann.twl.utils.PNGDecoder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import gnu.trove.map.TObjectIntMap;
 import gnu.trove.map.hash.TObjectIntHashMap;
 import org.slf4j.Logger;
@@ -43,16 +43,22 @@
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.BufferedOutputStream;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.math.RoundingMode;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 /**
@@ -64,6 +70,7 @@ public class WorldAtlasImpl implements WorldAtlas {
     private static final Color UNIT_Z_COLOR = new Color(0.5f, 0.5f, 1.0f, 1.0f);
     private static final Color TRANSPARENT_COLOR = new Color(0.0f, 0.0f, 0.0f, 0.0f);
     private static final Color BLACK_COLOR = new Color(0.0f, 0.0f, 0.0f, 1.0f);
+    private static final int ATLAS_LAYERS = 3;
 
     private int maxAtlasSize = 4096;
     private int atlasSize = 256;
@@ -79,11 +86,22 @@ public class WorldAtlasImpl implements WorldAtlas {
 
     private Consumer<BlockTile> tileReloadListener = reloadQueue::add;
 
+    private final TileAtlasCache atlasCache;
+
     /**
      * @param maxAtlasSize The maximum dimensions of the atlas (both width and height, in pixels)
      */
     public WorldAtlasImpl(int maxAtlasSize) {
+        this(maxAtlasSize, null);
+    }
+
+    /**
+     * @param maxAtlasSize The maximum dimensions of the atlas (both width and height, in pixels)
+     * @param atlasCache   Where built atlases are kept between runs, or null to always build the atlas
+     */
+    public WorldAtlasImpl(int maxAtlasSize, TileAtlasCache atlasCache) {
         this.maxAtlasSize = maxAtlasSize;
+        this.atlasCache = atlasCache;
         Assets.list(BlockTile.class).forEach(this::indexTile);
         buildAtlas();
     }
@@ -223,9 +241,10 @@ private void buildAtlas() {
         calculateAtlasSizes();
 
         int numMipMaps = getNumMipmaps();
-        ByteBuffer[] data = createAtlasMipmaps(numMipMaps, TRANSPARENT_COLOR, tiles, "tiles.png");
-        ByteBuffer[] dataNormal = createAtlasMipmaps(numMipMaps, UNIT_Z_COLOR, tilesNormal, "tilesNormal.png", tilesGloss);
-        ByteBuffer[] dataHeight = createAtlasMipmaps(numMipMaps, BLACK_COLOR, tilesHeight, "tilesHeight.png");
+        ByteBuffer[][] layers = loadOrCreateAtlasLayers(numMipMaps);
+        ByteBuffer[] data = layers[0];
+        ByteBuffer[] dataNormal = layers[1];
+        ByteBuffer[] dataHeight = layers[2];
 
         TextureData terrainTexData = new TextureData(atlasSize, atlasSize, data, Texture.WrapMode.CLAMP, Texture.FilterMode.NEAREST);
         Texture terrainTex = Assets.generateAsset(new ResourceUrn("engine:terrain"), terrainTexData, Texture.class);
@@ -268,56 +287,154 @@ private void createTextureAtlas(final Texture texture) {
         }
     }
 
-    private ByteBuffer[] createAtlasMipmaps(int numMipMaps, Color initialColor, List<BlockTile> tileImages, String screenshotName) {
-        return createAtlasMipmaps(numMipMaps, initialColor, tileImages, screenshotName, Lists.newArrayList());
+    private ByteBuffer[][] loadOrCreateAtlasLayers(int numMipMaps) {
+        long startTime = System.nanoTime();
+        String key = null;
+        if (atlasCache != null) {
+            key = atlasCache.computeKey(maxAtlasSize, Arrays.asList(tiles, tilesNormal, tilesHeight, tilesGloss));
+            Optional<ByteBuffer[][]> cached = atlasCache.load(key, atlasSize, numMipMaps, ATLAS_LAYERS);
+            if (cached.isPresent()) {
+                logger.info("Loaded block tile atlas of {} tiles from the cache in {} ms", tiles.size(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+                return cached.get();
+            }
+        }
+
+        ByteBuffer[][] layers = createAtlasLayers(numMipMaps);
+        logger.info("Built block tile atlas of {} tiles in {} ms", tiles.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        if (atlasCache != null) {
+            atlasCache.store(key, atlasSize, layers);
+        }
+        return layers;
     }
 
-    private ByteBuffer[] createAtlasMipmaps(int numMipMaps, Color initialColor, List<BlockTile> tileImages, String screenshotName, List<BlockTile> alphaMaskTiles) {
-        ByteBuffer[] data = new ByteBuffer[numMipMaps];
-        for (int i = 0; i < numMipMaps; ++i) {
-            BufferedImage image = generateAtlas(i, tileImages, initialColor);
-            if (alphaMaskTiles.size() > 0) {
-                BufferedImage alphaMask = generateAtlas(i, alphaMaskTiles, Color.BLACK);
-                storeGreyscaleMapIntoAlpha(image, alphaMask);
+    /**
+     * Packs the tiles of every layer and mipmap straight into RGBA buffers. The tiles are split into ranges that are
+     * packed in parallel; each range covers its own part of the atlas, and the gloss tiles only write the alpha channel
+     * of the normal layer, so no two jobs write the same bytes.
+     */
+    private ByteBuffer[][] createAtlasLayers(int numMipMaps) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        ByteBuffer[][] layers = new ByteBuffer[ATLAS_LAYERS][numMipMaps];
+        List<Callable<Void>> jobs = Lists.newArrayList();
+        for (int level = 0; level < numMipMaps; level++) {
+            int size = atlasSize >> level;
+            for (int layer = 0; layer < ATLAS_LAYERS; layer++) {
+                layers[layer][level] = ByteBuffer.allocateDirect(4 * size * size);
             }
+            addPackingJobs(jobs, threads, tiles, TRANSPARENT_COLOR, level, layers[0][level], Channels.RGBA);
+            addPackingJobs(jobs, threads, tilesNormal, UNIT_Z_COLOR, level, layers[1][level], Channels.RGB);
+            addPackingJobs(jobs, threads, tilesGloss, Color.BLACK, level, layers[1][level], Channels.ALPHA_FROM_BLUE);
+            addPackingJobs(jobs, threads, tilesHeight, BLACK_COLOR, level, layers[2][level], Channels.RGBA);
+        }
 
-            if (i == 0) {
-                try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(PathManager.getInstance().getScreenshotPath().resolve(screenshotName)))) {
-                    ImageIO.write(image, "png", stream);
-                } catch (IOException e) {
-                    logger.warn("Failed to write atlas");
-                }
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("Tile-Atlas-%d").setDaemon(true).build());
+        try {
+            for (Future<Void> result : executor.invokeAll(jobs)) {
+                result.get();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Interrupted while building the block tile atlas, finishing on this thread");
+            runJobs(jobs);
+        } catch (ExecutionException e) {
+            logger.error("Failed to build the block tile atlas in parallel, finishing on this thread", e.getCause());
+            runJobs(jobs);
+        }
+
+        // Only written when the atlas is built, and off the loading thread, since they are just for looking at
+        executor.submit(() -> writeScreenshot(layers[0][0], "tiles.png"));
+        executor.submit(() -> writeScreenshot(layers[1][0], "tilesNormal.png"));
+        executor.submit(() -> writeScreenshot(layers[2][0], "tilesHeight.png"));
+        executor.shutdown();
+        return layers;
+    }
 
-            try (ByteArrayOutputStream bos = new ByteArrayOutputStream()) {
-                ImageIO.write(image, "png", bos);
-                PNGDecoder decoder = new PNGDecoder(new ByteArrayInputStream(bos.toByteArray()));
-                ByteBuffer buf = ByteBuffer.allocateDirect(4 * decoder.getWidth() * decoder.getHeight());
-                decoder.decode(buf, decoder.getWidth() * 4, PNGDecoder.Format.RGBA);
-                buf.flip();
-                data[i] = buf;
-            } catch (IOException e) {
-                logger.error("Failed to create atlas texture");
+    private void addPackingJobs(List<Callable<Void>> jobs, int threads, List<BlockTile> tileImages, Color clearColor,
+                                int mipMapLevel, ByteBuffer target, Channels channels) {
+        int tilesPerJob = Math.max(1, IntMath.divide(tileImages.size(), 2 * threads, RoundingMode.CEILING));
+        for (int first = 0; first < tileImages.size(); first += tilesPerJob) {
+            int from = first;
+            int to = Math.min(tileImages.size(), first + tilesPerJob);
+            jobs.add(() -> {
+                packTiles(tileImages, from, to, clearColor, mipMapLevel, target, channels);
+                return null;
+            });
+        }
+    }
+
+    private static void runJobs(List<Callable<Void>> jobs) {
+        for (Callable<Void> job : jobs) {
+            try {
+                job.call();
+            } catch (Exception e) {
+                logger.error("Failed to create atlas texture", e);
             }
         }
-        return data;
     }
 
-    // Ref: http://stackoverflow.com/questions/221830/set-bufferedimage-alpha-mask-in-java/8058442#8058442
-    public void storeGreyscaleMapIntoAlpha(BufferedImage imageWithoutAlpha, BufferedImage greyscaleImage) {
-        int width = imageWithoutAlpha.getWidth();
-        int height = imageWithoutAlpha.getHeight();
+    /**
+     * Scales the tiles from one index up to another to the tile size of the mipmap level and writes their pixels into
+     * the RGBA data of the atlas. Missing tiles are filled with the clear color.
+     */
+    private void packTiles(List<BlockTile> tileImages, int from, int to, Color clearColor, int mipMapLevel, ByteBuffer target,
+                           Channels channels) {
+        int size = atlasSize >> mipMapLevel;
+        int textureSize = tileSize >> mipMapLevel;
+        int tilesPerDim = atlasSize / tileSize;
+        int clearPixel = clearColor.getRGB();
+        int[] pixels = new int[textureSize * textureSize];
 
-        int[] imagePixels = imageWithoutAlpha.getRGB(0, 0, width, height, null, 0, width);
-        int[] maskPixels = greyscaleImage.getRGB(0, 0, width, height, null, 0, width);
+        for (int index = from; index < to; ++index) {
+            BlockTile tile = tileImages.get(index);
+            if (tile != null) {
+                BufferedImage scaled = new BufferedImage(textureSize, textureSize, BufferedImage.TYPE_INT_ARGB);
+                Graphics g = scaled.getGraphics();
+                g.drawImage(tile.getImage().getScaledInstance(textureSize, textureSize, Image.SCALE_SMOOTH), 0, 0, null);
+                g.dispose();
+                scaled.getRGB(0, 0, textureSize, textureSize, pixels, 0, textureSize);
+            } else {
+                Arrays.fill(pixels, clearPixel);
+            }
 
-        for (int i = 0; i < imagePixels.length; i++) {
-            int color = imagePixels[i] & 0x00ffffff; // Mask preexisting alpha
-            int alpha = maskPixels[i] << 24; // Shift blue to alpha
-            imagePixels[i] = color | alpha;
+            int posX = (index % tilesPerDim) * textureSize;
+            int posY = (index / tilesPerDim) * textureSize;
+            for (int y = 0; y < textureSize; y++) {
+                int offset = ((posY + y) * size + posX) * 4;
+                for (int x = 0; x < textureSize; x++, offset += 4) {
+                    int pixel = pixels[y * textureSize + x];
+                    if (channels == Channels.ALPHA_FROM_BLUE) {
+                        target.put(offset + 3, (byte) pixel);
+                        continue;
+                    }
+                    target.put(offset, (byte) (pixel >> 16));
+                    target.put(offset + 1, (byte) (pixel >> 8));
+                    target.put(offset + 2, (byte) pixel);
+                    if (channels == Channels.RGBA) {
+                        target.put(offset + 3, (byte) (pixel >> 24));
+                    }
+                }
+            }
         }
+    }
 
-        imageWithoutAlpha.setRGB(0, 0, width, height, imagePixels, 0, width);
+    private void writeScreenshot(ByteBuffer data, String screenshotName) {
+        int size = atlasSize;
+        int[] pixels = new int[size * size];
+        for (int i = 0; i < pixels.length; i++) {
+            int offset = i * 4;
+            pixels[i] = (data.get(offset + 3) & 0xff) << 24 | (data.get(offset) & 0xff) << 16
+                    | (data.get(offset + 1) & 0xff) << 8 | (data.get(offset + 2) & 0xff);
+        }
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, size, size, pixels, 0, size);
+        try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(PathManager.getInstance().getScreenshotPath().resolve(screenshotName)))) {
+            ImageIO.write(image, "png", stream);
+        } catch (IOException e) {
+            logger.warn("Failed to write atlas");
+        }
     }
 
     // The atlas is configured using the following constraints...
@@ -346,26 +463,9 @@ private void calculateAtlasSizes() {
         }
     }
 
-    private BufferedImage generateAtlas(int mipMapLevel, List<BlockTile> tileImages, Color clearColor) {
-        int size = atlasSize / (1 << mipMapLevel);
-        int textureSize = tileSize / (1 << mipMapLevel);
-        int tilesPerDim = atlasSize / tileSize;
-
-        BufferedImage result = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
-        Graphics g = result.getGraphics();
-
-        g.setColor(clearColor);
-        for (int index = 0; index < tileImages.size(); ++index) {
-            int posX = (index) % tilesPerDim;
-            int posY = (index) / tilesPerDim;
-            BlockTile tile = tileImages.get(index);
-            if (tile != null) {
-                g.drawImage(tile.getImage().getScaledInstance(textureSize, textureSize, Image.SCALE_SMOOTH), posX * textureSize, posY * textureSize, null);
-            } else {
-                g.fillRect(posX * textureSize, posY * textureSize, textureSize, textureSize);
-            }
-        }
-
-        return result;
+    private enum Channels {
+        RGBA,
+        RGB,
+        ALPHA_FROM_BLUE
     }
 }